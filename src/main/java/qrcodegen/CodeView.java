@@ -18,6 +18,7 @@
  */
 package qrcodegen;
 
+import qrcodegen.qrcode.ModuleMatrix;
 import qrcodegen.tools.ImmutableDimension;
 
 import javax.swing.*;
@@ -26,6 +27,9 @@ import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
+import java.awt.event.MouseWheelEvent;
+import java.awt.event.MouseWheelListener;
+import java.awt.image.BufferedImage;
 import java.util.ResourceBundle;
 
 /**
@@ -36,6 +40,8 @@ class CodeView extends javax.swing.JDialog {
 
 	/** The resourse bundle for this class QRView */
 	private static final ResourceBundle RES = ResourceBundle.getBundle("qrcodegen/CodeView");
+	/** The factor one step of the mouse wheel zooms by */
+	private static final double ZOOM_STEP = 1.25;
 	private final ActionListener copyListener;
 
 	static CodeView newInstance(Frame parent, boolean modal) {
@@ -51,6 +57,7 @@ class CodeView extends javax.swing.JDialog {
 		int mask = Toolkit.getDefaultToolkit().getMenuShortcutKeyMask();
 		KeyStroke ks = KeyStroke.getKeyStroke(KeyEvent.VK_C, mask | KeyEvent.SHIFT_DOWN_MASK);
 		copyQRCodeMenuItem.setAccelerator(ks);
+		pictureLabel.addMouseWheelListener(new ZoomListener());
 	}
 
 	/**
@@ -86,17 +93,42 @@ class CodeView extends javax.swing.JDialog {
 		return pictureLabel.getText();
 	}
 
-	void setQRCode(Image newImage) {
-		ImageIcon icon;
-		if (newImage == null) {
-			icon = null;
-		} else {
-			icon = new ImageIcon(newImage);
-			ImmutableDimension dim = new ImmutableDimension(icon.getIconWidth(), icon.getIconHeight());
-			if (!pictureLabel.getSize().equals(dim.asAwtDimension())) {
-				setPictureSize(dim);
+	/**
+	 * Shows the given QR Code. If it has the same geometry as the QR Code
+	 * shown, only the rows of modules that have changed are repainted.
+	 *
+	 * @param image the rendered image, or null to show no QR Code
+	 * @param matrix the module matrix the image has been rendered from. May
+	 * be null if image is null.
+	 * @param moduleSize the module size of the image
+	 */
+	void setQRCode(BufferedImage image, ModuleMatrix matrix, int moduleSize) {
+		Icon current = pictureLabel.getIcon();
+		if (image == null) {
+			pictureLabel.setIcon(null);
+			return;
+		}
+		if (current instanceof ModuleMatrixIcon) {
+			ModuleMatrixIcon icon = (ModuleMatrixIcon) current;
+			Rectangle dirty = icon.update(image, matrix, moduleSize);
+			if (dirty != null) {
+				Point location = icon.getLocation();
+				if (location == null) {
+					pictureLabel.repaint();
+				} else if (!dirty.isEmpty()) {
+					pictureLabel.repaint(location.x + dirty.x, location.y + dirty.y, dirty.width, dirty.height);
+				}
+				return;
 			}
 		}
+		ModuleMatrixIcon icon = new ModuleMatrixIcon(image, matrix, moduleSize);
+		if (current instanceof ModuleMatrixIcon) {
+			icon.setZoom(((ModuleMatrixIcon) current).getZoom());
+		}
+		ImmutableDimension dim = new ImmutableDimension(icon.getIconWidth(), icon.getIconHeight());
+		if (!pictureLabel.getSize().equals(dim.asAwtDimension())) {
+			setPictureSize(dim);
+		}
 		pictureLabel.setIcon(icon);
 	}
 
@@ -223,6 +255,25 @@ class CodeView extends javax.swing.JDialog {
         pack();
     }// </editor-fold>//GEN-END:initComponents
 
+	/**
+	 * Zooms the QR Code when the mouse wheel is turned while the control key
+	 * is pressed.
+	 */
+	private final class ZoomListener implements MouseWheelListener {
+
+		@Override
+		public void mouseWheelMoved(MouseWheelEvent e) {
+			Icon current = pictureLabel.getIcon();
+			if (!e.isControlDown() || !(current instanceof ModuleMatrixIcon)) {
+				return;
+			}
+			ModuleMatrixIcon icon = (ModuleMatrixIcon) current;
+			icon.setZoom(icon.getZoom() * Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation()));
+			setPictureSize(new ImmutableDimension(icon.getIconWidth(), icon.getIconHeight()));
+			pictureLabel.repaint();
+		}
+	}
+
 	/**
 	 * @param args the command line arguments
 	 */
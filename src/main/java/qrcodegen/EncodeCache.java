@@ -0,0 +1,234 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import net.jcip.annotations.GuardedBy;
+
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A least recently used cache of encoded QR Codes, bounded by the number of
+ * entries and by their estimated memory usage. The key consists of the
+ * content, the error correction level, the character encoding and the
+ * requested version of an {@link EncodeRequest}; the parameters used to render
+ * a QR Code are not part of the key. This class is thread-safe.
+ *
+ * The cached QRCode instances are shared, so they must never be modified.
+ * Each QR Code is cached together with its packed module matrix.
+ *
+ * @author Stefan Ganzer
+ */
+public final class EncodeCache {
+
+	/** Estimated memory usage of an entry apart from its content and matrix */
+	private static final int ENTRY_OVERHEAD = 256;
+	private final int maxEntries;
+	private final long maxBytes;
+	@GuardedBy("this")
+	private final LinkedHashMap<Key, Entry> map = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+	@GuardedBy("this")
+	private long bytes;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * Creates a new EncodeCache.
+	 *
+	 * @param maxEntries the maximum number of entries
+	 * @param maxBytes the maximum estimated memory usage of all entries in
+	 * bytes
+	 *
+	 * @throws IllegalArgumentException if maxEntries &lt; 1 or maxBytes &lt; 1
+	 */
+	public EncodeCache(int maxEntries, long maxBytes) {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException(Integer.toString(maxEntries) + " < 1");
+		}
+		if (maxBytes < 1) {
+			throw new IllegalArgumentException(Long.toString(maxBytes) + " < 1");
+		}
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Returns the cached symbol for the given request, or null if there is
+	 * none.
+	 *
+	 * @param request the request
+	 *
+	 * @return the cached symbol for the given request, or null
+	 */
+	EncodedSymbol get(EncodeRequest request) {
+		assert request != null;
+		Entry e;
+		synchronized (this) {
+			e = map.get(new Key(request));
+		}
+		if (e == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		return e.symbol;
+	}
+
+	/**
+	 * Adds the symbol encoded for the given request, evicting the least
+	 * recently used entries if necessary. A symbol that alone exceeds the
+	 * memory bound isn't cached.
+	 *
+	 * @param request the request
+	 * @param symbol the symbol encoded for the request
+	 */
+	void put(EncodeRequest request, EncodedSymbol symbol) {
+		assert request != null;
+		assert symbol != null;
+		long size = estimateSize(request.getContent(), symbol);
+		if (size > maxBytes) {
+			return;
+		}
+		int evicted = 0;
+		synchronized (this) {
+			Entry old = map.put(new Key(request), new Entry(symbol, size));
+			if (old != null) {
+				bytes -= old.size;
+			}
+			bytes += size;
+			Iterator<Entry> it = map.values().iterator();
+			while ((map.size() > maxEntries || bytes > maxBytes) && it.hasNext()) {
+				Entry eldest = it.next();
+				it.remove();
+				bytes -= eldest.size;
+				evicted++;
+			}
+		}
+		evictions.addAndGet(evicted);
+	}
+
+	private static long estimateSize(String content, EncodedSymbol symbol) {
+		long size = ENTRY_OVERHEAD + 2L * content.length();
+		ByteMatrix matrix = symbol.getCode().getMatrix();
+		// One byte per module plus one array header per row
+		size += (long) matrix.getHeight() * (matrix.getWidth() + 16);
+		// One bit per module, each row starting at a new long
+		size += (long) matrix.getHeight() * ((matrix.getWidth() + 63) / 64) * 8;
+		return size;
+	}
+
+	/**
+	 * Removes all entries. The counters are not reset.
+	 */
+	public synchronized void clear() {
+		map.clear();
+		bytes = 0;
+	}
+
+	public synchronized int size() {
+		return map.size();
+	}
+
+	/**
+	 * Returns the estimated memory usage of all entries in bytes.
+	 *
+	 * @return the estimated memory usage of all entries in bytes
+	 */
+	public synchronized long getEstimatedBytes() {
+		return bytes;
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	@Override
+	public String toString() {
+		return "EncodeCache{" + "size=" + size() + ", bytes=" + getEstimatedBytes() + ", hits=" + getHitCount() + ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + '}';
+	}
+
+	private static final class Key {
+
+		private final String content;
+		private final ErrorCorrectionLevel errorCorrectionLevel;
+		/** May be null */
+		private final Charset charset;
+		private final int version;
+		private final int hashCode;
+
+		Key(EncodeRequest request) {
+			this.content = request.getContent();
+			this.errorCorrectionLevel = request.getErrorCorrectionLevel();
+			this.charset = request.getCharacterEncoding();
+			this.version = request.getVersion();
+			int result = 17;
+			result = 31 * result + content.hashCode();
+			result = 31 * result + errorCorrectionLevel.hashCode();
+			result = 31 * result + (charset == null ? 0 : charset.hashCode());
+			result = 31 * result + version;
+			this.hashCode = result;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof Key)) {
+				return false;
+			}
+			Key k = (Key) other;
+			return hashCode == k.hashCode
+					&& version == k.version
+					&& errorCorrectionLevel == k.errorCorrectionLevel
+					&& (charset == null ? k.charset == null : charset.equals(k.charset))
+					&& content.equals(k.content);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+
+	private static final class Entry {
+
+		final EncodedSymbol symbol;
+		final long size;
+
+		Entry(EncodedSymbol symbol, long size) {
+			this.symbol = symbol;
+			this.size = size;
+		}
+	}
+}
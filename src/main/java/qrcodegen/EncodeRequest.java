@@ -0,0 +1,332 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import qrcodegen.QRCodeGenerator.Modus;
+import qrcodegen.qrcode.renderer.Raster;
+import qrcodegen.tools.ImmutableDimension;
+
+import java.nio.charset.Charset;
+
+/**
+ * The content of a QR Code and the parameters to encode and render it with.
+ * Instances of this class are immutable and can be shared between threads.
+ * Use a {@link Builder} to create them.
+ *
+ * @author Stefan Ganzer
+ */
+public final class EncodeRequest {
+
+	private static final Charset DEFAULT_CHARACTER_SET = Charset.forName("ISO-8859-1");
+	/** Version number that makes the encoder choose the smallest version the
+	 * content fits into */
+	public static final int AUTOMATIC_VERSION = 0;
+	private static final int MAX_VERSION = 40;
+	private static final ImmutableDimension NO_SIZE_LIMIT = new ImmutableDimension(Integer.MAX_VALUE, Integer.MAX_VALUE);
+	private final String content;
+	private final ErrorCorrectionLevel errorCorrectionLevel;
+	/** May be null */
+	private final Charset charset;
+	private final Modus modus;
+	private final ImmutableDimension requestedDimension;
+	private final int moduleSize;
+	private final ImmutableDimension maxImageSize;
+	/** The version to use, or 0 to use the smallest version that fits */
+	private final int version;
+	private final boolean structuredAppend;
+
+	public static final class Builder {
+
+		private final String content;
+		private ErrorCorrectionLevel errorCorrectionLevel = ErrorCorrectionLevel.L;
+		private Charset charset = DEFAULT_CHARACTER_SET;
+		private Modus modus = Modus.FIXED_SIZE;
+		private ImmutableDimension requestedDimension = BarCodeSize.LARGE.getImmutableDimension();
+		private int moduleSize = 1;
+		private ImmutableDimension maxImageSize = NO_SIZE_LIMIT;
+		private int version = AUTOMATIC_VERSION;
+		private boolean structuredAppend;
+
+		/**
+		 * Creates a new Builder for the given content. The initial error
+		 * correction level is L, the character encoding is ISO-8859-1, the
+		 * modus is FIXED_SIZE with a dimension of BarCodeSize.LARGE, and the
+		 * image size is not limited.
+		 *
+		 * @param content the content to encode
+		 *
+		 * @throws NullPointerException if content is null
+		 */
+		public Builder(String content) {
+			if (content == null) {
+				throw new NullPointerException();
+			}
+			this.content = content;
+		}
+
+		/**
+		 * Sets the error correction level.
+		 *
+		 * @param level the error correction level
+		 *
+		 * @return this Builder instance
+		 *
+		 * @throws NullPointerException if level is null
+		 */
+		public Builder errorCorrectionLevel(ErrorCorrectionLevel level) {
+			if (level == null) {
+				throw new NullPointerException();
+			}
+			this.errorCorrectionLevel = level;
+			return this;
+		}
+
+		/**
+		 * Sets the character encoding. If it is null, no character encoding is
+		 * passed to the encoder, and no ECI segment is written.
+		 *
+		 * @param charset the character encoding, may be null
+		 *
+		 * @return this Builder instance
+		 */
+		public Builder characterEncoding(Charset charset) {
+			this.charset = charset;
+			return this;
+		}
+
+		/**
+		 * Sets the modus.
+		 *
+		 * @param modus the modus
+		 *
+		 * @return this Builder instance
+		 *
+		 * @throws NullPointerException if modus is null
+		 */
+		public Builder modus(Modus modus) {
+			if (modus == null) {
+				throw new NullPointerException();
+			}
+			this.modus = modus;
+			return this;
+		}
+
+		/**
+		 * Sets the requested dimension. It is ignored in Modus.MODULE_SIZE.
+		 *
+		 * @param d the requested dimension
+		 *
+		 * @return this Builder instance
+		 *
+		 * @throws NullPointerException if d is null
+		 * @throws IllegalArgumentException if the width or height of d is less
+		 * than {@link Raster#MIN_SIZE}
+		 */
+		public Builder requestedDimension(ImmutableDimension d) {
+			if (d == null) {
+				throw new NullPointerException();
+			}
+			if (d.getWidth() < Raster.MIN_SIZE || d.getHeight() < Raster.MIN_SIZE) {
+				throw new IllegalArgumentException(d.toString());
+			}
+			this.requestedDimension = d;
+			return this;
+		}
+
+		/**
+		 * Sets the module size in pixels. It is only used in
+		 * Modus.MODULE_SIZE.
+		 *
+		 * @param size the module size in pixels
+		 *
+		 * @return this Builder instance
+		 *
+		 * @throws IllegalArgumentException if size &lt; 1
+		 */
+		public Builder moduleSize(int size) {
+			if (size < 1) {
+				throw new IllegalArgumentException(Integer.toString(size));
+			}
+			this.moduleSize = size;
+			return this;
+		}
+
+		/**
+		 * Sets the maximum image size. It is only used in Modus.MODULE_SIZE.
+		 *
+		 * @param d the maximum image size
+		 *
+		 * @return this Builder instance
+		 *
+		 * @throws NullPointerException if d is null
+		 */
+		public Builder maxImageSize(ImmutableDimension d) {
+			if (d == null) {
+				throw new NullPointerException();
+			}
+			this.maxImageSize = d;
+			return this;
+		}
+
+		/**
+		 * Sets the version of the QR Code to create. The encoder fails if the
+		 * content doesn't fit into this version.
+		 *
+		 * @param version the version, or {@link #AUTOMATIC_VERSION} to use the
+		 * smallest version the content fits into
+		 *
+		 * @return this Builder instance
+		 *
+		 * @throws IllegalArgumentException if version &lt; 0 or version &gt;
+		 * 40
+		 */
+		public Builder version(int version) {
+			if (version < AUTOMATIC_VERSION || version > MAX_VERSION) {
+				throw new IllegalArgumentException(Integer.toString(version));
+			}
+			this.version = version;
+			return this;
+		}
+
+		/**
+		 * Sets whether content that doesn't fit into a single symbol is
+		 * divided into a Structured Append sequence of up to 16 symbols. The
+		 * sequence is only used if the version is
+		 * {@link #AUTOMATIC_VERSION}.
+		 *
+		 * @param structuredAppend true to allow a Structured Append sequence
+		 *
+		 * @return this Builder instance
+		 */
+		public Builder structuredAppend(boolean structuredAppend) {
+			this.structuredAppend = structuredAppend;
+			return this;
+		}
+
+		public EncodeRequest build() {
+			return new EncodeRequest(this);
+		}
+	}
+
+	private EncodeRequest(Builder builder) {
+		this.content = builder.content;
+		this.errorCorrectionLevel = builder.errorCorrectionLevel;
+		this.charset = builder.charset;
+		this.modus = builder.modus;
+		this.requestedDimension = builder.requestedDimension;
+		this.moduleSize = builder.moduleSize;
+		this.maxImageSize = builder.maxImageSize;
+		this.version = builder.version;
+		this.structuredAppend = builder.structuredAppend;
+	}
+
+	public String getContent() {
+		return content;
+	}
+
+	public ErrorCorrectionLevel getErrorCorrectionLevel() {
+		return errorCorrectionLevel;
+	}
+
+	/**
+	 * Returns the character encoding, or null if none is set.
+	 *
+	 * @return the character encoding, or null if none is set
+	 */
+	public Charset getCharacterEncoding() {
+		return charset;
+	}
+
+	public Modus getModus() {
+		return modus;
+	}
+
+	public ImmutableDimension getRequestedDimension() {
+		return requestedDimension;
+	}
+
+	public int getModuleSize() {
+		return moduleSize;
+	}
+
+	public ImmutableDimension getMaxImageSize() {
+		return maxImageSize;
+	}
+
+	/**
+	 * Returns the requested version, or {@link #AUTOMATIC_VERSION} if the
+	 * encoder chooses the version.
+	 *
+	 * @return the requested version, or {@link #AUTOMATIC_VERSION}
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns true if content that doesn't fit into a single symbol may be
+	 * divided into a Structured Append sequence.
+	 *
+	 * @return true if a Structured Append sequence may be created
+	 */
+	public boolean isStructuredAppend() {
+		return structuredAppend;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof EncodeRequest)) {
+			return false;
+		}
+		EncodeRequest r = (EncodeRequest) other;
+		return content.equals(r.content)
+				&& errorCorrectionLevel == r.errorCorrectionLevel
+				&& (charset == null ? r.charset == null : charset.equals(r.charset))
+				&& modus == r.modus
+				&& requestedDimension.equals(r.requestedDimension)
+				&& moduleSize == r.moduleSize
+				&& maxImageSize.equals(r.maxImageSize)
+				&& version == r.version
+				&& structuredAppend == r.structuredAppend;
+	}
+
+	@Override
+	public int hashCode() {
+		int result = 17;
+		result = 31 * result + content.hashCode();
+		result = 31 * result + errorCorrectionLevel.hashCode();
+		result = 31 * result + (charset == null ? 0 : charset.hashCode());
+		result = 31 * result + modus.hashCode();
+		result = 31 * result + requestedDimension.hashCode();
+		result = 31 * result + moduleSize;
+		result = 31 * result + maxImageSize.hashCode();
+		result = 31 * result + version;
+		result = 31 * result + (structuredAppend ? 1 : 0);
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "EncodeRequest{" + "content=" + content + ", errorCorrectionLevel=" + errorCorrectionLevel + ", charset=" + charset + ", modus=" + modus.name() + ", requestedDimension=" + requestedDimension + ", moduleSize=" + moduleSize + ", maxImageSize=" + maxImageSize + ", version=" + version + ", structuredAppend=" + structuredAppend + '}';
+	}
+}
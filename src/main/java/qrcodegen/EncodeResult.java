@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen;
+
+import com.google.zxing.qrcode.decoder.Mode;
+import com.google.zxing.qrcode.encoder.QRCode;
+import qrcodegen.QRCodeGenerator.Modus;
+import qrcodegen.qrcode.ModuleMatrix;
+import qrcodegen.qrcode.QRCodeFactory;
+import qrcodegen.qrcode.QRCodeInterface;
+import qrcodegen.qrcode.encoder.StructuredAppend;
+import qrcodegen.qrcode.renderer.Raster;
+import qrcodegen.tools.ImmutableDimension;
+import qrcodegen.tools.TriState;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of encoding an {@link EncodeRequest}. Instances of this class are
+ * immutable and can be shared between threads.
+ *
+ * @author Stefan Ganzer
+ */
+public final class EncodeResult {
+
+	private final EncodeRequest request;
+	private final QRCodeInterface code;
+	/** The symbols of a Structured Append sequence, or only code */
+	private final List<QRCodeInterface> sequence;
+	/** May be null */
+	private final StructuredAppend structuredAppend;
+	/** The matrix raster has been rendered from */
+	private final ModuleMatrix matrix;
+	private final Raster raster;
+	private final TriState wasEncodable;
+	private final TriState wasAsciiOnly;
+
+	EncodeResult(EncodeRequest request, QRCodeInterface code, ModuleMatrix matrix, Raster raster, TriState wasEncodable, TriState wasAsciiOnly) {
+		assert request != null;
+		assert code != null;
+		assert matrix != null;
+		assert raster != null;
+		assert wasEncodable != null;
+		assert wasAsciiOnly != null;
+		this.request = request;
+		this.code = code;
+		this.sequence = Collections.singletonList(code);
+		this.structuredAppend = null;
+		this.matrix = matrix;
+		this.raster = raster;
+		this.wasEncodable = wasEncodable;
+		this.wasAsciiOnly = wasAsciiOnly;
+	}
+
+	EncodeResult(EncodeRequest request, StructuredAppend structuredAppend, ModuleMatrix matrix, Raster raster, TriState wasEncodable, TriState wasAsciiOnly) {
+		assert request != null;
+		assert structuredAppend != null;
+		assert matrix != null;
+		assert raster != null;
+		assert wasEncodable != null;
+		assert wasAsciiOnly != null;
+		List<QRCodeInterface> symbols = new ArrayList<QRCodeInterface>(structuredAppend.size());
+		for (int i = 0; i < structuredAppend.size(); i++) {
+			symbols.add(QRCodeFactory.getInstance(structuredAppend, i));
+		}
+		this.request = request;
+		this.code = symbols.get(0);
+		this.sequence = Collections.unmodifiableList(symbols);
+		this.structuredAppend = structuredAppend;
+		this.matrix = matrix;
+		this.raster = raster;
+		this.wasEncodable = wasEncodable;
+		this.wasAsciiOnly = wasAsciiOnly;
+	}
+
+	public EncodeRequest getRequest() {
+		return request;
+	}
+
+	/**
+	 * Returns the properties of the encoded QR Code.
+	 *
+	 * @return the properties of the encoded QR Code
+	 */
+	public QRCodeInterface getQRCode() {
+		return code;
+	}
+
+	/**
+	 * Returns the properties of all symbols. The content is divided into
+	 * several symbols if it doesn't fit into one, and the request allows a
+	 * Structured Append sequence.
+	 *
+	 * @return an unmodifiable list of the properties of all symbols in the
+	 * order of the sequence. If the content fits into a single symbol, the
+	 * list only contains the element returned by {@link #getQRCode()}.
+	 */
+	public List<QRCodeInterface> getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Renders each symbol of the sequence as specified by the request. The
+	 * raster returned by {@link #getRaster()} shows all symbols side by side
+	 * instead.
+	 *
+	 * @return a list of the rendered symbols in the order of the sequence,
+	 * which only contains the raster returned by {@link #getRaster()} if the
+	 * content fits into a single symbol
+	 *
+	 * @throws CodeSizeException if a rendered symbol would exceed the maximum
+	 * image size of the request
+	 */
+	public List<Raster> getSequenceRasters() throws CodeSizeException {
+		if (structuredAppend == null) {
+			return Collections.singletonList(raster);
+		}
+		List<Raster> rasters = new ArrayList<Raster>(structuredAppend.size());
+		for (QRCode symbol : structuredAppend.getSymbols()) {
+			rasters.add(QRCodeEncoder.rasterize(symbol.getMatrix(), request));
+		}
+		return rasters;
+	}
+
+	/**
+	 * Returns the Structured Append sequence the content has been divided
+	 * into.
+	 *
+	 * @return the sequence, or null if the content fits into a single symbol
+	 */
+	StructuredAppend getStructuredAppend() {
+		return structuredAppend;
+	}
+
+	public int getVersion() {
+		return code.getVersionNumber();
+	}
+
+	public Mode getMode() {
+		return code.getMode();
+	}
+
+	/**
+	 * Returns the packed module matrix the raster has been rendered from. For
+	 * a Structured Append sequence, this is the matrix of all symbols side by
+	 * side.
+	 *
+	 * @return the module matrix
+	 */
+	public ModuleMatrix getModuleMatrix() {
+		return matrix;
+	}
+
+	public Raster getRaster() {
+		return raster;
+	}
+
+	/**
+	 * Returns a new image of the QR Code. Each invocation creates a new image,
+	 * so the caller may modify it.
+	 *
+	 * @return a new image of the QR Code
+	 */
+	public BufferedImage getImage() {
+		return raster.toImage();
+	}
+
+	public ImmutableDimension getActualDimension() {
+		return raster.getDimension();
+	}
+
+	public int getModuleSize() {
+		return raster.getModuleSize();
+	}
+
+	/**
+	 * Returns {@link TriState TRUE} if the actual dimension of the symbol
+	 * exceeds the requested dimension, {@link TriState FALSE} if the actual
+	 * dimension is lower or equal to the requested dimension, or
+	 * {@link TriState NOT_APPLICABLE} if modus is MODULE_SIZE.
+	 *
+	 * @return whether the actual dimension exceeds the requested dimension
+	 */
+	public TriState exceedsRequestedDimension() {
+		if (request.getModus() == Modus.MODULE_SIZE) {
+			return TriState.NOT_APPLICABLE;
+		}
+		return TriState.fromBoolean(raster.getDimension().exceeds(request.getRequestedDimension()));
+	}
+
+	/**
+	 * Returns TRUE if the content can be encoded by the character encoding of
+	 * the request, or, if none is set, by the default character encoding.
+	 *
+	 * @return TRUE if the content can be encoded by the character encoding
+	 */
+	public TriState getWasEncodable() {
+		return wasEncodable;
+	}
+
+	/**
+	 * Returns TRUE if the content consists of ASCII characters only.
+	 *
+	 * @return TRUE if the content consists of ASCII characters only
+	 */
+	public TriState getWasAsciiOnly() {
+		return wasAsciiOnly;
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen;
+
+import com.google.zxing.qrcode.encoder.QRCode;
+import net.jcip.annotations.Immutable;
+import qrcodegen.qrcode.ModuleMatrix;
+
+/**
+ * A symbol encoded for an {@link EncodeRequest} together with its packed
+ * module matrix, so that the matrix is packed only once no matter how often
+ * the symbol is rendered. Instances of this class are immutable and can be
+ * shared between threads.
+ *
+ * @author Stefan Ganzer
+ */
+@Immutable
+final class EncodedSymbol {
+
+	/** Shared, so it must never be modified */
+	private final QRCode code;
+	private final ModuleMatrix matrix;
+
+	/**
+	 * Creates a new EncodedSymbol for the given QR Code.
+	 *
+	 * @param code the QR Code, which must not be modified afterwards
+	 *
+	 * @throws NullPointerException if code is null
+	 * @throws IllegalStateException if the QR Code has no matrix
+	 */
+	EncodedSymbol(QRCode code) {
+		this.matrix = ModuleMatrix.of(code); // implicit null-check
+		this.code = code;
+	}
+
+	QRCode getCode() {
+		return code;
+	}
+
+	ModuleMatrix getMatrix() {
+		return matrix;
+	}
+}
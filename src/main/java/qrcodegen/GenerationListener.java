@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen;
+
+import java.util.EventListener;
+
+/**
+ * The listener interface for receiving the results of a
+ * {@link QRCodeGenerator}.
+ *
+ * @author Stefan Ganzer
+ */
+public interface GenerationListener extends EventListener {
+
+	/**
+	 * Invoked once after a QR Code has been generated or rendered, whether
+	 * successfully or not, and once after the result of the generator has
+	 * been reset.
+	 *
+	 * @param snapshot the state of the generator after the generation
+	 */
+	void generationCompleted(GenerationSnapshot snapshot);
+}
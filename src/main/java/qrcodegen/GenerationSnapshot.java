@@ -0,0 +1,204 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen;
+
+import net.jcip.annotations.Immutable;
+import qrcodegen.qrcode.ModuleMatrix;
+import qrcodegen.qrcode.QRCodeInterface;
+import qrcodegen.qrcode.renderer.RenderedImages;
+import qrcodegen.tools.ImmutableDimension;
+import qrcodegen.tools.TriState;
+
+import java.awt.image.BufferedImage;
+import java.util.EventObject;
+import java.util.List;
+
+/**
+ * The result of a {@link QRCodeGenerator} after a QR Code has been generated
+ * or rendered, or after the result has been reset. A snapshot carries all the
+ * state derived from the generation, so listeners can update themselves in
+ * one pass instead of reacting to a single PropertyChangeEvent per property.
+ *
+ * @author Stefan Ganzer
+ */
+@Immutable
+public final class GenerationSnapshot extends EventObject {
+
+	private static final long serialVersionUID = 1L;
+	/** May be null */
+	private final String content;
+	/** Null if not valid */
+	private final transient RenderedImages images;
+	/** Null if not valid */
+	private final transient ModuleMatrix matrix;
+	private final int moduleSize;
+	/** May be null */
+	private final ImmutableDimension actualDimension;
+	private final TriState exceedsRequestedDimension;
+	private final TriState wasEncodable;
+	private final TriState wasAsciiOnly;
+	private final transient QRCodeInterface description;
+	private final transient List<QRCodeInterface> sequence;
+
+	/**
+	 * Creates a snapshot of the current state of the given generator.
+	 *
+	 * @param generator the generator
+	 */
+	GenerationSnapshot(QRCodeGenerator generator) {
+		super(generator);
+		content = generator.getContent();
+		if (generator.isValidState()) {
+			images = generator.getImages();
+			matrix = generator.getModuleMatrix();
+		} else {
+			images = null;
+			matrix = null;
+		}
+		moduleSize = generator.getModuleSize();
+		actualDimension = generator.getActualDimension();
+		exceedsRequestedDimension = generator.exceedsRequestedDimension();
+		wasEncodable = generator.getWasEncodable();
+		wasAsciiOnly = generator.getWasAsciiOnly();
+		description = generator.getDescription();
+		sequence = generator.getSequence();
+	}
+
+	@Override
+	public QRCodeGenerator getSource() {
+		return (QRCodeGenerator) super.getSource();
+	}
+
+	/**
+	 * Returns true if a QR Code has been generated successfully, i.e. if
+	 * there are images of it.
+	 *
+	 * @return true if a QR Code has been generated successfully
+	 */
+	public boolean isValid() {
+		return images != null;
+	}
+
+	/**
+	 * Returns the content the QR Code has been generated for.
+	 *
+	 * @return the content, or null if there is none
+	 */
+	public String getContent() {
+		return content;
+	}
+
+	/**
+	 * Returns the images of the QR Code.
+	 *
+	 * @return the images of the QR Code, or null if this snapshot is not
+	 * valid
+	 */
+	public RenderedImages getImages() {
+		return images;
+	}
+
+	/**
+	 * Returns the 1-bit image of the QR Code. The image is shared, so it must
+	 * not be modified.
+	 *
+	 * @return the image of the QR Code, or null if this snapshot is not valid
+	 */
+	public BufferedImage getImage() {
+		return images == null ? null : images.getBinaryImage();
+	}
+
+	/**
+	 * Returns the module matrix the image has been rendered from.
+	 *
+	 * @return the module matrix, or null if this snapshot is not valid
+	 */
+	public ModuleMatrix getMatrix() {
+		return matrix;
+	}
+
+	/**
+	 * Returns the module size in pixels.
+	 *
+	 * @return the module size in pixels
+	 */
+	public int getModuleSize() {
+		return moduleSize;
+	}
+
+	/**
+	 * Returns the actual dimension of the image.
+	 *
+	 * @return the actual dimension, or null if it is unknown
+	 */
+	public ImmutableDimension getActualDimension() {
+		return actualDimension;
+	}
+
+	/**
+	 * Returns whether the actual dimension exceeds the requested dimension.
+	 *
+	 * @return see {@link QRCodeGenerator#exceedsRequestedDimension()}
+	 */
+	public TriState exceedsRequestedDimension() {
+		return exceedsRequestedDimension;
+	}
+
+	/**
+	 * Returns whether the content was encodable by the character encoding.
+	 *
+	 * @return see {@link QRCodeGenerator#getWasEncodable()}
+	 */
+	public TriState getWasEncodable() {
+		return wasEncodable;
+	}
+
+	/**
+	 * Returns whether the content consists of ASCII characters only.
+	 *
+	 * @return see {@link QRCodeGenerator#getWasAsciiOnly()}
+	 */
+	public TriState getWasAsciiOnly() {
+		return wasAsciiOnly;
+	}
+
+	/**
+	 * Returns the properties of the (first) QR Code.
+	 *
+	 * @return the properties of the QR Code. Never returns null.
+	 */
+	public QRCodeInterface getDescription() {
+		return description;
+	}
+
+	/**
+	 * Returns the properties of all QR Codes of the Structured Append
+	 * sequence.
+	 *
+	 * @return see {@link QRCodeGenerator#getSequence()}
+	 */
+	public List<QRCodeInterface> getSequence() {
+		return sequence;
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getName() + "[valid=" + isValid() + ", actualDimension=" + actualDimension + ", moduleSize=" + moduleSize + ", wasEncodable=" + wasEncodable + ", wasAsciiOnly=" + wasAsciiOnly + "]";
+	}
+}
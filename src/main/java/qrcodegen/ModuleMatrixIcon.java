@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen;
+
+import qrcodegen.qrcode.ModuleMatrix;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * An icon that paints the modules of a QR Code with fillRect instead of
+ * drawing its image. Only the modules within the clip are painted, at the
+ * current zoom and the scale of the device, so the icon stays sharp on
+ * HiDPI screens and painting doesn't depend on the size of the image. The
+ * runs of dark modules are computed once per row.
+ *
+ * The icon still holds the rendered image, which {@link #getImage()} returns,
+ * so copying and dragging the image works as with a plain ImageIcon.
+ *
+ * @author Stefan Ganzer
+ */
+final class ModuleMatrixIcon extends ImageIcon {
+
+	private static final long serialVersionUID = 1L;
+	static final double MIN_ZOOM = 0.25;
+	static final double MAX_ZOOM = 8;
+	/** Start (inclusive) and end (exclusive) column of each run of dark
+	 * modules, for each row */
+	private int[][] runs;
+	private ModuleMatrix matrix;
+	private final int matrixWidth;
+	private final int moduleSize;
+	/** The size of the image, i.e. of the icon at zoom 1 */
+	private final int width;
+	private final int height;
+	private final int leftPadding;
+	private final int topPadding;
+	private double zoom = 1;
+	/** Where the icon has been painted last, or null */
+	private Point location;
+
+	/**
+	 * Creates a new icon.
+	 *
+	 * @param image the rendered image
+	 * @param matrix the module matrix the image has been rendered from
+	 * @param moduleSize the module size of the image in pixels
+	 *
+	 * @throws NullPointerException if image or matrix is null
+	 * @throws IllegalArgumentException if moduleSize &lt; 1, or if the matrix
+	 * doesn't fit into the image
+	 */
+	ModuleMatrixIcon(BufferedImage image, ModuleMatrix matrix, int moduleSize) {
+		super(image);
+		if (moduleSize < 1) {
+			throw new IllegalArgumentException(Integer.toString(moduleSize));
+		}
+		this.width = image.getWidth();
+		this.height = image.getHeight();
+		this.matrixWidth = matrix.getWidth();
+		this.moduleSize = moduleSize;
+		// Same as Raster
+		this.leftPadding = (width - (matrix.getWidth() * moduleSize)) / 2;
+		this.topPadding = (height - (matrix.getHeight() * moduleSize)) / 2;
+		if (leftPadding < 0 || topPadding < 0) {
+			throw new IllegalArgumentException("The matrix doesn't fit into the image");
+		}
+		this.matrix = matrix;
+		this.runs = computeRuns(matrix);
+	}
+
+	private static int[][] computeRuns(ModuleMatrix matrix) {
+		int width = matrix.getWidth();
+		int[][] result = new int[matrix.getHeight()][];
+		int[] buffer = new int[width + 1];
+		for (int y = 0; y < result.length; y++) {
+			int count = 0;
+			for (int x = matrix.nextDark(0, y); x < width; x = matrix.nextDark(buffer[count - 1], y)) {
+				buffer[count++] = x;
+				buffer[count++] = matrix.nextLight(x, y);
+			}
+			result[y] = Arrays.copyOf(buffer, count);
+		}
+		return result;
+	}
+
+	/**
+	 * Shows another QR Code with the same geometry, i.e. with the same image
+	 * size, module size and number of modules.
+	 *
+	 * @param image the rendered image
+	 * @param matrix the module matrix the image has been rendered from
+	 * @param moduleSize the module size of the image in pixels
+	 *
+	 * @return the region of this icon that has changed, which is empty if
+	 * nothing has changed, or null if the geometry is different, and this
+	 * icon has not been changed
+	 *
+	 * @throws NullPointerException if image or matrix is null
+	 */
+	Rectangle update(BufferedImage image, ModuleMatrix matrix, int moduleSize) {
+		if (image.getWidth() != width || image.getHeight() != height || moduleSize != this.moduleSize
+				|| matrix.getWidth() != matrixWidth || matrix.getHeight() != runs.length) {
+			return null;
+		}
+		int firstRow = -1;
+		int lastRow = -1;
+		for (int y = 0; y < runs.length; y++) {
+			if (!matrix.rowEquals(y, this.matrix)) {
+				if (firstRow < 0) {
+					firstRow = y;
+				}
+				lastRow = y;
+			}
+		}
+		setImage(image);
+		if (firstRow >= 0) {
+			this.matrix = matrix;
+			runs = computeRuns(matrix);
+		}
+		if (firstRow < 0) {
+			return new Rectangle();
+		}
+		int top = topPadding + firstRow * moduleSize;
+		int bottom = topPadding + (lastRow + 1) * moduleSize;
+		int left = leftPadding;
+		int right = leftPadding + matrixWidth * moduleSize;
+		// Round outwards, so partly covered pixels are repainted as well
+		int x = (int) Math.floor(left * zoom);
+		int y = (int) Math.floor(top * zoom);
+		return new Rectangle(x, y, (int) Math.ceil(right * zoom) - x, (int) Math.ceil(bottom * zoom) - y);
+	}
+
+	double getZoom() {
+		return zoom;
+	}
+
+	/**
+	 * Sets the zoom factor. The factor is limited to the range from
+	 * {@link #MIN_ZOOM} to {@link #MAX_ZOOM}.
+	 *
+	 * @param zoom the zoom factor
+	 */
+	void setZoom(double zoom) {
+		this.zoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom));
+	}
+
+	/**
+	 * Returns the location this icon has been painted at last.
+	 *
+	 * @return the location this icon has been painted at last, or null if it
+	 * hasn't been painted yet
+	 */
+	Point getLocation() {
+		return location == null ? null : new Point(location);
+	}
+
+	@Override
+	public int getIconWidth() {
+		return (int) Math.ceil(width * zoom);
+	}
+
+	@Override
+	public int getIconHeight() {
+		return (int) Math.ceil(height * zoom);
+	}
+
+	@Override
+	public synchronized void paintIcon(Component c, Graphics g, int x, int y) {
+		location = new Point(x, y);
+		Graphics2D g2 = (Graphics2D) g.create();
+		try {
+			g2.translate(x, y);
+			g2.scale(zoom, zoom);
+			g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+			Rectangle clip = g2.getClipBounds();
+			Rectangle bounds = new Rectangle(0, 0, width, height);
+			clip = clip == null ? bounds : clip.intersection(bounds);
+			if (clip.isEmpty()) {
+				return;
+			}
+			g2.setColor(Color.WHITE);
+			g2.fillRect(clip.x, clip.y, clip.width, clip.height);
+			g2.setColor(Color.BLACK);
+
+			int firstRow = Math.max(0, Math.floorDiv(clip.y - topPadding, moduleSize));
+			int lastRow = Math.min(runs.length - 1, Math.floorDiv(clip.y + clip.height - 1 - topPadding, moduleSize));
+			int firstColumn = Math.floorDiv(clip.x - leftPadding, moduleSize);
+			int lastColumn = Math.floorDiv(clip.x + clip.width - 1 - leftPadding, moduleSize);
+			for (int row = firstRow; row <= lastRow; row++) {
+				int[] rowRuns = runs[row];
+				int top = topPadding + row * moduleSize;
+				for (int i = 0; i < rowRuns.length; i += 2) {
+					int start = rowRuns[i];
+					int end = rowRuns[i + 1];
+					if (end <= firstColumn) {
+						continue;
+					}
+					if (start > lastColumn) {
+						break;
+					}
+					g2.fillRect(leftPadding + start * moduleSize, top, (end - start) * moduleSize, moduleSize);
+				}
+			}
+		} finally {
+			g2.dispose();
+		}
+	}
+}
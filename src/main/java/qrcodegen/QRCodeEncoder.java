@@ -0,0 +1,346 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen;
+
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.decoder.Mode;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.QRCode;
+import qrcodegen.QRCodeGenerator.Modus;
+import qrcodegen.qrcode.ModuleMatrix;
+import qrcodegen.qrcode.QRCodeFactory;
+import qrcodegen.qrcode.QRCodeInterface;
+import qrcodegen.qrcode.encoder.Segmentation;
+import qrcodegen.qrcode.encoder.Segmenter;
+import qrcodegen.qrcode.encoder.StructuredAppend;
+import qrcodegen.qrcode.encoder.SymbolEncoder;
+import qrcodegen.qrcode.renderer.PngStreamWriter;
+import qrcodegen.qrcode.renderer.Raster;
+import qrcodegen.tools.TriState;
+
+import java.nio.charset.Charset;
+
+/**
+ * Encodes and renders QR Codes. This class has no mutable state apart from an
+ * optional, thread-safe {@link EncodeCache}, so a single instance can be used
+ * by any number of threads at once.
+ *
+ * @author Stefan Ganzer
+ */
+public final class QRCodeEncoder {
+
+	/** The character encoding used to test the content if the request has
+	 * none. */
+	private static final Charset DEFAULT_CHARACTER_SET = QRCodeGenerator.getDefaultCharacterEncoding();
+
+	/** May be null */
+	private final EncodeCache cache;
+
+	/**
+	 * Creates a new QRCodeEncoder that doesn't cache encoded QR Codes.
+	 */
+	public QRCodeEncoder() {
+		this.cache = null;
+	}
+
+	/**
+	 * Creates a new QRCodeEncoder that looks up encoded QR Codes in the given
+	 * cache before encoding them. The cache may be shared with other
+	 * QRCodeEncoders.
+	 *
+	 * @param cache the cache
+	 *
+	 * @throws NullPointerException if cache is null
+	 */
+	public QRCodeEncoder(EncodeCache cache) {
+		if (cache == null) {
+			throw new NullPointerException();
+		}
+		this.cache = cache;
+	}
+
+	/**
+	 * Returns the cache of this QRCodeEncoder, or null if it doesn't cache
+	 * encoded QR Codes.
+	 *
+	 * @return the cache of this QRCodeEncoder, or null
+	 */
+	public EncodeCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Encodes and renders the content of the given request.
+	 *
+	 * @param request the request
+	 *
+	 * @return the result
+	 *
+	 * @throws NullPointerException if request is null
+	 * @throws WriterException if the content cannot be encoded, e.g. because
+	 * it is too long
+	 * @throws CodeSizeException if the rendered image would exceed the maximum
+	 * image size of the request
+	 */
+	public EncodeResult encode(EncodeRequest request) throws WriterException, CodeSizeException {
+		if (request == null) {
+			throw new NullPointerException();
+		}
+		EncodedSymbol symbol;
+		try {
+			symbol = encodeSymbol(request);
+		} catch (WriterException we) {
+			if (!canUseStructuredAppend(request)) {
+				throw we;
+			}
+			StructuredAppend sequence = encodeSequence(request);
+			ModuleMatrix matrix = ModuleMatrix.of(sequence.getTiledMatrix());
+			Raster raster = rasterize(matrix, request);
+			return new EncodeResult(request, sequence, matrix, raster,
+					canBeEncoded(request), isAsciiOnly(request.getContent(), sequence));
+		}
+		QRCode code = symbol.getCode();
+		Raster raster = rasterize(symbol.getMatrix(), request);
+		return new EncodeResult(request, describe(code, request), symbol.getMatrix(), raster,
+				canBeEncoded(request), isAsciiOnly(request.getContent(), code));
+	}
+
+	/**
+	 * Encodes the given request, and returns a writer that streams the QR
+	 * Code as PNG without rendering it into memory. The maximum image size of
+	 * the request is ignored, since the memory needed only depends on the
+	 * width of the image.
+	 *
+	 * @param request the request
+	 *
+	 * @return a writer for the encoded QR Code
+	 *
+	 * @throws NullPointerException if request is null
+	 * @throws WriterException if the content cannot be encoded, e.g. because
+	 * it is too long
+	 * @throws IllegalArgumentException if the image would exceed
+	 * {@link PngStreamWriter#MAX_SIZE}
+	 */
+	public PngStreamWriter encodePng(EncodeRequest request) throws WriterException {
+		if (request == null) {
+			throw new NullPointerException();
+		}
+		ModuleMatrix matrix;
+		try {
+			matrix = encodeSymbol(request).getMatrix();
+		} catch (WriterException we) {
+			if (!canUseStructuredAppend(request)) {
+				throw we;
+			}
+			matrix = ModuleMatrix.of(encodeSequence(request).getTiledMatrix());
+		}
+		Modus modus = request.getModus();
+		switch (modus) {
+			case FIXED_SIZE:
+				return PngStreamWriter.forRequestedDimension(matrix, request.getRequestedDimension(), false);
+			case BEST_FIT:
+				return PngStreamWriter.forRequestedDimension(matrix, request.getRequestedDimension(), true);
+			case MODULE_SIZE:
+				return PngStreamWriter.forModuleSize(matrix, request.getModuleSize());
+			default:
+				throw new AssertionError(modus);
+		}
+	}
+
+	/**
+	 * Encodes the content of the given request into a symbol, without
+	 * rendering it.
+	 *
+	 * @param request the request
+	 *
+	 * @return the symbol and its packed module matrix. The QRCode instance may
+	 * be shared with other threads, and thus must not be modified.
+	 *
+	 * @throws WriterException if the content cannot be encoded
+	 */
+	EncodedSymbol encodeSymbol(EncodeRequest request) throws WriterException {
+		assert request != null;
+		if (cache != null) {
+			EncodedSymbol symbol = cache.get(request);
+			if (symbol != null) {
+				return symbol;
+			}
+		}
+		QRCode code = SymbolEncoder.encodeSegmented(request.getContent(), request.getErrorCorrectionLevel(),
+				request.getCharacterEncoding(), request.getVersion());
+		EncodedSymbol symbol = new EncodedSymbol(code);
+		if (cache != null) {
+			cache.put(request, symbol);
+		}
+		return symbol;
+	}
+
+	/**
+	 * Returns true if the content of the given request may be divided into a
+	 * Structured Append sequence if it doesn't fit into a single symbol.
+	 *
+	 * @param request the request
+	 *
+	 * @return true if a Structured Append sequence may be created
+	 */
+	static boolean canUseStructuredAppend(EncodeRequest request) {
+		return request.isStructuredAppend() && request.getVersion() == EncodeRequest.AUTOMATIC_VERSION;
+	}
+
+	/**
+	 * Encodes the content of the given request into a Structured Append
+	 * sequence. Sequences are not cached, as they are only created for
+	 * content too long for a single symbol.
+	 *
+	 * @param request the request
+	 *
+	 * @return the sequence
+	 *
+	 * @throws WriterException if the content doesn't fit into
+	 * {@link StructuredAppend#MAX_SYMBOLS} symbols
+	 */
+	StructuredAppend encodeSequence(EncodeRequest request) throws WriterException {
+		assert request != null;
+		return StructuredAppend.encode(request.getContent(), request.getErrorCorrectionLevel(),
+				request.getCharacterEncoding());
+	}
+
+	/**
+	 * Returns a description of the given symbol, including the segments its
+	 * content has been encoded in. The segments are computed again, which
+	 * takes time linear in the length of the content, so that cached symbols
+	 * don't need to carry them.
+	 *
+	 * @param code the symbol, may be null
+	 * @param request the request the symbol has been encoded for
+	 *
+	 * @return a description of the given symbol
+	 */
+	QRCodeInterface describe(QRCode code, EncodeRequest request) {
+		if (code == null) {
+			return QRCodeFactory.getNullInstance();
+		}
+		assert request != null;
+		Segmentation segmentation = Segmenter.segment(request.getContent(), request.getCharacterEncoding(), code.getVersion().getVersionNumber());
+		return QRCodeFactory.getInstance(code, segmentation);
+	}
+
+	/**
+	 * Renders the given matrix, e.g. a single symbol of a Structured Append
+	 * sequence, as specified by the given request.
+	 *
+	 * @param matrix the matrix
+	 * @param request the request
+	 *
+	 * @return the rendered matrix
+	 *
+	 * @throws CodeSizeException if the rendered image would exceed the maximum
+	 * image size of the request
+	 */
+	static Raster rasterize(ByteMatrix matrix, EncodeRequest request) throws CodeSizeException {
+		assert matrix != null;
+		return rasterize(ModuleMatrix.of(matrix), request);
+	}
+
+	/**
+	 * Renders the given packed matrix, e.g. the tiled matrix of a Structured
+	 * Append sequence, as specified by the given request.
+	 *
+	 * @param matrix the packed matrix
+	 * @param request the request
+	 *
+	 * @return the rendered matrix
+	 *
+	 * @throws CodeSizeException if the rendered image would exceed the maximum
+	 * image size of the request
+	 */
+	static Raster rasterize(ModuleMatrix matrix, EncodeRequest request) throws CodeSizeException {
+		assert matrix != null;
+		assert request != null;
+		Modus modus = request.getModus();
+		switch (modus) {
+			case FIXED_SIZE:
+				return Raster.forRequestedDimension(matrix, request.getRequestedDimension(), false);
+			case BEST_FIT:
+				return Raster.forRequestedDimension(matrix, request.getRequestedDimension(), true);
+			case MODULE_SIZE:
+				return Raster.forModuleSize(matrix, request.getModuleSize(), request.getMaxImageSize());
+			default:
+				throw new AssertionError(modus);
+		}
+	}
+
+	private static TriState canBeEncoded(EncodeRequest request) {
+		Charset charset = request.getCharacterEncoding();
+		if (charset == null) {
+			charset = DEFAULT_CHARACTER_SET;
+		}
+		return TriState.fromBoolean(charset.newEncoder().canEncode(request.getContent()));
+	}
+
+	/**
+	 * Returns TRUE if the given content consists of ASCII characters only,
+	 * NOT_APPLICABLE if code is null.
+	 *
+	 * @param s the content
+	 * @param code the encoded content, may be null
+	 *
+	 * @return TRUE if the given content consists of ASCII characters only
+	 */
+	static TriState isAsciiOnly(String s, QRCode code) {
+		if (code == null) {
+			return TriState.NOT_APPLICABLE;
+		}
+		if (Mode.ALPHANUMERIC == code.getMode() || Mode.NUMERIC == code.getMode()) {
+			return TriState.TRUE;
+		}
+		return isAsciiOnly(s);
+	}
+
+	/**
+	 * Returns TRUE if the given content consists of ASCII characters only,
+	 * NOT_APPLICABLE if sequence is null.
+	 *
+	 * @param s the content
+	 * @param sequence the encoded content, may be null
+	 *
+	 * @return TRUE if the given content consists of ASCII characters only
+	 */
+	static TriState isAsciiOnly(String s, StructuredAppend sequence) {
+		if (sequence == null) {
+			return TriState.NOT_APPLICABLE;
+		}
+		for (QRCode code : sequence.getSymbols()) {
+			if (Mode.ALPHANUMERIC != code.getMode() && Mode.NUMERIC != code.getMode()) {
+				return isAsciiOnly(s);
+			}
+		}
+		return TriState.TRUE;
+	}
+
+	private static TriState isAsciiOnly(String s) {
+		assert s != null;
+		for (int i = 0, n = s.length(); i < n; i++) {
+			if (s.charAt(i) > 0x7F) {
+				return TriState.FALSE;
+			}
+		}
+		return TriState.TRUE;
+	}
+}
@@ -20,35 +20,51 @@ package qrcodegen;
 
 import com.google.zxing.EncodeHintType;
 import com.google.zxing.WriterException;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
 import com.google.zxing.qrcode.decoder.Mode;
-import com.google.zxing.qrcode.encoder.Encoder;
 import com.google.zxing.qrcode.encoder.QRCode;
+import qrcodegen.qrcode.ModuleMatrix;
 import qrcodegen.qrcode.QRCodeFactory;
 import qrcodegen.qrcode.QRCodeInterface;
+import qrcodegen.qrcode.encoder.Segment;
+import qrcodegen.qrcode.encoder.StructuredAppend;
 import qrcodegen.qrcode.renderer.FixedSizeRenderer;
 import qrcodegen.qrcode.renderer.ModuleSizeRenderer;
 import qrcodegen.qrcode.renderer.OptimalSizeRenderer;
+import qrcodegen.qrcode.renderer.Raster;
 import qrcodegen.qrcode.renderer.Renderable;
+import qrcodegen.qrcode.renderer.RenderedImages;
+import qrcodegen.qrcode.renderer.VectorImage;
 import qrcodegen.tools.ImmutableDimension;
 import qrcodegen.tools.StaticTools;
 import qrcodegen.tools.TriState;
 
+import javax.swing.event.EventListenerList;
 import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Creates QR Codes from objects implementing the {@link qrcodegen.Encodable}
  * interface.
  *
+ * This class is a mutable bean that fires PropertyChangeEvents, and is meant
+ * to be used by a single thread, e.g. the event dispatch thread. In addition,
+ * a single {@link GenerationSnapshot} is delivered to the registered
+ * {@link GenerationListener}s after each generation. The encoding
+ * and rendering itself is done by a {@link QRCodeEncoder}; use it directly
+ * with an {@link EncodeRequest} to create QR Codes from several threads.
+ *
  * @author Stefan Ganzer
  */
 public final class QRCodeGenerator {
@@ -65,19 +81,25 @@ public final class QRCodeGenerator {
 	public static final String ERROR_CORRECTION_LEVEL_PROPERTY = "ErrorCorrectionLevel";
 	public static final String WAS_ENCODABLE_PROPERTY = "Encodable";
 	public static final String WAS_ASCII_ONLY_PROPERTY = "ASCII";
+	public static final String STRUCTURED_APPEND_PROPERTY = "StructuredAppend";
 	/** The default Charset this encoder uses. */
 	private static final Charset DEFAULT_CHARACTER_SET = Charset.forName("ISO-8859-1");
 	private static final ErrorCorrectionLevel DEFAULT_ERROR_CORRECTION_LEVEL = ErrorCorrectionLevel.L;
 	private static final EncodeHintType ERROR_CORRECTION_HINT = EncodeHintType.ERROR_CORRECTION;
 	private static final EncodeHintType CHARACTER_SET_HINT = EncodeHintType.CHARACTER_SET;
 	private static final ImmutableDimension MAX_IMAGE_SIZE = new ImmutableDimension(800, 800);
-	private final CharsetEncoder ASCII_ENCODER = Charset.forName("ASCII").newEncoder();
+	/** Shared by all instances, as it is thread-safe. The cache makes
+	 * switching back and forth between settings cheap. */
+	private static final QRCodeEncoder ENCODER = new QRCodeEncoder(new EncodeCache(64, 8 * 1024 * 1024));
 	private final PropertyChangeSupport pcs = new PropertyChangeSupport(this);
+	private final EventListenerList listenerList = new EventListenerList();
 	private final Map<EncodeHintType, Object> hints = new EnumMap<EncodeHintType, Object>(EncodeHintType.class);
-	private final Object privateLock = new Object();
 	private final ImmutableDimension maxImageSize;
 	private final PropertyChangeListener rendererListener;
-	private QRCode code;
+	/** The result of the last encoding, or null. Its raster is outdated once
+	 * the QR Code has been rendered again by render(). */
+	private EncodeResult result;
+	private boolean structuredAppend;
 	/** The requested dimension of the qr code. This is only the size of the
 	 * image if Modus.FIXED_SIZE */
 	private ImmutableDimension dimension = BarCodeSize.LARGE.getImmutableDimension();
@@ -92,6 +114,18 @@ public final class QRCodeGenerator {
 	private TriState wasAscii = TriState.NOT_APPLICABLE;
 	private Renderable renderer;
 	private QRCodeInterface qrCodeInterface;
+	/** The images of the current result. May be null, and may belong to an
+	 * outdated result; see getImages() */
+	private RenderedImages images;
+	/** The number of results that have been encoded and applied */
+	private long encodeCount;
+	/** The number of results that have been rendered without encoding */
+	private long renderOnlyCount;
+	/** True while a result is generated, rendered or reset. The renderer
+	 * resetting its result doesn't deliver a snapshot in the meantime. */
+	private boolean generating;
+	/** True if a snapshot has been delivered since the last reset */
+	private boolean published;
 	private String content;
 
 	public enum Modus {
@@ -259,6 +293,16 @@ public final class QRCodeGenerator {
 		return DEFAULT_CHARACTER_SET;
 	}
 
+	/**
+	 * Returns the cache of encoded QR Codes that all QRCodeGenerator instances
+	 * share.
+	 *
+	 * @return the cache of encoded QR Codes
+	 */
+	public static EncodeCache getEncodeCache() {
+		return ENCODER.getCache();
+	}
+
 	/**
 	 * Removes the explicitely set character encoding that is used to create the
 	 * QR Codes. This method is safe to call if there is no explicitely set
@@ -323,19 +367,8 @@ public final class QRCodeGenerator {
 		return wasEncodable;
 	}
 
-	private void setAsciiState(String s, QRCode code) {
+	private void setAsciiState(TriState newState) {
 		TriState oldState = wasAscii;
-		TriState newState;
-		if (code == null) {
-			newState = TriState.NOT_APPLICABLE;
-		} else if (Mode.ALPHANUMERIC == code.getMode() || Mode.NUMERIC == code.getMode()) {
-			newState = TriState.TRUE;
-		} else {
-			assert s != null;
-			synchronized (privateLock) {
-				newState = TriState.fromBoolean(ASCII_ENCODER.canEncode(s));
-			}
-		}
 		wasAscii = newState;
 		pcs.firePropertyChange(WAS_ASCII_ONLY_PROPERTY, oldState, newState);
 	}
@@ -474,30 +507,221 @@ public final class QRCodeGenerator {
 		return modus;
 	}
 
+	/**
+	 * Sets whether content too long for a single QR Code is divided into a
+	 * Structured Append sequence of up to 16 QR Codes, which are shown side by
+	 * side.
+	 *
+	 * @param structuredAppend true to allow a Structured Append sequence
+	 */
+	public void setStructuredAppend(boolean structuredAppend) {
+		boolean oldValue = this.structuredAppend;
+		this.structuredAppend = structuredAppend;
+		if (oldValue != structuredAppend) {
+			resetState();
+			pcs.firePropertyChange(STRUCTURED_APPEND_PROPERTY, oldValue, structuredAppend);
+		}
+	}
+
+	/**
+	 * Returns true if content too long for a single QR Code is divided into a
+	 * Structured Append sequence.
+	 *
+	 * @return true if a Structured Append sequence may be created
+	 */
+	public boolean isStructuredAppend() {
+		return structuredAppend;
+	}
+
 	/**
 	 * Generates the QR Code representing the set content. The image of this QR
 	 * Code can be obtained by calling {@link #getImage()}.
 	 *
+	 * This is the same as encoding {@link #createRequest()} with
+	 * {@link #getEncoder()} and passing the result to
+	 * {@link #apply(Generation)}.
+	 *
 	 * @throws WriterException
 	 * @throws CodeSizeException
 	 */
 	public void generateCode() throws WriterException, CodeSizeException {
-		ErrorCorrectionLevel errorCorrectionLevel = (ErrorCorrectionLevel) hints.get(EncodeHintType.ERROR_CORRECTION);
-		setWasEncodable(content);
+		EncodeRequest request = createRequest();
+		long start = System.nanoTime();
+		Generation generation;
 		try {
-			code = Encoder.encode(content, errorCorrectionLevel, hints);
+			generation = new Generation(ENCODER.encode(request), System.nanoTime() - start);
+		} catch (WriterException | CodeSizeException | OutOfMemoryError e) {
+			generation = new Generation(request, e, System.nanoTime() - start);
+		}
+		boolean applied = apply(generation);
+		assert applied;
+	}
+
+	/**
+	 * Returns the encoder all QRCodeGenerator instances share. As it is
+	 * thread-safe, the time-consuming part of {@link #generateCode()} can be
+	 * moved off the event dispatch thread by encoding a request with it, and
+	 * passing the result to {@link #apply(Generation)}.
+	 *
+	 * @return the shared encoder
+	 */
+	public static QRCodeEncoder getEncoder() {
+		return ENCODER;
+	}
+
+	/**
+	 * Shows the result of encoding a request, as if {@link #generateCode()}
+	 * had been called. The result is ignored if it is
+	 * outdated, i.e. if the request it has been created for doesn't match the
+	 * current state of this QRCodeGenerator anymore.
+	 *
+	 * @param generation the result of encoding a request created by
+	 * {@link #createRequest()}
+	 *
+	 * @return true if the result has been applied, false if it is outdated
+	 *
+	 * @throws NullPointerException if generation is null
+	 * @throws WriterException if the content couldn't be encoded
+	 * @throws CodeSizeException if the QR Code couldn't be rendered
+	 */
+	public boolean apply(Generation generation) throws WriterException, CodeSizeException {
+		if (generation == null) {
+			throw new NullPointerException();
+		}
+		if (content == null || !generation.request.equals(createRequest())) {
+			return false;
+		}
+		generating = true;
+		try {
+			setWasEncodable(content);
+			encodeCount++;
+			result = generation.result;
+			Throwable failure = generation.failure;
+			if (failure != null) {
+				qrCodeInterface = QRCodeFactory.getNullInstance();
+				setAsciiState(TriState.NOT_APPLICABLE);
+				renderer.resetState();
+				if (failure instanceof WriterException) {
+					throw (WriterException) failure;
+				} else if (failure instanceof CodeSizeException) {
+					throw (CodeSizeException) failure;
+				} else {
+					throw (Error) failure;
+				}
+			}
+			qrCodeInterface = result.getQRCode();
+			setAsciiState(result.getWasAsciiOnly());
+			renderer.setRaster(result.getRaster());
+			pcs.firePropertyChange(RESULT_PROPERTY, null, null);
+			return true;
 		} finally {
-			setAsciiState(content, code);
-			qrCodeInterface = QRCodeFactory.getInstance(code);
+			generating = false;
+			fireGenerationCompleted();
 		}
-		renderer.renderResult(code);
-		pcs.firePropertyChange(RESULT_PROPERTY, null, null);
 	}
 
 	/**
-	 * Returns the image of the QR Code generated by invoking
+	 * Returns true if the last encoded QR Code is still valid for the current
+	 * content and encoding settings, so that {@link #render()} can show it
+	 * with changed size settings without encoding it again. Changing the
+	 * modus, the module size or the requested dimension doesn't invalidate
+	 * the encoded QR Code; all other setters do.
+	 *
+	 * @return true if {@link #render()} can be used instead of
+	 * {@link #generateCode()}
+	 */
+	public boolean canRender() {
+		return content != null && result != null;
+	}
+
+	/**
+	 * Renders the last encoded QR Code again with the current modus, module
+	 * size and requested dimension, without encoding the content again. Fires
+	 * the same events and delivers the same snapshot as
 	 * {@link #generateCode()}.
 	 *
+	 * @return true if the QR Code has been rendered, false if
+	 * {@link #canRender()} returns false, i.e. if the content has to be
+	 * encoded by {@link #generateCode()}
+	 *
+	 * @throws CodeSizeException if the QR Code couldn't be rendered
+	 */
+	public boolean render() throws CodeSizeException {
+		if (!canRender()) {
+			return false;
+		}
+		generating = true;
+		try {
+			if (result.getStructuredAppend() == null) {
+				renderer.renderResult(result.getModuleMatrix());
+			} else {
+				Raster raster;
+				try {
+					raster = QRCodeEncoder.rasterize(result.getModuleMatrix(), createRequest());
+				} catch (CodeSizeException cse) {
+					renderer.resetState();
+					throw cse;
+				}
+				renderer.setRaster(raster);
+			}
+			renderOnlyCount++;
+			pcs.firePropertyChange(RESULT_PROPERTY, null, null);
+			return true;
+		} finally {
+			generating = false;
+			fireGenerationCompleted();
+		}
+	}
+
+	/**
+	 * Returns the number of QR Codes that have been encoded and applied by
+	 * {@link #generateCode()} or {@link #apply(Generation)}.
+	 *
+	 * @return the number of encoded QR Codes
+	 */
+	public long getEncodeCount() {
+		return encodeCount;
+	}
+
+	/**
+	 * Returns the number of QR Codes that have been rendered by
+	 * {@link #render()}, i.e. the number of encodings that have been saved.
+	 *
+	 * @return the number of QR Codes rendered without encoding
+	 */
+	public long getRenderOnlyCount() {
+		return renderOnlyCount;
+	}
+
+	/**
+	 * Returns a request that represents the current state of this
+	 * QRCodeGenerator.
+	 *
+	 * @return a request that represents the current state of this
+	 * QRCodeGenerator
+	 *
+	 * @throws NullPointerException if there is no content
+	 */
+	public EncodeRequest createRequest() {
+		EncodeRequest.Builder builder = new EncodeRequest.Builder(content)
+				.errorCorrectionLevel(getErrorCorrectionLevel())
+				.characterEncoding(currentCharset)
+				.modus(modus)
+				.structuredAppend(structuredAppend);
+		if (modus == Modus.MODULE_SIZE) {
+			builder.moduleSize(renderer.getModuleSize()).maxImageSize(maxImageSize);
+		} else {
+			builder.requestedDimension(renderer.getRequestedDimension());
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Returns the image of the QR Code generated by invoking
+	 * {@link #generateCode()}. The image is a 1-bit
+	 * {@link BufferedImage#TYPE_BYTE_BINARY} image, which is created only
+	 * once per result and shared by all callers, so it must not be modified.
+	 *
 	 * @return the image of the QR Code generated by invoking
 	 * {@link #generateCode()}
 	 *
@@ -505,10 +729,39 @@ public final class QRCodeGenerator {
 	 * {@link #generateCode()} hasn't been called before.
 	 */
 	public BufferedImage getImage() {
-		if (!renderer.hasResult()) {
+		return getImages().getBinaryImage();
+	}
+
+	/**
+	 * Returns the images of the QR Code generated by invoking
+	 * {@link #generateCode()}. The same instance is returned until the result
+	 * changes, so each kind of image is created only once per result.
+	 *
+	 * @return the images of the current result
+	 *
+	 * @throws IllegalStateException if no code has been generated, i.e.
+	 * {@link #generateCode()} hasn't been called before.
+	 */
+	public RenderedImages getImages() {
+		Raster raster = renderer.getRaster();
+		if (raster == null) {
 			throw new IllegalStateException();
 		}
-		return MatrixToImageWriter.toBufferedImage(renderer.getResult());
+		// The renderer may have replaced or reset its result in the meantime
+		if (images == null || images.getRaster() != raster) {
+			images = new RenderedImages(raster);
+		}
+		return images;
+	}
+
+	/**
+	 * Returns the properties of the QR Code, or of the first QR Code of a
+	 * Structured Append sequence.
+	 *
+	 * @return the properties of the QR Code. Never returns null.
+	 */
+	QRCodeInterface getDescription() {
+		return qrCodeInterface;
 	}
 
 	/**
@@ -575,17 +828,125 @@ public final class QRCodeGenerator {
 		return qrCodeInterface.getNumRSBlocks();
 	}
 
+	/**
+	 * Returns the segments the content is encoded in.
+	 *
+	 * @return an unmodifiable list of the segments, empty if generateCode()
+	 * hasn't been called yet or after {@link #resetState()} has been called.
+	 */
+	public List<Segment> getSegments() {
+		return qrCodeInterface.getSegments();
+	}
+
+	/**
+	 * Returns the number of bits saved by encoding the content in several
+	 * segments instead of a single mode.
+	 *
+	 * @return the number of bits saved, or 0 if generateCode() hasn't been
+	 * called yet or after {@link #resetState()} has been called.
+	 */
+	public int getBitsSaved() {
+		return qrCodeInterface.getBitsSaved();
+	}
+
+	/**
+	 * Returns the properties of all QR Codes of the Structured Append sequence
+	 * the content has been divided into.
+	 *
+	 * @return an unmodifiable list of the QR Codes in the order of the
+	 * sequence. It contains a single element if the content fits into one QR
+	 * Code, and is empty if generateCode() hasn't been called yet or after
+	 * {@link #resetState()} has been called.
+	 */
+	public List<QRCodeInterface> getSequence() {
+		if (result == null) {
+			return Collections.emptyList();
+		}
+		return result.getSequence();
+	}
+
+	/**
+	 * Returns the packed module matrix the image of the QR Code generated by
+	 * invoking {@link #generateCode()} has been rendered from. For a
+	 * Structured Append sequence, this is the matrix of all QR Codes side by
+	 * side.
+	 *
+	 * @return the module matrix
+	 *
+	 * @throws IllegalStateException if no code has been generated, i.e.
+	 * {@link #generateCode()} hasn't been called before.
+	 */
+	public ModuleMatrix getModuleMatrix() {
+		if (!renderer.hasResult()) {
+			throw new IllegalStateException();
+		}
+		return result.getModuleMatrix();
+	}
+
+	/**
+	 * Returns the vector image of the QR Code generated by invoking
+	 * {@link #generateCode()}. The vector image has the same geometry as the
+	 * image returned by {@link #getImage()}.
+	 *
+	 * @return the vector image of the QR Code
+	 *
+	 * @throws IllegalStateException if no code has been generated, i.e.
+	 * {@link #generateCode()} hasn't been called before.
+	 */
+	public VectorImage getVectorImage() {
+		if (!renderer.hasResult()) {
+			throw new IllegalStateException();
+		}
+		return VectorImage.forRaster(getModuleMatrix(), renderer.getRaster());
+	}
+
+	/**
+	 * Returns one image for each QR Code of the Structured Append sequence,
+	 * rendered with the current settings. {@link #getImage()} returns all QR
+	 * Codes side by side in a single image instead.
+	 *
+	 * @return the images in the order of the sequence
+	 *
+	 * @throws IllegalStateException if no code has been generated, i.e.
+	 * {@link #generateCode()} hasn't been called before.
+	 * @throws CodeSizeException if an image would exceed the maximum image
+	 * size
+	 */
+	public List<BufferedImage> getSequenceImages() throws CodeSizeException {
+		if (!renderer.hasResult()) {
+			throw new IllegalStateException();
+		}
+		StructuredAppend sequence = result.getStructuredAppend();
+		if (sequence == null) {
+			return Collections.singletonList(getImage());
+		}
+		EncodeRequest request = createRequest();
+		List<BufferedImage> images = new ArrayList<BufferedImage>(sequence.size());
+		for (QRCode symbol : sequence.getSymbols()) {
+			images.add(QRCodeEncoder.rasterize(symbol.getMatrix(), request).toImage());
+		}
+		return images;
+	}
+
 	/**
 	 * Returns the QRCodeGenerator to a state before invoking
 	 * {@link #generateCode()}, i.e. invoking {@link #getImage()} after calling
-	 * this method will throw an IllegalStateException.
+	 * this method will throw an IllegalStateException. An invalid snapshot is
+	 * delivered if a snapshot has been delivered since the last reset.
 	 */
 	public void resetState() {
-		code = null;
-		qrCodeInterface = QRCodeFactory.getInstance(code);
-		setWasEncodable(null);
-		setAsciiState(null, null);
-		renderer.resetState(); // fires RESULT_STATE event if applicable
+		generating = true;
+		try {
+			result = null;
+			qrCodeInterface = QRCodeFactory.getNullInstance();
+			images = null;
+			setWasEncodable(null);
+			setAsciiState(TriState.NOT_APPLICABLE);
+			renderer.resetState(); // fires RESULT_STATE event if applicable
+		} finally {
+			generating = false;
+		}
+		fireResultReset();
 	}
 
 	/**
@@ -608,11 +969,168 @@ public final class QRCodeGenerator {
 		pcs.removePropertyChangeListener(listener);
 	}
 
+	/**
+	 * Adds a listener that receives a single {@link GenerationSnapshot} after
+	 * each generation, instead of one PropertyChangeEvent per changed
+	 * property.
+	 *
+	 * @param listener the listener to add
+	 *
+	 * @throws NullPointerException if listener is null
+	 */
+	public void addGenerationListener(GenerationListener listener) {
+		if (listener == null) {
+			throw new NullPointerException();
+		}
+		listenerList.add(GenerationListener.class, listener);
+	}
+
+	public void removeGenerationListener(GenerationListener listener) {
+		listenerList.remove(GenerationListener.class, listener);
+	}
+
+	/**
+	 * Returns a snapshot of the current result, the same as the last one
+	 * delivered to the {@link GenerationListener}s.
+	 *
+	 * @return a snapshot of the current result
+	 */
+	public GenerationSnapshot getSnapshot() {
+		return new GenerationSnapshot(this);
+	}
+
+	private void fireGenerationCompleted() {
+		published = true;
+		fireSnapshot();
+	}
+
+	private void fireResultReset() {
+		if (published) {
+			published = false;
+			fireSnapshot();
+		}
+	}
+
+	private void fireSnapshot() {
+		if (listenerList.getListenerCount() == 0) {
+			return;
+		}
+		GenerationSnapshot snapshot = getSnapshot();
+		final Object[] listeners = listenerList.getListenerList();
+		for (int i = listeners.length - 2; i >= 0; i -= 2) {
+			if (listeners[i] == GenerationListener.class) {
+				((GenerationListener) listeners[i + 1]).generationCompleted(snapshot);
+			}
+		}
+	}
+
+	/**
+	 * The outcome of encoding an {@link EncodeRequest} with
+	 * {@link QRCodeEncoder#encode(EncodeRequest)}: either its result or the
+	 * failure, and the time it took. Instances of this class are immutable
+	 * and can be passed between threads.
+	 */
+	public static final class Generation {
+
+		private final EncodeRequest request;
+		/** Null if failure isn't */
+		private final EncodeResult result;
+		/** May be null */
+		private final Throwable failure;
+		private final long nanos;
+
+		/**
+		 * Creates a new Generation of a request that has been encoded
+		 * successfully.
+		 *
+		 * @param result the result
+		 * @param nanos the time it took to encode and render the request, in
+		 * nanoseconds
+		 *
+		 * @throws NullPointerException if result is null
+		 */
+		public Generation(EncodeResult result, long nanos) {
+			this(result.getRequest(), result, null, nanos); // implicit null-check
+		}
+
+		/**
+		 * Creates a new Generation of a request that couldn't be encoded.
+		 *
+		 * @param request the request
+		 * @param failure the WriterException or CodeSizeException thrown by
+		 * {@link QRCodeEncoder#encode(EncodeRequest)}, or an Error, e.g. an
+		 * OutOfMemoryError
+		 * @param nanos the time until the failure, in nanoseconds
+		 *
+		 * @throws NullPointerException if request or failure is null
+		 * @throws IllegalArgumentException if failure is any other exception
+		 */
+		public Generation(EncodeRequest request, Throwable failure, long nanos) {
+			this(request, null, failure, nanos);
+			if (!(failure instanceof WriterException || failure instanceof CodeSizeException || failure instanceof Error)) {
+				throw new IllegalArgumentException(failure.toString()); // implicit null-check
+			}
+		}
+
+		private Generation(EncodeRequest request, EncodeResult result, Throwable failure, long nanos) {
+			if (request == null) {
+				throw new NullPointerException();
+			}
+			this.request = request;
+			this.result = result;
+			this.failure = failure;
+			this.nanos = nanos;
+		}
+
+		public EncodeRequest getRequest() {
+			return request;
+		}
+
+		/**
+		 * Returns the result of the request.
+		 *
+		 * @return the result, or null if the request couldn't be encoded
+		 */
+		public EncodeResult getResult() {
+			return result;
+		}
+
+		/**
+		 * Returns true if the request has been encoded and rendered
+		 * successfully.
+		 *
+		 * @return true if the request has been encoded and rendered
+		 * successfully
+		 */
+		public boolean isSuccessful() {
+			return failure == null;
+		}
+
+		/**
+		 * Returns the time it took to encode and render the request.
+		 *
+		 * @param unit the unit of the returned value
+		 *
+		 * @return the time it took to encode and render the request
+		 */
+		public long getEncodingTime(TimeUnit unit) {
+			return unit.convert(nanos, TimeUnit.NANOSECONDS);
+		}
+	}
+
 	private class RendererListener implements PropertyChangeListener {
 
 		@Override
 		public void propertyChange(PropertyChangeEvent evt) {
+			boolean reset = RESULT_PROPERTY.equals(evt.getPropertyName()) && evt.getNewValue() == null;
+			if (reset) {
+				images = null;
+			}
 			pcs.firePropertyChange(evt);
+			// e.g. the requested dimension changed
+			if (reset && !generating) {
+				fireResultReset();
+			}
 		}
 	}
 }
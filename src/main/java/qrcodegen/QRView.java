@@ -24,7 +24,12 @@ import com.google.zxing.qrcode.decoder.Mode;
 import qrcodegen.QRCodeGenerator.Modus;
 import qrcodegen.modules.*;
 import qrcodegen.modules.vcardgenpanel.controller.VCardController;
+import qrcodegen.qrcode.CapacityEstimator;
 import qrcodegen.qrcode.ModeLocalizer;
+import qrcodegen.qrcode.QRCodeInterface;
+import qrcodegen.qrcode.encoder.Segment;
+import qrcodegen.qrcode.renderer.RenderedImages;
+import qrcodegen.qrcode.renderer.VectorImage;
 import qrcodegen.swing.*;
 import qrcodegen.tools.*;
 
@@ -33,6 +38,7 @@ import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 import javax.swing.filechooser.FileFilter;
 import java.awt.*;
+import java.awt.datatransfer.Transferable;
 import java.awt.event.*;
 import java.awt.image.BufferedImage;
 import java.awt.image.IndexColorModel;
@@ -45,6 +51,8 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.UnsupportedCharsetException;
 import java.text.MessageFormat;
@@ -53,8 +61,12 @@ import java.text.ParseException;
 import java.util.List;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -74,6 +86,9 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
 	private static final ResourceBundle RES = ResourceBundle.getBundle("qrcodegen/QRView");
 	private static final String VERSION = "1.14.2";
 	private static final String UNDEFINED = RES.getString("UNDEFINED");
+	private static final String PNG_EXTENSION = "png"; //NOI18N
+	/** The maximum size of the preview shown while the QR Code is dragged */
+	private static final ImmutableDimension DRAG_IMAGE_BOUNDS = new ImmutableDimension(96, 96);
 	/** The code window is allowed to obscure (lay in front of) at most
 	 * 1/MAX_OBSCURED_FRACTION of the main window. */
 	private static final int MAX_OBSCURED_FRACTION = 3;
@@ -121,6 +136,7 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
 	private static final Logger LOGGER = Logger.getLogger(QRView.class.getName());
 	private static final String EMPTY_STRING = "";
 	private static final String SIZE_WARINING_TOOLTIP_TEXT = RES.getString("QRView.sizeWarningLabel.toolTipText");
+	private static final String SYMBOLS_TOOLTIP_TEXT = RES.getString("QRView.symbolsField.toolTipText");
 	private static final String ENCODING_WARNING_TOOLTIP_TEXT = RES.getString("QRView.encodingWarningLabel.toolTipText");
 	private static final Shortener<String> SHORTENER = new TextShortener(80);
 	/**
@@ -143,7 +159,9 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
 	private final ActionListener sizeListener = new SizeListener();
 	private final ModeLocalizer modeLocalizer = new ModeLocalizer(Locale.getDefault());
 	private final Saver saver;
-	private final DelayedAction delayedAction = new DelayedAction(Executors.newScheduledThreadPool(1), 10, 100, TimeUnit.MILLISECONDS);
+	/** Coalesces content changes into generations. The debounce window
+	 * follows the measured generation latency. */
+	private final CoalescingScheduler scheduler = new CoalescingScheduler(Executors.newScheduledThreadPool(1), 10, 250, TimeUnit.MILLISECONDS);
 	private final Callable<Void> action;
 	/** The page format used when printing */
 	private PageFormat pageFormat;
@@ -151,7 +169,21 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
 	private int size = DEFAULT_SIZE;
 	private ContentModule currentModule;
 	private Charset oldCharset = DEFAULT_ENCODING;
-	private volatile long delay = 0;
+	/** Encodes and renders the QR Codes off the event dispatch thread. */
+	private final ExecutorService generationExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "QRView-Generator");
+			t.setDaemon(true);
+			return t;
+		}
+	});
+	/** Incremented by each call of generateQRCode(). Only the result of the
+	 * newest generation is shown, older ones are dropped. */
+	private final AtomicLong generationCount = new AtomicLong();
+	/** The generation that hasn't been shown yet, or null. Only accessed on
+	 * the event dispatch thread. */
+	private Future<?> pendingGeneration;
 
 	private enum MessageType {
 
@@ -265,7 +297,7 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
 	}
 
 	private void initTransferHandler() {
-		codeView.setPictureTransferHandler(new ImageCopyHandler());
+		codeView.setPictureTransferHandler(new CodeTransferHandler());
 	}
 
 	private void initCopyMenuListeners() {
@@ -356,10 +388,13 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
 		chooser.setAcceptAllFileFilterUsed(false);
 		chooser.setMultiSelectionEnabled(false);
 
-		FileFilter defaultFilter = new FileExtensionFilter(RES.getString("PNG FILTER"), "png");
+		FileFilter defaultFilter = new FileExtensionFilter(RES.getString("PNG FILTER"), PNG_EXTENSION);
 
 		chooser.addChoosableFileFilter(new FileExtensionFilter(RES.getString("BMP FILTER"), "bmp"));
 		chooser.addChoosableFileFilter(new FileExtensionFilter(RES.getString("GIF FILTER"), "gif"));
+		chooser.addChoosableFileFilter(new FileExtensionFilter(RES.getString("SVG FILTER"), "svg"));
+		chooser.addChoosableFileFilter(new FileExtensionFilter(RES.getString("PDF FILTER"), "pdf"));
+		chooser.addChoosableFileFilter(new FileExtensionFilter(RES.getString("EPS FILTER"), "eps"));
 		chooser.addChoosableFileFilter(defaultFilter);
 
 		chooser.setFileFilter(defaultFilter);
@@ -381,6 +416,8 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
 		initBarcodeSizeComboBox();
 		initErrorCorrectionComboBox();
 		initCharacterEncodingComboBox();
+		structuredAppendCheckBox.setSelected(generator.isStructuredAppend());
+		structuredAppendCheckBox.addActionListener(new StructuredAppendListener());
 	}
 
 	private void initBarcodeSizeComboBox() {
@@ -490,6 +527,7 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
 		gen.setRequestedDimension(new ImmutableDimension(size, size));
 		gen.setModus(DEFAULT_MODUS);
 		gen.addPropertyChangeListener(listener);
+		gen.addGenerationListener(new SnapshotListener());
 		return gen;
 	}
 
@@ -516,7 +554,8 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
 
 			@Override
 			public void windowClosed(WindowEvent e) {
-				delayedAction.shutdown();
+				scheduler.shutdown();
+				generationExecutor.shutdownNow();
 			}
 		});
 
@@ -600,12 +639,32 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
 		return image;
 	}
 
+	/**
+	 * Returns the vector image of the current QR Code.
+	 *
+	 * @return the vector image of the current QR Code, or null if there is
+	 * no valid QR Code
+	 */
+	public VectorImage getQRCodeAsVectorImage() {
+		if (generator.isValidState()) {
+			return generator.getVectorImage();
+		}
+		return null;
+	}
+
 	/**
 	 * Generates a QR Code from the data the current {@link #generator}
-	 * provides, and displays it.
+	 * provides, and displays it. The QR Code is encoded and rendered by a
+	 * worker thread; if this method is called again before the QR Code is
+	 * shown, it is dropped in favour of the newer one.
 	 */
 	private void generateQRCode() {
-		boolean enableButtons = false;
+		final long id = generationCount.incrementAndGet();
+		if (pendingGeneration != null) {
+			pendingGeneration.cancel(false);
+			pendingGeneration = null;
+		}
+		menuItemsSetEnabled(false);
 		removeErrorMessage();
 		if (generator.hasContent()) {
 			if (generator.getContentLength() == 0) {
@@ -636,36 +695,128 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
 					: true) :
 					generator.getModuleSize() + " " + moduleSize.getModel().getValue();
 			//</editor-fold>
-			long startTime = System.nanoTime();
-			try {
-				generator.generateCode();
+			final EncodeRequest request = generator.createRequest();
+			final long requestTime = System.nanoTime();
+			pendingGeneration = generationExecutor.submit(new Runnable() {
+				@Override
+				public void run() {
+					if (generationCount.get() != id) {
+						return; // superseded while waiting
+					}
+					final QRCodeGenerator.Generation generation = encode(request);
+					scheduler.recordLatency(generation.getEncodingTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+					SwingUtilities.invokeLater(new Runnable() {
+						@Override
+						public void run() {
+							showGeneration(id, generation, requestTime);
+						}
+					});
+				}
+			});
+		}
+	}
+
+	/**
+	 * Encodes the given request with the encoder all QRCodeGenerators share.
+	 * Called by the worker thread of generateQRCode().
+	 *
+	 * @param request the request
+	 *
+	 * @return the result or the failure, to be shown on the event dispatch
+	 * thread
+	 */
+	private static QRCodeGenerator.Generation encode(EncodeRequest request) {
+		long start = System.nanoTime();
+		try {
+			return new QRCodeGenerator.Generation(QRCodeGenerator.getEncoder().encode(request), System.nanoTime() - start);
+		} catch (WriterException | CodeSizeException | OutOfMemoryError e) {
+			return new QRCodeGenerator.Generation(request, e, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Shows the given result of generateQRCode(), unless a newer generation
+	 * has been started in the meantime.
+	 *
+	 * @param id the id of the generation
+	 * @param generation the result
+	 * @param requestTime the value of System.nanoTime() when the generation
+	 * was started
+	 */
+	private void showGeneration(long id, QRCodeGenerator.Generation generation, long requestTime) {
+		assert SwingUtilities.isEventDispatchThread();
+		if (generationCount.get() != id) {
+			return;
+		}
+		pendingGeneration = null;
+		boolean enableButtons = false;
+		try {
+			if (generator.apply(generation)) {
 				assert (generator.getModuleSize() == ((Number) moduleSize.getModel().getValue()).intValue()) :
 						generator.getModuleSize() + " " + moduleSize.getModel().getValue();
 				enableButtons = true;
-			} catch (WriterException ex) {
-				codeView.setPictureText(RES.getString("INPUT DATA TOO LONG"));
-				// Opening a dialog in case of an exception sometimes makes
-				// this application freeze - maybe there are too few resources.
-				// So for now we display a text instead of the QR Code
-				// that's maybe even the better solution.
-				//JOptionPane.showMessageDialog(QRView.this, "Sorry, a problem occurred while trying to create the QR-Code.", "A problem occured", JOptionPane.ERROR_MESSAGE);
-				LOGGER.log(Level.INFO, "WriterException", ex);
-			} catch (CodeSizeException cse) {
-				if (cse.getMaxDimension() != null && cse.getDimension() != null) {
-					String message = MessageFormat.format(RES.getString("QR CODE TOO LARGE"), cse.getDimension().getWidth(), cse.getDimension().getHeight(), cse.getMaxDimension().getWidth(), cse.getMaxDimension().getHeight()); //NOI18N
-					codeView.setPictureText(message);
-				}
-				LOGGER.log(Level.INFO, "CodeSizeException", cse);
-			} catch (OutOfMemoryError oome) {
-				String message = RES.getString("OOPS - OUT OF MEMORY") + " (" + oome.getLocalizedMessage() + ")"; //NOI18N
-				codeView.setPictureText(message);
-				LOGGER.log(Level.WARNING, "Out of memory", oome);
-			} finally {
-				long stopTime = System.nanoTime();
-				delay = stopTime - startTime;
 			}
+		} catch (WriterException ex) {
+			codeView.setPictureText(RES.getString("INPUT DATA TOO LONG"));
+			// Opening a dialog in case of an exception sometimes makes
+			// this application freeze - maybe there are too few resources.
+			// So for now we display a text instead of the QR Code
+			// that's maybe even the better solution.
+			//JOptionPane.showMessageDialog(QRView.this, "Sorry, a problem occurred while trying to create the QR-Code.", "A problem occured", JOptionPane.ERROR_MESSAGE);
+			LOGGER.log(Level.INFO, "WriterException", ex);
+		} catch (CodeSizeException cse) {
+			showCodeSizeException(cse);
+		} catch (OutOfMemoryError oome) {
+			showOutOfMemoryError(oome);
+		}
+		menuItemsSetEnabled(enableButtons);
+		updateLatencyField(System.nanoTime() - requestTime, generation.getEncodingTime(TimeUnit.NANOSECONDS));
+	}
+
+	/**
+	 * Renders the current QR Code again after a change of its size or modus,
+	 * without encoding it again. Falls back to {@link #generateQRCode()} if
+	 * the QR Code has to be encoded, e.g. because the content has changed.
+	 * Rendering is cheap, so it is done on the event dispatch thread.
+	 */
+	private void renderQRCode() {
+		if (!generator.canRender()) {
+			generateQRCode();
+			return;
+		}
+		// A pending generation is outdated now
+		generationCount.incrementAndGet();
+		if (pendingGeneration != null) {
+			pendingGeneration.cancel(false);
+			pendingGeneration = null;
+		}
+		removeErrorMessage();
+		long start = System.nanoTime();
+		boolean enableButtons = false;
+		try {
+			enableButtons = generator.render();
+		} catch (CodeSizeException cse) {
+			showCodeSizeException(cse);
+		} catch (OutOfMemoryError oome) {
+			showOutOfMemoryError(oome);
 		}
 		menuItemsSetEnabled(enableButtons);
+		long renderingNanos = System.nanoTime() - start;
+		updateLatencyField(renderingNanos, renderingNanos);
+	}
+
+	private void showCodeSizeException(CodeSizeException cse) {
+		if (cse.getMaxDimension() != null && cse.getDimension() != null) {
+			String message = MessageFormat.format(RES.getString("QR CODE TOO LARGE"), cse.getDimension().getWidth(), cse.getDimension().getHeight(), cse.getMaxDimension().getWidth(), cse.getMaxDimension().getHeight()); //NOI18N
+			codeView.setPictureText(message);
+		}
+		LOGGER.log(Level.INFO, "CodeSizeException", cse);
+	}
+
+	private void showOutOfMemoryError(OutOfMemoryError oome) {
+		String message = RES.getString("OOPS - OUT OF MEMORY") + " (" + oome.getLocalizedMessage() + ")"; //NOI18N
+		codeView.setPictureText(message);
+		LOGGER.log(Level.WARNING, "Out of memory", oome);
 	}
 
 	private void removeErrorMessage() {
@@ -682,34 +833,104 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
 	}
 
 	//TODO Move code details to a new module?
-	//We could pass in the generator - no other information is needed
-	private void updateCodeDetails() {
-
-		updateModeField();
-		updateVersionField();
-
-		int characters = generator.hasContent() ? generator.getContentLength() : 0;
-		int totalBytes = generator.getNumTotalBytes();
-		int dataBytes = generator.getNumDataBytes();
-		int ecBytes = generator.getNumECBytes();
-		int rsBlocks = generator.getNumRSBlocks();
+	//We could pass in the snapshot - no other information is needed
+	/**
+	 * Shows the details of the QR Code of the given snapshot. The generator
+	 * may have moved on since the snapshot has been taken, so all values are
+	 * taken from the snapshot.
+	 *
+	 * @param snapshot the snapshot
+	 */
+	private void updateCodeDetails(GenerationSnapshot snapshot) {
+		QRCodeInterface description = snapshot.getDescription();
+		updateModeField(description.getMode());
+		updateVersionField(description.getVersionNumber());
+
+		String content = snapshot.getContent();
+		int characters = content == null ? 0 : content.length();
+		int totalBytes = description.getNumTotalBytes();
+		int dataBytes = description.getNumDataBytes();
+		int ecBytes = description.getNumECBytes();
+		int rsBlocks = description.getNumRSBlocks();
 
 		charactersField.setText(Integer.toString(characters));
+		updateRemainingField(content);
+		updateSegmentFields(description);
+		updateSymbolsField(snapshot.getSequence());
 		totalBytesField.setText(Integer.toString(totalBytes));
 		dataBytesField.setText(Integer.toString(dataBytes));
 		ecBytesField.setText(Integer.toString(ecBytes));
 		rsBlocksField.setText(Integer.toString(rsBlocks));
 	}
 
-	private void updateVersionField() {
-		int version = generator.getVersion();
+	/**
+	 * Shows how many characters can still be added to the given content. This
+	 * doesn't encode the content, so it is cheap enough to be called on every
+	 * keystroke.
+	 *
+	 * @param content the content, may be null
+	 */
+	private void updateRemainingField(String content) {
+		String text;
+		if (content == null) {
+			text = UNDEFINED;
+		} else {
+			int remaining = CapacityEstimator.getRemainingCharacters(content, generator.getErrorCorrectionLevel(), generator.getCharacterEncoding());
+			text = Integer.toString(remaining);
+		}
+		remainingField.setText(text);
+	}
+
+	/**
+	 * Shows the number of segments and the bits saved by them. The tool tip
+	 * of the segments field lists the mode and length of every segment.
+	 */
+	private void updateSegmentFields(QRCodeInterface description) {
+		List<Segment> segments = description.getSegments();
+		segmentsField.setText(Integer.toString(segments.size()));
+		StringBuilder sb = new StringBuilder();
+		for (Segment s : segments) {
+			if (sb.length() > 0) {
+				sb.append(", ");
+			}
+			sb.append(modeLocalizer.getModeAsLocalizedString(s.getMode())).append(" (").append(s.getContent().length()).append(')');
+		}
+		segmentsField.setToolTipText(sb.length() == 0 ? null : sb.toString());
+		bitsSavedField.setText(Integer.toString(description.getBitsSaved()));
+	}
+
+	/**
+	 * Shows the number of QR Codes of the Structured Append sequence, and
+	 * their shared parity data in the tool tip.
+	 */
+	private void updateSymbolsField(List<QRCodeInterface> sequence) {
+		symbolsField.setText(Integer.toString(sequence.size()));
+		String toolTip = SYMBOLS_TOOLTIP_TEXT;
+		if (sequence.size() > 1) {
+			toolTip = MessageFormat.format(RES.getString("SYMBOL SEQUENCE PARITY"), sequence.get(0).getSequenceParity());
+		}
+		symbolsField.setToolTipText(toolTip);
+	}
+
+	/**
+	 * Shows the time from the start of the last generation until its QR Code
+	 * was shown. The tool tip tells how much of it was spent encoding and
+	 * rendering.
+	 */
+	private void updateLatencyField(long latencyNanos, long encodingNanos) {
+		latencyField.setText(Long.toString(TimeUnit.NANOSECONDS.toMillis(latencyNanos)));
+		long renderOnly = generator.getRenderOnlyCount();
+		long total = generator.getEncodeCount() + renderOnly;
+		latencyField.setToolTipText(MessageFormat.format(RES.getString("LATENCY DETAILS"), TimeUnit.NANOSECONDS.toMillis(encodingNanos), renderOnly, total));
+	}
+
+	private void updateVersionField(int version) {
 		String text = version == 0 ? UNDEFINED : Integer.toString(version);
 		versionField.setText(text);
 		LOGGER.log(Level.FINEST, "qr code version = {0}", version);
 	}
 
-	private void updateModeField() {
-		Mode mode = generator.getMode();
+	private void updateModeField(Mode mode) {
 		String text = modeLocalizer.getModeAsLocalizedString(mode);
 		modeField.setText(text);
 		LOGGER.log(Level.FINEST, "qr code mode = {0}", mode);
@@ -718,12 +939,11 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
 	@Override
 	public void stateChanged(ChangeEvent e) {
 		assert e.getSource() instanceof Encodable;
-		try {
-			//generator.setContent(currentModule.getContent());
-			delayedAction.addAction(action, delay);
-		} catch (Exception ex) {
-			Logger.getLogger(QRView.class.getName()).log(Level.SEVERE, null, ex);
+		// Otherwise the field is updated after the code has been generated
+		if (SwingUtilities.isEventDispatchThread()) {
+			updateRemainingField(currentModule.getContent());
 		}
+		scheduler.submit(action);
 	}
 
 	/**
@@ -774,7 +994,20 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
 		public void saveTo(URI uri) {
 			File file = new File(uri);
 			try {
-				new ImageFileWriter(getQRCodeAsImage()).toFile(file);
+				if (generator.isValidState() && BilevelImageWriter.Format.forFile(file) == BilevelImageWriter.Format.PNG) {
+					// The PNG is encoded only once per result
+					final ByteBuffer png = ByteBuffer.wrap(generator.getImages().getPng());
+					ImageFileWriter.writeAtomically(file, new ImageFileWriter.ContentWriter() {
+						@Override
+						public void write(WritableByteChannel channel) throws IOException {
+							while (png.hasRemaining()) {
+								channel.write(png);
+							}
+						}
+					});
+				} else {
+					new ImageFileWriter(getQRCodeAsImage(), getQRCodeAsVectorImage()).toFile(file);
+				}
 			} catch (IOException ex) {
 				LOGGER.log(Level.FINER, "Error writing QR Code to image file", ex); //NOI18N
 				String shortenedFileName = SHORTENER.shorten(file.getAbsolutePath());
@@ -794,6 +1027,26 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
 		}
 	}
 
+	/**
+	 * Copies and drags the ARGB image of the current QR Code, which more
+	 * applications accept than the 1-bit image shown, with a scaled down
+	 * preview as drag image.
+	 */
+	private class CodeTransferHandler extends ImageCopyHandler {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Transferable createTransferable(JComponent jComponent) {
+			if (!generator.isValidState()) {
+				return super.createTransferable(jComponent);
+			}
+			RenderedImages images = generator.getImages();
+			setDragImage(images.getScaledImage(DRAG_IMAGE_BOUNDS));
+			return new ImageSelection(images.getArgbImage());
+		}
+	}
+
 	private class PrintListener implements ActionListener {
 
 		@Override
@@ -938,6 +1191,14 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
 		}
 	}
 
+	private final class StructuredAppendListener implements ActionListener {
+
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			generator.setStructuredAppend(structuredAppendCheckBox.isSelected());
+		}
+	}
+
 	private final class ModusActionListener implements ActionListener {
 
 		@Override
@@ -1065,6 +1326,85 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
 		}
 	}
 
+	/**
+	 * Shows the result of a generation in a single pass.
+	 */
+	private class SnapshotListener implements GenerationListener {
+
+		@Override
+		public void generationCompleted(GenerationSnapshot snapshot) {
+			LOGGER.log(Level.FINEST, "{0}", snapshot);
+			updateActualSizeField(snapshot.getActualDimension());
+			updateEncodingWarning(snapshot.getWasEncodable());
+			updateSizeWarning(snapshot.exceedsRequestedDimension());
+			updateAsciiFields(snapshot.getWasAsciiOnly());
+			if (snapshot.isValid()) {
+				codeView.setQRCode(snapshot.getImage(), snapshot.getMatrix(), snapshot.getModuleSize());
+			} else {
+				codeView.setQRCode(null, null, 0);
+			}
+			updateCodeDetails(snapshot);
+		}
+
+		private void updateActualSizeField(ImmutableDimension actualDimension) {
+			String s = actualDimension == null ? null : Integer.toString(actualDimension.getWidth());
+			if (!actualSizeField.getText().equals(s)) {
+				actualSizeField.setText(s);
+			}
+		}
+
+		private void updateEncodingWarning(TriState wasEncodable) {
+			switch (wasEncodable) {
+				case FALSE:
+					encodingWarningLabel.setIcon(STOP_ICON);
+					encodingWarningLabel.setToolTipText(ENCODING_WARNING_TOOLTIP_TEXT);
+					break;
+				default:
+					encodingWarningLabel.setIcon(EMPTY_ICON_16);
+					encodingWarningLabel.setToolTipText(null);
+			}
+		}
+
+		private void updateSizeWarning(TriState exceedsRequestedDimension) {
+			switch (exceedsRequestedDimension) {
+				case TRUE:
+					sizeWarningLabel.setIcon(HINT_ICON);
+					sizeWarningLabel.setToolTipText(SIZE_WARINING_TOOLTIP_TEXT);
+					break;
+				default:
+					sizeWarningLabel.setIcon(EMPTY_ICON_16);
+					sizeWarningLabel.setToolTipText(null);
+			}
+		}
+
+		private void updateAsciiFields(TriState wasAsciiOnly) {
+			switch (wasAsciiOnly) {
+				case TRUE:
+					asciiField.setText("ASCII only");
+					asciiHintLabel.setIcon(EMPTY_ICON_16);
+					asciiHintLabel.setToolTipText(null);
+					break;
+				case FALSE:
+					asciiField.setText("non-ASCII");
+					if (generator.getCharacterEncoding().equals(DEFAULT_ENCODING)) {
+						asciiHintLabel.setIcon(HINT_ICON);
+						asciiHintLabel.setToolTipText(RES.getString("QRView.asciiHintLabel.toolTipText"));
+					} else {
+						asciiHintLabel.setIcon(EMPTY_ICON_16);
+						asciiHintLabel.setToolTipText(null);
+					}
+					break;
+				case NOT_APPLICABLE:
+					asciiField.setText(RES.getString("QRView.asciiField.text"));
+					asciiHintLabel.setIcon(EMPTY_ICON_16);
+					asciiHintLabel.setToolTipText(null);
+					break;
+				default:
+					throw new AssertionError(wasAsciiOnly);
+			}
+		}
+	}
+
 	private class GeneratorListener implements PropertyChangeListener {
 		//<editor-fold defaultstate="collapsed">
 
@@ -1072,20 +1412,7 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
 		public void propertyChange(PropertyChangeEvent evt) {
 			final String propertyName = evt.getPropertyName();
 			LOGGER.log(Level.FINEST, propertyName);
-			if (propertyName.equals(QRCodeGenerator.ACTUAL_DIMENSION_PROPERTY)) {
-				String s;
-				if (evt.getNewValue() == null) {
-					s = null;
-					LOGGER.log(Level.FINEST, "actual dimension = null");
-				} else {
-					ImmutableDimension newDim = (ImmutableDimension) evt.getNewValue();
-					s = Integer.toString(newDim.getWidth());
-					LOGGER.log(Level.FINEST, "actual dimension = {0}", newDim.toString());
-				}
-				if (!actualSizeField.getText().equals(s)) {
-					actualSizeField.setText(s);
-				}
-			} else if (propertyName.equals(QRCodeGenerator.REQUESTED_DIMENSION_PROPERTY)) {
+			if (propertyName.equals(QRCodeGenerator.REQUESTED_DIMENSION_PROPERTY)) {
 				ImmutableDimension newDim = (ImmutableDimension) evt.getNewValue();
 				Integer size = Integer.valueOf(newDim.getWidth());
 				LOGGER.log(Level.FINEST, "requested dimension = {0}", newDim.toString());
@@ -1093,7 +1420,7 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
 					barcodeSize.getModel().setSelectedItem(size);
 				}
 				codeView.setPictureSize(newDim);
-				generateQRCode();
+				renderQRCode();
 			} else if (propertyName.equals(QRCodeGenerator.MODULE_SIZE_PROPERTY)) {
 				Integer size = (Integer) evt.getNewValue();
 				if (!size.equals(moduleSize.getModel().getValue())) {
@@ -1101,7 +1428,7 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
 					moduleSize.getModel().setValue(size);
 				}
 				LOGGER.log(Level.FINEST, "module size = {0}", size.toString());
-				generateQRCode();
+				renderQRCode();
 			} else if (propertyName.equals(QRCodeGenerator.MODUS_PROPERTY)) {
 				Modus m = (Modus) evt.getNewValue();
 				if (!modus.getSelectedItem().equals(m)) {
@@ -1129,7 +1456,7 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
 						throw new AssertionError(m);
 				}
 				LOGGER.log(Level.FINEST, "modus = {0}", m.toString());
-				generateQRCode();
+				renderQRCode();
 			} else if (propertyName.equals(QRCodeGenerator.ERROR_CORRECTION_LEVEL_PROPERTY)) {
 				ErrorCorrectionLevel newECLevel = (ErrorCorrectionLevel) evt.getNewValue();
 				if (!newECLevel.equals(errorCorrectionLevel.getSelectedItem())) {
@@ -1137,6 +1464,13 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
 				}
 				LOGGER.log(Level.FINEST, "error correction level = {0}", newECLevel.toString());
 				generateQRCode();
+			} else if (propertyName.equals(QRCodeGenerator.STRUCTURED_APPEND_PROPERTY)) {
+				boolean selected = ((Boolean) evt.getNewValue()).booleanValue();
+				if (structuredAppendCheckBox.isSelected() != selected) {
+					structuredAppendCheckBox.setSelected(selected);
+				}
+				LOGGER.log(Level.FINEST, "structured append = {0}", selected);
+				generateQRCode();
 			} else if (propertyName.equals(QRCodeGenerator.CHARACTER_ENCODING_PROPERTY)) {
 				Charset newCharset = evt.getNewValue() == null ? null : (Charset) evt.getNewValue();
 				Charset currentCharset = charEncoding.getSelectedItem() == null ? null : (Charset) charEncoding.getSelectedItem();;
@@ -1151,65 +1485,9 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
 				}
 				LOGGER.log(Level.FINEST, "old charset = {0}, new charset = {1}", new Charset[]{currentCharset, newCharset});
 				generateQRCode();
-			} else if (propertyName.equals(QRCodeGenerator.WAS_ENCODABLE_PROPERTY)) {
-				TriState state = (TriState) evt.getNewValue();
-				switch (state) {
-					case FALSE:
-						encodingWarningLabel.setIcon(STOP_ICON);
-						encodingWarningLabel.setToolTipText(ENCODING_WARNING_TOOLTIP_TEXT);
-						break;
-					default:
-						encodingWarningLabel.setIcon(EMPTY_ICON_16);
-						encodingWarningLabel.setToolTipText(null);
-				}
-			} else if (propertyName.equals(QRCodeGenerator.EXCEEDS_REQUESTED_DIMENSION_PROPERTY)) {
-				TriState state = (TriState) evt.getNewValue();
-				switch (state) {
-					case TRUE:
-						sizeWarningLabel.setIcon(HINT_ICON);
-						sizeWarningLabel.setToolTipText(SIZE_WARINING_TOOLTIP_TEXT);
-						break;
-					default:
-						sizeWarningLabel.setIcon(EMPTY_ICON_16);
-						sizeWarningLabel.setToolTipText(null);
-				}
-			} else if (propertyName.equals(QRCodeGenerator.WAS_ASCII_ONLY_PROPERTY)) {
-				TriState state = (TriState) evt.getNewValue();
-				switch (state) {
-					case TRUE:
-						asciiField.setText("ASCII only");
-						asciiHintLabel.setIcon(EMPTY_ICON_16);
-						asciiHintLabel.setToolTipText(null);
-						break;
-					case FALSE:
-						asciiField.setText("non-ASCII");
-						System.out.println(generator.getCharacterEncoding());
-						if (generator.getCharacterEncoding().equals(DEFAULT_ENCODING)) {
-							asciiHintLabel.setIcon(HINT_ICON);
-							asciiHintLabel.setToolTipText(RES.getString("QRView.asciiHintLabel.toolTipText"));
-						} else {
-							asciiHintLabel.setIcon(EMPTY_ICON_16);
-							asciiHintLabel.setToolTipText(null);
-						}
-						break;
-					case NOT_APPLICABLE:
-						asciiField.setText(RES.getString("QRView.asciiField.text"));
-						asciiHintLabel.setIcon(EMPTY_ICON_16);
-						asciiHintLabel.setToolTipText(null);
-						break;
-					default:
-						throw new AssertionError(state);
-				}
 			} else if (propertyName.equals(QRCodeGenerator.CONTENT_PROPERTY)) {
 				resultField.setText(generator.getContent());
 				generateQRCode();
-			} else if (propertyName.equals(QRCodeGenerator.RESULT_PROPERTY)) {
-				if (generator.isValidState()) {
-					codeView.setQRCode(generator.getImage());
-				} else {
-					codeView.setQRCode(null);
-				}
-				updateCodeDetails();
 			} else if (propertyName.equals(Saver.LAST_FILE_PROPERTY)) {
 				File f = (File) evt.getNewValue();
 				String fileName;
@@ -1252,12 +1530,23 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
         actualSizeLabel = new javax.swing.JLabel();
         sizeWarningLabel = new javax.swing.JLabel();
         encodingWarningLabel = new javax.swing.JLabel();
+        structuredAppendCheckBox = new javax.swing.JCheckBox();
         tabbedPane = new javax.swing.JTabbedPane();
         codeDetailsPanel = new javax.swing.JPanel();
         codeDetails1Panel = new javax.swing.JPanel();
         charactersLabel = new javax.swing.JLabel();
         modeField = new javax.swing.JTextField();
         charactersField = new javax.swing.JTextField();
+        remainingLabel = new javax.swing.JLabel();
+        remainingField = new javax.swing.JTextField();
+        segmentsLabel = new javax.swing.JLabel();
+        segmentsField = new javax.swing.JTextField();
+        bitsSavedLabel = new javax.swing.JLabel();
+        bitsSavedField = new javax.swing.JTextField();
+        symbolsLabel = new javax.swing.JLabel();
+        symbolsField = new javax.swing.JTextField();
+        latencyLabel = new javax.swing.JLabel();
+        latencyField = new javax.swing.JTextField();
         modeLabel = new javax.swing.JLabel();
         asciiField = new javax.swing.JTextField();
         versionField = new javax.swing.JTextField();
@@ -1330,6 +1619,9 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
         encodingWarningLabel.setText(RES.getString("QRView.encodingWarningLabel.text")); // NOI18N
         encodingWarningLabel.setToolTipText(RES.getString("QRView.encodingWarningLabel.toolTipText")); // NOI18N
 
+        structuredAppendCheckBox.setText(RES.getString("QRView.structuredAppendCheckBox.text")); // NOI18N
+        structuredAppendCheckBox.setToolTipText(RES.getString("QRView.structuredAppendCheckBox.toolTipText")); // NOI18N
+
         javax.swing.GroupLayout codeOptionsPanelLayout = new javax.swing.GroupLayout(codeOptionsPanel);
         codeOptionsPanel.setLayout(codeOptionsPanelLayout);
         codeOptionsPanelLayout.setHorizontalGroup(
@@ -1364,7 +1656,8 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
                     .addGroup(codeOptionsPanelLayout.createSequentialGroup()
                         .addComponent(correctionLabel)
                         .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
-                        .addComponent(errorCorrectionLevel, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)))
+                        .addComponent(errorCorrectionLevel, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                    .addComponent(structuredAppendCheckBox))
                 .addContainerGap())
         );
         codeOptionsPanelLayout.setVerticalGroup(
@@ -1396,6 +1689,8 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
                     .addComponent(charEncodingLabel)
                     .addComponent(charEncoding, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
                     .addComponent(encodingWarningLabel))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(structuredAppendCheckBox)
                 .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
         );
 
@@ -1419,6 +1714,50 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
         charactersField.setText(RES.getString("QRView.charactersField.text")); // NOI18N
         charactersField.setFocusable(false);
 
+        remainingLabel.setText(RES.getString("QRView.remainingLabel.text")); // NOI18N
+
+        remainingField.setEditable(false);
+        remainingField.setColumns(4);
+        remainingField.setHorizontalAlignment(javax.swing.JTextField.RIGHT);
+        remainingField.setText(RES.getString("QRView.remainingField.text")); // NOI18N
+        remainingField.setToolTipText(RES.getString("QRView.remainingField.toolTipText")); // NOI18N
+        remainingField.setFocusable(false);
+
+        segmentsLabel.setText(RES.getString("QRView.segmentsLabel.text")); // NOI18N
+
+        segmentsField.setEditable(false);
+        segmentsField.setColumns(4);
+        segmentsField.setHorizontalAlignment(javax.swing.JTextField.RIGHT);
+        segmentsField.setText(RES.getString("QRView.segmentsField.text")); // NOI18N
+        segmentsField.setFocusable(false);
+
+        bitsSavedLabel.setText(RES.getString("QRView.bitsSavedLabel.text")); // NOI18N
+
+        bitsSavedField.setEditable(false);
+        bitsSavedField.setColumns(4);
+        bitsSavedField.setHorizontalAlignment(javax.swing.JTextField.RIGHT);
+        bitsSavedField.setText(RES.getString("QRView.bitsSavedField.text")); // NOI18N
+        bitsSavedField.setToolTipText(RES.getString("QRView.bitsSavedField.toolTipText")); // NOI18N
+        bitsSavedField.setFocusable(false);
+
+        symbolsLabel.setText(RES.getString("QRView.symbolsLabel.text")); // NOI18N
+
+        symbolsField.setEditable(false);
+        symbolsField.setColumns(4);
+        symbolsField.setHorizontalAlignment(javax.swing.JTextField.RIGHT);
+        symbolsField.setText(RES.getString("QRView.symbolsField.text")); // NOI18N
+        symbolsField.setToolTipText(RES.getString("QRView.symbolsField.toolTipText")); // NOI18N
+        symbolsField.setFocusable(false);
+
+        latencyLabel.setText(RES.getString("QRView.latencyLabel.text")); // NOI18N
+
+        latencyField.setEditable(false);
+        latencyField.setColumns(4);
+        latencyField.setHorizontalAlignment(javax.swing.JTextField.RIGHT);
+        latencyField.setText(RES.getString("QRView.latencyField.text")); // NOI18N
+        latencyField.setToolTipText(RES.getString("QRView.latencyField.toolTipText")); // NOI18N
+        latencyField.setFocusable(false);
+
         modeLabel.setText(bundle.getString("QRView.modeLabel.text")); // NOI18N
 
         asciiField.setEditable(false);
@@ -1448,6 +1787,26 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
                                 .addComponent(charactersLabel)
                                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
                                 .addComponent(charactersField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                            .addGroup(codeDetails1PanelLayout.createSequentialGroup()
+                                .addComponent(remainingLabel)
+                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                                .addComponent(remainingField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                            .addGroup(codeDetails1PanelLayout.createSequentialGroup()
+                                .addComponent(segmentsLabel)
+                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                                .addComponent(segmentsField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                            .addGroup(codeDetails1PanelLayout.createSequentialGroup()
+                                .addComponent(bitsSavedLabel)
+                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                                .addComponent(bitsSavedField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                            .addGroup(codeDetails1PanelLayout.createSequentialGroup()
+                                .addComponent(symbolsLabel)
+                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                                .addComponent(symbolsField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                            .addGroup(codeDetails1PanelLayout.createSequentialGroup()
+                                .addComponent(latencyLabel)
+                                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
+                                .addComponent(latencyField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
                             .addGroup(codeDetails1PanelLayout.createSequentialGroup()
                                 .addGroup(codeDetails1PanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
                                     .addGroup(codeDetails1PanelLayout.createSequentialGroup()
@@ -1474,6 +1833,26 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
                     .addComponent(charactersLabel)
                     .addComponent(charactersField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(codeDetails1PanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(remainingLabel)
+                    .addComponent(remainingField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(codeDetails1PanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(segmentsLabel)
+                    .addComponent(segmentsField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(codeDetails1PanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(bitsSavedLabel)
+                    .addComponent(bitsSavedField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(codeDetails1PanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(symbolsLabel)
+                    .addComponent(symbolsField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addGroup(codeDetails1PanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(latencyLabel)
+                    .addComponent(latencyField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addGroup(codeDetails1PanelLayout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
                     .addComponent(modeLabel)
                     .addComponent(modeField, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
@@ -1754,6 +2133,8 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
     private javax.swing.JTextField asciiField;
     private javax.swing.JLabel asciiHintLabel;
     private final javax.swing.JComboBox barcodeSize = new javax.swing.JComboBox();
+    private javax.swing.JTextField bitsSavedField;
+    private javax.swing.JLabel bitsSavedLabel;
     private final javax.swing.JComboBox charEncoding = new javax.swing.JComboBox();
     private javax.swing.JLabel charEncodingLabel;
     private javax.swing.JTextField charactersField;
@@ -1781,6 +2162,8 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
     private javax.swing.JPopupMenu.Separator jSeparator1;
     private javax.swing.JPopupMenu.Separator jSeparator2;
     private javax.swing.JSeparator jSeparator3;
+    private javax.swing.JTextField latencyField;
+    private javax.swing.JLabel latencyLabel;
     private javax.swing.JTextField modeField;
     private javax.swing.JLabel modeLabel;
     private javax.swing.JSpinner moduleSize;
@@ -1791,14 +2174,21 @@ public class QRView extends javax.swing.JFrame implements ChangeListener {
     private javax.swing.JMenuItem pageSetupMenuItem;
     private javax.swing.JPopupMenu picturePopup;
     private javax.swing.JMenuItem printMenuItem;
+    private javax.swing.JTextField remainingField;
+    private javax.swing.JLabel remainingLabel;
     private qrcodegen.tools.JCustomTextField resultField;
     private javax.swing.JLabel resultLabel;
     private javax.swing.JTextField rsBlocksField;
     private javax.swing.JLabel rsBlocksLabel;
     private javax.swing.JMenuItem saveAsMenuItem;
     private javax.swing.JMenuItem saveMenuItem;
+    private javax.swing.JTextField segmentsField;
+    private javax.swing.JLabel segmentsLabel;
     private javax.swing.JLabel sizeLabel;
     private javax.swing.JLabel sizeWarningLabel;
+    private javax.swing.JCheckBox structuredAppendCheckBox;
+    private javax.swing.JTextField symbolsField;
+    private javax.swing.JLabel symbolsLabel;
     private javax.swing.JTabbedPane tabbedPane;
     private javax.swing.JTextField totalBytesField;
     private javax.swing.JLabel totalBytesLabel;
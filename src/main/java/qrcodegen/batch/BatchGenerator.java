@@ -0,0 +1,313 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.batch;
+
+import com.google.zxing.WriterException;
+import qrcodegen.CodeSizeException;
+import qrcodegen.EncodeCache;
+import qrcodegen.EncodeRequest;
+import qrcodegen.EncodeResult;
+import qrcodegen.QRCodeEncoder;
+import qrcodegen.QRCodeGenerator.Modus;
+import qrcodegen.batch.BatchStatistics.Stage;
+import qrcodegen.qrcode.renderer.PngStreamWriter;
+import qrcodegen.tools.ImageFileWriter;
+import qrcodegen.tools.ImmutableDimension;
+import qrcodegen.tools.StaticTools;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Generates QR Code image files for all entries of a manifest without a user
+ * interface.
+ *
+ * The entries are processed by a fixed number of worker threads. The reading
+ * thread blocks as long as the work queue is full, so the memory needed
+ * doesn't depend on the length of the manifest.
+ *
+ * PNG files are streamed to disk scanline by scanline instead of being
+ * rendered into an image first, so they are not limited by the maximum image
+ * size.
+ *
+ * @author Stefan Ganzer
+ */
+public class BatchGenerator {
+
+	private static final Logger LOGGER = Logger.getLogger(BatchGenerator.class.getName());
+	/** The default maximum image size. Arbitrary value to prevent a single
+	 * row from exhausting the heap. */
+	private static final ImmutableDimension DEFAULT_MAX_IMAGE_SIZE = new ImmutableDimension(10000, 10000);
+	private static final int DEFAULT_QUEUE_CAPACITY_PER_THREAD = 4;
+	/** Bounds of the cache that saves re-encoding repeated rows */
+	private static final int CACHE_ENTRIES = 1024;
+	private static final String PNG_EXTENSION = "png";
+	private static final long CACHE_BYTES = 32 * 1024 * 1024;
+	private final File outputDirectory;
+	private final int threads;
+	private final int queueCapacity;
+	private final ImmutableDimension maxImageSize;
+	private final QRCodeEncoder encoder = new QRCodeEncoder(new EncodeCache(CACHE_ENTRIES, CACHE_BYTES));
+
+	/**
+	 * Creates a new BatchGenerator that uses one thread per available
+	 * processor.
+	 *
+	 * @param outputDirectory the directory the images are written to
+	 *
+	 * @throws NullPointerException if outputDirectory is null
+	 */
+	public BatchGenerator(File outputDirectory) {
+		this(outputDirectory, Runtime.getRuntime().availableProcessors());
+	}
+
+	public BatchGenerator(File outputDirectory, int threads) {
+		this(outputDirectory, threads, threads * DEFAULT_QUEUE_CAPACITY_PER_THREAD, DEFAULT_MAX_IMAGE_SIZE);
+	}
+
+	/**
+	 * Creates a new BatchGenerator.
+	 *
+	 * @param outputDirectory the directory the images are written to
+	 * @param threads the number of worker threads
+	 * @param queueCapacity the number of entries that may wait for a free
+	 * worker thread
+	 * @param maxImageSize the maximum size of a single image. PNG images are
+	 * streamed and not limited by this size.
+	 *
+	 * @throws NullPointerException if outputDirectory or maxImageSize is null
+	 * @throws IllegalArgumentException if threads &lt; 1 or queueCapacity &lt;
+	 * 0
+	 */
+	public BatchGenerator(File outputDirectory, int threads, int queueCapacity, ImmutableDimension maxImageSize) {
+		if (outputDirectory == null) {
+			throw new NullPointerException();
+		}
+		if (maxImageSize == null) {
+			throw new NullPointerException();
+		}
+		if (threads < 1) {
+			throw new IllegalArgumentException(Integer.toString(threads) + " < 1");
+		}
+		if (queueCapacity < 0) {
+			throw new IllegalArgumentException(Integer.toString(queueCapacity) + " < 0");
+		}
+		this.outputDirectory = outputDirectory;
+		this.threads = threads;
+		this.queueCapacity = queueCapacity;
+		this.maxImageSize = maxImageSize;
+	}
+
+	/**
+	 * Generates the images for all entries the given reader provides. Rows
+	 * that cannot be generated or written are logged and counted as failed;
+	 * they don't stop the run. The reader is not closed by this method.
+	 *
+	 * @param reader the manifest to read the entries from
+	 *
+	 * @return the statistics of this run
+	 *
+	 * @throws NullPointerException if reader is null
+	 * @throws IOException if the manifest cannot be read, or if the output
+	 * directory cannot be created
+	 * @throws InterruptedException if the current thread is interrupted while
+	 * waiting for a free worker
+	 */
+	public BatchStatistics run(ManifestReader reader) throws IOException, InterruptedException {
+		if (reader == null) {
+			throw new NullPointerException();
+		}
+		if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+			throw new IOException("Cannot create the output directory " + outputDirectory.getAbsolutePath());
+		}
+		final BatchStatistics statistics = new BatchStatistics();
+		final Semaphore permits = new Semaphore(threads + queueCapacity);
+		ExecutorService exec = Executors.newFixedThreadPool(threads, new WorkerThreadFactory());
+		try {
+			while (true) {
+				long start = System.nanoTime();
+				ManifestEntry entry;
+				try {
+					entry = reader.next();
+				} catch (ManifestFormatException mfe) {
+					LOGGER.log(Level.WARNING, "Skipping malformed manifest row", mfe);
+					statistics.rowFailed();
+					continue;
+				} finally {
+					statistics.addStageTime(Stage.READ, System.nanoTime() - start);
+				}
+				if (entry == null) {
+					break;
+				}
+				permits.acquire();
+				final ManifestEntry e = entry;
+				exec.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							generate(e, statistics);
+						} finally {
+							permits.release();
+						}
+					}
+				});
+			}
+		} finally {
+			exec.shutdown();
+			exec.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			statistics.stop();
+		}
+		return statistics;
+	}
+
+	/**
+	 * Returns the cache of encoded QR Codes. Rows with the same content and
+	 * encoding settings are encoded only once as long as they are cached.
+	 *
+	 * @return the cache of encoded QR Codes
+	 */
+	public EncodeCache getEncodeCache() {
+		return encoder.getCache();
+	}
+
+	private void generate(ManifestEntry entry, BatchStatistics statistics) {
+		try {
+			if (PNG_EXTENSION.equals(StaticTools.getExtension(new File(entry.getFileName())))) {
+				stream(entry, statistics);
+				return;
+			}
+			long start = System.nanoTime();
+			EncodeResult result = encoder.encode(createRequest(entry));
+			long encoded = System.nanoTime();
+			statistics.addStageTime(Stage.ENCODE, encoded - start);
+
+			BufferedImage image = result.getImage();
+			long rasterized = System.nanoTime();
+			statistics.addStageTime(Stage.RASTERIZE, rasterized - encoded);
+
+			File file = getOutputFile(entry);
+			new ImageFileWriter(image).toFile(file);
+			statistics.addStageTime(Stage.WRITE, System.nanoTime() - rasterized);
+			statistics.rowSucceeded();
+		} catch (WriterException we) {
+			fail(entry, we, statistics);
+		} catch (CodeSizeException cse) {
+			fail(entry, cse, statistics);
+		} catch (IOException ioe) {
+			fail(entry, ioe, statistics);
+		} catch (RuntimeException re) {
+			// count every row, even if it fails unexpectedly
+			fail(entry, re, statistics);
+		}
+	}
+
+	private void stream(ManifestEntry entry, BatchStatistics statistics) throws WriterException, IOException {
+		long start = System.nanoTime();
+		PngStreamWriter writer = encoder.encodePng(createRequest(entry));
+		long encoded = System.nanoTime();
+		statistics.addStageTime(Stage.ENCODE, encoded - start);
+
+		writer.write(getOutputFile(entry));
+		statistics.addStageTime(Stage.WRITE, System.nanoTime() - encoded);
+		statistics.rowSucceeded();
+	}
+
+	private EncodeRequest createRequest(ManifestEntry entry) {
+		EncodeRequest.Builder builder = new EncodeRequest.Builder(entry.getContent())
+				.characterEncoding(entry.getCharset())
+				.errorCorrectionLevel(entry.getErrorCorrectionLevel())
+				.modus(entry.getModus())
+				.maxImageSize(maxImageSize);
+		if (entry.getModus() == Modus.MODULE_SIZE) {
+			builder.moduleSize(entry.getSize());
+		} else {
+			builder.requestedDimension(new ImmutableDimension(entry.getSize(), entry.getSize()));
+		}
+		return builder.build();
+	}
+
+	private File getOutputFile(ManifestEntry entry) throws IOException {
+		File file = new File(outputDirectory, entry.getFileName());
+		String directory = outputDirectory.getCanonicalPath() + File.separator;
+		if (!file.getCanonicalPath().startsWith(directory)) {
+			throw new IOException("The file is outside of the output directory: " + entry.getFileName());
+		}
+		File parent = file.getParentFile();
+		if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+			throw new IOException("Cannot create the directory " + parent.getAbsolutePath());
+		}
+		return file;
+	}
+
+	private static void fail(ManifestEntry entry, Exception e, BatchStatistics statistics) {
+		LOGGER.log(Level.WARNING, "Failed to generate " + entry, e);
+		statistics.rowFailed();
+	}
+
+	/**
+	 * Generates the images for a manifest file.
+	 *
+	 * Usage: BatchGenerator &lt;manifest&gt; &lt;output directory&gt;
+	 * [threads]
+	 *
+	 * @param args the command line arguments
+	 *
+	 * @throws IOException if the manifest cannot be read
+	 * @throws InterruptedException if interrupted
+	 */
+	public static void main(String... args) throws IOException, InterruptedException {
+		if (args.length < 2 || args.length > 3) {
+			System.err.println("Usage: java -cp QRCodeGen.jar " + BatchGenerator.class.getName() + " <manifest.csv|manifest.jsonl> <output directory> [threads]");
+			System.exit(2);
+		}
+		File manifest = new File(args[0]);
+		File output = new File(args[1]);
+		int threads = args.length == 3 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		ManifestReader reader = ManifestReader.open(manifest);
+		try {
+			BatchGenerator generator = new BatchGenerator(output, threads);
+			BatchStatistics statistics = generator.run(reader);
+			System.out.print(statistics);
+			System.out.println(generator.getEncodeCache());
+		} finally {
+			reader.close();
+		}
+	}
+
+	private static class WorkerThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "BatchGenerator-" + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.batch;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects throughput and per-stage timings of a batch run. This class is
+ * thread-safe.
+ *
+ * @author Stefan Ganzer
+ */
+public final class BatchStatistics {
+
+	public enum Stage {
+
+		/** Reading and parsing the manifest */
+		READ,
+		/** Encoding the content and rendering the module matrix */
+		ENCODE,
+		/** Creating the image from the rendered matrix */
+		RASTERIZE,
+		/** Writing the image file, including the rasterizing of streamed PNG
+		 * files */
+		WRITE;
+	}
+	private final Map<Stage, LongAdder> stageNanos = new EnumMap<Stage, LongAdder>(Stage.class);
+	private final LongAdder succeeded = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final long startTime;
+	private volatile long stopTime;
+
+	public BatchStatistics() {
+		for (Stage s : Stage.values()) {
+			stageNanos.put(s, new LongAdder());
+		}
+		startTime = System.nanoTime();
+	}
+
+	void addStageTime(Stage stage, long nanos) {
+		stageNanos.get(stage).add(nanos);
+	}
+
+	void rowSucceeded() {
+		succeeded.increment();
+	}
+
+	void rowFailed() {
+		failed.increment();
+	}
+
+	void stop() {
+		stopTime = System.nanoTime();
+	}
+
+	public long getSucceededRows() {
+		return succeeded.sum();
+	}
+
+	public long getFailedRows() {
+		return failed.sum();
+	}
+
+	public long getRows() {
+		return getSucceededRows() + getFailedRows();
+	}
+
+	/**
+	 * Returns the time spent in the given stage, summed up over all threads.
+	 *
+	 * @param stage the stage
+	 * @param unit the unit of the returned value
+	 *
+	 * @return the time spent in the given stage, summed up over all threads
+	 */
+	public long getStageTime(Stage stage, TimeUnit unit) {
+		return unit.convert(stageNanos.get(stage).sum(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Returns the wall clock time of the run, or the time elapsed so far if
+	 * the run hasn't finished yet.
+	 *
+	 * @param unit the unit of the returned value
+	 *
+	 * @return the wall clock time of the run
+	 */
+	public long getElapsedTime(TimeUnit unit) {
+		long stop = stopTime == 0 ? System.nanoTime() : stopTime;
+		return unit.convert(stop - startTime, TimeUnit.NANOSECONDS);
+	}
+
+	public double getRowsPerSecond() {
+		long nanos = getElapsedTime(TimeUnit.NANOSECONDS);
+		return nanos == 0 ? 0 : getRows() * 1e9 / nanos;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		long rows = getRows();
+		sb.append(String.format(Locale.ENGLISH, "%d rows (%d failed) in %.3f s, %.1f rows/s%n",
+				rows, getFailedRows(), getElapsedTime(TimeUnit.MICROSECONDS) / 1e6, getRowsPerSecond()));
+		for (Stage s : Stage.values()) {
+			long micros = getStageTime(s, TimeUnit.MICROSECONDS);
+			double perRow = rows == 0 ? 0 : micros / (double) rows;
+			sb.append(String.format(Locale.ENGLISH, "%-10s %12.3f ms total %10.1f us/row%n", s.name(), micros / 1e3, perRow));
+		}
+		return sb.toString();
+	}
+}
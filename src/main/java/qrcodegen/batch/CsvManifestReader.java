@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.batch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads a manifest in comma separated values format (RFC 4180). The first
+ * record is a header that names the fields. Fields may be enclosed in double
+ * quotes, and quoted fields may contain commas, line breaks and escaped
+ * ("") double quotes. Empty lines are skipped.
+ *
+ * @author Stefan Ganzer
+ */
+public class CsvManifestReader extends ManifestReader {
+
+	private static final char SEPARATOR = ',';
+	private static final char QUOTE = '"';
+	private static final char CR = '\r';
+	private static final char LF = '\n';
+	private static final int EOF = -1;
+	private final StringBuilder field = new StringBuilder();
+	private List<String> header;
+	/** The line the reader is currently at, starting with 1. */
+	private long currentLine = 1;
+	/** The line the last record read starts at. */
+	private long recordLine;
+	/** A character that has been read ahead, or EOF if there is none. */
+	private int pushedBack = EOF;
+
+	public CsvManifestReader(Reader reader) {
+		super(reader);
+	}
+
+	@Override
+	public ManifestEntry next() throws IOException {
+		if (header == null) {
+			List<String> names = readRecord();
+			if (names == null) {
+				return null;
+			}
+			header = new ArrayList<String>(names.size());
+			for (String s : names) {
+				header.add(s.trim().toLowerCase(Locale.ENGLISH));
+			}
+		}
+		List<String> values = readRecord();
+		if (values == null) {
+			return null;
+		}
+		long lineNumber = recordLine;
+		if (values.size() > header.size()) {
+			throw new ManifestFormatException(lineNumber, values.size() + " fields, but only " + header.size() + " field names");
+		}
+		Map<String, String> fields = new HashMap<String, String>(header.size() * 2);
+		for (int i = 0; i < values.size(); i++) {
+			fields.put(header.get(i), values.get(i));
+		}
+		return toEntry(lineNumber, fields);
+	}
+
+	/**
+	 * Reads the next non-empty record.
+	 *
+	 * @return the fields of the next record, or null if there are no more
+	 * records
+	 *
+	 * @throws IOException
+	 */
+	private List<String> readRecord() throws IOException {
+		int c = skipEmptyLines();
+		if (c == EOF) {
+			return null;
+		}
+		long startLine = currentLine;
+		recordLine = startLine;
+		List<String> values = new ArrayList<String>();
+		field.setLength(0);
+		boolean quoted = false;
+		boolean wasQuoted = false;
+		while (true) {
+			if (quoted) {
+				if (c == EOF) {
+					throw new ManifestFormatException(startLine, "Unterminated quoted field");
+				} else if (c == QUOTE) {
+					int next = read();
+					if (next == QUOTE) {
+						field.append(QUOTE);
+					} else {
+						quoted = false;
+						c = next;
+						continue;
+					}
+				} else {
+					if (c == LF) {
+						currentLine++;
+					}
+					field.append((char) c);
+				}
+			} else {
+				if (c == EOF || c == LF || c == CR) {
+					values.add(field.toString());
+					if (c == CR) {
+						int next = read();
+						if (next != LF) {
+							unread(next);
+						}
+					}
+					if (c != EOF) {
+						currentLine++;
+					}
+					return values;
+				} else if (c == SEPARATOR) {
+					values.add(field.toString());
+					field.setLength(0);
+					wasQuoted = false;
+				} else if (c == QUOTE && field.length() == 0 && !wasQuoted) {
+					quoted = true;
+					wasQuoted = true;
+				} else {
+					field.append((char) c);
+				}
+			}
+			c = read();
+		}
+	}
+
+	private int skipEmptyLines() throws IOException {
+		int c = read();
+		while (c == CR || c == LF) {
+			if (c == CR) {
+				int next = read();
+				if (next != LF) {
+					unread(next);
+				}
+			}
+			currentLine++;
+			c = read();
+		}
+		return c;
+	}
+
+	private int read() throws IOException {
+		if (pushedBack != EOF) {
+			int c = pushedBack;
+			pushedBack = EOF;
+			return c;
+		}
+		BufferedReader r = getReader();
+		return r.read();
+	}
+
+	private void unread(int c) {
+		assert pushedBack == EOF;
+		pushedBack = c;
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.batch;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads a manifest in JSON Lines format, that is one JSON object per line.
+ * The objects must be flat: their values may be strings, numbers, booleans or
+ * null, but not arrays or objects. Empty lines are skipped.
+ *
+ * @author Stefan Ganzer
+ */
+public class JsonLinesManifestReader extends ManifestReader {
+
+	private long currentLine = 0;
+	private String line;
+	private int pos;
+
+	public JsonLinesManifestReader(Reader reader) {
+		super(reader);
+	}
+
+	@Override
+	public ManifestEntry next() throws IOException {
+		do {
+			line = getReader().readLine();
+			if (line == null) {
+				return null;
+			}
+			currentLine++;
+		} while (line.trim().isEmpty());
+		pos = 0;
+		return toEntry(currentLine, parseObject());
+	}
+
+	private Map<String, String> parseObject() throws ManifestFormatException {
+		Map<String, String> fields = new HashMap<String, String>();
+		expect('{');
+		skipWhitespace();
+		if (peek() == '}') {
+			pos++;
+		} else {
+			while (true) {
+				skipWhitespace();
+				String name = parseString();
+				expect(':');
+				String value = parseValue();
+				fields.put(name.toLowerCase(Locale.ENGLISH), value);
+				skipWhitespace();
+				char c = nextChar();
+				if (c == '}') {
+					break;
+				} else if (c != ',') {
+					throw error("Expected ',' or '}' but found '" + c + "'");
+				}
+			}
+		}
+		skipWhitespace();
+		if (pos < line.length()) {
+			throw error("Unexpected characters after the end of the object");
+		}
+		return fields;
+	}
+
+	private String parseValue() throws ManifestFormatException {
+		skipWhitespace();
+		char c = peek();
+		if (c == '"') {
+			return parseString();
+		} else if (c == '{' || c == '[') {
+			throw error("Nested objects and arrays are not supported");
+		}
+		int start = pos;
+		while (pos < line.length() && ",} \t".indexOf(line.charAt(pos)) == -1) {
+			pos++;
+		}
+		String literal = line.substring(start, pos);
+		if (literal.isEmpty()) {
+			throw error("Missing value");
+		}
+		return "null".equals(literal) ? null : literal;
+	}
+
+	private String parseString() throws ManifestFormatException {
+		expect('"');
+		StringBuilder sb = new StringBuilder();
+		while (true) {
+			char c = nextChar();
+			if (c == '"') {
+				return sb.toString();
+			} else if (c == '\\') {
+				char escaped = nextChar();
+				switch (escaped) {
+					case '"':
+					case '\\':
+					case '/':
+						sb.append(escaped);
+						break;
+					case 'b':
+						sb.append('\b');
+						break;
+					case 'f':
+						sb.append('\f');
+						break;
+					case 'n':
+						sb.append('\n');
+						break;
+					case 'r':
+						sb.append('\r');
+						break;
+					case 't':
+						sb.append('\t');
+						break;
+					case 'u':
+						if (pos + 4 > line.length()) {
+							throw error("Incomplete unicode escape sequence");
+						}
+						try {
+							sb.append((char) Integer.parseInt(line.substring(pos, pos + 4), 16));
+						} catch (NumberFormatException nfe) {
+							throw error("Illegal unicode escape sequence");
+						}
+						pos += 4;
+						break;
+					default:
+						throw error("Illegal escape sequence \\" + escaped);
+				}
+			} else {
+				sb.append(c);
+			}
+		}
+	}
+
+	private void expect(char expected) throws ManifestFormatException {
+		skipWhitespace();
+		char c = nextChar();
+		if (c != expected) {
+			throw error("Expected '" + expected + "' but found '" + c + "'");
+		}
+	}
+
+	private void skipWhitespace() {
+		while (pos < line.length() && Character.isWhitespace(line.charAt(pos))) {
+			pos++;
+		}
+	}
+
+	private char peek() throws ManifestFormatException {
+		if (pos >= line.length()) {
+			throw error("Unexpected end of line");
+		}
+		return line.charAt(pos);
+	}
+
+	private char nextChar() throws ManifestFormatException {
+		char c = peek();
+		pos++;
+		return c;
+	}
+
+	private ManifestFormatException error(String msg) {
+		return new ManifestFormatException(currentLine, msg + " at column " + (pos + 1));
+	}
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.batch;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import qrcodegen.QRCodeGenerator.Modus;
+
+import java.nio.charset.Charset;
+
+/**
+ * One row of a batch manifest: the content of a single QR Code together with
+ * the settings it is to be generated with, and the name of the image file to
+ * write it to.
+ *
+ * @author Stefan Ganzer
+ */
+public final class ManifestEntry {
+
+	private final long lineNumber;
+	private final String content;
+	private final String fileName;
+	private final ErrorCorrectionLevel errorCorrectionLevel;
+	private final Charset charset;
+	private final Modus modus;
+	private final int size;
+
+	/**
+	 *
+	 * @param lineNumber the line number of this entry in the manifest
+	 * @param content the content to encode
+	 * @param fileName the name of the output file, relative to the output
+	 * directory. The file extension defines the image format.
+	 * @param errorCorrectionLevel the error correction level
+	 * @param charset the character encoding, or null if none is to be set
+	 * explicitly
+	 * @param modus the modus
+	 * @param size the requested width and height in pixels if modus is
+	 * FIXED_SIZE or BEST_FIT, the module size in pixels if modus is
+	 * MODULE_SIZE
+	 *
+	 * @throws NullPointerException if any argument but charset is null
+	 * @throws IllegalArgumentException if size &lt; 1
+	 */
+	public ManifestEntry(long lineNumber, String content, String fileName, ErrorCorrectionLevel errorCorrectionLevel, Charset charset, Modus modus, int size) {
+		if (content == null) {
+			throw new NullPointerException();
+		}
+		if (fileName == null) {
+			throw new NullPointerException();
+		}
+		if (errorCorrectionLevel == null) {
+			throw new NullPointerException();
+		}
+		if (modus == null) {
+			throw new NullPointerException();
+		}
+		if (size < 1) {
+			throw new IllegalArgumentException(Integer.toString(size) + " < 1");
+		}
+		this.lineNumber = lineNumber;
+		this.content = content;
+		this.fileName = fileName;
+		this.errorCorrectionLevel = errorCorrectionLevel;
+		this.charset = charset;
+		this.modus = modus;
+		this.size = size;
+	}
+
+	public long getLineNumber() {
+		return lineNumber;
+	}
+
+	public String getContent() {
+		return content;
+	}
+
+	public String getFileName() {
+		return fileName;
+	}
+
+	public ErrorCorrectionLevel getErrorCorrectionLevel() {
+		return errorCorrectionLevel;
+	}
+
+	/**
+	 * Returns the character encoding, or null if none is set explicitly.
+	 *
+	 * @return the character encoding, or null if none is set explicitly
+	 */
+	public Charset getCharset() {
+		return charset;
+	}
+
+	public Modus getModus() {
+		return modus;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	@Override
+	public String toString() {
+		return "[" + lineNumber + ": " + fileName + ", " + errorCorrectionLevel + ", " + charset + ", " + modus.name() + ", " + size + "]";
+	}
+}
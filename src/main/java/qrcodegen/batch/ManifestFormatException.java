@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.batch;
+
+import java.io.IOException;
+
+/**
+ * Thrown if a line of a batch manifest cannot be parsed.
+ *
+ * @author Stefan Ganzer
+ */
+public class ManifestFormatException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+	private final long lineNumber;
+
+	/**
+	 * Constructs an instance of
+	 * <code>ManifestFormatException</code> with the specified detail message.
+	 *
+	 * @param lineNumber the line the error occurred in
+	 * @param msg the detail message.
+	 */
+	public ManifestFormatException(long lineNumber, String msg) {
+		super("Line " + lineNumber + ": " + msg);
+		this.lineNumber = lineNumber;
+	}
+
+	public ManifestFormatException(long lineNumber, String msg, Throwable cause) {
+		super("Line " + lineNumber + ": " + msg, cause);
+		this.lineNumber = lineNumber;
+	}
+
+	public long getLineNumber() {
+		return lineNumber;
+	}
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.batch;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import qrcodegen.QRCodeGenerator;
+import qrcodegen.QRCodeGenerator.Modus;
+import qrcodegen.tools.StaticTools;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads a batch manifest one entry at a time, so the memory needed doesn't
+ * depend on the length of the manifest.
+ *
+ * Every record of a manifest has the following fields. Only
+ * {@value #CONTENT} is mandatory:
+ * <ul>
+ * <li>{@value #CONTENT}: the content to encode</li>
+ * <li>{@value #FILE}: the output file, relative to the output directory. The
+ * extension defines the image format. Default: the line number with the
+ * extension png</li>
+ * <li>{@value #ERROR_CORRECTION}: L, M, Q or H. Default: L</li>
+ * <li>{@value #CHARSET}: the name of the character encoding. Default:
+ * ISO-8859-1</li>
+ * <li>{@value #MODUS}: FIXED_SIZE, BEST_FIT or MODULE_SIZE. Default:
+ * BEST_FIT</li>
+ * <li>{@value #SIZE}: the requested width and height in pixels, or the
+ * module size if modus is MODULE_SIZE. Default: 350 or 4, respectively</li>
+ * </ul>
+ *
+ * @author Stefan Ganzer
+ */
+public abstract class ManifestReader implements Closeable {
+
+	public static final String CONTENT = "content";
+	public static final String FILE = "file";
+	public static final String ERROR_CORRECTION = "ec";
+	public static final String CHARSET = "charset";
+	public static final String MODUS = "modus";
+	public static final String SIZE = "size";
+	private static final String DEFAULT_EXTENSION = "png";
+	private static final ErrorCorrectionLevel DEFAULT_ERROR_CORRECTION_LEVEL = ErrorCorrectionLevel.L;
+	private static final Modus DEFAULT_MODUS = Modus.BEST_FIT;
+	private static final int DEFAULT_SIZE = 350;
+	private static final int DEFAULT_MODULE_SIZE = 4;
+	private final BufferedReader reader;
+
+	protected ManifestReader(Reader reader) {
+		if (reader == null) {
+			throw new NullPointerException();
+		}
+		this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+	}
+
+	/**
+	 * Returns a ManifestReader for the given file. Files with the extension
+	 * csv are read as comma separated values with a header line, all other
+	 * files as JSON Lines, i.e. one JSON object per line. The file has to be
+	 * UTF-8 encoded.
+	 *
+	 * @param file the manifest
+	 *
+	 * @return a ManifestReader for the given file
+	 *
+	 * @throws NullPointerException if file is null
+	 * @throws IOException if the file cannot be opened
+	 */
+	public static ManifestReader open(File file) throws IOException {
+		if (file == null) {
+			throw new NullPointerException();
+		}
+		Reader r = new InputStreamReader(new FileInputStream(file), Charset.forName("UTF-8"));
+		if ("csv".equals(StaticTools.getExtension(file))) {
+			return new CsvManifestReader(r);
+		} else {
+			return new JsonLinesManifestReader(r);
+		}
+	}
+
+	/**
+	 * Returns the next entry of the manifest, or null if the end of the
+	 * manifest has been reached.
+	 *
+	 * @return the next entry of the manifest, or null if the end of the
+	 * manifest has been reached
+	 *
+	 * @throws ManifestFormatException if the next record is malformed
+	 * @throws IOException if reading fails
+	 */
+	public abstract ManifestEntry next() throws IOException;
+
+	protected final BufferedReader getReader() {
+		return reader;
+	}
+
+	/**
+	 * Creates an entry from the fields of one record.
+	 *
+	 * @param lineNumber the line number the record starts at
+	 * @param fields the fields of the record, keyed by field name
+	 *
+	 * @return the entry
+	 *
+	 * @throws ManifestFormatException if a field has an illegal value, or if
+	 * the content is missing
+	 */
+	protected static ManifestEntry toEntry(long lineNumber, Map<String, String> fields) throws ManifestFormatException {
+		String content = fields.get(CONTENT);
+		if (content == null) {
+			throw new ManifestFormatException(lineNumber, "No " + CONTENT);
+		}
+		String fileName = nonEmpty(fields.get(FILE));
+		if (fileName == null) {
+			fileName = Long.toString(lineNumber) + "." + DEFAULT_EXTENSION;
+		}
+		ErrorCorrectionLevel ecLevel = DEFAULT_ERROR_CORRECTION_LEVEL;
+		String ec = nonEmpty(fields.get(ERROR_CORRECTION));
+		if (ec != null) {
+			try {
+				ecLevel = ErrorCorrectionLevel.valueOf(ec.toUpperCase(Locale.ENGLISH));
+			} catch (IllegalArgumentException iae) {
+				throw new ManifestFormatException(lineNumber, "Illegal " + ERROR_CORRECTION + ": " + ec, iae);
+			}
+		}
+		Charset charset = QRCodeGenerator.getDefaultCharacterEncoding();
+		String charsetName = nonEmpty(fields.get(CHARSET));
+		if (charsetName != null) {
+			try {
+				charset = Charset.forName(charsetName);
+			} catch (IllegalCharsetNameException icne) {
+				throw new ManifestFormatException(lineNumber, "Illegal " + CHARSET + ": " + charsetName, icne);
+			} catch (UnsupportedCharsetException uce) {
+				throw new ManifestFormatException(lineNumber, "Unsupported " + CHARSET + ": " + charsetName, uce);
+			}
+		}
+		Modus modus = DEFAULT_MODUS;
+		String modusName = nonEmpty(fields.get(MODUS));
+		if (modusName != null) {
+			try {
+				modus = Modus.valueOf(modusName.toUpperCase(Locale.ENGLISH));
+			} catch (IllegalArgumentException iae) {
+				throw new ManifestFormatException(lineNumber, "Illegal " + MODUS + ": " + modusName, iae);
+			}
+		}
+		int size = modus == Modus.MODULE_SIZE ? DEFAULT_MODULE_SIZE : DEFAULT_SIZE;
+		String sizeValue = nonEmpty(fields.get(SIZE));
+		if (sizeValue != null) {
+			try {
+				size = Integer.parseInt(sizeValue);
+			} catch (NumberFormatException nfe) {
+				throw new ManifestFormatException(lineNumber, "Illegal " + SIZE + ": " + sizeValue, nfe);
+			}
+			if (size < 1) {
+				throw new ManifestFormatException(lineNumber, "Illegal " + SIZE + ": " + sizeValue);
+			}
+		}
+		return new ManifestEntry(lineNumber, content, fileName, ecLevel, charset, modus, size);
+	}
+
+	private static String nonEmpty(String s) {
+		if (s == null) {
+			return null;
+		}
+		String trimmed = s.trim();
+		return trimmed.isEmpty() ? null : trimmed;
+	}
+
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+}
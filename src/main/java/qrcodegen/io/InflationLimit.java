@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.io;
+
+import net.jcip.annotations.Immutable;
+
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Guards against zip bombs by limiting the ratio between the number of bytes
+ * inflated from a zip entry and the entry's compressed size.
+ *
+ * The declared sizes in a zip file's central directory are not trusted: the
+ * stream returned by {@link #open(ZipFile, ZipEntry)} counts the bytes that
+ * are actually inflated and throws a SizeLimitException as soon as the
+ * absolute limit, the inflation ratio or the declared size is exceeded. Entries smaller than the
+ * threshold are never rejected because of their ratio, as small, repetitive
+ * documents may compress very well.
+ *
+ * @author Stefan Ganzer
+ */
+@Immutable
+public class InflationLimit {
+
+	/** KML typically compresses by a factor of 5 to 20 */
+	public static final int DEFAULT_MAX_RATIO = 100;
+	public static final long DEFAULT_THRESHOLD = 64 * 1024;
+	private final long limit;
+	private final int maxRatio;
+	private final long threshold;
+
+	public InflationLimit(long limit) {
+		this(limit, DEFAULT_MAX_RATIO, DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * Creates a new InflationLimit.
+	 *
+	 * @param limit the maximum number of bytes that may be inflated from an
+	 * entry
+	 * @param maxRatio the maximum ratio between the inflated and the
+	 * compressed size of an entry
+	 * @param threshold the number of bytes that may be inflated from an entry
+	 * regardless of its ratio
+	 *
+	 * @throws IllegalArgumentException if limit &lt; 0, maxRatio &lt; 1 or
+	 * threshold &lt; 0
+	 */
+	public InflationLimit(long limit, int maxRatio, long threshold) {
+		if (limit < 0) {
+			throw new IllegalArgumentException(Long.toString(limit) + " < 0");
+		}
+		if (maxRatio < 1) {
+			throw new IllegalArgumentException(Integer.toString(maxRatio) + " < 1");
+		}
+		if (threshold < 0) {
+			throw new IllegalArgumentException(Long.toString(threshold) + " < 0");
+		}
+		this.limit = limit;
+		this.maxRatio = maxRatio;
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Returns the maximum number of bytes that may be inflated from an entry
+	 * with the given compressed size.
+	 *
+	 * @param compressedSize the compressed size of the entry
+	 *
+	 * @return the maximum number of bytes that may be inflated
+	 *
+	 * @throws SizeLimitException if the compressed size is unknown
+	 */
+	public long getAllowedSize(long compressedSize) throws SizeLimitException {
+		if (compressedSize < 0) {
+			throw new SizeLimitException("Unknown compressed size");
+		}
+		long byRatio = compressedSize > Long.MAX_VALUE / maxRatio ? Long.MAX_VALUE : compressedSize * maxRatio;
+		return Math.min(limit, Math.max(threshold, byRatio));
+	}
+
+	/**
+	 * Checks the entry's declared size and opens an input stream that is
+	 * limited to the number of bytes allowed for the entry.
+	 *
+	 * @param zipFile the zip file that contains the entry
+	 * @param entry the entry to read
+	 *
+	 * @return an input stream for reading the contents of the entry that is
+	 * limited to the smaller of the allowed and the declared size
+	 *
+	 * @throws NullPointerException if zipFile or entry is null
+	 * @throws SizeLimitException if the entry's declared size is unknown or
+	 * exceeds the allowed size
+	 * @throws IOException if an I/O error occurs
+	 */
+	public SizeLimitInputStream open(ZipFile zipFile, ZipEntry entry) throws IOException, SizeLimitException {
+		if (zipFile == null) {
+			throw new NullPointerException();
+		}
+		long allowed = getAllowedSize(entry.getCompressedSize());
+		if (entry.getSize() == -1 || entry.getSize() > allowed) {
+			throw new SizeLimitException(allowed, entry.getSize());
+		}
+		// An entry that inflates to more than it declares is rejected as soon
+		// as it exceeds its declared size, not only when it exceeds the limit
+		return new SizeLimitInputStream(zipFile.getInputStream(entry), Math.min(allowed, entry.getSize()));
+	}
+
+	public long getLimit() {
+		return limit;
+	}
+
+	public int getMaxRatio() {
+		return maxRatio;
+	}
+
+	public long getThreshold() {
+		return threshold;
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A ReadableByteChannel that throws a SizeLimitException as soon as more than
+ * a given number of bytes have been read from the underlying channel.
+ *
+ * A single read never transfers more than one byte beyond the limit.
+ * Closing this channel closes the underlying channel.
+ *
+ * @author Stefan Ganzer
+ */
+public class SizeLimitChannel implements ReadableByteChannel {
+
+	private final ReadableByteChannel channel;
+	private final long limit;
+	private long sumOfBytes;
+
+	public SizeLimitChannel(ReadableByteChannel channel, long limit) {
+		if (channel == null) {
+			throw new NullPointerException();
+		}
+		if (limit < 0) {
+			throw new IllegalArgumentException(Long.toString(limit) + " < 0");
+		}
+		this.channel = channel;
+		this.limit = limit;
+		sumOfBytes = 0;
+	}
+
+	@Override
+	public int read(ByteBuffer dst) throws IOException, SizeLimitException {
+		long allowed = Math.max(0, Math.min(limit - sumOfBytes, Long.MAX_VALUE - 1)) + 1;
+		int n;
+		if (dst.remaining() <= allowed) {
+			n = channel.read(dst);
+		} else {
+			int oldLimit = dst.limit();
+			dst.limit(dst.position() + (int) allowed);
+			try {
+				n = channel.read(dst);
+			} finally {
+				dst.limit(oldLimit);
+			}
+		}
+		if (n > 0) {
+			sumOfBytes = sumOfBytes + n;
+			if (sumOfBytes > limit) {
+				throw new SizeLimitException(limit, sumOfBytes);
+			}
+		}
+		return n;
+	}
+
+	@Override
+	public boolean isOpen() {
+		return channel.isOpen();
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	public long getLimit() {
+		return limit;
+	}
+
+	public long getCurrentSize() {
+		return sumOfBytes;
+	}
+}
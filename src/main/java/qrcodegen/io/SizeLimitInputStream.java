@@ -22,6 +22,13 @@ import java.io.IOException;
 import java.io.InputStream;
 
 /**
+ * An InputStream that throws a SizeLimitException as soon as more than a
+ * given number of bytes have been read or skipped from the underlying stream.
+ *
+ * Bulk reads are passed through to the underlying stream. They never request
+ * more than one byte beyond the limit, so exceeding the limit is detected
+ * without reading much more than allowed. Closing this stream closes the
+ * underlying stream. Mark and reset are not supported.
  *
  * @author Stefan Ganzer
  */
@@ -48,14 +55,51 @@ public class SizeLimitInputStream extends InputStream {
 	public int read() throws IOException, SizeLimitException {
 		int data = in.read();
 		if (data > -1) {
-			sumOfBytes = sumOfBytes + 1;
-			if (sumOfBytes > limit) {
-				throw new SizeLimitException(limit, sumOfBytes);
-			}
+			count(1);
 		}
 		return data;
 	}
-	
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException, SizeLimitException {
+		if (b == null) {
+			throw new NullPointerException();
+		}
+		if (off < 0 || len < 0 || len > b.length - off) {
+			throw new IndexOutOfBoundsException();
+		}
+		if (len == 0) {
+			return 0;
+		}
+		int n = in.read(b, off, (int) Math.min(len, getRemaining() + 1));
+		if (n > 0) {
+			count(n);
+		}
+		return n;
+	}
+
+	@Override
+	public long skip(long n) throws IOException, SizeLimitException {
+		if (n <= 0) {
+			return 0;
+		}
+		long skipped = in.skip(Math.min(n, getRemaining() + 1));
+		if (skipped > 0) {
+			count(skipped);
+		}
+		return skipped;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return in.available();
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
 	public long getLimit(){
 		return limit;
 	}
@@ -63,4 +107,16 @@ public class SizeLimitInputStream extends InputStream {
 	public long getCurrentSize(){
 		return sumOfBytes;
 	}
+
+	private long getRemaining() {
+		// capped so that adding one byte to detect the excess doesn't overflow
+		return Math.max(0, Math.min(limit - sumOfBytes, Long.MAX_VALUE - 1));
+	}
+
+	private void count(long n) throws SizeLimitException {
+		sumOfBytes = sumOfBytes + n;
+		if (sumOfBytes > limit) {
+			throw new SizeLimitException(limit, sumOfBytes);
+		}
+	}
 }
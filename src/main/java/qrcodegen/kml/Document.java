@@ -36,6 +36,7 @@ public class Document {
 	private List<Placemark> placemarks = new ArrayList<Placemark>();
 	private List<Folder> folders = new ArrayList<Folder>();
 	private List<Document> documents = new ArrayList<Document>();
+	private List<NetworkLink> networkLinks = new ArrayList<NetworkLink>();
 
 	public void setPlacemarks(List<Placemark> placemarks) {
 		this.placemarks = placemarks;
@@ -64,6 +65,15 @@ public class Document {
 		return documents;
 	}
 
+	public void setNetworkLinks(List<NetworkLink> networkLinks) {
+		this.networkLinks = networkLinks;
+	}
+
+	@XmlElement(name = "NetworkLink")
+	public List<NetworkLink> getNetworkLinks() {
+		return networkLinks;
+	}
+
 	public String getName() {
 		return name;
 	}
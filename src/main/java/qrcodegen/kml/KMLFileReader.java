@@ -18,12 +18,24 @@
  */
 package qrcodegen.kml;
 
-import jakarta.xml.bind.DataBindingException;
-import jakarta.xml.bind.JAXB;
+import qrcodegen.io.InflationLimit;
 import qrcodegen.io.SizeLimitException;
 import qrcodegen.io.SizeLimitInputStream;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
@@ -35,10 +47,21 @@ import java.util.zip.ZipFile;
  */
 public class KMLFileReader {
 
+	private static final byte[] ZIP_MAGIC = {'P', 'K', 3, 4};
+	private static final byte[] EMPTY_ZIP_MAGIC = {'P', 'K', 5, 6};
+	private static final String MAIN_ENTRY = "doc.kml"; //NOI18N
+	private static final String KML_EXTENSION = ".kml"; //NOI18N
+	/** The maximum number of threads that unmarshal the entries of KMZ files */
+	private static final int MAX_THREADS = 4;
+	/** Unmarshals the entries of KMZ files. The threads are kept, so each one
+	 * reuses its Unmarshaller for all files read. */
+	private static final ExecutorService PARSERS = Executors.newFixedThreadPool(
+			Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors()), new ParserThreadFactory());
 	private final Logger logger;
 	private final File file;
 	private final long limit;
 	private Kml kml;
+	private long parseTime = -1;
 
 	public KMLFileReader(File file, long limit, Logger logger) {
 		if (file == null) {
@@ -55,13 +78,49 @@ public class KMLFileReader {
 		this.file = file;
 	}
 
+	/**
+	 * Reads a KMZ or an uncompressed KML file, depending on the first bytes
+	 * of the file.
+	 *
+	 * @throws FileNotFoundException if the file doesn't exist, or if a KMZ
+	 * file doesn't contain a KML file
+	 * @throws ZipException if the file starts like a KMZ file, but is
+	 * corrupt
+	 * @throws SizeLimitException if the file exceeds the limit
+	 * @throws IOException if the file cannot be read or parsed
+	 */
 	public void readFile() throws ZipException, FileNotFoundException, IOException {
-		try {
+		if (isZipFile()) {
 			readZippedFile();
-		} catch (ZipException ze) {
+		} else {
 			readUncompressedFile();
 		}
+	}
 
+	/**
+	 * Returns true if the file starts with the signature of a zip file.
+	 *
+	 * @return true if the file starts with the signature of a zip file
+	 *
+	 * @throws FileNotFoundException if the file doesn't exist
+	 * @throws IOException if the file cannot be read
+	 */
+	public boolean isZipFile() throws FileNotFoundException, IOException {
+		byte[] magic = new byte[ZIP_MAGIC.length];
+		InputStream in = new FileInputStream(file);
+		try {
+			int n = 0;
+			while (n < magic.length) {
+				int r = in.read(magic, n, magic.length - n);
+				if (r == -1) {
+					return false;
+				}
+				n = n + r;
+			}
+		} finally {
+			in.close();
+		}
+		return Arrays.equals(magic, ZIP_MAGIC) || Arrays.equals(magic, EMPTY_ZIP_MAGIC);
 	}
 
 	public void readZippedFile() throws ZipException, FileNotFoundException, IOException {
@@ -71,16 +130,20 @@ public class KMLFileReader {
 		}
 		try {
 			z = new ZipFile(file, ZipFile.OPEN_READ);
-			ZipEntry doc = z.getEntry("doc.kml");
-			if (doc == null) {
-				throw new FileNotFoundException(file.getAbsolutePath() + " doesn't contain a doc.kml file");
-			}
-			if (doc.getSize() == -1 || doc.getSize() > limit) {
-				throw new SizeLimitException(limit, doc.getSize());
+			List<ZipEntry> entries = getKmlEntries(z);
+			KmlBinding.getContext();
+			long start = System.nanoTime();
+			List<Kml> kmls = unmarshal(z, entries);
+			if (kmls.size() == 1) {
+				kml = kmls.get(0);
+			} else {
+				List<String> names = new ArrayList<String>();
+				for (ZipEntry e : entries) {
+					names.add(e.getName());
+				}
+				kml = new KmlMerger(names, kmls).merge(file.getName());
 			}
-			kml = JAXB.unmarshal(new SizeLimitInputStream(z.getInputStream(doc), limit), Kml.class);
-		} catch (DataBindingException dbe) {
-			throw new IOException(dbe);
+			parseTime = System.nanoTime() - start;
 		} finally {
 			if (z != null) {
 				try {
@@ -102,9 +165,10 @@ public class KMLFileReader {
 		InputStream in = null;
 		try {
 			in = new SizeLimitInputStream(new FileInputStream(file), limit);
-			kml = JAXB.unmarshal(in, Kml.class);
-		} catch (DataBindingException dbe) {
-			throw new IOException(dbe);
+			KmlBinding.getContext();
+			long start = System.nanoTime();
+			kml = KmlBinding.unmarshal(in);
+			parseTime = System.nanoTime() - start;
 		} finally {
 			if (in != null) {
 				try {
@@ -116,7 +180,184 @@ public class KMLFileReader {
 		}
 	}
 
+	/**
+	 * Streams the KML document of an uncompressed KML file to the given
+	 * handler. Unlike {@link #readUncompressedFile()}, the document is not
+	 * kept in memory, so large files can be read with a high limit. KMZ files
+	 * are read by {@link #readZippedFile()}, which resolves the NetworkLinks
+	 * between their entries.
+	 *
+	 * @param handler the handler to report the elements of the document to
+	 *
+	 * @throws NullPointerException if handler is null
+	 * @throws FileNotFoundException if the file doesn't exist
+	 * @throws SizeLimitException if the file exceeds the limit
+	 * @throws IOException if the file cannot be read or parsed
+	 */
+	public void readUncompressedFile(KmlHandler handler) throws FileNotFoundException, IOException {
+		if (handler == null) {
+			throw new NullPointerException();
+		}
+		if (!file.exists()) {
+			throw new FileNotFoundException(file.getAbsolutePath());
+		}
+		if (file.length() > limit) {
+			throw new SizeLimitException(limit, file.length());
+		}
+		InputStream in = null;
+		try {
+			in = new SizeLimitInputStream(new BufferedInputStream(new FileInputStream(file)), limit);
+			long start = System.nanoTime();
+			new KmlStreamReader(handler).read(in);
+			parseTime = System.nanoTime() - start;
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException ioe) {
+					logger.throwing("KMLFileReader", "readUncompressedFile(KmlHandler)", ioe);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the KML entries of the zip file: the main entry first, followed
+	 * by the other entries in the order of the zip file. The main entry is
+	 * doc.kml, or the first KML entry if there is no doc.kml in the root of
+	 * the zip file.
+	 */
+	private List<ZipEntry> getKmlEntries(ZipFile z) throws FileNotFoundException, SizeLimitException {
+		List<ZipEntry> result = new ArrayList<ZipEntry>();
+		long sumOfSizes = 0;
+		Enumeration<? extends ZipEntry> e = z.entries();
+		while (e.hasMoreElements()) {
+			ZipEntry entry = e.nextElement();
+			if (entry.isDirectory() || !entry.getName().toLowerCase(Locale.ENGLISH).endsWith(KML_EXTENSION)) {
+				continue;
+			}
+			if (MAIN_ENTRY.equals(entry.getName())) {
+				result.add(0, entry);
+			} else {
+				result.add(entry);
+			}
+			if (entry.getSize() == -1) {
+				throw new SizeLimitException(limit, entry.getSize());
+			}
+			sumOfSizes = sumOfSizes + entry.getSize();
+			if (sumOfSizes > limit) {
+				throw new SizeLimitException(limit, sumOfSizes);
+			}
+		}
+		if (result.isEmpty()) {
+			throw new FileNotFoundException(file.getAbsolutePath() + " doesn't contain a KML file");
+		}
+		return result;
+	}
+
+	/**
+	 * Unmarshals the entries. More than one entry is unmarshalled in parallel
+	 * by the shared parser threads.
+	 *
+	 * @return the unmarshalled entries, in the order of the given entries
+	 */
+	private List<Kml> unmarshal(final ZipFile z, List<ZipEntry> entries) throws IOException {
+		final InflationLimit inflationLimit = new InflationLimit(limit);
+		List<Kml> result = new ArrayList<Kml>();
+		if (entries.size() == 1) {
+			result.add(unmarshal(z, entries.get(0), inflationLimit));
+			return result;
+		}
+		// set if the result isn't needed anymore, so entries that haven't
+		// been started yet are skipped
+		final AtomicBoolean abandoned = new AtomicBoolean();
+		List<Future<Kml>> futures = new ArrayList<Future<Kml>>();
+		try {
+			for (final ZipEntry entry : entries) {
+				futures.add(PARSERS.submit(new Callable<Kml>() {
+					@Override
+					public Kml call() throws IOException {
+						if (abandoned.get()) {
+							return null;
+						}
+						return unmarshal(z, entry, inflationLimit);
+					}
+				}));
+			}
+			for (Future<Kml> f : futures) {
+				result.add(f.get());
+			}
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (ExecutionException ee) {
+			Throwable t = ee.getCause();
+			if (t instanceof IOException) {
+				throw (IOException) t;
+			} else if (t instanceof RuntimeException) {
+				throw (RuntimeException) t;
+			} else if (t instanceof Error) {
+				throw (Error) t;
+			}
+			throw new IOException(t);
+		} finally {
+			// the zip file is closed by the caller, so wait for the tasks
+			// that have been started
+			abandoned.set(true);
+			awaitCompletion(futures);
+		}
+		return result;
+	}
+
+	private static Kml unmarshal(ZipFile z, ZipEntry entry, InflationLimit inflationLimit) throws IOException {
+		try (InputStream in = inflationLimit.open(z, entry)) {
+			return KmlBinding.unmarshal(in);
+		}
+	}
+
+	private static void awaitCompletion(List<Future<Kml>> futures) {
+		boolean interrupted = false;
+		for (Future<Kml> f : futures) {
+			while (true) {
+				try {
+					f.get();
+					break;
+				} catch (InterruptedException ie) {
+					interrupted = true;
+				} catch (ExecutionException ignored) {
+					// the first failure has been reported already
+					break;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
 	public Kml getKml() {
 		return kml;
 	}
+
+	/**
+	 * Returns the time the last successful read of this reader took to parse
+	 * the document. When streaming, this includes the time the handler took.
+	 *
+	 * @return the time in nanoseconds, or -1 if no document has been read
+	 */
+	public long getParseTime() {
+		return parseTime;
+	}
+
+	private static class ParserThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "KMLFileReader-" + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+	}
 }
@@ -22,7 +22,6 @@ import jakarta.xml.bind.annotation.XmlElement;
 import jakarta.xml.bind.annotation.XmlRootElement;
 import jakarta.xml.bind.annotation.XmlTransient;
 
-import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -35,6 +34,7 @@ public class Kml {
 	private Placemark placemark;
 	private Folder folder;
 	private Document document;
+	private NetworkLink networkLink;
 
 	public void setPlacemark(Placemark pm) {
 		this.placemark = pm;
@@ -63,49 +63,62 @@ public class Kml {
 		return document;
 	}
 
+	public void setNetworkLink(NetworkLink link) {
+		this.networkLink = link;
+	}
+
+	@XmlElement( name = "NetworkLink")
+	public NetworkLink getNetworkLink() {
+		return networkLink;
+	}
+
 	@XmlTransient
 	public Placemark getFirstPlacemark() {
 		if (getPlacemark() != null) {
 			return getPlacemark();
 		}
-		if (getFolder() != null) {
-			Placemark pm = getFirstPlacemark(Arrays.asList(getFolder()));
-			if (pm != null) {
-				return pm;
-			}
+		Placemark pm = getFirstPlacemark(getFolder());
+		if (pm != null) {
+			return pm;
 		}
-		Document doc = getDocument();
-		if (doc != null) {
-			List<Placemark> pms = doc.getPlacemarks();
-			if (pms != null && !pms.isEmpty()) {
-				return pms.get(0);
-			}
-			List<Folder> f = doc.getFolders();
-			if (f != null) {
-				return getFirstPlacemark(f);
-			}
+		return getFirstPlacemark(getDocument());
+	}
+
+	private static Placemark getFirstPlacemark(Folder f) {
+		if (f == null) {
+			return null;
 		}
-		return null;
+		return getFirstPlacemark(f.getPlacemarks(), f.getFolders(), f.getDocuments());
+	}
 
+	private static Placemark getFirstPlacemark(Document d) {
+		if (d == null) {
+			return null;
+		}
+		return getFirstPlacemark(d.getPlacemarks(), d.getFolders(), d.getDocuments());
 	}
 
-	private Placemark getFirstPlacemark(List<Folder> folders) {
-		Placemark result = null;
-		for (Folder f : folders) {
-			List<Placemark> pm = f.getPlacemarks();
-			if (pm != null && !pm.isEmpty()) {
-				result = pm.get(0);
-				break;
+	private static Placemark getFirstPlacemark(List<Placemark> placemarks, List<Folder> folders, List<Document> documents) {
+		if (placemarks != null && !placemarks.isEmpty()) {
+			return placemarks.get(0);
+		}
+		if (folders != null) {
+			for (Folder f : folders) {
+				Placemark result = getFirstPlacemark(f);
+				if (result != null) {
+					return result;
+				}
 			}
-			result = getFirstPlacemark(f.getFolders());
-			if (result != null) {
-				break;
+		}
+		if (documents != null) {
+			for (Document d : documents) {
+				Placemark result = getFirstPlacemark(d);
+				if (result != null) {
+					return result;
+				}
 			}
-			List<Document> docs = f.getDocuments();
-			// TODO Dive into docs
 		}
-		return result;
-
+		return null;
 	}
 
 	@Override
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.kml;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Unmarshaller;
+import net.jcip.annotations.ThreadSafe;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Unmarshals KML documents into {@link Kml} objects.
+ *
+ * Creating a JAXBContext is expensive, so the context is created once, on
+ * first use or by {@link #warmUp()}, and shared. Unmarshallers are not
+ * thread-safe; each thread gets its own and reuses it.
+ *
+ * As with {@link jakarta.xml.bind.JAXB#unmarshal(InputStream, Class)}, the
+ * root element is unmarshalled as Kml regardless of its namespace.
+ *
+ * @author Stefan Ganzer
+ */
+@ThreadSafe
+public final class KmlBinding {
+
+	private static volatile long contextCreationTime = -1;
+	private static final FutureTask<JAXBContext> CONTEXT = new FutureTask<JAXBContext>(new Callable<JAXBContext>() {
+		@Override
+		public JAXBContext call() throws JAXBException {
+			long start = System.nanoTime();
+			JAXBContext context = JAXBContext.newInstance(Kml.class);
+			contextCreationTime = System.nanoTime() - start;
+			return context;
+		}
+	});
+	private static final AtomicBoolean WARM_UP_STARTED = new AtomicBoolean();
+	private static final ThreadLocal<Unmarshaller> UNMARSHALLER = new ThreadLocal<Unmarshaller>();
+
+	private KmlBinding() {
+	}
+
+	/**
+	 * Starts creating the JAXBContext in a background thread, if it hasn't
+	 * been created or started yet. At most one such thread is started.
+	 * Returns immediately.
+	 */
+	public static void warmUp() {
+		if (CONTEXT.isDone() || !WARM_UP_STARTED.compareAndSet(false, true)) {
+			return;
+		}
+		Thread t = new Thread(CONTEXT, "KmlBinding warm-up"); //NOI18N
+		t.setDaemon(true);
+		t.setPriority(Thread.MIN_PRIORITY);
+		t.start();
+	}
+
+	/**
+	 * Returns the shared JAXBContext for KML, and creates it if necessary.
+	 * If another thread is creating the context, waits until it is done.
+	 *
+	 * @return the shared JAXBContext for KML
+	 *
+	 * @throws IOException if the context cannot be created
+	 */
+	public static JAXBContext getContext() throws IOException {
+		// no-op if the task has been run or is running in another thread
+		CONTEXT.run();
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return CONTEXT.get();
+				} catch (InterruptedException ie) {
+					interrupted = true;
+				} catch (ExecutionException ee) {
+					throw new IOException(ee.getCause());
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Returns the time it took to create the JAXBContext.
+	 *
+	 * @return the time in nanoseconds, or -1 if the context hasn't been
+	 * created yet
+	 */
+	public static long getContextCreationTime() {
+		return contextCreationTime;
+	}
+
+	/**
+	 * Unmarshals a KML document. The stream is not closed by this method.
+	 *
+	 * @param in the stream to read the document from
+	 *
+	 * @return the unmarshalled document
+	 *
+	 * @throws NullPointerException if in is null
+	 * @throws IOException if the stream cannot be read, or if its content
+	 * cannot be unmarshalled
+	 */
+	public static Kml unmarshal(InputStream in) throws IOException {
+		if (in == null) {
+			throw new NullPointerException();
+		}
+		return unmarshal(new StreamSource(in));
+	}
+
+	/**
+	 * Unmarshals a KML document. The reader is not closed by this method.
+	 *
+	 * @param in the reader to read the document from
+	 *
+	 * @return the unmarshalled document
+	 *
+	 * @throws NullPointerException if in is null
+	 * @throws IOException if the reader cannot be read, or if its content
+	 * cannot be unmarshalled
+	 */
+	public static Kml unmarshal(Reader in) throws IOException {
+		if (in == null) {
+			throw new NullPointerException();
+		}
+		return unmarshal(new StreamSource(in));
+	}
+
+	private static Kml unmarshal(Source source) throws IOException {
+		try {
+			return getUnmarshaller().unmarshal(source, Kml.class).getValue();
+		} catch (JAXBException je) {
+			throw new IOException(je);
+		}
+	}
+
+	private static Unmarshaller getUnmarshaller() throws IOException, JAXBException {
+		Unmarshaller u = UNMARSHALLER.get();
+		if (u == null) {
+			u = getContext().createUnmarshaller();
+			UNMARSHALLER.set(u);
+		}
+		return u;
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.kml;
+
+/**
+ * Receives the elements of a KML document from a {@link KmlStreamReader} in
+ * document order.
+ *
+ * Each Document and Folder is reported by a start and an end call; the
+ * Placemarks and containers between them are its children. Containers are
+ * passed with their name set, but without children: the reader doesn't keep
+ * any elements after they have been reported.
+ *
+ * @author Stefan Ganzer
+ */
+public interface KmlHandler {
+
+	void startDocument(Document document);
+
+	void endDocument(Document document);
+
+	void startFolder(Folder folder);
+
+	void endFolder(Folder folder);
+
+	/**
+	 * Called for each Placemark, after its name, address and Point have
+	 * been read.
+	 *
+	 * @param placemark the Placemark
+	 */
+	void placemark(Placemark placemark);
+}
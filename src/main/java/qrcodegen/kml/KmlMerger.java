@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.kml;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges the KML documents of the entries of a KMZ file into one Kml.
+ *
+ * Each entry becomes a Folder named after the entry, so the entries stay
+ * apart in a tree that doesn't show Documents. An entry that is referenced by
+ * a NetworkLink with a local href is added to the Folders of the Folder or
+ * Document that contains the first such NetworkLink reached from the main
+ * entry; all other entries are added to a root Document in the order they
+ * were passed. Each entry is added only once, so cyclic links are harmless.
+ * Links to other files are ignored.
+ *
+ * @author Stefan Ganzer
+ */
+class KmlMerger {
+
+	private final List<String> names;
+	private final Folder[] folders;
+	private final boolean[] added;
+	private final Map<String, Integer> index = new HashMap<String, Integer>();
+
+	/**
+	 * Creates a new KmlMerger.
+	 *
+	 * @param names the names of the entries, the main entry first
+	 * @param kmls the KML documents of the entries, in the same order
+	 */
+	KmlMerger(List<String> names, List<Kml> kmls) {
+		if (names.size() != kmls.size()) {
+			throw new IllegalArgumentException(names.size() + " != " + kmls.size());
+		}
+		this.names = names;
+		folders = new Folder[kmls.size()];
+		added = new boolean[kmls.size()];
+		for (int i = 0; i < folders.length; i++) {
+			folders[i] = toFolder(kmls.get(i), names.get(i));
+			index.put(names.get(i), i);
+		}
+	}
+
+	/**
+	 * Merges the documents.
+	 *
+	 * @param name the name of the root Document
+	 *
+	 * @return a Kml that contains a root Document with the merged documents
+	 */
+	Kml merge(String name) {
+		Document root = new Document();
+		root.setName(name);
+		for (int i = 0; i < folders.length; i++) {
+			if (!added[i]) {
+				add(i, root.getFolders());
+			}
+		}
+		Kml result = new Kml();
+		result.setDocument(root);
+		return result;
+	}
+
+	private void add(int i, List<Folder> parent) {
+		added[i] = true;
+		parent.add(folders[i]);
+		// collect the links first: resolving them adds to the lists walked
+		List<LinkSite> sites = new ArrayList<LinkSite>();
+		collectLinks(folders[i], sites);
+		for (LinkSite site : sites) {
+			Integer target = index.get(resolve(names.get(i), site.link.getHref()));
+			if (target != null && !added[target]) {
+				add(target, site.folders);
+			}
+		}
+	}
+
+	private static void collectLinks(Document d, List<LinkSite> sites) {
+		collectLinks(d.getNetworkLinks(), d.getFolders(), d.getDocuments(), d, sites);
+	}
+
+	private static void collectLinks(Folder f, List<LinkSite> sites) {
+		collectLinks(f.getNetworkLinks(), f.getFolders(), f.getDocuments(), f, sites);
+	}
+
+	private static void collectLinks(List<NetworkLink> links, List<Folder> folders, List<Document> docs, Object container, List<LinkSite> sites) {
+		if (links != null) {
+			for (NetworkLink link : links) {
+				if (link != null) {
+					sites.add(new LinkSite(link, getFolders(container)));
+				}
+			}
+		}
+		if (folders != null) {
+			for (Folder f : folders) {
+				if (f != null) {
+					collectLinks(f, sites);
+				}
+			}
+		}
+		if (docs != null) {
+			for (Document d : docs) {
+				if (d != null) {
+					collectLinks(d, sites);
+				}
+			}
+		}
+	}
+
+	private static List<Folder> getFolders(Object container) {
+		List<Folder> result;
+		if (container instanceof Document) {
+			Document d = (Document) container;
+			if (d.getFolders() == null) {
+				d.setFolders(new ArrayList<Folder>());
+			}
+			result = d.getFolders();
+		} else {
+			Folder f = (Folder) container;
+			if (f.getFolders() == null) {
+				f.setFolders(new ArrayList<Folder>());
+			}
+			result = f.getFolders();
+		}
+		return result;
+	}
+
+	/**
+	 * Resolves the href of a NetworkLink against the name of the entry that
+	 * contains the link.
+	 *
+	 * @param base the name of the entry that contains the link
+	 * @param href the href of the link
+	 *
+	 * @return the name of the referenced entry, or null if the href is null,
+	 * malformed, or doesn't refer to an entry of the same file
+	 */
+	static String resolve(String base, String href) {
+		if (href == null) {
+			return null;
+		}
+		try {
+			URI baseURI = new URI(null, null, "/" + base, null);
+			URI uri = baseURI.resolve(new URI(href.trim().replace(" ", "%20")));
+			if (uri.getScheme() != null || uri.getAuthority() != null || uri.getPath() == null) {
+				return null;
+			}
+			String path = uri.getPath();
+			return path.startsWith("/") ? path.substring(1) : path;
+		} catch (URISyntaxException use) {
+			return null;
+		}
+	}
+
+	private static Folder toFolder(Kml kml, String name) {
+		Folder f = new Folder();
+		f.setName(name);
+		if (kml.getPlacemark() != null) {
+			f.getPlacemarks().add(kml.getPlacemark());
+		}
+		if (kml.getFolder() != null) {
+			f.getFolders().add(kml.getFolder());
+		}
+		if (kml.getDocument() != null) {
+			f.getDocuments().add(kml.getDocument());
+		}
+		if (kml.getNetworkLink() != null) {
+			f.getNetworkLinks().add(kml.getNetworkLink());
+		}
+		return f;
+	}
+
+	private static class LinkSite {
+
+		private final NetworkLink link;
+		/** The Folders of the container of the link */
+		private final List<Folder> folders;
+
+		LinkSite(NetworkLink link, List<Folder> folders) {
+			this.link = link;
+			this.folders = folders;
+		}
+	}
+}
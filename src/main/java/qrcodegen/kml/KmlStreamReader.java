@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.kml;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Reads a KML document with a streaming pull parser and reports its
+ * Documents, Folders and Placemarks to a {@link KmlHandler} while parsing.
+ *
+ * Unlike unmarshalling the document into a {@link Kml} tree, the memory
+ * needed doesn't depend on the size of the document. Elements are matched by
+ * their local name, so documents of all KML namespaces are read. Elements
+ * this reader doesn't know are skipped. DTDs and external entities are not
+ * supported.
+ *
+ * @author Stefan Ganzer
+ */
+public class KmlStreamReader {
+
+	private static final String DOCUMENT = "Document"; //NOI18N
+	private static final String FOLDER = "Folder"; //NOI18N
+	private static final String PLACEMARK = "Placemark"; //NOI18N
+	private static final String POINT = "Point"; //NOI18N
+	private static final String NAME = "name"; //NOI18N
+	private static final String ADDRESS = "address"; //NOI18N
+	private static final String COORDINATES = "coordinates"; //NOI18N
+	private final KmlHandler handler;
+	private final XMLInputFactory factory;
+
+	public KmlStreamReader(KmlHandler handler) {
+		if (handler == null) {
+			throw new NullPointerException();
+		}
+		this.handler = handler;
+		factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+	}
+
+	/**
+	 * Reads the KML document from the given stream. The stream is not closed
+	 * by this method.
+	 *
+	 * @param in the stream to read the document from
+	 *
+	 * @throws NullPointerException if in is null
+	 * @throws IOException if the stream cannot be read, or if it doesn't
+	 * contain well-formed XML
+	 */
+	public void read(InputStream in) throws IOException {
+		if (in == null) {
+			throw new NullPointerException();
+		}
+		try {
+			read(factory.createXMLStreamReader(in));
+		} catch (XMLStreamException xse) {
+			throw new IOException(xse);
+		}
+	}
+
+	/**
+	 * Reads the KML document from the given reader. The reader is not closed
+	 * by this method.
+	 *
+	 * @param in the reader to read the document from
+	 *
+	 * @throws NullPointerException if in is null
+	 * @throws IOException if the reader cannot be read, or if it doesn't
+	 * contain well-formed XML
+	 */
+	public void read(Reader in) throws IOException {
+		if (in == null) {
+			throw new NullPointerException();
+		}
+		try {
+			read(factory.createXMLStreamReader(in));
+		} catch (XMLStreamException xse) {
+			throw new IOException(xse);
+		}
+	}
+
+	private void read(XMLStreamReader r) throws XMLStreamException {
+		Deque<Container> containers = new ArrayDeque<Container>();
+		Placemark placemark = null;
+		Point point = null;
+		int placemarkDepth = 0;
+		int pointDepth = 0;
+		int depth = 0;
+		try {
+			while (r.hasNext()) {
+				int event = r.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					depth++;
+					String name = r.getLocalName();
+					if (placemark != null) {
+						if (depth == placemarkDepth + 1 && NAME.equals(name)) {
+							placemark.setName(r.getElementText());
+							depth--;
+						} else if (depth == placemarkDepth + 1 && ADDRESS.equals(name)) {
+							placemark.setAddress(r.getElementText());
+							depth--;
+						} else if (depth == placemarkDepth + 1 && POINT.equals(name)) {
+							point = new Point();
+							pointDepth = depth;
+						} else if (point != null && depth == pointDepth + 1 && COORDINATES.equals(name)) {
+							point.setCoordinates(r.getElementText().trim());
+							depth--;
+						}
+					} else if (PLACEMARK.equals(name)) {
+						start(containers.peek());
+						placemark = new Placemark();
+						placemarkDepth = depth;
+					} else if (DOCUMENT.equals(name) || FOLDER.equals(name)) {
+						start(containers.peek());
+						containers.push(new Container(DOCUMENT.equals(name) ? new Document() : new Folder(), depth));
+					} else if (NAME.equals(name) && !containers.isEmpty() && depth == containers.peek().depth + 1) {
+						containers.peek().setName(r.getElementText());
+						depth--;
+					}
+				} else if (event == XMLStreamConstants.END_ELEMENT) {
+					if (point != null && depth == pointDepth) {
+						placemark.setPoint(point);
+						point = null;
+					} else if (placemark != null && depth == placemarkDepth) {
+						handler.placemark(placemark);
+						placemark = null;
+					} else if (!containers.isEmpty() && depth == containers.peek().depth) {
+						Container c = containers.pop();
+						start(c);
+						end(c);
+					}
+					depth--;
+				}
+			}
+		} finally {
+			r.close();
+		}
+	}
+
+	/*
+	 * Containers are reported when their first child starts, so that the
+	 * handler gets them with their name.
+	 */
+	private void start(Container c) {
+		if (c == null || c.started) {
+			return;
+		}
+		c.started = true;
+		if (c.element instanceof Document) {
+			handler.startDocument((Document) c.element);
+		} else {
+			handler.startFolder((Folder) c.element);
+		}
+	}
+
+	private void end(Container c) {
+		if (c.element instanceof Document) {
+			handler.endDocument((Document) c.element);
+		} else {
+			handler.endFolder((Folder) c.element);
+		}
+	}
+
+	private static class Container {
+
+		private final Object element;
+		private final int depth;
+		private boolean started;
+
+		Container(Object element, int depth) {
+			this.element = element;
+			this.depth = depth;
+		}
+
+		void setName(String name) {
+			if (element instanceof Document) {
+				((Document) element).setName(name);
+			} else {
+				((Folder) element).setName(name);
+			}
+		}
+	}
+}
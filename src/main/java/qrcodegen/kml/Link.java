@@ -16,39 +16,30 @@
  * You should have received a copy of the GNU General Public License
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
+package qrcodegen.kml;
 
-package qrcodegen.tools;
-
-import org.junit.jupiter.api.*;
-
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
 
 /**
  *
  * @author Stefan Ganzer
  */
-public class DelayedActionTest {
-
-    public DelayedActionTest() {
-    }
-
-    @BeforeAll
-    public static void setUpClass() {
-    }
+@XmlAccessorType( XmlAccessType.PUBLIC_MEMBER )
+public class Link {
 
-    @AfterAll
-    public static void tearDownClass() {
-    }
+	private String href;
 
-    @BeforeEach
-    public void setUp() {
-    }
-
-    @AfterEach
-    public void tearDown() {
-    }
+	public void setHref(String href) {
+		this.href = href;
+	}
 
-	@Test
-	public void testSomeMethod() {
+	public String getHref() {
+		return href;
 	}
 
-}
\ No newline at end of file
+	@Override
+	public String toString() {
+		return getHref() == null ? "Link" : href;
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.kml;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlTransient;
+
+/**
+ *
+ * @author Stefan Ganzer
+ */
+@XmlAccessorType( XmlAccessType.PUBLIC_MEMBER )
+public class NetworkLink {
+
+	private String name;
+	private Link link;
+	private Link url;
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setLink(Link link) {
+		this.link = link;
+	}
+
+	@XmlElement( name = "Link" )
+	public Link getLink() {
+		return link;
+	}
+
+	/**
+	 * Sets the link of KML 2.0 documents, which has been renamed to Link in
+	 * KML 2.1.
+	 *
+	 * @param url the link
+	 */
+	public void setUrl(Link url) {
+		this.url = url;
+	}
+
+	@XmlElement( name = "Url" )
+	public Link getUrl() {
+		return url;
+	}
+
+	/**
+	 * Returns the href of the Link or, if there is no Link, of the Url of
+	 * this NetworkLink.
+	 *
+	 * @return the href, or null
+	 */
+	@XmlTransient
+	public String getHref() {
+		Link l = link == null ? url : link;
+		return l == null ? null : l.getHref();
+	}
+
+	@Override
+	public String toString() {
+		return getName() == null ? "NetworkLink" : name;
+	}
+}
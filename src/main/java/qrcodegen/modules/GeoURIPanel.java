@@ -19,12 +19,15 @@
 package qrcodegen.modules;
 
 import jakarta.xml.bind.DataBindingException;
-import jakarta.xml.bind.JAXB;
 import qrcodegen.ContentModule;
 import qrcodegen.ReaderSaver;
 import qrcodegen.kml.Coordinates;
+import qrcodegen.kml.Document;
+import qrcodegen.kml.Folder;
 import qrcodegen.kml.KMLFileReader;
 import qrcodegen.kml.Kml;
+import qrcodegen.kml.KmlBinding;
+import qrcodegen.kml.KmlHandler;
 import qrcodegen.kml.Placemark;
 import qrcodegen.swing.*;
 import qrcodegen.tools.Shortener;
@@ -36,11 +39,13 @@ import javax.swing.GroupLayout.Alignment;
 import javax.swing.LayoutStyle.ComponentPlacement;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.event.TreeSelectionEvent;
 import javax.swing.event.TreeSelectionListener;
 import javax.swing.text.DefaultFormatterFactory;
 import javax.swing.text.NumberFormatter;
-import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.TreePath;
 import javax.swing.tree.TreeSelectionModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
@@ -55,9 +60,17 @@ import java.nio.charset.Charset;
 import java.text.DecimalFormat;
 import java.text.MessageFormat;
 import java.text.NumberFormat;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.zip.ZipException;
 
@@ -67,7 +80,13 @@ import java.util.zip.ZipException;
  */
 public class GeoURIPanel extends javax.swing.JPanel implements ContentModule, ChangeListener {
 
-	private static final int ONE_MEGABYTE = 1024 * 1024;
+	/** The maximum size of an imported KML document. KML files are streamed
+	 * into the tree, so the memory needed doesn't depend on this size. */
+	private static final long MAX_KML_SIZE = 1024L * 1024 * 1024;
+	/** The maximum size of the KML documents of an imported KMZ file. They
+	 * are unmarshalled into memory to resolve the NetworkLinks between
+	 * them. */
+	private static final long MAX_KMZ_SIZE = 64L * 1024 * 1024;
 	private static final String EMPTY_STRING = "";
 	private final ResourceBundle res;
 	private final Logger logger;
@@ -77,6 +96,7 @@ public class GeoURIPanel extends javax.swing.JPanel implements ContentModule, Ch
 	private final ReaderSaver rsService;
 	private final ReaderSaver.Readable readable;
 	private transient ChangeEvent changeEvent;
+	private KmlImporter importer;
 
 	/** Creates new form GeoURIPanel */
 	public GeoURIPanel() {
@@ -94,6 +114,7 @@ public class GeoURIPanel extends javax.swing.JPanel implements ContentModule, Ch
 		}
 		this.res = bundle;
 		this.logger = logger;
+		KmlBinding.warmUp();
 		setName(res.getString("panel.name"));
 		initComponents();
 		FileExtensionFilter kmzFilter = new FileExtensionFilter(res.getString("KML FILE"), "kml", "kmz");
@@ -140,6 +161,22 @@ public class GeoURIPanel extends javax.swing.JPanel implements ContentModule, Ch
 		kmlTree.setRootVisible(false);
 		kmlTree.setShowsRootHandles(true);
 		kmlTree.addTreeSelectionListener(new KmlTreeSelectionListener());
+		placemarkFilterLabel.setLabelFor(placemarkFilter);
+		placemarkFilter.getDocument().addDocumentListener(new PlacemarkFilterListener());
+	}
+
+	/**
+	 * Shows a KmlTreeModel in the tree, filtered by the text of the
+	 * placemark filter field.
+	 */
+	private void setTreeModel(KmlTreeModel treeModel) {
+		treeModel.setFilter(createPlacemarkFilter());
+		kmlTree.setModel(treeModel);
+	}
+
+	private KmlTreeModel.Filter createPlacemarkFilter() {
+		String text = placemarkFilter.getText().trim();
+		return text.isEmpty() ? null : new PlacemarkNameFilter(text);
 	}
 
 	private void initButtons() {
@@ -169,6 +206,10 @@ public class GeoURIPanel extends javax.swing.JPanel implements ContentModule, Ch
 	}
 
 	private void clearPanel() {
+		if (importer != null) {
+			importer.cancel(false);
+			importer = null;
+		}
 		clearModel();
 		kmlTree.setModel(null);
 	}
@@ -178,20 +219,54 @@ public class GeoURIPanel extends javax.swing.JPanel implements ContentModule, Ch
 		String contents = cbService.getContentsAsString();
 		if (contents != null) {
 			try {
-				Reader reader = new StringReader(contents);
-				Kml kml = JAXB.unmarshal(reader, Kml.class);
+				long start = System.nanoTime();
+				KmlBinding.getContext();
+				long contextReady = System.nanoTime();
+				Kml kml = KmlBinding.unmarshal(new StringReader(contents));
+				long parsed = System.nanoTime();
 				importKML(kml);
+				logImportTimes(contextReady - start, parsed - contextReady, System.nanoTime() - parsed);
+			} catch (IOException ioe) {
+				showParsingError(ioe);
 			} catch (DataBindingException dbe) {
-				logger.throwing("GeoURIPanel.importFromClipboardButton.ActionListener", "actionPerformed", dbe);
-				String title = res.getString("DBE TITLE");
-				String message = MessageFormat.format(res.getString("DBE MESSAGE"), "\n");
-				int type = JOptionPane.ERROR_MESSAGE;
-				JOptionPane.showMessageDialog(null, message, title, type);
+				showParsingError(dbe);
 			}
 		}
 		cbService.clearClipboard();
 	}
 
+	private void showParsingError(Exception e) {
+		logger.throwing("GeoURIPanel.importFromClipboardButton.ActionListener", "actionPerformed", e);
+		String title = res.getString("DBE TITLE");
+		String message = MessageFormat.format(res.getString("DBE MESSAGE"), "\n");
+		int type = JOptionPane.ERROR_MESSAGE;
+		JOptionPane.showMessageDialog(null, message, title, type);
+	}
+
+	/**
+	 * Logs how long the steps of an import took, in milliseconds.
+	 *
+	 * @param context the time spent waiting for the JAXBContext, in
+	 * nanoseconds, or -1 if the import didn't need a JAXBContext
+	 * @param parsing the time spent parsing the document, in nanoseconds
+	 * @param tree the time spent building the tree, in nanoseconds
+	 */
+	private void logImportTimes(long context, long parsing, long tree) {
+		if (!logger.isLoggable(Level.FINE)) {
+			return;
+		}
+		if (context < 0) {
+			logger.log(Level.FINE, "KML import: parsing {0} ms, tree {1} ms", new Object[]{ //NOI18N
+				TimeUnit.NANOSECONDS.toMillis(parsing),
+				TimeUnit.NANOSECONDS.toMillis(tree)});
+		} else {
+			logger.log(Level.FINE, "KML import: context {0} ms, parsing {1} ms, tree {2} ms", new Object[]{ //NOI18N
+				TimeUnit.NANOSECONDS.toMillis(context),
+				TimeUnit.NANOSECONDS.toMillis(parsing),
+				TimeUnit.NANOSECONDS.toMillis(tree)});
+		}
+	}
+
 	private static NumberFormatter getFormatter() {
 		NumberFormat nf = NumberFormat.getNumberInstance();
 		if (nf instanceof DecimalFormat) {
@@ -291,9 +366,7 @@ public class GeoURIPanel extends javax.swing.JPanel implements ContentModule, Ch
 	}
 
 	private void importKML(Kml kml) {
-		GeoTreeMaker treeMaker = new GeoTreeMaker(kml);
-		treeMaker.generateTree(false);
-		kmlTree.setModel(treeMaker.getTreeModel());
+		setTreeModel(new KmlTreeModel(kml));
 		kmlTree.setSelectionRow(0);
 	}
 
@@ -472,6 +545,8 @@ public class GeoURIPanel extends javax.swing.JPanel implements ContentModule, Ch
         placemarkAddressLabel = new JLabel();
         jScrollPane2 = new JScrollPane();
         kmlTree = new JTree();
+        placemarkFilterLabel = new JLabel();
+        placemarkFilter = new JTextField();
         importFromClipboardButton = new JButton();
         importFromFileButton = new JButton();
         jLabel15 = new JLabel();
@@ -523,6 +598,10 @@ public class GeoURIPanel extends javax.swing.JPanel implements ContentModule, Ch
         kmlTree.setModel(null);
         jScrollPane2.setViewportView(kmlTree);
 
+        placemarkFilterLabel.setText(res.getString("GeoURIPanel.placemarkFilterLabel.text")); // NOI18N
+
+        placemarkFilter.setToolTipText(res.getString("GeoURIPanel.placemarkFilter.toolTipText")); // NOI18N
+
         GroupLayout jPanel1Layout = new GroupLayout(jPanel1);
         jPanel1.setLayout(jPanel1Layout);
         jPanel1Layout.setHorizontalGroup(
@@ -534,12 +613,20 @@ public class GeoURIPanel extends javax.swing.JPanel implements ContentModule, Ch
                         .addComponent(placemarkAddressLabel)
                         .addGap(18, 18, 18)
                         .addComponent(jScrollPane1, GroupLayout.DEFAULT_SIZE, 256, Short.MAX_VALUE))
+                    .addGroup(jPanel1Layout.createSequentialGroup()
+                        .addComponent(placemarkFilterLabel)
+                        .addPreferredGap(ComponentPlacement.RELATED)
+                        .addComponent(placemarkFilter))
                     .addComponent(jScrollPane2)))
         );
         jPanel1Layout.setVerticalGroup(
             jPanel1Layout.createParallelGroup(Alignment.LEADING)
             .addGroup(Alignment.TRAILING, jPanel1Layout.createSequentialGroup()
                 .addContainerGap()
+                .addGroup(jPanel1Layout.createParallelGroup(Alignment.BASELINE)
+                    .addComponent(placemarkFilterLabel)
+                    .addComponent(placemarkFilter, GroupLayout.PREFERRED_SIZE, GroupLayout.DEFAULT_SIZE, GroupLayout.PREFERRED_SIZE))
+                .addPreferredGap(ComponentPlacement.RELATED)
                 .addComponent(jScrollPane2, GroupLayout.PREFERRED_SIZE, 94, GroupLayout.PREFERRED_SIZE)
                 .addPreferredGap(ComponentPlacement.RELATED)
                 .addGroup(jPanel1Layout.createParallelGroup(Alignment.LEADING)
@@ -808,6 +895,8 @@ public class GeoURIPanel extends javax.swing.JPanel implements ContentModule, Ch
     private JFormattedTextField longitudeSecond;
     private JTextArea placemarkAddress;
     private JLabel placemarkAddressLabel;
+    private JTextField placemarkFilter;
+    private JLabel placemarkFilterLabel;
     private JComboBox zoomComboBox;
     private JLabel zoomLabel;
     // End of variables declaration//GEN-END:variables
@@ -902,34 +991,240 @@ public class GeoURIPanel extends javax.swing.JPanel implements ContentModule, Ch
 
 	private class ConcreteReadable implements ReaderSaver.Readable {
 
-		private Shortener<String> shortener = new TextShortener(70);
-
 		@Override
 		public void readFrom(URI uri) {
-			File f = new File(uri);
-			KMLFileReader reader = new KMLFileReader(f, ONE_MEGABYTE, logger);
+			if (importer != null) {
+				importer.cancel(false);
+			}
+			importer = new KmlImporter(new File(uri));
+			setTreeModel(importer.getTreeModel());
+			importer.execute();
+		}
+	}
+
+	/**
+	 * Streams a KML file into a {@link KmlTreeModel} in the background. The
+	 * elements are added to the Kml shown by the model in batches while the
+	 * file is being read, so the first placemarks can be selected before a
+	 * large file is read completely. As with {@link #importKML(Kml)},
+	 * Documents don't get nodes of their own.
+	 *
+	 * A KMZ file is read completely instead, and shown by
+	 * {@link #importKML(Kml)} when it has been read: its entries are
+	 * unmarshalled in parallel, and each entry is shown as a Folder placed
+	 * where a NetworkLink refers to it.
+	 */
+	private class KmlImporter extends SwingWorker<Void, Addition> implements KmlHandler {
+
+		private final Shortener<String> shortener = new TextShortener(70);
+		private final File file;
+		private final KmlTreeModel treeModel;
+		/** The time spent adding to the tree, confined to the EDT */
+		private long treeTime;
+		/** The time spent parsing, including publishing the elements */
+		private volatile long parseTime;
+		/** The content of a KMZ file, or null */
+		private volatile Kml kmz;
+		/** The time spent waiting for the JAXBContext, or -1 if streaming */
+		private volatile long contextTime = -1;
+		/** The containers of the elements being read. Confined to the worker thread. */
+		private final Deque<Object> containers = new ArrayDeque<Object>();
+		/** The paths to the nodes that show the containers. Confined to the worker thread. */
+		private final Deque<TreePath> paths = new ArrayDeque<TreePath>();
+
+		KmlImporter(File file) {
+			if (file == null) {
+				throw new NullPointerException();
+			}
+			this.file = file;
+			Kml kml = new Kml();
+			Document root = new Document();
+			kml.setDocument(root);
+			treeModel = new KmlTreeModel(kml);
+			containers.push(root);
+			paths.push(new TreePath(kml));
+		}
+
+		KmlTreeModel getTreeModel() {
+			return treeModel;
+		}
+
+		@Override
+		protected Void doInBackground() throws IOException {
+			KMLFileReader reader = new KMLFileReader(file, MAX_KML_SIZE, logger);
+			if (reader.isZipFile()) {
+				long start = System.nanoTime();
+				KmlBinding.getContext();
+				contextTime = System.nanoTime() - start;
+				reader = new KMLFileReader(file, MAX_KMZ_SIZE, logger);
+				reader.readZippedFile();
+				kmz = reader.getKml();
+			} else {
+				reader.readUncompressedFile(this);
+			}
+			parseTime = reader.getParseTime();
+			return null;
+		}
+
+		/*
+		 * The containers are copied: they are shown on the EDT, while the
+		 * reader may still set the name of a container whose name follows
+		 * its first child.
+		 */
+		@Override
+		public void startDocument(Document document) {
+			Document copy = new Document();
+			copy.setName(document.getName());
+			add(copy);
+			containers.push(copy);
+			paths.push(paths.peek());
+		}
+
+		@Override
+		public void endDocument(Document document) {
+			containers.pop();
+			paths.pop();
+		}
+
+		@Override
+		public void startFolder(Folder folder) {
+			Folder copy = new Folder();
+			copy.setName(folder.getName());
+			add(copy);
+			containers.push(copy);
+			paths.push(paths.peek().pathByAddingChild(copy));
+		}
+
+		@Override
+		public void endFolder(Folder folder) {
+			containers.pop();
+			paths.pop();
+		}
+
+		@Override
+		public void placemark(Placemark placemark) {
+			add(placemark);
+		}
+
+		private void add(Object element) {
+			if (isCancelled()) {
+				throw new CancellationException();
+			}
+			publish(new Addition(paths.peek(), containers.peek(), element));
+		}
+
+		@Override
+		protected void process(List<Addition> chunks) {
+			if (isCancelled()) {
+				return;
+			}
+			long start = System.nanoTime();
+			Object root = treeModel.getRoot();
+			boolean wasEmpty = treeModel.getChildCount(root) == 0;
+			int i = 0;
+			while (i < chunks.size()) {
+				// one event for each run of elements shown by the same node
+				TreePath path = chunks.get(i).path;
+				while (i < chunks.size() && chunks.get(i).path == path) {
+					chunks.get(i).addToContainer();
+					i++;
+				}
+				treeModel.childrenAdded(path);
+			}
+			if (wasEmpty && treeModel.getChildCount(root) > 0) {
+				kmlTree.expandPath(new TreePath(root));
+				kmlTree.setSelectionRow(0);
+			}
+			treeTime = treeTime + System.nanoTime() - start;
+		}
+
+		@Override
+		protected void done() {
+			if (isCancelled()) {
+				return;
+			}
+			if (importer == this) {
+				importer = null;
+			}
 			try {
-				reader.readFile();
-				Kml kml = reader.getKml();
-				importKML(kml);
-			} catch (ZipException ex) {
-				logger.throwing("GeoURIPanel.ConcreteReadable", "readFrom(URI)", ex);
-				String title = res.getString("NOT A KMZ FILE TITLE");
-				String message = MessageFormat.format(res.getString("NOT A KMZ FILE MESSAGE"), "\n", shortener.shorten(f.getAbsolutePath()));
-				int type = JOptionPane.ERROR_MESSAGE;
-				JOptionPane.showMessageDialog(null, message, title, type);
-			} catch (FileNotFoundException ex) {
-				logger.throwing("GeoURIPanel.ConcreteReadable", "readFrom(URI)", ex);
-				String title = res.getString("FILE NOT FOUND TITLE");
-				String message = MessageFormat.format(res.getString("FILE NOT FOUND MESSAGE"), "\n", shortener.shorten(f.getAbsolutePath()));
-				int type = JOptionPane.ERROR_MESSAGE;
-				JOptionPane.showMessageDialog(null, message, title, type);
-			} catch (IOException ex) {
-				logger.throwing("GeoURIPanel.ConcreteReadable", "readFrom(URI)", ex);
-				String title = res.getString("IO TITLE");
-				String message = MessageFormat.format(res.getString("IO MESSAGE"), "\n", shortener.shorten(f.getAbsolutePath()));
-				int type = JOptionPane.ERROR_MESSAGE;
-				JOptionPane.showMessageDialog(null, message, title, type);
+				get();
+				if (kmz != null) {
+					long start = System.nanoTime();
+					importKML(kmz);
+					treeTime = System.nanoTime() - start;
+				}
+				logImportTimes(contextTime, parseTime, treeTime);
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException ee) {
+				Throwable t = ee.getCause();
+				if (t instanceof IOException) {
+					showReadError((IOException) t);
+				} else if (t instanceof RuntimeException) {
+					throw (RuntimeException) t;
+				} else {
+					throw new AssertionError(t);
+				}
+			}
+		}
+
+		private void showReadError(IOException ex) {
+			logger.throwing("GeoURIPanel.KmlImporter", "done()", ex);
+			String title;
+			String message;
+			if (ex instanceof ZipException) {
+				title = res.getString("NOT A KMZ FILE TITLE");
+				message = MessageFormat.format(res.getString("NOT A KMZ FILE MESSAGE"), "\n", shortener.shorten(file.getAbsolutePath()));
+			} else if (ex instanceof FileNotFoundException) {
+				title = res.getString("FILE NOT FOUND TITLE");
+				message = MessageFormat.format(res.getString("FILE NOT FOUND MESSAGE"), "\n", shortener.shorten(file.getAbsolutePath()));
+			} else {
+				title = res.getString("IO TITLE");
+				message = MessageFormat.format(res.getString("IO MESSAGE"), "\n", shortener.shorten(file.getAbsolutePath()));
+			}
+			int type = JOptionPane.ERROR_MESSAGE;
+			JOptionPane.showMessageDialog(null, message, title, type);
+		}
+	}
+
+	/**
+	 * An element read by a {@link KmlImporter}, and the container and node
+	 * it is added to.
+	 */
+	private static final class Addition {
+
+		private final TreePath path;
+		/** The Document or Folder the element is added to */
+		private final Object container;
+		/** A Document, Folder or Placemark */
+		private final Object element;
+
+		Addition(TreePath path, Object container, Object element) {
+			assert path != null;
+			assert container instanceof Document || container instanceof Folder;
+			assert element instanceof Document || element instanceof Folder || element instanceof Placemark;
+			this.path = path;
+			this.container = container;
+			this.element = element;
+		}
+
+		void addToContainer() {
+			if (container instanceof Document) {
+				Document d = (Document) container;
+				addTo(d.getPlacemarks(), d.getFolders(), d.getDocuments());
+			} else {
+				Folder f = (Folder) container;
+				addTo(f.getPlacemarks(), f.getFolders(), f.getDocuments());
+			}
+		}
+
+		private void addTo(List<Placemark> placemarks, List<Folder> folders, List<Document> documents) {
+			if (element instanceof Placemark) {
+				placemarks.add((Placemark) element);
+			} else if (element instanceof Folder) {
+				folders.add((Folder) element);
+			} else {
+				documents.add((Document) element);
 			}
 		}
 	}
@@ -938,23 +1233,59 @@ public class GeoURIPanel extends javax.swing.JPanel implements ContentModule, Ch
 
 		@Override
 		public void valueChanged(TreeSelectionEvent e) {
-			DefaultMutableTreeNode node = (DefaultMutableTreeNode) kmlTree.getLastSelectedPathComponent();
+			Object node = kmlTree.getLastSelectedPathComponent();
 
 			clearModel();
 
-			if (node == null) {
-				return;
+			if (node instanceof Placemark) {
+				updateModel((Placemark) node);
 			}
+		}
+	}
 
-			Object nodeInfo = node.getUserObject();
-			if (node.isLeaf()) {
-				if (nodeInfo instanceof Placemark) {
-					updateModel((Placemark) nodeInfo);
-				}
+	private class PlacemarkFilterListener implements DocumentListener {
+
+		@Override
+		public void insertUpdate(DocumentEvent e) {
+			filterChanged();
+		}
+
+		@Override
+		public void removeUpdate(DocumentEvent e) {
+			filterChanged();
+		}
+
+		@Override
+		public void changedUpdate(DocumentEvent e) {
+			// attribute changes don't change the text
+		}
+
+		private void filterChanged() {
+			if (kmlTree.getModel() instanceof KmlTreeModel) {
+				((KmlTreeModel) kmlTree.getModel()).setFilter(createPlacemarkFilter());
 			}
 		}
 	}
 
+	/**
+	 * Accepts the Placemarks whose name contains a given text, ignoring case.
+	 */
+	private static class PlacemarkNameFilter implements KmlTreeModel.Filter {
+
+		private final Locale locale = Locale.getDefault();
+		private final String text;
+
+		PlacemarkNameFilter(String text) {
+			this.text = text.toLowerCase(locale);
+		}
+
+		@Override
+		public boolean accept(Placemark placemark) {
+			String name = placemark.getName();
+			return name != null && name.toLowerCase(locale).contains(text);
+		}
+	}
+
 	private class ZoomComboBoxListener implements ActionListener {
 
 		@Override
@@ -0,0 +1,288 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.modules;
+
+import qrcodegen.kml.Document;
+import qrcodegen.kml.Folder;
+import qrcodegen.kml.Kml;
+import qrcodegen.kml.Placemark;
+
+import javax.swing.event.EventListenerList;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A TreeModel that wraps the object graph of a {@link Kml} directly.
+ *
+ * The nodes of the tree are the Kml, Folder, Document and Placemark objects
+ * themselves. The children of a node are collected when they are first
+ * requested, which a JTree does when the node is expanded, and are cached
+ * afterwards. No node objects are created up front, so even documents with
+ * many placemarks are shown immediately.
+ *
+ * Only Placemarks are leaves. A {@link Filter} can hide Placemarks; Folders
+ * are always shown.
+ *
+ * Objects may be added to the Kml object graph while it is shown, e.g. while
+ * a file is being read, if {@link #childrenAdded(TreePath)} is invoked
+ * afterwards. Objects must not be removed. This model must be used on the
+ * event dispatch thread only.
+ *
+ * @author Stefan Ganzer
+ */
+public class KmlTreeModel implements TreeModel {
+
+	private static final Object[] NO_CHILDREN = new Object[0];
+	private final EventListenerList listenerList = new EventListenerList();
+	private final Map<Object, Object[]> children = new IdentityHashMap<Object, Object[]>();
+	private final Kml root;
+	private final boolean createNodesForDocuments;
+	private Filter filter;
+
+	/**
+	 * Decides which Placemarks a {@link KmlTreeModel} shows.
+	 */
+	public interface Filter {
+
+		boolean accept(Placemark placemark);
+	}
+
+	/**
+	 * Creates a new KmlTreeModel that doesn't create nodes for Documents: the
+	 * children of a Document are shown as children of its parent.
+	 *
+	 * @param root the Kml to show
+	 *
+	 * @throws NullPointerException if root is null
+	 */
+	public KmlTreeModel(Kml root) {
+		this(root, false);
+	}
+
+	public KmlTreeModel(Kml root, boolean createNodesForDocuments) {
+		if (root == null) {
+			throw new NullPointerException();
+		}
+		this.root = root;
+		this.createNodesForDocuments = createNodesForDocuments;
+	}
+
+	/**
+	 * Sets the filter for the Placemarks of this model and notifies the
+	 * listeners that the whole tree has changed.
+	 *
+	 * @param filter the filter, or null to show all Placemarks
+	 */
+	public void setFilter(Filter filter) {
+		this.filter = filter;
+		children.clear();
+		fireTreeStructureChanged();
+	}
+
+	public Filter getFilter() {
+		return filter;
+	}
+
+	/**
+	 * Notifies this model that objects have been added to the node at the
+	 * end of the given path, or to a Document shown as part of that node.
+	 * The listeners are notified of the children that have been inserted.
+	 * Nothing is fired if the children of the node haven't been requested
+	 * yet.
+	 *
+	 * @param path the path to the node
+	 *
+	 * @throws NullPointerException if path is null
+	 */
+	public void childrenAdded(TreePath path) {
+		Object parent = path.getLastPathComponent(); // implicit null-check
+		Object[] old = children.get(parent);
+		if (old == null) {
+			return;
+		}
+		Object[] current = collectChildren(parent);
+		children.put(parent, current);
+		if (current.length == old.length) {
+			return;
+		}
+		// the old children keep their order, so the new ones are the gaps
+		int[] indices = new int[current.length - old.length];
+		Object[] inserted = new Object[indices.length];
+		int j = 0;
+		int k = 0;
+		for (int i = 0; i < current.length; i++) {
+			if (j < old.length && current[i] == old[j]) {
+				j++;
+			} else {
+				indices[k] = i;
+				inserted[k] = current[i];
+				k++;
+			}
+		}
+		fireTreeNodesInserted(path, indices, inserted);
+	}
+
+	@Override
+	public Object getRoot() {
+		return root;
+	}
+
+	@Override
+	public Object getChild(Object parent, int index) {
+		return getChildren(parent)[index];
+	}
+
+	@Override
+	public int getChildCount(Object parent) {
+		return getChildren(parent).length;
+	}
+
+	@Override
+	public boolean isLeaf(Object node) {
+		return node instanceof Placemark;
+	}
+
+	@Override
+	public void valueForPathChanged(TreePath path, Object newValue) {
+		// the tree is not editable
+	}
+
+	@Override
+	public int getIndexOfChild(Object parent, Object child) {
+		if (parent == null || child == null) {
+			return -1;
+		}
+		Object[] c = getChildren(parent);
+		for (int i = 0; i < c.length; i++) {
+			if (c[i] == child) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public void addTreeModelListener(TreeModelListener l) {
+		listenerList.add(TreeModelListener.class, l);
+	}
+
+	@Override
+	public void removeTreeModelListener(TreeModelListener l) {
+		listenerList.remove(TreeModelListener.class, l);
+	}
+
+	private Object[] getChildren(Object parent) {
+		Object[] result = children.get(parent);
+		if (result == null) {
+			result = collectChildren(parent);
+			children.put(parent, result);
+		}
+		return result;
+	}
+
+	private Object[] collectChildren(Object parent) {
+		List<Object> result = new ArrayList<Object>();
+		if (parent instanceof Kml) {
+			Kml kml = (Kml) parent;
+			addPlacemark(kml.getPlacemark(), result);
+			if (kml.getFolder() != null) {
+				result.add(kml.getFolder());
+			}
+			addDocument(kml.getDocument(), result);
+		} else if (parent instanceof Folder) {
+			Folder f = (Folder) parent;
+			addContents(f.getPlacemarks(), f.getFolders(), f.getDocuments(), result);
+		} else if (parent instanceof Document) {
+			Document d = (Document) parent;
+			addContents(d.getPlacemarks(), d.getFolders(), d.getDocuments(), result);
+		} else {
+			return NO_CHILDREN;
+		}
+		return result.toArray();
+	}
+
+	private void addContents(List<Placemark> placemarks, List<Folder> folders, List<Document> documents, List<Object> result) {
+		if (placemarks != null) {
+			for (Placemark p : placemarks) {
+				addPlacemark(p, result);
+			}
+		}
+		if (folders != null) {
+			for (Folder f : folders) {
+				if (f != null) {
+					result.add(f);
+				}
+			}
+		}
+		if (documents != null) {
+			for (Document d : documents) {
+				addDocument(d, result);
+			}
+		}
+	}
+
+	private void addPlacemark(Placemark p, List<Object> result) {
+		if (p != null && (filter == null || filter.accept(p))) {
+			result.add(p);
+		}
+	}
+
+	private void addDocument(Document d, List<Object> result) {
+		if (d == null) {
+			return;
+		}
+		if (createNodesForDocuments) {
+			result.add(d);
+		} else {
+			addContents(d.getPlacemarks(), d.getFolders(), d.getDocuments(), result);
+		}
+	}
+
+	private void fireTreeStructureChanged() {
+		Object[] listeners = listenerList.getListenerList();
+		TreeModelEvent e = null;
+		for (int i = listeners.length - 2; i >= 0; i -= 2) {
+			if (listeners[i] == TreeModelListener.class) {
+				if (e == null) {
+					e = new TreeModelEvent(this, new Object[]{root});
+				}
+				((TreeModelListener) listeners[i + 1]).treeStructureChanged(e);
+			}
+		}
+	}
+
+	private void fireTreeNodesInserted(TreePath path, int[] indices, Object[] inserted) {
+		Object[] listeners = listenerList.getListenerList();
+		TreeModelEvent e = null;
+		for (int i = listeners.length - 2; i >= 0; i -= 2) {
+			if (listeners[i] == TreeModelListener.class) {
+				if (e == null) {
+					e = new TreeModelEvent(this, path, indices, inserted);
+				}
+				((TreeModelListener) listeners[i + 1]).treeNodesInserted(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,345 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode;
+
+import com.google.zxing.common.CharacterSetECI;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.decoder.Mode;
+import com.google.zxing.qrcode.decoder.Version;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Calculates the number of bits a content needs, the smallest version it fits
+ * into and the number of characters that can still be added, without encoding
+ * the content. The results match the choices of the ZXing encoder, i.e. the
+ * same mode, the same ECI header and the same version. They are an upper bound
+ * for mixed content, which
+ * {@link qrcodegen.qrcode.encoder.SymbolEncoder#encodeSegmented} may encode
+ * in fewer bits.
+ *
+ * The capacities are looked up in tables that are computed once. Apart from
+ * character encodings that use more than one byte per character and are
+ * neither UTF-8 nor UTF-16, and the Kanji detection for Shift_JIS, all methods
+ * run in O(n) over the content without allocating any objects. This class is
+ * thread-safe.
+ *
+ * @author Stefan Ganzer
+ */
+public final class CapacityEstimator {
+
+	/** Returned if the content doesn't fit into any version */
+	public static final int DOES_NOT_FIT = -1;
+	private static final int MIN_VERSION = 1;
+	private static final int MAX_VERSION = 40;
+	private static final int MODE_BITS = 4;
+	/** Mode indicator + 8 bit ECI designator, as written by the encoder */
+	private static final int ECI_BITS = MODE_BITS + 8;
+	private static final Charset DEFAULT_CHARACTER_SET = StandardCharsets.ISO_8859_1;
+	private static final String SHIFT_JIS = "Shift_JIS";
+	private static final Mode[] MODES = {Mode.NUMERIC, Mode.ALPHANUMERIC, Mode.BYTE, Mode.KANJI};
+	/** Data capacity in bits, indexed by ErrorCorrectionLevel.ordinal() and
+	 * version */
+	private static final int[][] DATA_BITS = new int[ErrorCorrectionLevel.values().length][MAX_VERSION + 1];
+	/** Bits of the character count indicator, indexed by mode and version */
+	private static final int[][] COUNT_BITS = new int[MODES.length][MAX_VERSION + 1];
+	private static final boolean[] ALPHANUMERIC = new boolean[0x60];
+	/** Whether a charset encodes every character with a single byte */
+	private static final ConcurrentMap<Charset, Boolean> SINGLE_BYTE_CHARSETS = new ConcurrentHashMap<Charset, Boolean>();
+
+	static {
+		for (int v = MIN_VERSION; v <= MAX_VERSION; v++) {
+			Version version = Version.getVersionForNumber(v);
+			for (ErrorCorrectionLevel ecLevel : ErrorCorrectionLevel.values()) {
+				Version.ECBlocks ecBlocks = version.getECBlocksForLevel(ecLevel);
+				DATA_BITS[ecLevel.ordinal()][v] = (version.getTotalCodewords() - ecBlocks.getTotalECCodewords()) * 8;
+			}
+			for (int m = 0; m < MODES.length; m++) {
+				COUNT_BITS[m][v] = MODES[m].getCharacterCountBits(version);
+			}
+		}
+		for (char c = '0'; c <= '9'; c++) {
+			ALPHANUMERIC[c] = true;
+		}
+		for (char c = 'A'; c <= 'Z'; c++) {
+			ALPHANUMERIC[c] = true;
+		}
+		for (char c : " $%*+-./:".toCharArray()) {
+			ALPHANUMERIC[c] = true;
+		}
+	}
+
+	private CapacityEstimator() {
+	}
+
+	/**
+	 * Returns the mode the encoder will use for the given content.
+	 *
+	 * @param content the content
+	 * @param charset the character encoding passed to the encoder, or null if
+	 * there is none
+	 *
+	 * @return the mode the encoder will use for the given content
+	 *
+	 * @throws NullPointerException if content is null
+	 */
+	public static Mode chooseMode(CharSequence content, Charset charset) {
+		if (content == null) {
+			throw new NullPointerException();
+		}
+		if (charset != null && SHIFT_JIS.equals(charset.name()) && isOnlyDoubleByteKanji(content)) {
+			return Mode.KANJI;
+		}
+		boolean hasNumeric = false;
+		boolean hasAlphanumeric = false;
+		for (int i = 0, n = content.length(); i < n; i++) {
+			char c = content.charAt(i);
+			if (c >= '0' && c <= '9') {
+				hasNumeric = true;
+			} else if (c < ALPHANUMERIC.length && ALPHANUMERIC[c]) {
+				hasAlphanumeric = true;
+			} else {
+				return Mode.BYTE;
+			}
+		}
+		if (hasAlphanumeric) {
+			return Mode.ALPHANUMERIC;
+		}
+		if (hasNumeric) {
+			return Mode.NUMERIC;
+		}
+		return Mode.BYTE;
+	}
+
+	/**
+	 * Returns the number of bits the given content needs in the given version,
+	 * including the ECI header, the mode indicator and the character count
+	 * indicator, but excluding the terminator and padding.
+	 *
+	 * @param content the content
+	 * @param charset the character encoding passed to the encoder, or null if
+	 * there is none
+	 * @param version the version
+	 *
+	 * @return the number of bits the given content needs in the given version
+	 *
+	 * @throws NullPointerException if content is null
+	 * @throws IllegalArgumentException if version &lt; 1 or version &gt; 40
+	 */
+	public static int getBitLength(CharSequence content, Charset charset, int version) {
+		if (version < MIN_VERSION || version > MAX_VERSION) {
+			throw new IllegalArgumentException(Integer.toString(version));
+		}
+		Mode mode = chooseMode(content, charset);
+		return getHeaderBits(mode, charset) + COUNT_BITS[indexOf(mode)][version] + getDataBits(content, mode, charset);
+	}
+
+	/**
+	 * Returns the version the encoder will choose for the given content.
+	 *
+	 * @param content the content
+	 * @param ecLevel the error correction level
+	 * @param charset the character encoding passed to the encoder, or null if
+	 * there is none
+	 *
+	 * @return the version the encoder will choose, or {@link #DOES_NOT_FIT} if
+	 * the content is too long for any version
+	 *
+	 * @throws NullPointerException if content or ecLevel is null
+	 */
+	public static int getMinimumVersion(CharSequence content, ErrorCorrectionLevel ecLevel, Charset charset) {
+		if (ecLevel == null) {
+			throw new NullPointerException();
+		}
+		Mode mode = chooseMode(content, charset);
+		int m = indexOf(mode);
+		int bits = getHeaderBits(mode, charset) + getDataBits(content, mode, charset);
+		// Same two steps as Encoder.recommendVersion(): guess the version
+		// with the character count indicator of version 1, then choose again
+		// with the indicator of the guessed version.
+		int provisional = chooseVersion(bits + COUNT_BITS[m][MIN_VERSION], ecLevel);
+		if (provisional == DOES_NOT_FIT) {
+			return DOES_NOT_FIT;
+		}
+		return chooseVersion(bits + COUNT_BITS[m][provisional], ecLevel);
+	}
+
+	/**
+	 * Returns the number of characters of the mode the given content is
+	 * encoded in that can be appended before the content no longer fits into
+	 * a QR Code of version 40. In byte mode, the number of bytes is returned.
+	 *
+	 * @param content the content
+	 * @param ecLevel the error correction level
+	 * @param charset the character encoding passed to the encoder, or null if
+	 * there is none
+	 *
+	 * @return the number of characters that can be appended. A negative value
+	 * is the number of characters that have to be removed.
+	 *
+	 * @throws NullPointerException if content or ecLevel is null
+	 */
+	public static int getRemainingCharacters(CharSequence content, ErrorCorrectionLevel ecLevel, Charset charset) {
+		if (ecLevel == null) {
+			throw new NullPointerException();
+		}
+		Mode mode = chooseMode(content, charset);
+		int available = DATA_BITS[ecLevel.ordinal()][MAX_VERSION] - getHeaderBits(mode, charset) - COUNT_BITS[indexOf(mode)][MAX_VERSION];
+		if (mode == Mode.NUMERIC) {
+			int remainder = available % 10;
+			int max = 3 * (available / 10) + (remainder >= 7 ? 2 : remainder >= 4 ? 1 : 0);
+			return max - content.length();
+		} else if (mode == Mode.ALPHANUMERIC) {
+			int max = 2 * (available / 11) + (available % 11 >= 6 ? 1 : 0);
+			return max - content.length();
+		} else if (mode == Mode.KANJI) {
+			return available / 13 - content.length();
+		} else {
+			return available / 8 - getByteLength(content, charset);
+		}
+	}
+
+	private static int chooseVersion(int bits, ErrorCorrectionLevel ecLevel) {
+		int[] capacities = DATA_BITS[ecLevel.ordinal()];
+		// Round up to whole bytes, as Encoder.willFit() does
+		int needed = (bits + 7) & ~7;
+		for (int v = MIN_VERSION; v <= MAX_VERSION; v++) {
+			if (capacities[v] >= needed) {
+				return v;
+			}
+		}
+		return DOES_NOT_FIT;
+	}
+
+	private static int getHeaderBits(Mode mode, Charset charset) {
+		if (mode == Mode.BYTE && charset != null && CharacterSetECI.getCharacterSetECIByName(charset.name()) != null) {
+			return ECI_BITS + MODE_BITS;
+		}
+		return MODE_BITS;
+	}
+
+	private static int getDataBits(CharSequence content, Mode mode, Charset charset) {
+		int length = content.length();
+		if (mode == Mode.NUMERIC) {
+			int remainder = length % 3;
+			return 10 * (length / 3) + (remainder == 2 ? 7 : remainder == 1 ? 4 : 0);
+		} else if (mode == Mode.ALPHANUMERIC) {
+			return 11 * (length / 2) + 6 * (length % 2);
+		} else if (mode == Mode.KANJI) {
+			return 13 * length;
+		} else {
+			return 8 * getByteLength(content, charset);
+		}
+	}
+
+	/**
+	 * Returns the number of bytes String.getBytes(charset) returns for the
+	 * given content.
+	 */
+	private static int getByteLength(CharSequence content, Charset charset) {
+		if (charset == null) {
+			charset = DEFAULT_CHARACTER_SET;
+		}
+		int length = content.length();
+		if (StandardCharsets.UTF_8.equals(charset)) {
+			return getUtf8Length(content);
+		} else if (StandardCharsets.UTF_16.equals(charset)) {
+			// Byte order mark + one code unit per char
+			return length == 0 ? 0 : 2 + 2 * length;
+		} else if (StandardCharsets.UTF_16BE.equals(charset) || StandardCharsets.UTF_16LE.equals(charset)) {
+			return 2 * length;
+		} else if (isSingleByte(charset)) {
+			// A surrogate pair is replaced by a single '?'
+			return getCodePointCount(content);
+		} else {
+			return content.toString().getBytes(charset).length;
+		}
+	}
+
+	private static int getUtf8Length(CharSequence content) {
+		int bytes = 0;
+		for (int i = 0, n = content.length(); i < n; i++) {
+			char c = content.charAt(i);
+			if (c < 0x80) {
+				bytes += 1;
+			} else if (c < 0x800) {
+				bytes += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(content.charAt(i + 1))) {
+				bytes += 4;
+				i++;
+			} else if (Character.isSurrogate(c)) {
+				// Malformed input is replaced by '?'
+				bytes += 1;
+			} else {
+				bytes += 3;
+			}
+		}
+		return bytes;
+	}
+
+	private static int getCodePointCount(CharSequence content) {
+		int count = 0;
+		for (int i = 0, n = content.length(); i < n; i++) {
+			if (Character.isHighSurrogate(content.charAt(i)) && i + 1 < n && Character.isLowSurrogate(content.charAt(i + 1))) {
+				i++;
+			}
+			count++;
+		}
+		return count;
+	}
+
+	private static boolean isSingleByte(Charset charset) {
+		if (StandardCharsets.ISO_8859_1.equals(charset) || StandardCharsets.US_ASCII.equals(charset)) {
+			return true;
+		}
+		Boolean singleByte = SINGLE_BYTE_CHARSETS.get(charset);
+		if (singleByte == null) {
+			singleByte = Boolean.valueOf(charset.canEncode() && charset.newEncoder().maxBytesPerChar() == 1.0f);
+			SINGLE_BYTE_CHARSETS.put(charset, singleByte);
+		}
+		return singleByte.booleanValue();
+	}
+
+	private static boolean isOnlyDoubleByteKanji(CharSequence content) {
+		byte[] bytes = content.toString().getBytes(Charset.forName(SHIFT_JIS));
+		int length = bytes.length;
+		if (length % 2 != 0) {
+			return false;
+		}
+		for (int i = 0; i < length; i += 2) {
+			int byte1 = bytes[i] & 0xFF;
+			if ((byte1 < 0x81 || byte1 > 0x9F) && (byte1 < 0xE0 || byte1 > 0xEB)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int indexOf(Mode mode) {
+		for (int i = 0; i < MODES.length; i++) {
+			if (MODES[i] == mode) {
+				return i;
+			}
+		}
+		throw new AssertionError(mode);
+	}
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode;
+
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.QRCode;
+import net.jcip.annotations.Immutable;
+
+import java.util.Arrays;
+
+/**
+ * The modules of a QR Code, packed 64 to a long. Each row starts at a new
+ * long, and the module at column x is bit x % 64 of the long x / 64 of its
+ * row. A ByteMatrix needs a byte per module; this class needs a bit.
+ *
+ * The runs of dark modules in a row are found a long at a time:
+ * <pre>
+ * for (int x = m.nextDark(0, y); x &lt; m.getWidth(); x = m.nextDark(end, y)) {
+ *     end = m.nextLight(x, y);
+ *     // the modules from x (inclusive) to end (exclusive) are dark
+ * }
+ * </pre>
+ *
+ * Instances of this class are immutable and can be shared between threads.
+ *
+ * @author Stefan Ganzer
+ */
+@Immutable
+public final class ModuleMatrix {
+
+	private static final int WORD_SHIFT = 6;
+	private static final int WORD_MASK = 63;
+	private final int width;
+	private final int height;
+	private final int wordsPerRow;
+	/** Never modified after construction. Bits beyond the width are 0. */
+	private final long[] words;
+
+	private ModuleMatrix(int width, int height, long[] words) {
+		assert width >= 0;
+		assert height >= 0;
+		assert words != null;
+		this.width = width;
+		this.height = height;
+		this.wordsPerRow = getWordsPerRow(width);
+		this.words = words;
+	}
+
+	private static int getWordsPerRow(int width) {
+		return (width + WORD_MASK) >>> WORD_SHIFT;
+	}
+
+	/**
+	 * Creates the module matrix of the given ByteMatrix. Modules with the
+	 * value 1 are dark, all others are light.
+	 *
+	 * @param matrix the matrix
+	 *
+	 * @return the module matrix of the given matrix
+	 *
+	 * @throws NullPointerException if matrix is null
+	 */
+	public static ModuleMatrix of(ByteMatrix matrix) {
+		int width = matrix.getWidth(); // implicit null-check
+		int height = matrix.getHeight();
+		int wordsPerRow = getWordsPerRow(width);
+		long[] words = new long[wordsPerRow * height];
+		byte[][] rows = matrix.getArray();
+		for (int y = 0; y < height; y++) {
+			byte[] row = rows[y];
+			int offset = y * wordsPerRow;
+			for (int x = 0; x < width; x++) {
+				if (row[x] == 1) {
+					words[offset + (x >>> WORD_SHIFT)] |= 1L << x;
+				}
+			}
+		}
+		return new ModuleMatrix(width, height, words);
+	}
+
+	/**
+	 * Creates the module matrix of the given QR Code.
+	 *
+	 * @param code the QR Code
+	 *
+	 * @return the module matrix of the given QR Code
+	 *
+	 * @throws NullPointerException if code is null
+	 * @throws IllegalStateException if the QR Code has no matrix
+	 */
+	public static ModuleMatrix of(QRCode code) {
+		ByteMatrix matrix = code.getMatrix(); // implicit null-check
+		if (matrix == null) {
+			throw new IllegalStateException();
+		}
+		return of(matrix);
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Returns true if the module at the given position is dark.
+	 *
+	 * @param x the column
+	 * @param y the row
+	 *
+	 * @return true if the module is dark
+	 *
+	 * @throws IndexOutOfBoundsException if the position is outside of this
+	 * matrix
+	 */
+	public boolean get(int x, int y) {
+		checkPosition(x, y);
+		return (words[y * wordsPerRow + (x >>> WORD_SHIFT)] & (1L << x)) != 0;
+	}
+
+	/**
+	 * Returns the column of the first dark module in the given row, starting
+	 * at column x.
+	 *
+	 * @param x the first column to look at. May be equal to or greater than
+	 * the width.
+	 * @param y the row
+	 *
+	 * @return the column of the first dark module at or after x, or the width
+	 * if there is none
+	 *
+	 * @throws IndexOutOfBoundsException if x &lt; 0, or if y is outside of
+	 * this matrix
+	 */
+	public int nextDark(int x, int y) {
+		return next(x, y, 0);
+	}
+
+	/**
+	 * Returns the column of the first light module in the given row, starting
+	 * at column x.
+	 *
+	 * @param x the first column to look at. May be equal to or greater than
+	 * the width.
+	 * @param y the row
+	 *
+	 * @return the column of the first light module at or after x, or the
+	 * width if there is none
+	 *
+	 * @throws IndexOutOfBoundsException if x &lt; 0, or if y is outside of
+	 * this matrix
+	 */
+	public int nextLight(int x, int y) {
+		return next(x, y, -1L);
+	}
+
+	/**
+	 * Returns the first set bit at or after x of the row, after the row has
+	 * been XORed with invert.
+	 */
+	private int next(int x, int y, long invert) {
+		if (x < 0) {
+			throw new IndexOutOfBoundsException(Integer.toString(x));
+		}
+		checkRow(y);
+		if (x >= width) {
+			return width;
+		}
+		int offset = y * wordsPerRow;
+		int i = x >>> WORD_SHIFT;
+		long word = (words[offset + i] ^ invert) & (-1L << x);
+		while (word == 0) {
+			if (++i == wordsPerRow) {
+				return width;
+			}
+			word = words[offset + i] ^ invert;
+		}
+		return Math.min((i << WORD_SHIFT) + Long.numberOfTrailingZeros(word), width);
+	}
+
+	/**
+	 * Returns the number of dark modules.
+	 *
+	 * @return the number of dark modules
+	 */
+	public int getDarkCount() {
+		int count = 0;
+		for (long word : words) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of dark modules in the given row.
+	 *
+	 * @param y the row
+	 *
+	 * @return the number of dark modules in the given row
+	 *
+	 * @throws IndexOutOfBoundsException if y is outside of this matrix
+	 */
+	public int getDarkCount(int y) {
+		checkRow(y);
+		int count = 0;
+		for (int i = y * wordsPerRow, end = i + wordsPerRow; i < end; i++) {
+			count += Long.bitCount(words[i]);
+		}
+		return count;
+	}
+
+	/**
+	 * Returns true if the given row equals the row of the given matrix.
+	 *
+	 * @param y the row
+	 * @param other the other matrix, which must have the same width
+	 *
+	 * @return true if both rows have the same modules
+	 *
+	 * @throws NullPointerException if other is null
+	 * @throws IllegalArgumentException if the widths differ
+	 * @throws IndexOutOfBoundsException if y is outside of one of the matrices
+	 */
+	public boolean rowEquals(int y, ModuleMatrix other) {
+		if (other.width != width) {
+			throw new IllegalArgumentException(other.width + " != " + width);
+		}
+		checkRow(y);
+		other.checkRow(y);
+		int offset = y * wordsPerRow;
+		for (int i = 0; i < wordsPerRow; i++) {
+			if (words[offset + i] != other.words[offset + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a matrix in which each module of this matrix is inverted if the
+	 * module of the mask is dark, e.g. to apply a data mask pattern.
+	 *
+	 * @param mask the mask, which must have the same size as this matrix
+	 *
+	 * @return this matrix XOR mask
+	 *
+	 * @throws NullPointerException if mask is null
+	 * @throws IllegalArgumentException if the sizes differ
+	 */
+	public ModuleMatrix xor(ModuleMatrix mask) {
+		if (mask.width != width || mask.height != height) {
+			throw new IllegalArgumentException(mask.width + "x" + mask.height + " != " + width + "x" + height);
+		}
+		long[] result = new long[words.length];
+		for (int i = 0; i < words.length; i++) {
+			result[i] = words[i] ^ mask.words[i];
+		}
+		return new ModuleMatrix(width, height, result);
+	}
+
+	/**
+	 * Returns a new ByteMatrix with the value 1 for dark and 0 for light
+	 * modules.
+	 *
+	 * @return a new ByteMatrix of this matrix
+	 */
+	public ByteMatrix toByteMatrix() {
+		ByteMatrix matrix = new ByteMatrix(width, height);
+		byte[][] rows = matrix.getArray();
+		for (int y = 0; y < height; y++) {
+			for (int x = nextDark(0, y), end; x < width; x = nextDark(end, y)) {
+				end = nextLight(x, y);
+				Arrays.fill(rows[y], x, end, (byte) 1);
+			}
+		}
+		return matrix;
+	}
+
+	private void checkPosition(int x, int y) {
+		if (x < 0 || x >= width || y < 0 || y >= height) {
+			throw new IndexOutOfBoundsException(x + ", " + y);
+		}
+	}
+
+	private void checkRow(int y) {
+		if (y < 0 || y >= height) {
+			throw new IndexOutOfBoundsException(Integer.toString(y));
+		}
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == this) {
+			return true;
+		}
+		if (!(obj instanceof ModuleMatrix)) {
+			return false;
+		}
+		ModuleMatrix other = (ModuleMatrix) obj;
+		return width == other.width && height == other.height && Arrays.equals(words, other.words);
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = 7;
+		hash = 59 * hash + width;
+		hash = 59 * hash + height;
+		hash = 59 * hash + Arrays.hashCode(words);
+		return hash;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder(height * (width + 1));
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				sb.append(get(x, y) ? '1' : '0');
+			}
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+}
@@ -20,6 +20,10 @@ package qrcodegen.qrcode;
 
 import com.google.zxing.qrcode.decoder.Mode;
 import com.google.zxing.qrcode.decoder.Version;
+import qrcodegen.qrcode.encoder.Segment;
+
+import java.util.Collections;
+import java.util.List;
 
 /**
  *
@@ -61,4 +65,29 @@ public class NullQRCode implements QRCodeInterface {
 	public int getNumRSBlocks() {
 		return 0;
 	}
+
+	@Override
+	public List<Segment> getSegments() {
+		return Collections.emptyList();
+	}
+
+	@Override
+	public int getBitsSaved() {
+		return 0;
+	}
+
+	@Override
+	public int getSequenceIndex() {
+		return 0;
+	}
+
+	@Override
+	public int getSequenceTotal() {
+		return 0;
+	}
+
+	@Override
+	public int getSequenceParity() {
+		return -1;
+	}
 }
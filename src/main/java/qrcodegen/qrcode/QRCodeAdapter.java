@@ -21,6 +21,11 @@ package qrcodegen.qrcode;
 import com.google.zxing.qrcode.decoder.Mode;
 import com.google.zxing.qrcode.decoder.Version;
 import com.google.zxing.qrcode.encoder.QRCode;
+import qrcodegen.qrcode.encoder.Segment;
+import qrcodegen.qrcode.encoder.Segmentation;
+
+import java.util.Collections;
+import java.util.List;
 
 /**
  *
@@ -29,12 +34,60 @@ import com.google.zxing.qrcode.encoder.QRCode;
 public class QRCodeAdapter implements QRCodeInterface {
 
 	private final QRCode code;
+	/** May be null */
+	private final Segmentation segmentation;
+	private final int sequenceIndex;
+	private final int sequenceTotal;
+	private final int sequenceParity;
 
 	public QRCodeAdapter(QRCode code) {
+		this(code, null);
+	}
+
+	/**
+	 * Creates a new QRCodeAdapter.
+	 *
+	 * @param code the code
+	 * @param segmentation the segments the code has been encoded in, may be
+	 * null if they are not known
+	 *
+	 * @throws NullPointerException if code is null
+	 */
+	public QRCodeAdapter(QRCode code, Segmentation segmentation) {
+		this(code, segmentation, 0, 1, -1);
+	}
+
+	/**
+	 * Creates a new QRCodeAdapter for a symbol of a Structured Append
+	 * sequence.
+	 *
+	 * @param code the code
+	 * @param segmentation the segments the code has been encoded in, may be
+	 * null if they are not known
+	 * @param sequenceIndex the position of the symbol in the sequence
+	 * @param sequenceTotal the number of symbols of the sequence
+	 * @param sequenceParity the parity data of the sequence, or -1 if the
+	 * symbol is not part of a sequence
+	 *
+	 * @throws NullPointerException if code is null
+	 * @throws IllegalArgumentException if sequenceIndex is not in the range 0
+	 * to sequenceTotal - 1, or if sequenceParity is not in the range -1 to 255
+	 */
+	public QRCodeAdapter(QRCode code, Segmentation segmentation, int sequenceIndex, int sequenceTotal, int sequenceParity) {
 		if (code == null) {
 			throw new NullPointerException();
 		}
+		if (sequenceIndex < 0 || sequenceIndex >= sequenceTotal) {
+			throw new IllegalArgumentException(sequenceIndex + " of " + sequenceTotal);
+		}
+		if (sequenceParity < -1 || sequenceParity > 255) {
+			throw new IllegalArgumentException(Integer.toString(sequenceParity));
+		}
 		this.code = code;
+		this.segmentation = segmentation;
+		this.sequenceIndex = sequenceIndex;
+		this.sequenceTotal = sequenceTotal;
+		this.sequenceParity = sequenceParity;
 	}
 
 	@Override
@@ -73,4 +126,32 @@ public class QRCodeAdapter implements QRCodeInterface {
 		Version.ECBlocks ecBlocks = code.getVersion().getECBlocksForLevel(code.getECLevel());
 		return ecBlocks.getNumBlocks();
 	}
+
+	@Override
+	public List<Segment> getSegments() {
+		if (segmentation == null) {
+			return Collections.emptyList();
+		}
+		return segmentation.getSegments();
+	}
+
+	@Override
+	public int getBitsSaved() {
+		return segmentation == null ? 0 : segmentation.getBitsSaved();
+	}
+
+	@Override
+	public int getSequenceIndex() {
+		return sequenceIndex;
+	}
+
+	@Override
+	public int getSequenceTotal() {
+		return sequenceTotal;
+	}
+
+	@Override
+	public int getSequenceParity() {
+		return sequenceParity;
+	}
 }
@@ -19,6 +19,8 @@
 package qrcodegen.qrcode;
 
 import com.google.zxing.qrcode.encoder.QRCode;
+import qrcodegen.qrcode.encoder.Segmentation;
+import qrcodegen.qrcode.encoder.StructuredAppend;
 
 /**
  *
@@ -33,15 +35,47 @@ public class QRCodeFactory {
 	}
 
 	public static QRCodeInterface getInstance(QRCode code) {
+		return getInstance(code, null);
+	}
+
+	/**
+	 * Returns a QRCodeInterface for the given code.
+	 *
+	 * @param code the code, may be null
+	 * @param segmentation the segments the code has been encoded in, may be
+	 * null if they are not known
+	 *
+	 * @return a QRCodeInterface for the given code, the null instance if code
+	 * is null
+	 */
+	public static QRCodeInterface getInstance(QRCode code, Segmentation segmentation) {
 		QRCodeInterface instance;
 		if (code == null) {
 			instance = NULL_INSTANCE;
 		} else {
-			instance = new QRCodeAdapter(code);
+			instance = new QRCodeAdapter(code, segmentation);
 		}
 		return instance;
 	}
 
+	/**
+	 * Returns a QRCodeInterface for the symbol with the given index of the
+	 * given sequence.
+	 *
+	 * @param sequence the sequence
+	 * @param index the index of the symbol
+	 *
+	 * @return a QRCodeInterface for the symbol
+	 *
+	 * @throws NullPointerException if sequence is null
+	 * @throws IndexOutOfBoundsException if index &lt; 0 or index &gt;=
+	 * sequence.size()
+	 */
+	public static QRCodeInterface getInstance(StructuredAppend sequence, int index) {
+		return new QRCodeAdapter(sequence.getSymbol(index), sequence.getSegmentation(index),
+				index, sequence.size(), sequence.getParity());
+	}
+
 	private QRCodeFactory() {
 	}
 }
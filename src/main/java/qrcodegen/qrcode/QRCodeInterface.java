@@ -20,6 +20,9 @@ package qrcodegen.qrcode;
 
 import com.google.zxing.qrcode.decoder.Mode;
 import com.google.zxing.qrcode.decoder.Version;
+import qrcodegen.qrcode.encoder.Segment;
+
+import java.util.List;
 
 /**
  *
@@ -66,4 +69,48 @@ public interface QRCodeInterface {
 	 * been called.
 	 */
 	public int getNumRSBlocks();
+
+	/**
+	 * Returns the segments the content is encoded in.
+	 *
+	 * @return an unmodifiable list of the segments, empty if generateCode()
+	 * hasn't been called yet or after {@link #resetState()} has been called.
+	 */
+	public List<Segment> getSegments();
+
+	/**
+	 * Returns the number of bits saved by encoding the content in several
+	 * segments instead of a single mode.
+	 *
+	 * @return the number of bits saved, or 0 if generateCode() hasn't been
+	 * called yet or after {@link #resetState()} has been called.
+	 */
+	public int getBitsSaved();
+
+	/**
+	 * Returns the position of this symbol in a Structured Append sequence.
+	 *
+	 * @return the position of this symbol, starting with 0, or 0 if this
+	 * symbol is not part of a sequence
+	 */
+	public int getSequenceIndex();
+
+	/**
+	 * Returns the number of symbols of the Structured Append sequence this
+	 * symbol is part of.
+	 *
+	 * @return the number of symbols of the sequence, 1 if this symbol is not
+	 * part of a sequence, or 0 if generateCode() hasn't been called yet or
+	 * after {@link #resetState()} has been called.
+	 */
+	public int getSequenceTotal();
+
+	/**
+	 * Returns the parity data of the Structured Append sequence this symbol
+	 * is part of.
+	 *
+	 * @return the parity data, 0 to 255, or -1 if this symbol is not part of
+	 * a sequence
+	 */
+	public int getSequenceParity();
 }
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.encoder;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.decoder.Version;
+
+/**
+ * The division of the codewords of a QR Code symbol into Reed-Solomon blocks,
+ * for one version and error correction level. Instances are immutable and
+ * shared; they are created once for all 160 combinations.
+ *
+ * The blocks of group 1 come first, followed by the blocks of group 2, which
+ * have one data codeword more. All blocks have the same number of error
+ * correction codewords.
+ *
+ * @author Stefan Ganzer
+ */
+public final class BlockLayout {
+
+	private static final int MIN_VERSION = 1;
+	private static final int MAX_VERSION = 40;
+	private static final BlockLayout[][] LAYOUTS = new BlockLayout[MAX_VERSION + 1][ErrorCorrectionLevel.values().length];
+
+	static {
+		for (int v = MIN_VERSION; v <= MAX_VERSION; v++) {
+			Version version = Version.getVersionForNumber(v);
+			for (ErrorCorrectionLevel ecLevel : ErrorCorrectionLevel.values()) {
+				LAYOUTS[v][ecLevel.ordinal()] = new BlockLayout(version, ecLevel);
+			}
+		}
+	}
+	private final int version;
+	private final ErrorCorrectionLevel ecLevel;
+	private final int numTotalBytes;
+	private final int numDataBytes;
+	private final int numRSBlocks;
+	private final int numBlocksInGroup1;
+	private final int numDataBytesInGroup1;
+	private final int numECBytesPerBlock;
+
+	private BlockLayout(Version version, ErrorCorrectionLevel ecLevel) {
+		this.version = version.getVersionNumber();
+		this.ecLevel = ecLevel;
+		Version.ECBlocks ecBlocks = version.getECBlocksForLevel(ecLevel);
+		numTotalBytes = version.getTotalCodewords();
+		numRSBlocks = ecBlocks.getNumBlocks();
+		numECBytesPerBlock = ecBlocks.getECCodewordsPerBlock();
+		numDataBytes = numTotalBytes - ecBlocks.getTotalECCodewords();
+		numBlocksInGroup1 = numRSBlocks - numTotalBytes % numRSBlocks;
+		numDataBytesInGroup1 = numDataBytes / numRSBlocks;
+		assert ReedSolomonEncoder.isSupported(numECBytesPerBlock);
+		assert numBlocksInGroup1 * (numDataBytesInGroup1 + numECBytesPerBlock)
+				+ (numRSBlocks - numBlocksInGroup1) * (numDataBytesInGroup1 + 1 + numECBytesPerBlock) == numTotalBytes;
+	}
+
+	/**
+	 * Returns the block layout of the given version and error correction
+	 * level.
+	 *
+	 * @param version the version, 1 to 40
+	 * @param ecLevel the error correction level
+	 *
+	 * @return the block layout
+	 *
+	 * @throws NullPointerException if ecLevel is null
+	 * @throws IllegalArgumentException if version is not in the range 1 to 40
+	 */
+	public static BlockLayout forVersion(int version, ErrorCorrectionLevel ecLevel) {
+		if (ecLevel == null) {
+			throw new NullPointerException();
+		}
+		if (version < MIN_VERSION || version > MAX_VERSION) {
+			throw new IllegalArgumentException(Integer.toString(version));
+		}
+		return LAYOUTS[version][ecLevel.ordinal()];
+	}
+
+	public int getVersion() {
+		return version;
+	}
+
+	public ErrorCorrectionLevel getErrorCorrectionLevel() {
+		return ecLevel;
+	}
+
+	public int getNumTotalBytes() {
+		return numTotalBytes;
+	}
+
+	public int getNumDataBytes() {
+		return numDataBytes;
+	}
+
+	public int getNumECBytes() {
+		return numTotalBytes - numDataBytes;
+	}
+
+	public int getNumRSBlocks() {
+		return numRSBlocks;
+	}
+
+	public int getNumECBytesPerBlock() {
+		return numECBytesPerBlock;
+	}
+
+	/**
+	 * Returns the number of data bytes of the given block.
+	 *
+	 * @param block the index of the block, 0 to getNumRSBlocks() - 1
+	 *
+	 * @return the number of data bytes of the given block
+	 */
+	public int getNumDataBytesInBlock(int block) {
+		if (block < 0 || block >= numRSBlocks) {
+			throw new IndexOutOfBoundsException(Integer.toString(block));
+		}
+		return block < numBlocksInGroup1 ? numDataBytesInGroup1 : numDataBytesInGroup1 + 1;
+	}
+
+	/**
+	 * Computes the error correction codewords of all blocks and writes the
+	 * interleaved data and error correction codewords into the given buffer,
+	 * in the order in which they are placed into the symbol.
+	 *
+	 * @param data the data codewords, including the padding; getNumDataBytes()
+	 * bytes are read
+	 * @param codewords the buffer the interleaved codewords are written to;
+	 * getNumTotalBytes() bytes are written
+	 * @param ecScratch a buffer with room for at least getNumECBytes() bytes,
+	 * used to hold the error correction codewords of all blocks
+	 *
+	 * @throws NullPointerException if any of the arguments is null
+	 * @throws IllegalArgumentException if a buffer is too short
+	 */
+	public void encode(byte[] data, byte[] codewords, byte[] ecScratch) {
+		if (data == null || codewords == null || ecScratch == null) {
+			throw new NullPointerException();
+		}
+		if (data.length < numDataBytes) {
+			throw new IllegalArgumentException("data: " + data.length + " < " + numDataBytes);
+		}
+		if (codewords.length < numTotalBytes) {
+			throw new IllegalArgumentException("codewords: " + codewords.length + " < " + numTotalBytes);
+		}
+		if (ecScratch.length < getNumECBytes()) {
+			throw new IllegalArgumentException("ecScratch: " + ecScratch.length + " < " + getNumECBytes());
+		}
+		int dataOffset = 0;
+		for (int block = 0; block < numRSBlocks; block++) {
+			int length = block < numBlocksInGroup1 ? numDataBytesInGroup1 : numDataBytesInGroup1 + 1;
+			ReedSolomonEncoder.encode(data, dataOffset, length, ecScratch, block * numECBytesPerBlock, numECBytesPerBlock);
+			dataOffset += length;
+		}
+
+		int out = 0;
+		// Data codewords, one column of all blocks after the other. Only the
+		// blocks of group 2 contribute to the last column.
+		for (int column = 0; column <= numDataBytesInGroup1; column++) {
+			int blockOffset = 0;
+			for (int block = 0; block < numRSBlocks; block++) {
+				int length = block < numBlocksInGroup1 ? numDataBytesInGroup1 : numDataBytesInGroup1 + 1;
+				if (column < length) {
+					codewords[out++] = data[blockOffset + column];
+				}
+				blockOffset += length;
+			}
+		}
+		for (int column = 0; column < numECBytesPerBlock; column++) {
+			for (int block = 0; block < numRSBlocks; block++) {
+				codewords[out++] = ecScratch[block * numECBytesPerBlock + column];
+			}
+		}
+		assert out == numTotalBytes;
+	}
+
+	@Override
+	public String toString() {
+		return "BlockLayout{" + "version=" + version + ", ecLevel=" + ecLevel + ", numTotalBytes=" + numTotalBytes
+				+ ", numDataBytes=" + numDataBytes + ", numRSBlocks=" + numRSBlocks + ", numECBytesPerBlock=" + numECBytesPerBlock + '}';
+	}
+}
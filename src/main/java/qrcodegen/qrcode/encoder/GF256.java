@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.encoder;
+
+/**
+ * Arithmetic in GF(256) with the primitive polynomial x^8 + x^4 + x^3 + x^2 +
+ * 1 (0x11D) that QR Codes use. Multiplication and division are done by table
+ * lookups. This class is thread-safe.
+ *
+ * @author Stefan Ganzer
+ */
+final class GF256 {
+
+	static final int PRIMITIVE = 0x11D;
+	static final int SIZE = 256;
+	/** EXP[i] = alpha^i. The table is doubled so that EXP[LOG[a] + LOG[b]]
+	 * needs no modulo operation. */
+	static final int[] EXP = new int[2 * SIZE];
+	/** LOG[alpha^i] = i. LOG[0] is undefined. */
+	static final int[] LOG = new int[SIZE];
+
+	static {
+		int x = 1;
+		for (int i = 0; i < SIZE - 1; i++) {
+			EXP[i] = x;
+			LOG[x] = i;
+			x <<= 1;
+			if (x >= SIZE) {
+				x ^= PRIMITIVE;
+			}
+		}
+		for (int i = SIZE - 1; i < EXP.length; i++) {
+			EXP[i] = EXP[i - (SIZE - 1)];
+		}
+	}
+
+	private GF256() {
+	}
+
+	static int multiply(int a, int b) {
+		if (a == 0 || b == 0) {
+			return 0;
+		}
+		return EXP[LOG[a] + LOG[b]];
+	}
+
+	/**
+	 * Returns alpha^n.
+	 *
+	 * @param n the exponent, 0 &lt;= n &lt; 510
+	 *
+	 * @return alpha^n
+	 */
+	static int exp(int n) {
+		return EXP[n];
+	}
+}
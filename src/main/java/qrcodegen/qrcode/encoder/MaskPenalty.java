@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.encoder;
+
+/**
+ * Computes the mask penalty score of ISO/IEC 18004, 8.8.2, of a complete
+ * symbol stored row by row in a single array. The rules are applied exactly as
+ * ZXing's MaskUtil applies them, so both choose the same mask pattern.
+ *
+ * @author Stefan Ganzer
+ */
+final class MaskPenalty {
+
+	private static final int N1 = 3;
+	private static final int N2 = 3;
+	private static final int N3 = 40;
+	private static final int N4 = 10;
+
+	private MaskPenalty() {
+	}
+
+	static int calculate(byte[] modules, int dimension) {
+		return rule1(modules, dimension) + rule2(modules, dimension) + rule3(modules, dimension) + rule4(modules);
+	}
+
+	/**
+	 * Runs of five or more modules of the same color in a row or column.
+	 */
+	static int rule1(byte[] modules, int dimension) {
+		int penalty = 0;
+		for (int i = 0; i < dimension; i++) {
+			int rowRun = 0;
+			int rowColor = -1;
+			int columnRun = 0;
+			int columnColor = -1;
+			for (int j = 0; j < dimension; j++) {
+				int color = modules[i * dimension + j];
+				if (color == rowColor) {
+					rowRun++;
+				} else {
+					if (rowRun >= 5) {
+						penalty += N1 + rowRun - 5;
+					}
+					rowRun = 1;
+					rowColor = color;
+				}
+				color = modules[j * dimension + i];
+				if (color == columnColor) {
+					columnRun++;
+				} else {
+					if (columnRun >= 5) {
+						penalty += N1 + columnRun - 5;
+					}
+					columnRun = 1;
+					columnColor = color;
+				}
+			}
+			if (rowRun >= 5) {
+				penalty += N1 + rowRun - 5;
+			}
+			if (columnRun >= 5) {
+				penalty += N1 + columnRun - 5;
+			}
+		}
+		return penalty;
+	}
+
+	/**
+	 * 2x2 blocks of modules of the same color.
+	 */
+	static int rule2(byte[] modules, int dimension) {
+		int count = 0;
+		for (int y = 0; y < dimension - 1; y++) {
+			int row = y * dimension;
+			int next = row + dimension;
+			for (int x = 0; x < dimension - 1; x++) {
+				int color = modules[row + x];
+				if (color == modules[row + x + 1] && color == modules[next + x] && color == modules[next + x + 1]) {
+					count++;
+				}
+			}
+		}
+		return N2 * count;
+	}
+
+	/**
+	 * The pattern 1:1:3:1:1 (dark:light:dark:light:dark) preceded or followed
+	 * by four light modules, in a row or column.
+	 */
+	static int rule3(byte[] modules, int dimension) {
+		int count = 0;
+		for (int y = 0; y < dimension; y++) {
+			int row = y * dimension;
+			for (int x = 0; x < dimension; x++) {
+				if (x + 6 < dimension && isFinderLike(modules, row + x, 1)
+						&& (isLight(modules, row, 1, x - 4, x, dimension) || isLight(modules, row, 1, x + 7, x + 11, dimension))) {
+					count++;
+				}
+				if (y + 6 < dimension && isFinderLike(modules, row + x, dimension)
+						&& (isLight(modules, x, dimension, y - 4, y, dimension) || isLight(modules, x, dimension, y + 7, y + 11, dimension))) {
+					count++;
+				}
+			}
+		}
+		return N3 * count;
+	}
+
+	/**
+	 * The deviation of the proportion of dark modules from 50%, in steps of
+	 * 5%.
+	 */
+	static int rule4(byte[] modules) {
+		int dark = 0;
+		for (byte b : modules) {
+			dark += b;
+		}
+		int total = modules.length;
+		return Math.abs(dark * 2 - total) * 10 / total * N4;
+	}
+
+	private static boolean isFinderLike(byte[] modules, int start, int step) {
+		return modules[start] == 1
+				&& modules[start + step] == 0
+				&& modules[start + 2 * step] == 1
+				&& modules[start + 3 * step] == 1
+				&& modules[start + 4 * step] == 1
+				&& modules[start + 5 * step] == 0
+				&& modules[start + 6 * step] == 1;
+	}
+
+	/**
+	 * Returns true if the modules from (inclusive) to (exclusive) of the line
+	 * starting at base are light. The range is clipped to the symbol.
+	 */
+	private static boolean isLight(byte[] modules, int base, int step, int from, int to, int dimension) {
+		from = Math.max(from, 0);
+		to = Math.min(to, dimension);
+		for (int i = from; i < to; i++) {
+			if (modules[base + i * step] == 1) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
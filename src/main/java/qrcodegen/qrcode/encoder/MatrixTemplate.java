@@ -0,0 +1,401 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.encoder;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The function patterns of a QR Code version - finder patterns, separators,
+ * timing patterns, alignment patterns, the dark module and the version
+ * information - together with the order in which the data modules are
+ * placed. A template is created once per version and never modified; symbols
+ * are built by copying its modules and filling in the format information and
+ * the data modules.
+ *
+ * The modules are stored row by row in a single array, with -1 for the
+ * modules that are left for data.
+ *
+ * @author Stefan Ganzer
+ */
+final class MatrixTemplate {
+
+	static final int MIN_VERSION = 1;
+	static final int MAX_VERSION = 40;
+	static final byte EMPTY = -1;
+	static final int FORMAT_INFO_LENGTH = 15;
+	static final int NUM_MASK_PATTERNS = 8;
+	private static final int[][] FINDER_PATTERN = {
+		{1, 1, 1, 1, 1, 1, 1},
+		{1, 0, 0, 0, 0, 0, 1},
+		{1, 0, 1, 1, 1, 0, 1},
+		{1, 0, 1, 1, 1, 0, 1},
+		{1, 0, 1, 1, 1, 0, 1},
+		{1, 0, 0, 0, 0, 0, 1},
+		{1, 1, 1, 1, 1, 1, 1},};
+	private static final int[][] ALIGNMENT_PATTERN = {
+		{1, 1, 1, 1, 1},
+		{1, 0, 0, 0, 1},
+		{1, 0, 1, 0, 1},
+		{1, 0, 0, 0, 1},
+		{1, 1, 1, 1, 1},};
+	/** The center coordinates of the alignment patterns, indexed by version
+	 * - 1 */
+	private static final int[][] ALIGNMENT_PATTERN_CENTERS = {
+		{},
+		{6, 18},
+		{6, 22},
+		{6, 26},
+		{6, 30},
+		{6, 34},
+		{6, 22, 38},
+		{6, 24, 42},
+		{6, 26, 46},
+		{6, 28, 50},
+		{6, 30, 54},
+		{6, 32, 58},
+		{6, 34, 62},
+		{6, 26, 46, 66},
+		{6, 26, 48, 70},
+		{6, 26, 50, 74},
+		{6, 30, 54, 78},
+		{6, 30, 56, 82},
+		{6, 30, 58, 86},
+		{6, 34, 62, 90},
+		{6, 28, 50, 72, 94},
+		{6, 26, 50, 74, 98},
+		{6, 30, 54, 78, 102},
+		{6, 28, 54, 80, 106},
+		{6, 32, 58, 84, 110},
+		{6, 30, 58, 86, 114},
+		{6, 34, 62, 90, 118},
+		{6, 26, 50, 74, 98, 122},
+		{6, 30, 54, 78, 102, 126},
+		{6, 26, 52, 78, 104, 130},
+		{6, 30, 56, 82, 108, 134},
+		{6, 34, 60, 86, 112, 138},
+		{6, 30, 58, 86, 114, 142},
+		{6, 34, 62, 90, 118, 146},
+		{6, 30, 54, 78, 102, 126, 150},
+		{6, 24, 50, 76, 102, 128, 154},
+		{6, 28, 54, 80, 106, 132, 158},
+		{6, 32, 58, 84, 110, 136, 162},
+		{6, 26, 54, 82, 110, 138, 166},
+		{6, 30, 58, 86, 114, 142, 170},};
+	/** The coordinates (x, y) of the first copy of the format information,
+	 * from the least to the most significant bit */
+	private static final int[][] FORMAT_INFO_COORDINATES = {
+		{8, 0}, {8, 1}, {8, 2}, {8, 3}, {8, 4}, {8, 5}, {8, 7}, {8, 8},
+		{7, 8}, {5, 8}, {4, 8}, {3, 8}, {2, 8}, {1, 8}, {0, 8},};
+	private static final int VERSION_INFO_POLY = 0x1F25;
+	private static final int FORMAT_INFO_POLY = 0x537;
+	private static final int FORMAT_INFO_MASK = 0x5412;
+	private static final AtomicReferenceArray<MatrixTemplate> TEMPLATES = new AtomicReferenceArray<MatrixTemplate>(MAX_VERSION + 1);
+	private final int version;
+	private final int dimension;
+	private final byte[] modules;
+	/** The indices into modules of the data modules, in placement order */
+	private final int[] dataPositions;
+	/** For every data module, a bit set of the data masks that invert it;
+	 * bit n stands for mask pattern n */
+	private final byte[] maskBits;
+	/** The indices into modules of both copies of the format information,
+	 * two per bit, from the least to the most significant bit */
+	private final int[] formatPositions;
+
+	private MatrixTemplate(int version) {
+		this.version = version;
+		dimension = 17 + 4 * version;
+		modules = new byte[dimension * dimension];
+		Arrays.fill(modules, EMPTY);
+		embedFinderPatterns();
+		set(8, dimension - 8, 1);
+		embedAlignmentPatterns();
+		embedTimingPatterns();
+		formatPositions = new int[2 * FORMAT_INFO_LENGTH];
+		for (int i = 0; i < FORMAT_INFO_LENGTH; i++) {
+			int x2;
+			int y2;
+			if (i < 8) {
+				x2 = dimension - i - 1;
+				y2 = 8;
+			} else {
+				x2 = 8;
+				y2 = dimension - 7 + (i - 8);
+			}
+			formatPositions[2 * i] = index(FORMAT_INFO_COORDINATES[i][0], FORMAT_INFO_COORDINATES[i][1]);
+			formatPositions[2 * i + 1] = index(x2, y2);
+			// Reserve the modules; their values depend on the mask
+			modules[formatPositions[2 * i]] = 0;
+			modules[formatPositions[2 * i + 1]] = 0;
+		}
+		embedVersionInfo();
+		dataPositions = computeDataPositions();
+		maskBits = new byte[dataPositions.length];
+		for (int i = 0; i < dataPositions.length; i++) {
+			int x = dataPositions[i] % dimension;
+			int y = dataPositions[i] / dimension;
+			int bits = 0;
+			for (int mask = 0; mask < NUM_MASK_PATTERNS; mask++) {
+				if (getDataMaskBit(mask, x, y)) {
+					bits |= 1 << mask;
+				}
+			}
+			maskBits[i] = (byte) bits;
+		}
+	}
+
+	/**
+	 * Returns the template of the given version.
+	 *
+	 * @param version the version, 1 to 40
+	 *
+	 * @return the template of the given version
+	 *
+	 * @throws IllegalArgumentException if version is not in the range 1 to 40
+	 */
+	static MatrixTemplate forVersion(int version) {
+		if (version < MIN_VERSION || version > MAX_VERSION) {
+			throw new IllegalArgumentException(Integer.toString(version));
+		}
+		MatrixTemplate template = TEMPLATES.get(version);
+		if (template == null) {
+			// Creating a template twice does no harm, they are equal
+			TEMPLATES.compareAndSet(version, null, new MatrixTemplate(version));
+			template = TEMPLATES.get(version);
+		}
+		return template;
+	}
+
+	int getVersion() {
+		return version;
+	}
+
+	int getDimension() {
+		return dimension;
+	}
+
+	/**
+	 * Returns the number of modules available for data and error correction
+	 * codewords, including the remainder bits.
+	 *
+	 * @return the number of data modules
+	 */
+	int getNumDataModules() {
+		return dataPositions.length;
+	}
+
+	/**
+	 * Copies the modules of this template into the given array, which must
+	 * have a length of getDimension() * getDimension().
+	 *
+	 * @param target the array to copy the modules to
+	 */
+	void copyTo(byte[] target) {
+		System.arraycopy(modules, 0, target, 0, modules.length);
+	}
+
+	/**
+	 * Writes the codewords into the data modules of the given matrix,
+	 * applying the given data mask. The remaining modules are set to light
+	 * before masking.
+	 *
+	 * @param codewords the interleaved codewords
+	 * @param numCodewords the number of codewords
+	 * @param maskPattern the mask pattern, 0 to 7
+	 * @param target the matrix, initialized by {@link #copyTo(byte[])}
+	 */
+	void placeData(byte[] codewords, int numCodewords, int maskPattern, byte[] target) {
+		int numBits = numCodewords * 8;
+		assert numBits <= dataPositions.length;
+		int i = 0;
+		for (; i < numBits; i++) {
+			int bit = (codewords[i >> 3] >>> (7 - (i & 7))) & 1;
+			target[dataPositions[i]] = (byte) (bit ^ ((maskBits[i] >>> maskPattern) & 1));
+		}
+		// Remainder bits
+		for (; i < dataPositions.length; i++) {
+			target[dataPositions[i]] = (byte) ((maskBits[i] >>> maskPattern) & 1);
+		}
+	}
+
+	/**
+	 * Writes both copies of the format information for the given error
+	 * correction level bits and mask pattern into the given matrix.
+	 *
+	 * @param ecBits the bits of the error correction level
+	 * @param maskPattern the mask pattern, 0 to 7
+	 * @param target the matrix
+	 */
+	void placeFormatInfo(int ecBits, int maskPattern, byte[] target) {
+		int formatInfo = getFormatInfo(ecBits, maskPattern);
+		for (int i = 0; i < FORMAT_INFO_LENGTH; i++) {
+			byte bit = (byte) ((formatInfo >>> i) & 1);
+			target[formatPositions[2 * i]] = bit;
+			target[formatPositions[2 * i + 1]] = bit;
+		}
+	}
+
+	static int getFormatInfo(int ecBits, int maskPattern) {
+		int typeInfo = (ecBits << 3) | maskPattern;
+		return ((typeInfo << 10) | calculateBCHCode(typeInfo, FORMAT_INFO_POLY)) ^ FORMAT_INFO_MASK;
+	}
+
+	private int index(int x, int y) {
+		return y * dimension + x;
+	}
+
+	private void set(int x, int y, int value) {
+		modules[index(x, y)] = (byte) value;
+	}
+
+	private boolean isEmpty(int x, int y) {
+		return modules[index(x, y)] == EMPTY;
+	}
+
+	private void embedFinderPatterns() {
+		int size = FINDER_PATTERN.length;
+		embedPattern(FINDER_PATTERN, 0, 0);
+		embedPattern(FINDER_PATTERN, dimension - size, 0);
+		embedPattern(FINDER_PATTERN, 0, dimension - size);
+		// Separators
+		for (int i = 0; i <= size; i++) {
+			set(i, size, 0);
+			set(dimension - 1 - i, size, 0);
+			set(i, dimension - 1 - size, 0);
+		}
+		for (int i = 0; i < size; i++) {
+			set(size, i, 0);
+			set(dimension - 1 - size, i, 0);
+			set(size, dimension - size + i, 0);
+		}
+	}
+
+	private void embedAlignmentPatterns() {
+		int[] centers = ALIGNMENT_PATTERN_CENTERS[version - 1];
+		for (int y : centers) {
+			for (int x : centers) {
+				if (isEmpty(x, y)) {
+					embedPattern(ALIGNMENT_PATTERN, x - 2, y - 2);
+				}
+			}
+		}
+	}
+
+	private void embedTimingPatterns() {
+		for (int i = 8; i < dimension - 8; i++) {
+			int bit = (i + 1) % 2;
+			if (isEmpty(i, 6)) {
+				set(i, 6, bit);
+			}
+			if (isEmpty(6, i)) {
+				set(6, i, bit);
+			}
+		}
+	}
+
+	private void embedVersionInfo() {
+		if (version < 7) {
+			return;
+		}
+		int versionInfo = (version << 12) | calculateBCHCode(version, VERSION_INFO_POLY);
+		int bitIndex = 0;
+		for (int i = 0; i < 6; i++) {
+			for (int j = 0; j < 3; j++) {
+				int bit = (versionInfo >>> bitIndex) & 1;
+				bitIndex++;
+				set(i, dimension - 11 + j, bit);
+				set(dimension - 11 + j, i, bit);
+			}
+		}
+	}
+
+	private void embedPattern(int[][] pattern, int xStart, int yStart) {
+		for (int y = 0; y < pattern.length; y++) {
+			for (int x = 0; x < pattern[y].length; x++) {
+				set(xStart + x, yStart + y, pattern[y][x]);
+			}
+		}
+	}
+
+	/**
+	 * Walks the matrix in the two-module wide zigzag of ISO/IEC 18004, 7.7.3,
+	 * and collects the modules that are not part of a function pattern.
+	 */
+	private int[] computeDataPositions() {
+		int[] positions = new int[modules.length];
+		int count = 0;
+		int direction = -1;
+		int x = dimension - 1;
+		int y = dimension - 1;
+		while (x > 0) {
+			if (x == 6) {
+				// Skip the vertical timing pattern
+				x--;
+			}
+			while (y >= 0 && y < dimension) {
+				for (int i = 0; i < 2; i++) {
+					if (isEmpty(x - i, y)) {
+						positions[count++] = index(x - i, y);
+					}
+				}
+				y += direction;
+			}
+			direction = -direction;
+			y += direction;
+			x -= 2;
+		}
+		return Arrays.copyOf(positions, count);
+	}
+
+	/**
+	 * Returns true if the given data mask inverts the module at (x, y).
+	 */
+	private static boolean getDataMaskBit(int maskPattern, int x, int y) {
+		switch (maskPattern) {
+			case 0:
+				return ((y + x) & 1) == 0;
+			case 1:
+				return (y & 1) == 0;
+			case 2:
+				return x % 3 == 0;
+			case 3:
+				return (y + x) % 3 == 0;
+			case 4:
+				return (((y / 2) + (x / 3)) & 1) == 0;
+			case 5:
+				return ((y * x) & 1) + (y * x) % 3 == 0;
+			case 6:
+				return ((((y * x) & 1) + (y * x) % 3) & 1) == 0;
+			case 7:
+				return (((y * x) % 3 + ((y + x) & 1)) & 1) == 0;
+			default:
+				throw new IllegalArgumentException(Integer.toString(maskPattern));
+		}
+	}
+
+	private static int calculateBCHCode(int value, int poly) {
+		int msbSetInPoly = 32 - Integer.numberOfLeadingZeros(poly);
+		value <<= msbSetInPoly - 1;
+		while (32 - Integer.numberOfLeadingZeros(value) >= msbSetInPoly) {
+			value ^= poly << (32 - Integer.numberOfLeadingZeros(value) - msbSetInPoly);
+		}
+		return value;
+	}
+}
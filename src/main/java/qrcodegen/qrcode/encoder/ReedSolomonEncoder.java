@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.encoder;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.decoder.Version;
+
+/**
+ * A Reed-Solomon encoder over GF(256) for QR Codes. The generator polynomials
+ * for all numbers of error correction codewords per block that occur in
+ * versions 1 to 40 are computed once, when this class is initialized. The
+ * encoder writes the error correction codewords into a buffer supplied by the
+ * caller and allocates no objects, so it can be called from any number of
+ * threads at once.
+ *
+ * The results are identical to those of ZXing's ReedSolomonEncoder with
+ * GenericGF.QR_CODE_FIELD_256.
+ *
+ * @author Stefan Ganzer
+ */
+public final class ReedSolomonEncoder {
+
+	/** The largest number of error correction codewords per block in a QR
+	 * Code */
+	private static final int MAX_EC_CODEWORDS = 30;
+	/** The logarithms of the coefficients of the generator polynomials,
+	 * indexed by degree. The leading coefficient (1) is omitted, the others
+	 * are ordered from the highest to the lowest power of x. Degrees that
+	 * don't occur in QR Codes are null. */
+	private static final int[][] GENERATOR_LOGS = new int[MAX_EC_CODEWORDS + 1][];
+
+	static {
+		for (int v = 1; v <= 40; v++) {
+			Version version = Version.getVersionForNumber(v);
+			for (ErrorCorrectionLevel ecLevel : ErrorCorrectionLevel.values()) {
+				int degree = version.getECBlocksForLevel(ecLevel).getECCodewordsPerBlock();
+				if (GENERATOR_LOGS[degree] == null) {
+					GENERATOR_LOGS[degree] = buildGeneratorLogs(degree);
+				}
+			}
+		}
+	}
+
+	private ReedSolomonEncoder() {
+	}
+
+	/**
+	 * Returns the product (x - alpha^0)(x - alpha^1)...(x - alpha^(degree-1)),
+	 * as logarithms of its coefficients without the leading one.
+	 */
+	private static int[] buildGeneratorLogs(int degree) {
+		// coefficients[0] is the leading coefficient
+		int[] coefficients = new int[degree + 1];
+		coefficients[0] = 1;
+		for (int d = 0; d < degree; d++) {
+			int root = GF256.exp(d);
+			// Multiply by (x + root), from the lowest to the highest power
+			for (int i = d + 1; i > 0; i--) {
+				coefficients[i] ^= GF256.multiply(coefficients[i - 1], root);
+			}
+		}
+		int[] logs = new int[degree];
+		for (int i = 0; i < degree; i++) {
+			assert coefficients[i + 1] != 0;
+			logs[i] = GF256.LOG[coefficients[i + 1]];
+		}
+		return logs;
+	}
+
+	/**
+	 * Returns true if there is a generator polynomial for the given number of
+	 * error correction codewords.
+	 *
+	 * @param ecLength the number of error correction codewords per block
+	 *
+	 * @return true if blocks with ecLength error correction codewords can be
+	 * encoded
+	 */
+	public static boolean isSupported(int ecLength) {
+		return ecLength > 0 && ecLength <= MAX_EC_CODEWORDS && GENERATOR_LOGS[ecLength] != null;
+	}
+
+	/**
+	 * Computes the error correction codewords of a block of data codewords.
+	 *
+	 * @param data the buffer containing the data codewords
+	 * @param dataOffset the offset of the first data codeword
+	 * @param dataLength the number of data codewords
+	 * @param ec the buffer the error correction codewords are written to
+	 * @param ecOffset the offset of the first error correction codeword
+	 * @param ecLength the number of error correction codewords
+	 *
+	 * @throws NullPointerException if data or ec is null
+	 * @throws IllegalArgumentException if dataLength &lt; 1 or if
+	 * {@link #isSupported(int) isSupported(ecLength)} returns false
+	 * @throws IndexOutOfBoundsException if the offsets and lengths don't fit
+	 * into the buffers
+	 */
+	public static void encode(byte[] data, int dataOffset, int dataLength, byte[] ec, int ecOffset, int ecLength) {
+		if (data == null || ec == null) {
+			throw new NullPointerException();
+		}
+		if (dataLength < 1) {
+			throw new IllegalArgumentException("No data bytes provided");
+		}
+		if (!isSupported(ecLength)) {
+			throw new IllegalArgumentException(Integer.toString(ecLength));
+		}
+		if (dataOffset < 0 || dataOffset + dataLength > data.length || ecOffset < 0 || ecOffset + ecLength > ec.length) {
+			throw new IndexOutOfBoundsException();
+		}
+		int[] generator = GENERATOR_LOGS[ecLength];
+		int last = ecOffset + ecLength - 1;
+		for (int i = ecOffset; i <= last; i++) {
+			ec[i] = 0;
+		}
+		// Polynomial division by a linear feedback shift register; ec holds
+		// the remainder, highest power first.
+		for (int i = dataOffset, end = dataOffset + dataLength; i < end; i++) {
+			int factor = (data[i] ^ ec[ecOffset]) & 0xFF;
+			System.arraycopy(ec, ecOffset + 1, ec, ecOffset, ecLength - 1);
+			ec[last] = 0;
+			if (factor != 0) {
+				int logFactor = GF256.LOG[factor];
+				for (int j = 0; j < ecLength; j++) {
+					ec[ecOffset + j] ^= GF256.EXP[logFactor + generator[j]];
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.encoder;
+
+import com.google.zxing.qrcode.decoder.Mode;
+
+/**
+ * A part of the content that is encoded in a single mode. Instances are
+ * immutable.
+ *
+ * @author Stefan Ganzer
+ */
+public final class Segment {
+
+	private final Mode mode;
+	private final String content;
+
+	/**
+	 * Creates a new Segment.
+	 *
+	 * @param mode the mode, one of NUMERIC, ALPHANUMERIC, BYTE and KANJI
+	 * @param content the content of the segment
+	 *
+	 * @throws NullPointerException if mode or content is null
+	 * @throws IllegalArgumentException if mode is not a data mode
+	 */
+	public Segment(Mode mode, String content) {
+		if (mode == null || content == null) {
+			throw new NullPointerException();
+		}
+		if (mode != Mode.NUMERIC && mode != Mode.ALPHANUMERIC && mode != Mode.BYTE && mode != Mode.KANJI) {
+			throw new IllegalArgumentException(mode.name());
+		}
+		this.mode = mode;
+		this.content = content;
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
+	public String getContent() {
+		return content;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof Segment)) {
+			return false;
+		}
+		Segment s = (Segment) other;
+		return mode == s.mode && content.equals(s.content);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = 17;
+		result = 31 * result + mode.hashCode();
+		result = 31 * result + content.hashCode();
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return mode.name() + '(' + content.length() + ')';
+	}
+}
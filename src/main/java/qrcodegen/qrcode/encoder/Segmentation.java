@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.encoder;
+
+import com.google.zxing.qrcode.decoder.Mode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The division of a content into segments, as computed by
+ * {@link Segmenter}, together with its cost in bits. Instances are immutable.
+ *
+ * @author Stefan Ganzer
+ */
+public final class Segmentation {
+
+	private final List<Segment> segments;
+	private final int version;
+	private final int bitLength;
+	private final int singleModeBitLength;
+
+	Segmentation(List<Segment> segments, int version, int bitLength, int singleModeBitLength) {
+		assert segments != null;
+		this.segments = Collections.unmodifiableList(new ArrayList<Segment>(segments));
+		this.version = version;
+		this.bitLength = bitLength;
+		this.singleModeBitLength = singleModeBitLength;
+	}
+
+	/**
+	 * Returns the segments.
+	 *
+	 * @return an unmodifiable list of the segments, empty for empty content
+	 */
+	public List<Segment> getSegments() {
+		return segments;
+	}
+
+	/**
+	 * Returns the version the bit lengths have been computed for. All
+	 * versions of the same range (1-9, 10-26, 27-40) have the same bit
+	 * lengths.
+	 *
+	 * @return the version the bit lengths have been computed for
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns the number of bits of all segments, including the ECI header,
+	 * but excluding the terminator and padding.
+	 *
+	 * @return the number of bits of all segments
+	 */
+	public int getBitLength() {
+		return bitLength;
+	}
+
+	/**
+	 * Returns the number of bits the content would need if it were encoded in
+	 * a single mode.
+	 *
+	 * @return the number of bits the content would need in a single mode
+	 */
+	public int getSingleModeBitLength() {
+		return singleModeBitLength;
+	}
+
+	/**
+	 * Returns the number of bits saved by the segmentation compared to a
+	 * single mode.
+	 *
+	 * @return the number of bits saved, 0 or more
+	 */
+	public int getBitsSaved() {
+		return singleModeBitLength - bitLength;
+	}
+
+	/**
+	 * Returns the mode that best describes the whole content: the mode of the
+	 * only segment, or the most general mode of all segments (BYTE before
+	 * KANJI before ALPHANUMERIC before NUMERIC).
+	 *
+	 * @return the mode that best describes the whole content
+	 */
+	public Mode getMode() {
+		Mode result = Mode.BYTE;
+		int rank = -1;
+		for (Segment s : segments) {
+			int r = rank(s.getMode());
+			if (r > rank) {
+				rank = r;
+				result = s.getMode();
+			}
+		}
+		return result;
+	}
+
+	private static int rank(Mode mode) {
+		switch (mode) {
+			case NUMERIC:
+				return 0;
+			case ALPHANUMERIC:
+				return 1;
+			case KANJI:
+				return 2;
+			default:
+				return 3;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "Segmentation{" + "segments=" + segments + ", version=" + version + ", bitLength=" + bitLength + ", singleModeBitLength=" + singleModeBitLength + '}';
+	}
+}
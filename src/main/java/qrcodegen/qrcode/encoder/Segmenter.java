@@ -0,0 +1,266 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.encoder;
+
+import com.google.zxing.common.CharacterSetECI;
+import com.google.zxing.qrcode.decoder.Mode;
+import com.google.zxing.qrcode.decoder.Version;
+import qrcodegen.qrcode.CapacityEstimator;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Divides a content into NUMERIC, ALPHANUMERIC, BYTE and KANJI segments so
+ * that the total number of bits is minimal.
+ *
+ * For every character and every mode, a dynamic program keeps the cheapest
+ * way to encode the content up to that character such that the character is
+ * encoded in that mode. Switching modes costs a mode indicator and a
+ * character count indicator. Costs are counted in sixths of a bit, because a
+ * numeric character costs 10/3 bits and an alphanumeric character 11/2 bits.
+ * If the result is not cheaper than a single mode, the single mode the
+ * encoder would otherwise use is returned, so that the symbol doesn't change
+ * when nothing can be saved.
+ *
+ * This class is thread-safe.
+ *
+ * @author Stefan Ganzer
+ */
+public final class Segmenter {
+
+	private static final Mode[] MODES = {Mode.NUMERIC, Mode.ALPHANUMERIC, Mode.BYTE, Mode.KANJI};
+	private static final int NUMERIC = 0;
+	private static final int ALPHANUMERIC = 1;
+	private static final int BYTE = 2;
+	private static final int KANJI = 3;
+	private static final int MODE_BITS = 4;
+	private static final int ECI_BITS = MODE_BITS + 8;
+	private static final Charset DEFAULT_CHARACTER_SET = StandardCharsets.ISO_8859_1;
+	private static final Charset SHIFT_JIS = Charset.forName("Shift_JIS");
+	private static final String ALPHANUMERIC_CHARACTERS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ $%*+-./:";
+
+	private Segmenter() {
+	}
+
+	/**
+	 * Returns the cheapest segmentation of the given content for the given
+	 * version.
+	 *
+	 * @param content the content
+	 * @param charset the character encoding for byte mode, or null to use
+	 * ISO-8859-1 without an ECI header
+	 * @param version the version, 1 to 40
+	 *
+	 * @return the cheapest segmentation
+	 *
+	 * @throws NullPointerException if content is null
+	 * @throws IllegalArgumentException if version is not in the range 1 to 40
+	 */
+	public static Segmentation segment(String content, Charset charset, int version) {
+		if (content == null) {
+			throw new NullPointerException();
+		}
+		if (version < MatrixTemplate.MIN_VERSION || version > MatrixTemplate.MAX_VERSION) {
+			throw new IllegalArgumentException(Integer.toString(version));
+		}
+		int singleModeBits = CapacityEstimator.getBitLength(content, charset, version);
+		List<Segment> single = Collections.singletonList(new Segment(CapacityEstimator.chooseMode(content, charset), content));
+		if (content.isEmpty()) {
+			return new Segmentation(single, version, singleModeBits, singleModeBits);
+		}
+		List<Segment> segments = computeSegments(content, charset, version);
+		int bits = getBitLength(segments, charset, version);
+		if (bits >= singleModeBits) {
+			return new Segmentation(single, version, singleModeBits, singleModeBits);
+		}
+		return new Segmentation(segments, version, bits, singleModeBits);
+	}
+
+	/**
+	 * Returns the number of bits of the given segments, including the ECI
+	 * header if there is a BYTE segment and the charset has an ECI value.
+	 */
+	static int getBitLength(List<Segment> segments, Charset charset, int version) {
+		Version v = Version.getVersionForNumber(version);
+		int bits = 0;
+		boolean hasByteSegment = false;
+		for (Segment s : segments) {
+			bits += MODE_BITS + s.getMode().getCharacterCountBits(v) + getDataBits(s, charset);
+			hasByteSegment |= s.getMode() == Mode.BYTE;
+		}
+		if (hasByteSegment && hasECI(charset)) {
+			bits += ECI_BITS;
+		}
+		return bits;
+	}
+
+	static boolean hasECI(Charset charset) {
+		return charset != null && CharacterSetECI.getCharacterSetECIByName(charset.name()) != null;
+	}
+
+	/**
+	 * Returns the value of the character count indicator of the given
+	 * segment.
+	 */
+	static int getCharacterCount(Segment segment, Charset charset) {
+		if (segment.getMode() == Mode.BYTE) {
+			return segment.getContent().getBytes(getByteModeCharset(charset)).length;
+		}
+		return segment.getContent().length();
+	}
+
+	static Charset getByteModeCharset(Charset charset) {
+		return charset == null ? DEFAULT_CHARACTER_SET : charset;
+	}
+
+	private static int getDataBits(Segment segment, Charset charset) {
+		int length = segment.getContent().length();
+		switch (segment.getMode()) {
+			case NUMERIC:
+				return 10 * (length / 3) + (length % 3 == 2 ? 7 : length % 3 == 1 ? 4 : 0);
+			case ALPHANUMERIC:
+				return 11 * (length / 2) + 6 * (length % 2);
+			case KANJI:
+				return 13 * length;
+			default:
+				return 8 * getCharacterCount(segment, charset);
+		}
+	}
+
+	private static List<Segment> computeSegments(String content, Charset charset, int version) {
+		Version v = Version.getVersionForNumber(version);
+		int[] headCosts = new int[MODES.length];
+		for (int m = 0; m < MODES.length; m++) {
+			headCosts[m] = (MODE_BITS + MODES[m].getCharacterCountBits(v)) * 6;
+		}
+		int[] codePoints = content.codePoints().toArray();
+		int n = codePoints.length;
+		// previousModes[i][m]: the mode of character i - 1 on the cheapest
+		// way that encodes character i in mode m; -1 if m is impossible
+		int[][] previousModes = new int[n][MODES.length];
+		int[] costs = new int[MODES.length];
+		int[] newCosts = new int[MODES.length];
+		Charset byteCharset = getByteModeCharset(charset);
+		for (int i = 0; i < n; i++) {
+			int c = codePoints[i];
+			for (int m = 0; m < MODES.length; m++) {
+				int charCost = getCharacterCost(m, c, byteCharset);
+				previousModes[i][m] = -1;
+				if (charCost < 0) {
+					newCosts[m] = Integer.MAX_VALUE;
+					continue;
+				}
+				if (i == 0) {
+					newCosts[m] = headCosts[m] + charCost;
+					continue;
+				}
+				int best = Integer.MAX_VALUE;
+				for (int p = 0; p < MODES.length; p++) {
+					if (costs[p] == Integer.MAX_VALUE) {
+						continue;
+					}
+					// A new segment starts at a whole bit
+					int cost = p == m ? costs[p] : (costs[p] + 5) / 6 * 6 + headCosts[m];
+					if (cost < best) {
+						best = cost;
+						previousModes[i][m] = p;
+					}
+				}
+				newCosts[m] = best + charCost;
+			}
+			int[] t = costs;
+			costs = newCosts;
+			newCosts = t;
+		}
+
+		// Byte mode can encode every character
+		int mode = BYTE;
+		for (int m = 0; m < MODES.length; m++) {
+			if (costs[m] != Integer.MAX_VALUE && (costs[m] + 5) / 6 < (costs[mode] + 5) / 6) {
+				mode = m;
+			}
+		}
+		int[] modes = new int[n];
+		for (int i = n - 1; i >= 0; i--) {
+			modes[i] = mode;
+			mode = previousModes[i][mode];
+		}
+
+		List<Segment> segments = new ArrayList<Segment>();
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < n; i++) {
+			if (i > 0 && modes[i] != modes[i - 1]) {
+				segments.add(new Segment(MODES[modes[i - 1]], sb.toString()));
+				sb.setLength(0);
+			}
+			sb.appendCodePoint(codePoints[i]);
+		}
+		segments.add(new Segment(MODES[modes[n - 1]], sb.toString()));
+		return segments;
+	}
+
+	/**
+	 * Returns the cost of the given character in the given mode in sixths of
+	 * a bit, or -1 if the character cannot be encoded in that mode.
+	 */
+	private static int getCharacterCost(int mode, int c, Charset byteCharset) {
+		switch (mode) {
+			case NUMERIC:
+				return c >= '0' && c <= '9' ? 20 : -1;
+			case ALPHANUMERIC:
+				return ALPHANUMERIC_CHARACTERS.indexOf(c) >= 0 ? 33 : -1;
+			case BYTE:
+				return 48 * getByteCount(c, byteCharset);
+			case KANJI:
+				return isKanji(c) ? 78 : -1;
+			default:
+				throw new AssertionError(mode);
+		}
+	}
+
+	private static int getByteCount(int c, Charset charset) {
+		if (StandardCharsets.UTF_8.equals(charset)) {
+			return c < 0x80 ? 1 : c < 0x800 ? 2 : c < 0x10000 ? 3 : 4;
+		}
+		if (StandardCharsets.ISO_8859_1.equals(charset) || StandardCharsets.US_ASCII.equals(charset)) {
+			return 1;
+		}
+		return new String(Character.toChars(c)).getBytes(charset).length;
+	}
+
+	/**
+	 * Returns true if the given character is a double-byte Shift_JIS
+	 * character that can be encoded in KANJI mode.
+	 */
+	private static boolean isKanji(int c) {
+		if (c < 0x80 || c > 0xFFFF) {
+			return false;
+		}
+		byte[] bytes = String.valueOf((char) c).getBytes(SHIFT_JIS);
+		if (bytes.length != 2) {
+			return false;
+		}
+		int code = ((bytes[0] & 0xFF) << 8) | (bytes[1] & 0xFF);
+		return (code >= 0x8140 && code <= 0x9FFC) || (code >= 0xE040 && code <= 0xEBBF);
+	}
+}
@@ -0,0 +1,398 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.encoder;
+
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.decoder.Mode;
+import com.google.zxing.qrcode.decoder.Version;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.QRCode;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A sequence of up to 16 QR Code symbols that together hold content too long
+ * for a single symbol (Structured Append, ISO/IEC 18004, 8.). Each symbol
+ * starts with a header that holds its position in the sequence, the number of
+ * symbols, and a parity byte computed from the complete content, so a reader
+ * can reassemble the content in the right order.
+ *
+ * The content is divided at character boundaries into as few symbols as
+ * possible, each of the smallest version that allows this number of symbols.
+ * The symbols are encoded in parallel. Instances of this class are immutable
+ * and can be shared between threads.
+ *
+ * @author Stefan Ganzer
+ */
+public final class StructuredAppend {
+
+	/** The maximum number of symbols in a sequence */
+	public static final int MAX_SYMBOLS = 16;
+	/** Mode indicator, symbol sequence indicator and parity data */
+	private static final int HEADER_BITS = 4 + 4 + 4 + 8;
+	/** The width of the light area between the symbols of a tiled matrix,
+	 * which is the width of the quiet zone each symbol requires */
+	private static final int TILE_GAP = 4;
+	private final List<QRCode> symbols;
+	private final List<Segmentation> segmentations;
+	private final List<String> parts;
+	private final int parity;
+
+	private StructuredAppend(List<QRCode> symbols, List<Segmentation> segmentations, List<String> parts, int parity) {
+		this.symbols = Collections.unmodifiableList(symbols);
+		this.segmentations = Collections.unmodifiableList(segmentations);
+		this.parts = Collections.unmodifiableList(parts);
+		this.parity = parity;
+	}
+
+	/**
+	 * Encodes the given content into a sequence of as few symbols as
+	 * possible.
+	 *
+	 * @param content the content
+	 * @param ecLevel the error correction level of all symbols
+	 * @param charset the character encoding for byte mode, or null to use
+	 * ISO-8859-1 without an ECI header
+	 *
+	 * @return the sequence
+	 *
+	 * @throws NullPointerException if content or ecLevel is null
+	 * @throws WriterException if the content doesn't fit into
+	 * {@link #MAX_SYMBOLS} symbols of version 40
+	 */
+	public static StructuredAppend encode(String content, ErrorCorrectionLevel ecLevel, Charset charset) throws WriterException {
+		if (content == null || ecLevel == null) {
+			throw new NullPointerException();
+		}
+		// Dividing the content can't save bits, so this rejects content that
+		// is far too long without trying to divide it
+		int maxBits = MAX_SYMBOLS * BlockLayout.forVersion(MatrixTemplate.MAX_VERSION, ecLevel).getNumDataBytes() * 8;
+		if (Segmenter.segment(content, charset, MatrixTemplate.MAX_VERSION).getBitLength() > maxBits) {
+			throw new WriterException("Data too big for " + MAX_SYMBOLS + " symbols");
+		}
+		Splitter splitter = new Splitter(content, ecLevel, charset);
+		List<Part> parts = splitter.split(MatrixTemplate.MAX_VERSION, MAX_SYMBOLS);
+		if (parts == null) {
+			throw new WriterException("Data too big for " + MAX_SYMBOLS + " symbols");
+		}
+		// Fewer symbols can't be had, but possibly smaller ones
+		int low = MatrixTemplate.MIN_VERSION;
+		int high = MatrixTemplate.MAX_VERSION;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			List<Part> candidate = splitter.split(middle, parts.size());
+			if (candidate == null) {
+				low = middle + 1;
+			} else {
+				high = middle;
+				parts = candidate;
+			}
+		}
+
+		int parity = getParity(content, charset);
+		List<SymbolTask> tasks = new ArrayList<SymbolTask>(parts.size());
+		for (int i = 0; i < parts.size(); i++) {
+			tasks.add(new SymbolTask(parts.get(i), i, parts.size(), parity, ecLevel, charset));
+		}
+		ForkJoinTask.invokeAll(tasks);
+
+		List<QRCode> symbols = new ArrayList<QRCode>(tasks.size());
+		List<Segmentation> segmentations = new ArrayList<Segmentation>(tasks.size());
+		List<String> contents = new ArrayList<String>(tasks.size());
+		for (SymbolTask t : tasks) {
+			if (t.exception != null) {
+				throw t.exception;
+			}
+			symbols.add(t.symbol);
+			segmentations.add(t.part.segmentation);
+			contents.add(t.part.content);
+		}
+		return new StructuredAppend(symbols, segmentations, contents, parity);
+	}
+
+	/**
+	 * Returns the parity data of the given content, which is the exclusive
+	 * or of all its bytes in the byte mode character encoding.
+	 *
+	 * @param content the content
+	 * @param charset the character encoding for byte mode, or null to use
+	 * ISO-8859-1
+	 *
+	 * @return the parity data, 0 to 255
+	 *
+	 * @throws NullPointerException if content is null
+	 */
+	public static int getParity(String content, Charset charset) {
+		int parity = 0;
+		for (byte b : content.getBytes(Segmenter.getByteModeCharset(charset))) {
+			parity ^= b;
+		}
+		return parity & 0xFF;
+	}
+
+	/**
+	 * Returns the number of symbols.
+	 *
+	 * @return the number of symbols, 1 to {@link #MAX_SYMBOLS}
+	 */
+	public int size() {
+		return symbols.size();
+	}
+
+	/**
+	 * Returns the symbols in the order of the sequence.
+	 *
+	 * @return an unmodifiable list of the symbols. The symbols must not be
+	 * modified.
+	 */
+	public List<QRCode> getSymbols() {
+		return symbols;
+	}
+
+	public QRCode getSymbol(int index) {
+		return symbols.get(index);
+	}
+
+	/**
+	 * Returns the segments the part of the content in the symbol with the
+	 * given index has been encoded in.
+	 *
+	 * @param index the index of the symbol
+	 *
+	 * @return the segments of the symbol
+	 *
+	 * @throws IndexOutOfBoundsException if index &lt; 0 or index &gt;=
+	 * size()
+	 */
+	public Segmentation getSegmentation(int index) {
+		return segmentations.get(index);
+	}
+
+	/**
+	 * Returns the part of the content held by the symbol with the given
+	 * index.
+	 *
+	 * @param index the index of the symbol
+	 *
+	 * @return the part of the content
+	 *
+	 * @throws IndexOutOfBoundsException if index &lt; 0 or index &gt;=
+	 * size()
+	 */
+	public String getPart(int index) {
+		return parts.get(index);
+	}
+
+	/**
+	 * Returns the parity data shared by all symbols of the sequence.
+	 *
+	 * @return the parity data, 0 to 255
+	 */
+	public int getParity() {
+		return parity;
+	}
+
+	/**
+	 * Returns a matrix that shows all symbols in a grid, row by row, with
+	 * light areas of the width of a quiet zone between them. Smaller symbols
+	 * are centered in their cell.
+	 *
+	 * @return a new matrix of all symbols, without an outer quiet zone
+	 */
+	public ByteMatrix getTiledMatrix() {
+		int columns = (int) Math.ceil(Math.sqrt(symbols.size()));
+		int tileRows = (symbols.size() + columns - 1) / columns;
+		int cell = 0;
+		for (QRCode code : symbols) {
+			cell = Math.max(cell, code.getMatrix().getWidth());
+		}
+		int width = columns * cell + (columns - 1) * TILE_GAP;
+		int height = tileRows * cell + (tileRows - 1) * TILE_GAP;
+		ByteMatrix tiled = new ByteMatrix(width, height);
+		tiled.clear((byte) 0);
+		byte[][] target = tiled.getArray();
+		for (int i = 0; i < symbols.size(); i++) {
+			ByteMatrix m = symbols.get(i).getMatrix();
+			int offset = (cell - m.getWidth()) / 2;
+			int x = (i % columns) * (cell + TILE_GAP) + offset;
+			int y = (i / columns) * (cell + TILE_GAP) + offset;
+			byte[][] source = m.getArray();
+			for (int row = 0; row < m.getHeight(); row++) {
+				System.arraycopy(source[row], 0, target[y + row], x, m.getWidth());
+			}
+		}
+		return tiled;
+	}
+
+	@Override
+	public String toString() {
+		return "StructuredAppend{" + "symbols=" + symbols.size() + ", version=" + symbols.get(0).getVersion() + ", parity=" + parity + '}';
+	}
+
+	/**
+	 * A part of the content, with its segments and the smallest version it
+	 * fits into.
+	 */
+	private static final class Part {
+
+		private final String content;
+		private final Segmentation segmentation;
+		private final Version version;
+
+		Part(String content, Segmentation segmentation, Version version) {
+			this.content = content;
+			this.segmentation = segmentation;
+			this.version = version;
+		}
+	}
+
+	/**
+	 * Divides the content greedily: each part is the longest prefix of the
+	 * remaining content that fits into the maximum version.
+	 */
+	private static final class Splitter {
+
+		private final String content;
+		private final ErrorCorrectionLevel ecLevel;
+		private final Charset charset;
+		/** The char index of each code point, and the length of the content */
+		private final int[] boundaries;
+
+		Splitter(String content, ErrorCorrectionLevel ecLevel, Charset charset) {
+			this.content = content;
+			this.ecLevel = ecLevel;
+			this.charset = charset;
+			int count = content.codePointCount(0, content.length());
+			boundaries = new int[count + 1];
+			for (int i = 0, index = 0; i < count; i++) {
+				boundaries[i] = index;
+				index = content.offsetByCodePoints(index, 1);
+			}
+			boundaries[count] = content.length();
+		}
+
+		/**
+		 * Returns the parts, or null if more than maxParts parts would be
+		 * needed.
+		 */
+		List<Part> split(int maxVersion, int maxParts) {
+			int codePoints = boundaries.length - 1;
+			List<Part> parts = new ArrayList<Part>();
+			int start = 0;
+			do {
+				if (parts.size() == maxParts) {
+					return null;
+				}
+				Part part = fit(start, codePoints, maxVersion);
+				int end = codePoints;
+				if (part == null) {
+					// Binary search for the longest prefix that fits
+					int low = start + 1;
+					int high = codePoints - 1;
+					part = fit(start, low, maxVersion);
+					if (part == null) {
+						return null;
+					}
+					end = low;
+					while (low < high) {
+						int middle = (low + high + 1) >>> 1;
+						Part candidate = fit(start, middle, maxVersion);
+						if (candidate == null) {
+							high = middle - 1;
+						} else {
+							low = middle;
+							end = middle;
+							part = candidate;
+						}
+					}
+				}
+				parts.add(part);
+				start = end;
+			} while (start < codePoints);
+			return parts;
+		}
+
+		/**
+		 * Returns the part from code point start to end if it fits into a
+		 * version up to maxVersion, or null.
+		 */
+		private Part fit(int start, int end, int maxVersion) {
+			String s = content.substring(boundaries[start], boundaries[end]);
+			for (int[] range : SymbolEncoder.VERSION_RANGES) {
+				if (range[0] > maxVersion) {
+					break;
+				}
+				Segmentation segmentation = Segmenter.segment(s, charset, range[0]);
+				for (int v = range[0], last = Math.min(range[1], maxVersion); v <= last; v++) {
+					Version version = Version.getVersionForNumber(v);
+					if (SymbolEncoder.willFit(HEADER_BITS + segmentation.getBitLength(), version, ecLevel)) {
+						return new Part(s, segmentation, version);
+					}
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Encodes one symbol of the sequence.
+	 */
+	private static final class SymbolTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+		private final transient Part part;
+		private final int index;
+		private final int total;
+		private final int parity;
+		private final ErrorCorrectionLevel ecLevel;
+		private final transient Charset charset;
+		private transient QRCode symbol;
+		private WriterException exception;
+
+		SymbolTask(Part part, int index, int total, int parity, ErrorCorrectionLevel ecLevel, Charset charset) {
+			this.part = part;
+			this.index = index;
+			this.total = total;
+			this.parity = parity;
+			this.ecLevel = ecLevel;
+			this.charset = charset;
+		}
+
+		@Override
+		protected void compute() {
+			BitArray header = new BitArray();
+			header.appendBits(Mode.STRUCTURED_APPEND.getBits(), 4);
+			header.appendBits(index, 4);
+			header.appendBits(total - 1, 4);
+			header.appendBits(parity, 8);
+			try {
+				symbol = SymbolEncoder.encode(part.segmentation, charset, part.version, ecLevel, header);
+			} catch (WriterException we) {
+				exception = we;
+			}
+		}
+	}
+}
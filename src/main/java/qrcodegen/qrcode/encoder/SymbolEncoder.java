@@ -0,0 +1,450 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.encoder;
+
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.CharacterSetECI;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.decoder.Mode;
+import com.google.zxing.qrcode.decoder.Version;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.QRCode;
+import qrcodegen.qrcode.CapacityEstimator;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Encodes content into QR Code symbols. The symbols are identical to those of
+ * ZXing's Encoder, but they are built differently: the function patterns of
+ * each version are drawn once into a {@link MatrixTemplate} and copied for
+ * every mask candidate, the error correction codewords are computed by the
+ * table-driven {@link ReedSolomonEncoder}, and for larger versions the eight
+ * mask candidates are built and scored in parallel.
+ *
+ * {@link #encodeSegmented} additionally divides the content into segments of
+ * different modes, as computed by {@link Segmenter}.
+ *
+ * This class is thread-safe.
+ *
+ * @author Stefan Ganzer
+ */
+public final class SymbolEncoder {
+
+	/** Requests the smallest version the content fits into */
+	public static final int AUTOMATIC_VERSION = 0;
+	/** Below this version, scoring the masks in parallel costs more than it
+	 * saves */
+	private static final int PARALLEL_MIN_VERSION = 10;
+	/** The ranges of versions with character count indicators of the same
+	 * length */
+	static final int[][] VERSION_RANGES = {{1, 9}, {10, 26}, {27, 40}};
+	private static final Charset DEFAULT_CHARACTER_SET = StandardCharsets.ISO_8859_1;
+	private static final Charset SHIFT_JIS = Charset.forName("Shift_JIS");
+	private static final int[] ALPHANUMERIC_TABLE = new int[0x60];
+
+	static {
+		Arrays.fill(ALPHANUMERIC_TABLE, -1);
+		String alphanumeric = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ $%*+-./:";
+		for (int i = 0; i < alphanumeric.length(); i++) {
+			ALPHANUMERIC_TABLE[alphanumeric.charAt(i)] = i;
+		}
+	}
+
+	private SymbolEncoder() {
+	}
+
+	/**
+	 * Encodes the given content.
+	 *
+	 * @param content the content
+	 * @param ecLevel the error correction level
+	 * @param charset the character encoding for byte mode, or null to use
+	 * ISO-8859-1 without an ECI header
+	 * @param version the version, 1 to 40, or {@link #AUTOMATIC_VERSION}
+	 *
+	 * @return the encoded symbol
+	 *
+	 * @throws NullPointerException if content or ecLevel is null
+	 * @throws IllegalArgumentException if version is neither in the range 1
+	 * to 40 nor AUTOMATIC_VERSION
+	 * @throws WriterException if the content doesn't fit into the version, or
+	 * into any version if AUTOMATIC_VERSION is requested
+	 */
+	public static QRCode encode(String content, ErrorCorrectionLevel ecLevel, Charset charset, int version) throws WriterException {
+		if (content == null || ecLevel == null) {
+			throw new NullPointerException();
+		}
+		if (version != AUTOMATIC_VERSION && (version < MatrixTemplate.MIN_VERSION || version > MatrixTemplate.MAX_VERSION)) {
+			throw new IllegalArgumentException(Integer.toString(version));
+		}
+		Mode mode = CapacityEstimator.chooseMode(content, charset);
+
+		BitArray headerBits = new BitArray();
+		if (mode == Mode.BYTE && charset != null) {
+			CharacterSetECI eci = CharacterSetECI.getCharacterSetECIByName(charset.name());
+			if (eci != null) {
+				headerBits.appendBits(Mode.ECI.getBits(), 4);
+				headerBits.appendBits(eci.getValue(), 8);
+			}
+		}
+		headerBits.appendBits(mode.getBits(), 4);
+
+		BitArray dataBits = new BitArray();
+		appendBytes(content, mode, dataBits, charset == null ? DEFAULT_CHARACTER_SET : charset);
+
+		Version v;
+		if (version == AUTOMATIC_VERSION) {
+			Version provisional = chooseVersion(getBitsNeeded(mode, headerBits, dataBits, Version.getVersionForNumber(1)), ecLevel);
+			v = chooseVersion(getBitsNeeded(mode, headerBits, dataBits, provisional), ecLevel);
+		} else {
+			v = Version.getVersionForNumber(version);
+			if (!willFit(getBitsNeeded(mode, headerBits, dataBits, v), v, ecLevel)) {
+				throw new WriterException("Data too big for requested version");
+			}
+		}
+
+		BitArray bits = new BitArray();
+		bits.appendBitArray(headerBits);
+		int numLetters = mode == Mode.BYTE ? dataBits.getSizeInBytes() : content.length();
+		int countBits = mode.getCharacterCountBits(v);
+		if (numLetters >= (1 << countBits)) {
+			throw new WriterException(numLetters + " is bigger than " + ((1 << countBits) - 1));
+		}
+		bits.appendBits(numLetters, countBits);
+		bits.appendBitArray(dataBits);
+		return buildSymbol(bits, mode, v, ecLevel);
+	}
+
+	/**
+	 * Encodes the given content in the segments computed by {@link Segmenter}.
+	 * If the segmentation saves no bits, the result is the same as that of
+	 * {@link #encode(String, ErrorCorrectionLevel, Charset, int)}.
+	 *
+	 * @param content the content
+	 * @param ecLevel the error correction level
+	 * @param charset the character encoding for byte mode, or null to use
+	 * ISO-8859-1 without an ECI header
+	 * @param version the version, 1 to 40, or {@link #AUTOMATIC_VERSION}
+	 *
+	 * @return the encoded symbol. If there is more than one segment, its mode
+	 * is the one returned by {@link Segmentation#getMode()}.
+	 *
+	 * @throws NullPointerException if content or ecLevel is null
+	 * @throws IllegalArgumentException if version is neither in the range 1
+	 * to 40 nor AUTOMATIC_VERSION
+	 * @throws WriterException if the content doesn't fit into the version, or
+	 * into any version if AUTOMATIC_VERSION is requested
+	 */
+	public static QRCode encodeSegmented(String content, ErrorCorrectionLevel ecLevel, Charset charset, int version) throws WriterException {
+		if (content == null || ecLevel == null) {
+			throw new NullPointerException();
+		}
+		if (version != AUTOMATIC_VERSION && (version < MatrixTemplate.MIN_VERSION || version > MatrixTemplate.MAX_VERSION)) {
+			throw new IllegalArgumentException(Integer.toString(version));
+		}
+		if (version != AUTOMATIC_VERSION) {
+			Segmentation segmentation = Segmenter.segment(content, charset, version);
+			if (segmentation.getSegments().size() == 1) {
+				return encode(content, ecLevel, charset, version);
+			}
+			Version v = Version.getVersionForNumber(version);
+			if (!willFit(segmentation.getBitLength(), v, ecLevel)) {
+				throw new WriterException("Data too big for requested version");
+			}
+			return encode(segmentation, charset, v, ecLevel, new BitArray());
+		}
+		// The character count indicators only change between these ranges
+		for (int[] range : VERSION_RANGES) {
+			Segmentation segmentation = Segmenter.segment(content, charset, range[0]);
+			for (int v = range[0]; v <= range[1]; v++) {
+				Version candidate = Version.getVersionForNumber(v);
+				if (willFit(segmentation.getBitLength(), candidate, ecLevel)) {
+					if (segmentation.getSegments().size() == 1) {
+						return encode(content, ecLevel, charset, AUTOMATIC_VERSION);
+					}
+					return encode(segmentation, charset, candidate, ecLevel, new BitArray());
+				}
+			}
+		}
+		throw new WriterException("Data too big");
+	}
+
+	/**
+	 * Encodes the segments of the given segmentation after the given prefix,
+	 * e.g. a Structured Append header.
+	 *
+	 * @param segmentation the segmentation for the version range of version
+	 * @param charset the character encoding for byte mode, or null
+	 * @param version the version
+	 * @param ecLevel the error correction level
+	 * @param prefix the bits preceding the first segment. The bits of the
+	 * segments are appended to it.
+	 *
+	 * @return the symbol
+	 *
+	 * @throws WriterException if the bits don't fit into the version
+	 */
+	static QRCode encode(Segmentation segmentation, Charset charset, Version version, ErrorCorrectionLevel ecLevel, BitArray prefix) throws WriterException {
+		List<Segment> segments = segmentation.getSegments();
+		BitArray bits = prefix;
+		int prefixLength = prefix.getSize();
+		if (Segmenter.hasECI(charset)) {
+			for (Segment s : segments) {
+				if (s.getMode() == Mode.BYTE) {
+					bits.appendBits(Mode.ECI.getBits(), 4);
+					bits.appendBits(CharacterSetECI.getCharacterSetECIByName(charset.name()).getValue(), 8);
+					break;
+				}
+			}
+		}
+		Charset byteCharset = Segmenter.getByteModeCharset(charset);
+		for (Segment s : segments) {
+			Mode mode = s.getMode();
+			bits.appendBits(mode.getBits(), 4);
+			int count = Segmenter.getCharacterCount(s, charset);
+			int countBits = mode.getCharacterCountBits(version);
+			if (count >= (1 << countBits)) {
+				throw new WriterException(count + " is bigger than " + ((1 << countBits) - 1));
+			}
+			bits.appendBits(count, countBits);
+			appendBytes(s.getContent(), mode, bits, byteCharset);
+		}
+		assert bits.getSize() == prefixLength + segmentation.getBitLength();
+		return buildSymbol(bits, segmentation.getMode(), version, ecLevel);
+	}
+
+	/**
+	 * Terminates and pads the given bits, adds the error correction codewords
+	 * and builds the symbol with the best mask pattern.
+	 *
+	 * @param bits the mode indicators, character count indicators and data
+	 * of all segments
+	 * @param mode the mode reported by the symbol
+	 * @param version the version
+	 * @param ecLevel the error correction level
+	 *
+	 * @return the symbol
+	 *
+	 * @throws WriterException if the bits don't fit into the version
+	 */
+	static QRCode buildSymbol(BitArray bits, Mode mode, Version version, ErrorCorrectionLevel ecLevel) throws WriterException {
+		BlockLayout layout = BlockLayout.forVersion(version.getVersionNumber(), ecLevel);
+		byte[] data = terminate(bits, layout.getNumDataBytes());
+		byte[] codewords = new byte[layout.getNumTotalBytes()];
+		layout.encode(data, codewords, new byte[layout.getNumECBytes()]);
+
+		MatrixTemplate template = MatrixTemplate.forVersion(version.getVersionNumber());
+		List<MaskCandidate> candidates = new ArrayList<MaskCandidate>(MatrixTemplate.NUM_MASK_PATTERNS);
+		for (int mask = 0; mask < MatrixTemplate.NUM_MASK_PATTERNS; mask++) {
+			candidates.add(new MaskCandidate(template, codewords, ecLevel.getBits(), mask));
+		}
+		if (version.getVersionNumber() >= PARALLEL_MIN_VERSION) {
+			ForkJoinTask.invokeAll(candidates);
+		} else {
+			for (MaskCandidate c : candidates) {
+				c.compute();
+			}
+		}
+		// The first of several candidates with the lowest penalty wins, as in
+		// ZXing's Encoder
+		MaskCandidate best = candidates.get(0);
+		for (MaskCandidate c : candidates) {
+			if (c.penalty < best.penalty) {
+				best = c;
+			}
+		}
+
+		int dimension = template.getDimension();
+		ByteMatrix matrix = new ByteMatrix(dimension, dimension);
+		byte[][] rows = matrix.getArray();
+		for (int y = 0; y < dimension; y++) {
+			System.arraycopy(best.modules, y * dimension, rows[y], 0, dimension);
+		}
+		QRCode code = new QRCode();
+		code.setECLevel(ecLevel);
+		code.setMode(mode);
+		code.setVersion(version);
+		code.setMaskPattern(best.maskPattern);
+		code.setMatrix(matrix);
+		return code;
+	}
+
+	private static int getBitsNeeded(Mode mode, BitArray headerBits, BitArray dataBits, Version version) {
+		return headerBits.getSize() + mode.getCharacterCountBits(version) + dataBits.getSize();
+	}
+
+	private static Version chooseVersion(int numInputBits, ErrorCorrectionLevel ecLevel) throws WriterException {
+		for (int v = MatrixTemplate.MIN_VERSION; v <= MatrixTemplate.MAX_VERSION; v++) {
+			Version version = Version.getVersionForNumber(v);
+			if (willFit(numInputBits, version, ecLevel)) {
+				return version;
+			}
+		}
+		throw new WriterException("Data too big");
+	}
+
+	static boolean willFit(int numInputBits, Version version, ErrorCorrectionLevel ecLevel) {
+		int numDataBytes = BlockLayout.forVersion(version.getVersionNumber(), ecLevel).getNumDataBytes();
+		return (numInputBits + 7) / 8 <= numDataBytes;
+	}
+
+	/**
+	 * Appends the terminator, the bits up to the next byte boundary and the
+	 * pad codewords of ISO/IEC 18004, 7.4.9, and returns the data codewords.
+	 */
+	private static byte[] terminate(BitArray bits, int numDataBytes) throws WriterException {
+		int capacity = numDataBytes * 8;
+		if (bits.getSize() > capacity) {
+			throw new WriterException("data bits cannot fit in the QR Code" + bits.getSize() + " > " + capacity);
+		}
+		int terminator = Math.min(4, capacity - bits.getSize());
+		int padding = (8 - (bits.getSize() + terminator) % 8) % 8;
+		bits.appendBits(0, terminator + padding);
+		byte[] data = new byte[numDataBytes];
+		int used = bits.getSizeInBytes();
+		bits.toBytes(0, data, 0, used);
+		for (int i = used; i < numDataBytes; i++) {
+			data[i] = (byte) (((i - used) & 1) == 0 ? 0xEC : 0x11);
+		}
+		return data;
+	}
+
+	static void appendBytes(String content, Mode mode, BitArray bits, Charset charset) throws WriterException {
+		switch (mode) {
+			case NUMERIC:
+				appendNumericBytes(content, bits);
+				break;
+			case ALPHANUMERIC:
+				appendAlphanumericBytes(content, bits);
+				break;
+			case BYTE:
+				for (byte b : content.getBytes(charset)) {
+					bits.appendBits(b & 0xFF, 8);
+				}
+				break;
+			case KANJI:
+				appendKanjiBytes(content, bits);
+				break;
+			default:
+				throw new WriterException("Invalid mode: " + mode);
+		}
+	}
+
+	private static void appendNumericBytes(CharSequence content, BitArray bits) {
+		int length = content.length();
+		int i = 0;
+		while (i < length) {
+			int num1 = content.charAt(i) - '0';
+			if (i + 2 < length) {
+				int num2 = content.charAt(i + 1) - '0';
+				int num3 = content.charAt(i + 2) - '0';
+				bits.appendBits(num1 * 100 + num2 * 10 + num3, 10);
+				i += 3;
+			} else if (i + 1 < length) {
+				int num2 = content.charAt(i + 1) - '0';
+				bits.appendBits(num1 * 10 + num2, 7);
+				i += 2;
+			} else {
+				bits.appendBits(num1, 4);
+				i++;
+			}
+		}
+	}
+
+	private static void appendAlphanumericBytes(CharSequence content, BitArray bits) throws WriterException {
+		int length = content.length();
+		int i = 0;
+		while (i < length) {
+			int code1 = getAlphanumericCode(content.charAt(i));
+			if (i + 1 < length) {
+				int code2 = getAlphanumericCode(content.charAt(i + 1));
+				bits.appendBits(code1 * 45 + code2, 11);
+				i += 2;
+			} else {
+				bits.appendBits(code1, 6);
+				i++;
+			}
+		}
+	}
+
+	private static int getAlphanumericCode(char c) throws WriterException {
+		int code = c < ALPHANUMERIC_TABLE.length ? ALPHANUMERIC_TABLE[c] : -1;
+		if (code == -1) {
+			throw new WriterException("Not alphanumeric: " + c);
+		}
+		return code;
+	}
+
+	private static void appendKanjiBytes(String content, BitArray bits) throws WriterException {
+		byte[] bytes = content.getBytes(SHIFT_JIS);
+		if (bytes.length % 2 != 0) {
+			throw new WriterException("Kanji byte size not even");
+		}
+		for (int i = 0; i < bytes.length; i += 2) {
+			int code = ((bytes[i] & 0xFF) << 8) | (bytes[i + 1] & 0xFF);
+			int subtracted;
+			if (code >= 0x8140 && code <= 0x9FFC) {
+				subtracted = code - 0x8140;
+			} else if (code >= 0xE040 && code <= 0xEBBF) {
+				subtracted = code - 0xC140;
+			} else {
+				throw new WriterException("Invalid byte sequence");
+			}
+			bits.appendBits((subtracted >> 8) * 0xC0 + (subtracted & 0xFF), 13);
+		}
+	}
+
+	/**
+	 * Builds the symbol with one mask pattern and computes its penalty.
+	 */
+	private static final class MaskCandidate extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+		private final transient MatrixTemplate template;
+		private final byte[] codewords;
+		private final int ecBits;
+		private final int maskPattern;
+		private byte[] modules;
+		private int penalty;
+
+		MaskCandidate(MatrixTemplate template, byte[] codewords, int ecBits, int maskPattern) {
+			this.template = template;
+			this.codewords = codewords;
+			this.ecBits = ecBits;
+			this.maskPattern = maskPattern;
+		}
+
+		@Override
+		protected void compute() {
+			int dimension = template.getDimension();
+			modules = new byte[dimension * dimension];
+			template.copyTo(modules);
+			template.placeFormatInfo(ecBits, maskPattern, modules);
+			template.placeData(codewords, codewords.length, maskPattern, modules);
+			penalty = MaskPenalty.calculate(modules, dimension);
+		}
+	}
+}
@@ -19,8 +19,7 @@
 package qrcodegen.qrcode.renderer;
 
 import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.encoder.ByteMatrix;
-import com.google.zxing.qrcode.encoder.QRCode;
+import qrcodegen.qrcode.ModuleMatrix;
 import qrcodegen.tools.ImmutableDimension;
 import qrcodegen.tools.TriState;
 
@@ -30,13 +29,12 @@ import qrcodegen.tools.TriState;
  */
 public abstract class AbstractSizeRenderer extends AbstractRenderer {
 
-	/** Minimum size - Version 1 = 21 modules + 8 modules for quiet zone */
-	private static final int MIN_SIZE = 21 + 8;
+	private static final int MIN_SIZE = Raster.MIN_SIZE;
 	private ImmutableDimension requestedDimension = new ImmutableDimension(120, 120);
 	/** The actual size of the code. This can be set by the user (== dimension)
 	 * or calculated. */
 	private ImmutableDimension actualDimension;
-	private BitMatrix result = null;
+	private Raster result = null;
 	private int moduleSize = 1;
 	/** True if the last invocation of generate() made the actual dimension
 	 * exceed the requested dimension. NOT_APPLICABLE in Modus.MODULE_SIZE and
@@ -51,79 +49,36 @@ public abstract class AbstractSizeRenderer extends AbstractRenderer {
 		super();
 	}
 
-	/*
-	 * The following code is based on code from com.google.zxing.qrcode.QRCodeWriter:
-	 *
-	 * Copyright 2008 ZXing authors
-	 *
-	 * Licensed under the Apache License, Version 2.0 (the "License"); you may
-	 * not use this file except in compliance with the License. You may obtain a
-	 * copy of the License at
-	 *
-	 * http://www.apache.org/licenses/LICENSE-2.0
-	 *
-	 * Unless required by applicable law or agreed to in writing, software
-	 * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
-	 * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
-	 * License for the specific language governing permissions and limitations
-	 * under the License.
-	 *
-	 */
 	@Override
-	public void renderResult(QRCode code) {
-		ByteMatrix input = code.getMatrix();
-		if (input == null) {
-			throw new IllegalStateException();
-		}
-		int inputWidth = input.getWidth();
-		int inputHeight = input.getHeight();
-		int qrWidth = inputWidth + (QUIET_ZONE_SIZE << 1);
-		int qrHeight = inputHeight + (QUIET_ZONE_SIZE << 1);
-		int multiple;
-
-		int requestedOutputWidth = Math.max(requestedDimension.getWidth(), qrWidth);
-		int requestedOutputHeight = Math.max(requestedDimension.getHeight(), qrHeight);
-
-		multiple = Math.min(requestedOutputWidth / qrWidth, requestedOutputHeight / qrHeight);
-		setModuleSizeValue(multiple, false);
-		setActualDimension(calculateActualDimension(qrWidth, qrHeight, multiple, requestedOutputWidth, requestedOutputHeight));
-
-
-		// Padding includes both the quiet zone and the extra white pixels to accommodate the requested
-		// dimensions. For example, if input is 25x25 the QR will be 33x33 including the quiet zone.
-		// If the requested size is 200x160, the multiple will be 4, for a QR of 132x132. These will
-		// handle all the padding from 100x100 (the actual QR) up to 200x160.
-		int leftPadding = (actualDimension.getWidth() - (inputWidth * multiple)) / 2;
-		int topPadding = (actualDimension.getHeight() - (inputHeight * multiple)) / 2;
-
-		BitMatrix output = new BitMatrix(actualDimension.getWidth(), actualDimension.getHeight());
-
-		for (int inputY = 0, outputY = topPadding; inputY < inputHeight; inputY++, outputY += multiple) {
-			// Write the contents of this row of the barcode
-			for (int inputX = 0, outputX = leftPadding; inputX < inputWidth; inputX++, outputX += multiple) {
-				if (input.get(inputX, inputY) == 1) {
-					output.setRegion(outputX, outputY, multiple, multiple);
-				}
-			}
+	public void renderResult(ModuleMatrix matrix) {
+		setRaster(Raster.forRequestedDimension(matrix, requestedDimension, isFittedToCode()));
+	}
+
+	@Override
+	public void setRaster(Raster raster) {
+		if (raster == null) {
+			throw new NullPointerException();
 		}
-		setResult(output);
+		setModuleSizeValue(raster.getModuleSize(), false);
+		setActualDimension(raster.getDimension());
+		setResult(raster);
 	}
 
 	/**
 	 * Hook used in renderResult
 	 *
-	 * @param qrWidth
-	 * @param qrHeight
-	 * @param multiple
-	 * @param requestedOutputWidth
-	 * @param requestedOutputHeight
-	 *
-	 * @return
+	 * @return true if the rendered result is only as large as the code plus
+	 * its quiet zone, false if it is padded to the requested dimension
 	 */
-	public abstract ImmutableDimension calculateActualDimension(int qrWidth, int qrHeight, int multiple, int requestedOutputWidth, int requestedOutputHeight);
+	abstract boolean isFittedToCode();
 
 	@Override
 	public BitMatrix getResult() {
+		return result == null ? null : result.getMatrix();
+	}
+
+	@Override
+	public Raster getRaster() {
 		return result;
 	}
 
@@ -226,10 +181,10 @@ public abstract class AbstractSizeRenderer extends AbstractRenderer {
 		pcs.firePropertyChange(EXCEEDS_REQUESTED_DIMENSION_PROPERTY, oldValue, exceedsRequestedDimension);
 	}
 
-	private void setResult(BitMatrix matrix) {
-		BitMatrix oldMatrix = this.result;
-		this.result = matrix;
-		pcs.firePropertyChange(RESULT_STATE_PROPERTY, oldMatrix, this.result);
+	private void setResult(Raster raster) {
+		Raster oldRaster = this.result;
+		this.result = raster;
+		pcs.firePropertyChange(RESULT_STATE_PROPERTY, oldRaster, this.result);
 	}
 
 	/**
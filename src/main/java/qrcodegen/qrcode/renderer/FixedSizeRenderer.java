@@ -34,7 +34,7 @@ public class FixedSizeRenderer extends AbstractSizeRenderer {
 	}
 
 	@Override
-	public ImmutableDimension calculateActualDimension(int qrWidth, int qrHeight, int multiple, int requestedOutputWidth, int requestedOutputHeight) {
-		return new ImmutableDimension(requestedOutputWidth, requestedOutputHeight);
+	boolean isFittedToCode() {
+		return false;
 	}
 }
@@ -19,9 +19,8 @@
 package qrcodegen.qrcode.renderer;
 
 import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.encoder.ByteMatrix;
-import com.google.zxing.qrcode.encoder.QRCode;
 import qrcodegen.CodeSizeException;
+import qrcodegen.qrcode.ModuleMatrix;
 import qrcodegen.tools.ImmutableDimension;
 import qrcodegen.tools.TriState;
 
@@ -33,7 +32,7 @@ public class ModuleSizeRenderer extends AbstractRenderer {
 
 	private int moduleSize;
 	private ImmutableDimension actualDimension;
-	private BitMatrix result;
+	private Raster result;
 
 	public ModuleSizeRenderer(ImmutableDimension sizeLimit) {
 		super(sizeLimit);
@@ -42,65 +41,35 @@ public class ModuleSizeRenderer extends AbstractRenderer {
 	public ModuleSizeRenderer() {
 	}
 
-	/*
-	 * The following code is based on code from com.google.zxing.qrcode.QRCodeWriter:
-	 *
-	 * Copyright 2008 ZXing authors
-	 *
-	 * Licensed under the Apache License, Version 2.0 (the "License"); you may
-	 * not use this file except in compliance with the License. You may obtain a
-	 * copy of the License at
-	 *
-	 * http://www.apache.org/licenses/LICENSE-2.0
-	 *
-	 * Unless required by applicable law or agreed to in writing, software
-	 * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
-	 * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
-	 * License for the specific language governing permissions and limitations
-	 * under the License.
-	 *
-	 */
 	@Override
-	public void renderResult(QRCode code) throws CodeSizeException {
-		ByteMatrix input = code.getMatrix();
-		if (input == null) {
-			throw new IllegalStateException();
-		}
-		int inputWidth = input.getWidth();
-		int inputHeight = input.getHeight();
-		int qrWidth = inputWidth + (QUIET_ZONE_SIZE << 1);
-		int qrHeight = inputHeight + (QUIET_ZONE_SIZE << 1);
-
-		ImmutableDimension newActualDimension = new ImmutableDimension(qrWidth * moduleSize, qrHeight * moduleSize);
-		if (exceedsMaxImageDimension(newActualDimension)) {
+	public void renderResult(ModuleMatrix matrix) throws CodeSizeException {
+		Raster raster;
+		try {
+			raster = Raster.forModuleSize(matrix, moduleSize, getMaxImageDimension());
+		} catch (CodeSizeException cse) {
 			resetState();
-			throw new CodeSizeException("Image dimensions exceed max. dimensions", null, getMaxImageDimension(), newActualDimension);
-		} else {
-			setActualDimension(newActualDimension);
+			throw cse;
 		}
+		setRaster(raster);
+	}
 
-		// Padding includes both the quiet zone and the extra white pixels to accommodate the requested
-		// dimensions. For example, if input is 25x25 the QR will be 33x33 including the quiet zone.
-		// If the requested size is 200x160, the multiple will be 4, for a QR of 132x132. These will
-		// handle all the padding from 100x100 (the actual QR) up to 200x160.
-		int leftPadding = (actualDimension.getWidth() - (inputWidth * moduleSize)) / 2;
-		int topPadding = (actualDimension.getHeight() - (inputHeight * moduleSize)) / 2;
-
-		BitMatrix output = new BitMatrix(actualDimension.getWidth(), actualDimension.getHeight());
-
-		for (int inputY = 0, outputY = topPadding; inputY < inputHeight; inputY++, outputY += moduleSize) {
-			// Write the contents of this row of the barcode
-			for (int inputX = 0, outputX = leftPadding; inputX < inputWidth; inputX++, outputX += moduleSize) {
-				if (input.get(inputX, inputY) == 1) {
-					output.setRegion(outputX, outputY, moduleSize, moduleSize);
-				}
-			}
+	@Override
+	public void setRaster(Raster raster) {
+		if (raster == null) {
+			throw new NullPointerException();
 		}
-		setResult(output);
+		setModuleSizeValue(raster.getModuleSize(), false);
+		setActualDimension(raster.getDimension());
+		setResult(raster);
 	}
 
 	@Override
 	public BitMatrix getResult() {
+		return result == null ? null : result.getMatrix();
+	}
+
+	@Override
+	public Raster getRaster() {
 		return result;
 	}
 	
@@ -109,10 +78,10 @@ public class ModuleSizeRenderer extends AbstractRenderer {
 		return result != null;
 	}
 
-	private void setResult(BitMatrix matrix) {
-		BitMatrix oldMatrix = this.result;
-		this.result = matrix;
-		pcs.firePropertyChange(RESULT_STATE_PROPERTY, oldMatrix, result);
+	private void setResult(Raster raster) {
+		Raster oldRaster = this.result;
+		this.result = raster;
+		pcs.firePropertyChange(RESULT_STATE_PROPERTY, oldRaster, result);
 	}
 
 	@Override
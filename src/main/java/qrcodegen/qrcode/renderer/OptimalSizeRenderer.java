@@ -34,7 +34,7 @@ public class OptimalSizeRenderer extends AbstractSizeRenderer {
 	}
 
 	@Override
-	public ImmutableDimension calculateActualDimension(int qrWidth, int qrHeight, int multiple, int requestedOutputWidth, int requestedOutputHeight) {
-		return new ImmutableDimension(qrWidth * multiple, qrHeight * multiple);
+	boolean isFittedToCode() {
+		return true;
 	}
 }
@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.renderer;
+
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import qrcodegen.qrcode.ModuleMatrix;
+import qrcodegen.tools.ImageFileWriter;
+import qrcodegen.tools.ImmutableDimension;
+import qrcodegen.tools.PngChunkWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a QR Code as a 1-bit grayscale PNG without creating an image in
+ * memory. Each scanline is created from the {@link ModuleMatrix} when it is needed
+ * and passed to the compressor right away; a module row is just the same
+ * scanline repeated for the module size. The memory needed is linear in the
+ * width of the image, so the image size is not limited by the maximum image
+ * size of a {@link Raster}, only by the PNG format.
+ *
+ * Instances of this class are immutable and can be shared between threads.
+ *
+ * @author Stefan Ganzer
+ */
+public final class PngStreamWriter {
+
+	/** The maximum width and height of a PNG image */
+	public static final int MAX_SIZE = Integer.MAX_VALUE;
+	private static final int BIT_DEPTH = 1;
+	private static final int COLOR_TYPE_GRAYSCALE = 0;
+	private static final int FILTER_NONE = 0;
+	private final ModuleMatrix matrix;
+	private final int moduleSize;
+	private final ImmutableDimension dimension;
+
+	private PngStreamWriter(ModuleMatrix matrix, int moduleSize, ImmutableDimension dimension) {
+		assert matrix != null;
+		assert moduleSize > 0;
+		assert dimension != null;
+		this.matrix = matrix;
+		this.moduleSize = moduleSize;
+		this.dimension = dimension;
+	}
+
+	/**
+	 * Creates a writer for the given matrix with the largest module size that
+	 * fits into the requested dimension, like
+	 * {@link Raster#forRequestedDimension(ByteMatrix, ImmutableDimension, boolean)}.
+	 *
+	 * @param input the matrix to render
+	 * @param requested the requested dimension
+	 * @param fitToCode if true, the image is only as large as the code plus
+	 * its quiet zone. If false, the image is padded to the requested
+	 * dimension.
+	 *
+	 * @return a writer for the given matrix
+	 *
+	 * @throws NullPointerException if input or requested is null
+	 */
+	public static PngStreamWriter forRequestedDimension(ByteMatrix input, ImmutableDimension requested, boolean fitToCode) {
+		if (input == null) {
+			throw new NullPointerException();
+		}
+		return forRequestedDimension(ModuleMatrix.of(input), requested, fitToCode);
+	}
+
+	/**
+	 * Creates a writer for the given matrix with the largest module size that
+	 * fits into the requested dimension, like
+	 * {@link Raster#forRequestedDimension(ModuleMatrix, ImmutableDimension, boolean)}.
+	 *
+	 * @param input the matrix to render
+	 * @param requested the requested dimension
+	 * @param fitToCode if true, the image is only as large as the code plus
+	 * its quiet zone. If false, the image is padded to the requested
+	 * dimension.
+	 *
+	 * @return a writer for the given matrix
+	 *
+	 * @throws NullPointerException if input or requested is null
+	 */
+	public static PngStreamWriter forRequestedDimension(ModuleMatrix input, ImmutableDimension requested, boolean fitToCode) {
+		if (input == null) {
+			throw new NullPointerException();
+		}
+		if (requested == null) {
+			throw new NullPointerException();
+		}
+		int qrWidth = input.getWidth() + (AbstractRenderer.QUIET_ZONE_SIZE << 1);
+		int qrHeight = input.getHeight() + (AbstractRenderer.QUIET_ZONE_SIZE << 1);
+
+		int requestedOutputWidth = Math.max(requested.getWidth(), qrWidth);
+		int requestedOutputHeight = Math.max(requested.getHeight(), qrHeight);
+
+		int multiple = Math.min(requestedOutputWidth / qrWidth, requestedOutputHeight / qrHeight);
+		if (fitToCode) {
+			return new PngStreamWriter(input, multiple, new ImmutableDimension(qrWidth * multiple, qrHeight * multiple));
+		} else {
+			return new PngStreamWriter(input, multiple, new ImmutableDimension(requestedOutputWidth, requestedOutputHeight));
+		}
+	}
+
+	/**
+	 * Creates a writer for the given matrix with the given module size.
+	 *
+	 * @param input the matrix to render
+	 * @param moduleSize the module size in pixels
+	 *
+	 * @return a writer for the given matrix
+	 *
+	 * @throws NullPointerException if input is null
+	 * @throws IllegalArgumentException if moduleSize &lt; 1, or if the image
+	 * would exceed {@link #MAX_SIZE}
+	 */
+	public static PngStreamWriter forModuleSize(ByteMatrix input, int moduleSize) {
+		if (input == null) {
+			throw new NullPointerException();
+		}
+		return forModuleSize(ModuleMatrix.of(input), moduleSize);
+	}
+
+	/**
+	 * Creates a writer for the given matrix with the given module size.
+	 *
+	 * @param input the matrix to render
+	 * @param moduleSize the module size in pixels
+	 *
+	 * @return a writer for the given matrix
+	 *
+	 * @throws NullPointerException if input is null
+	 * @throws IllegalArgumentException if moduleSize &lt; 1, or if the image
+	 * would exceed {@link #MAX_SIZE}
+	 */
+	public static PngStreamWriter forModuleSize(ModuleMatrix input, int moduleSize) {
+		if (input == null) {
+			throw new NullPointerException();
+		}
+		if (moduleSize < 1) {
+			throw new IllegalArgumentException(Integer.toString(moduleSize));
+		}
+		long qrWidth = input.getWidth() + (AbstractRenderer.QUIET_ZONE_SIZE << 1);
+		long qrHeight = input.getHeight() + (AbstractRenderer.QUIET_ZONE_SIZE << 1);
+		if (qrWidth * moduleSize > MAX_SIZE || qrHeight * moduleSize > MAX_SIZE) {
+			throw new IllegalArgumentException(Integer.toString(moduleSize));
+		}
+		return new PngStreamWriter(input, moduleSize, new ImmutableDimension((int) qrWidth * moduleSize, (int) qrHeight * moduleSize));
+	}
+
+	public int getModuleSize() {
+		return moduleSize;
+	}
+
+	public ImmutableDimension getDimension() {
+		return dimension;
+	}
+
+	/**
+	 * Writes the PNG to the given file. An existing file is replaced
+	 * atomically, so it isn't left half-written if writing fails.
+	 *
+	 * @param file the file to write to
+	 *
+	 * @throws NullPointerException if file is null
+	 * @throws IOException if an IO error occurs
+	 */
+	public void write(File file) throws IOException {
+		if (file == null) {
+			throw new NullPointerException();
+		}
+		ImageFileWriter.writeAtomically(new File(file.getAbsolutePath()), new ImageFileWriter.ContentWriter() {
+			@Override
+			public void write(WritableByteChannel channel) throws IOException {
+				PngStreamWriter.this.write(channel);
+			}
+		});
+	}
+
+	/**
+	 * Writes the PNG to the given channel. The channel is not closed.
+	 *
+	 * @param channel the channel to write to
+	 *
+	 * @throws NullPointerException if channel is null
+	 * @throws IOException if an IO error occurs
+	 */
+	public void write(WritableByteChannel channel) throws IOException {
+		if (channel == null) {
+			throw new NullPointerException();
+		}
+		int width = dimension.getWidth();
+		int height = dimension.getHeight();
+		PngChunkWriter out = new PngChunkWriter(channel);
+		out.writeSignature();
+
+		ByteBuffer header = ByteBuffer.allocate(13);
+		header.putInt(width).putInt(height).put((byte) BIT_DEPTH).put((byte) COLOR_TYPE_GRAYSCALE);
+		header.put((byte) 0).put((byte) 0).put((byte) 0); // deflate, adaptive filtering, no interlace
+		out.writeChunk("IHDR", header.array(), header.position());
+
+		int stride = Raster.getStride(width);
+		// The filter type byte precedes each scanline
+		byte[] blank = new byte[1 + stride];
+		Arrays.fill(blank, 1, blank.length, Raster.WHITE);
+		blank[0] = FILTER_NONE;
+		byte[] scanline = new byte[1 + stride];
+
+		int inputWidth = matrix.getWidth();
+		int inputHeight = matrix.getHeight();
+		int leftPadding = (width - (inputWidth * moduleSize)) / 2;
+		int topPadding = (height - (inputHeight * moduleSize)) / 2;
+
+		Deflater deflater = new Deflater();
+		try {
+			for (int y = 0; y < topPadding; y++) {
+				out.deflate(deflater, blank);
+			}
+			for (int inputY = 0; inputY < inputHeight; inputY++) {
+				System.arraycopy(blank, 0, scanline, 0, blank.length);
+				for (int runStart = matrix.nextDark(0, inputY), runEnd; runStart < inputWidth; runStart = matrix.nextDark(runEnd, inputY)) {
+					runEnd = matrix.nextLight(runStart, inputY);
+					Raster.clearRun(scanline, 1, leftPadding + runStart * moduleSize, leftPadding + runEnd * moduleSize);
+				}
+				for (int i = 0; i < moduleSize; i++) {
+					out.deflate(deflater, scanline);
+				}
+			}
+			for (int y = topPadding + inputHeight * moduleSize; y < height; y++) {
+				out.deflate(deflater, blank);
+			}
+			out.finish(deflater);
+		} finally {
+			deflater.end();
+		}
+		out.writeChunk("IEND", new byte[0], 0);
+	}
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.renderer;
+
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import qrcodegen.CodeSizeException;
+import qrcodegen.qrcode.ModuleMatrix;
+import qrcodegen.tools.ImmutableDimension;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The rendered image of a QR Code, together with the module size and the
+ * dimension it has been rendered with. Instances of this class are immutable
+ * and can be shared between threads, and the static factory methods have no
+ * side effects, so they can be used without a {@link Renderable} instance.
+ *
+ * The image is kept as a 1-bit {@link BufferedImage#TYPE_BYTE_BINARY} image.
+ * The runs of dark modules, as found by {@link ModuleMatrix#nextDark(int, int)}
+ * and {@link ModuleMatrix#nextLight(int, int)}, are written directly into its
+ * data buffer, one
+ * scanline per module row, which is then copied for the remaining scanlines
+ * of that row. A rendered image needs 1 bit per pixel instead of the 32 bits
+ * of an image created by MatrixToImageWriter.
+ *
+ * Large images are rendered in parallel on the common ForkJoinPool: the image
+ * is split into horizontal bands of whole module rows, and each band is
+ * filled and rendered into its own slice of the data buffer.
+ *
+ * @author Stefan Ganzer
+ */
+public final class Raster {
+
+	/** Minimum size - Version 1 = 21 modules + 8 modules for quiet zone */
+	public static final int MIN_SIZE = 21 + (AbstractRenderer.QUIET_ZONE_SIZE << 1);
+	/** Dark pixels are 0 in the default palette of TYPE_BYTE_BINARY */
+	static final byte WHITE = (byte) 0xFF;
+	/** Images with less data are rendered by the calling thread. See
+	 * ParallelRasterBenchmark. */
+	static final int PARALLEL_THRESHOLD = 512 * 1024;
+	/** Bands with less data are not split any further */
+	private static final int BAND_SIZE = 64 * 1024;
+	/** Never modified after construction */
+	private final BufferedImage image;
+	private final int moduleSize;
+	private final ImmutableDimension dimension;
+
+	private Raster(BufferedImage image, int moduleSize) {
+		assert image != null;
+		assert moduleSize > 0;
+		this.image = image;
+		this.moduleSize = moduleSize;
+		this.dimension = new ImmutableDimension(image.getWidth(), image.getHeight());
+	}
+
+	/*
+	 * The following code is based on code from com.google.zxing.qrcode.QRCodeWriter:
+	 *
+	 * Copyright 2008 ZXing authors
+	 *
+	 * Licensed under the Apache License, Version 2.0 (the "License"); you may
+	 * not use this file except in compliance with the License. You may obtain a
+	 * copy of the License at
+	 *
+	 * http://www.apache.org/licenses/LICENSE-2.0
+	 *
+	 * Unless required by applicable law or agreed to in writing, software
+	 * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+	 * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+	 * License for the specific language governing permissions and limitations
+	 * under the License.
+	 *
+	 */
+	/**
+	 * Renders the given matrix with the largest module size that fits into the
+	 * requested dimension.
+	 *
+	 * @param input the matrix to render
+	 * @param requested the requested dimension
+	 * @param fitToCode if true, the result is only as large as the code plus
+	 * its quiet zone. If false, the result is padded to the requested
+	 * dimension.
+	 *
+	 * @return the rendered matrix
+	 *
+	 * @throws NullPointerException if input or requested is null
+	 */
+	public static Raster forRequestedDimension(ByteMatrix input, ImmutableDimension requested, boolean fitToCode) {
+		if (input == null) {
+			throw new NullPointerException();
+		}
+		return forRequestedDimension(ModuleMatrix.of(input), requested, fitToCode);
+	}
+
+	/**
+	 * Renders the given matrix with the largest module size that fits into the
+	 * requested dimension.
+	 *
+	 * @param input the matrix to render
+	 * @param requested the requested dimension
+	 * @param fitToCode if true, the result is only as large as the code plus
+	 * its quiet zone. If false, the result is padded to the requested
+	 * dimension.
+	 *
+	 * @return the rendered matrix
+	 *
+	 * @throws NullPointerException if input or requested is null
+	 */
+	public static Raster forRequestedDimension(ModuleMatrix input, ImmutableDimension requested, boolean fitToCode) {
+		if (input == null) {
+			throw new NullPointerException();
+		}
+		if (requested == null) {
+			throw new NullPointerException();
+		}
+		int qrWidth = input.getWidth() + (AbstractRenderer.QUIET_ZONE_SIZE << 1);
+		int qrHeight = input.getHeight() + (AbstractRenderer.QUIET_ZONE_SIZE << 1);
+
+		int requestedOutputWidth = Math.max(requested.getWidth(), qrWidth);
+		int requestedOutputHeight = Math.max(requested.getHeight(), qrHeight);
+
+		int multiple = Math.min(requestedOutputWidth / qrWidth, requestedOutputHeight / qrHeight);
+		if (fitToCode) {
+			return render(input, multiple, qrWidth * multiple, qrHeight * multiple);
+		} else {
+			return render(input, multiple, requestedOutputWidth, requestedOutputHeight);
+		}
+	}
+
+	/**
+	 * Renders the given matrix with the given module size.
+	 *
+	 * @param input the matrix to render
+	 * @param moduleSize the module size in pixels
+	 * @param maxDimension the maximum dimension of the result
+	 *
+	 * @return the rendered matrix
+	 *
+	 * @throws NullPointerException if input or maxDimension is null
+	 * @throws IllegalArgumentException if moduleSize &lt; 1
+	 * @throws CodeSizeException if the result would exceed maxDimension
+	 */
+	public static Raster forModuleSize(ByteMatrix input, int moduleSize, ImmutableDimension maxDimension) throws CodeSizeException {
+		if (input == null) {
+			throw new NullPointerException();
+		}
+		return forModuleSize(ModuleMatrix.of(input), moduleSize, maxDimension);
+	}
+
+	/**
+	 * Renders the given matrix with the given module size.
+	 *
+	 * @param input the matrix to render
+	 * @param moduleSize the module size in pixels
+	 * @param maxDimension the maximum dimension of the result
+	 *
+	 * @return the rendered matrix
+	 *
+	 * @throws NullPointerException if input or maxDimension is null
+	 * @throws IllegalArgumentException if moduleSize &lt; 1
+	 * @throws CodeSizeException if the result would exceed maxDimension
+	 */
+	public static Raster forModuleSize(ModuleMatrix input, int moduleSize, ImmutableDimension maxDimension) throws CodeSizeException {
+		if (input == null) {
+			throw new NullPointerException();
+		}
+		if (maxDimension == null) {
+			throw new NullPointerException();
+		}
+		if (moduleSize < 1) {
+			throw new IllegalArgumentException(Integer.toString(moduleSize));
+		}
+		int qrWidth = input.getWidth() + (AbstractRenderer.QUIET_ZONE_SIZE << 1);
+		int qrHeight = input.getHeight() + (AbstractRenderer.QUIET_ZONE_SIZE << 1);
+		ImmutableDimension dimension = new ImmutableDimension(qrWidth * moduleSize, qrHeight * moduleSize);
+		if (dimension.exceeds(maxDimension)) {
+			throw new CodeSizeException("Image dimensions exceed max. dimensions", null, maxDimension, dimension);
+		}
+		return render(input, moduleSize, dimension.getWidth(), dimension.getHeight());
+	}
+
+	private static Raster render(ModuleMatrix input, int multiple, int width, int height) {
+		long size = (long) getStride(width) * height;
+		boolean parallel = size >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1;
+		return render(input, multiple, width, height, parallel ? ForkJoinPool.commonPool() : null);
+	}
+
+	/**
+	 * Renders the given matrix into an image of the given size.
+	 *
+	 * @param pool the pool that renders the bands of the image, or null to
+	 * render it in the calling thread
+	 */
+	static Raster render(ModuleMatrix input, int multiple, int width, int height, ForkJoinPool pool) {
+		BufferedImage output = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
+		Band band = new Band(input, multiple, width, height, getData(output), 0, input.getHeight());
+		if (pool == null) {
+			band.render();
+		} else {
+			pool.invoke(band);
+		}
+		return new Raster(output, multiple);
+	}
+
+	/**
+	 * A horizontal band of the image, made of the module rows from
+	 * (inclusive) to to (exclusive). The first band includes the padding
+	 * above the code, the last band the padding below it. Bands don't share
+	 * any bytes of the data buffer, so they can be rendered concurrently.
+	 */
+	private static final class Band extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+		private final ModuleMatrix matrix;
+		private final int inputWidth;
+		private final int inputHeight;
+		private final int multiple;
+		private final int height;
+		private final int stride;
+		private final int leftPadding;
+		private final int topPadding;
+		private final byte[] data;
+		private final int from;
+		private final int to;
+
+		Band(ModuleMatrix input, int multiple, int width, int height, byte[] data, int from, int to) {
+			this.matrix = input;
+			this.inputWidth = input.getWidth();
+			this.inputHeight = input.getHeight();
+			this.multiple = multiple;
+			this.height = height;
+			this.stride = getStride(width);
+			// Padding includes both the quiet zone and the extra white pixels to accommodate the requested
+			// dimensions. For example, if input is 25x25 the QR will be 33x33 including the quiet zone.
+			// If the requested size is 200x160, the multiple will be 4, for a QR of 132x132. These will
+			// handle all the padding from 100x100 (the actual QR) up to 200x160.
+			this.leftPadding = (width - (inputWidth * multiple)) / 2;
+			this.topPadding = (height - (inputHeight * multiple)) / 2;
+			this.data = data;
+			this.from = from;
+			this.to = to;
+		}
+
+		private Band(Band parent, int from, int to) {
+			this.matrix = parent.matrix;
+			this.inputWidth = parent.inputWidth;
+			this.inputHeight = parent.inputHeight;
+			this.multiple = parent.multiple;
+			this.height = parent.height;
+			this.stride = parent.stride;
+			this.leftPadding = parent.leftPadding;
+			this.topPadding = parent.topPadding;
+			this.data = parent.data;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from < 2 || (long) (to - from) * multiple * stride <= BAND_SIZE) {
+				render();
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new Band(this, from, middle), new Band(this, middle, to));
+			}
+		}
+
+		void render() {
+			int firstScanline = from == 0 ? 0 : topPadding + from * multiple;
+			int endScanline = to >= inputHeight ? height : topPadding + to * multiple;
+			Arrays.fill(data, firstScanline * stride, endScanline * stride, WHITE);
+
+			for (int inputY = from, outputY = topPadding + from * multiple; inputY < to; inputY++, outputY += multiple) {
+				// Write the contents of this row of the barcode into its first scanline
+				int offset = outputY * stride;
+				for (int runStart = matrix.nextDark(0, inputY), runEnd; runStart < inputWidth; runStart = matrix.nextDark(runEnd, inputY)) {
+					runEnd = matrix.nextLight(runStart, inputY);
+					clearRun(data, offset, leftPadding + runStart * multiple, leftPadding + runEnd * multiple);
+				}
+				// ...and copy it to the other scanlines of this row
+				for (int i = 1; i < multiple; i++) {
+					System.arraycopy(data, offset, data, offset + i * stride, stride);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sets the pixels from (inclusive) to to (exclusive) of the scanline that
+	 * starts at offset to dark. The pixels are stored MSB first, eight to a
+	 * byte, so all bytes but the first and the last one are filled as a whole.
+	 */
+	static void clearRun(byte[] data, int offset, int from, int to) {
+		assert from < to;
+		int first = offset + (from >>> 3);
+		int last = offset + ((to - 1) >>> 3);
+		int firstMask = 0xFF >>> (from & 7);
+		int lastMask = (0xFF << (7 - ((to - 1) & 7))) & 0xFF;
+		if (first == last) {
+			data[first] &= ~(firstMask & lastMask);
+		} else {
+			data[first] &= ~firstMask;
+			Arrays.fill(data, first + 1, last, (byte) 0);
+			data[last] &= ~lastMask;
+		}
+	}
+
+	private static byte[] getData(BufferedImage image) {
+		return ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+	}
+
+	static int getStride(int width) {
+		return (width + 7) >>> 3;
+	}
+
+	/**
+	 * Returns a copy of the rendered matrix. The matrix is created from the
+	 * rendered image on each invocation, so {@link #toImage()} should be
+	 * preferred.
+	 *
+	 * @return a copy of the rendered matrix
+	 */
+	public BitMatrix getMatrix() {
+		int width = image.getWidth();
+		int height = image.getHeight();
+		int stride = getStride(width);
+		byte[] data = getData(image);
+		BitMatrix matrix = new BitMatrix(width, height);
+		for (int y = 0; y < height; y++) {
+			int offset = y * stride;
+			for (int x = 0; x < width; x += 8) {
+				int b = data[offset + (x >>> 3)] & 0xFF;
+				if (b == 0xFF) {
+					continue;
+				}
+				int end = Math.min(x + 8, width);
+				for (int i = x; i < end; i++) {
+					if ((b & (0x80 >>> (i - x))) == 0) {
+						matrix.set(i, y);
+					}
+				}
+			}
+		}
+		return matrix;
+	}
+
+	/**
+	 * Returns a new 1-bit {@link BufferedImage#TYPE_BYTE_BINARY} image of the
+	 * rendered matrix. The pixels are copied in bulk from the rendered image.
+	 *
+	 * @return a new image of the rendered matrix
+	 */
+	public BufferedImage toImage() {
+		BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_BYTE_BINARY);
+		byte[] data = getData(image);
+		System.arraycopy(data, 0, getData(copy), 0, data.length);
+		return copy;
+	}
+
+	public int getModuleSize() {
+		return moduleSize;
+	}
+
+	public ImmutableDimension getDimension() {
+		return dimension;
+	}
+}
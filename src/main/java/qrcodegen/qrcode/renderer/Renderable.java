@@ -19,8 +19,8 @@
 package qrcodegen.qrcode.renderer;
 
 import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.encoder.QRCode;
 import qrcodegen.CodeSizeException;
+import qrcodegen.qrcode.ModuleMatrix;
 import qrcodegen.tools.ImmutableDimension;
 import qrcodegen.tools.TriState;
 
@@ -38,12 +38,46 @@ public interface Renderable {
 	public static final String RESULT_STATE_PROPERTY = "ResultState";
 	public static final String EXCEEDS_REQUESTED_DIMENSION_PROPERTY = "ExceedsRequestedDimension";
 
-	void renderResult(QRCode code) throws CodeSizeException;
+	/**
+	 * Renders the given module matrix with the current settings of this
+	 * renderer.
+	 *
+	 * @param matrix the packed module matrix of a QR Code
+	 *
+	 * @throws NullPointerException if matrix is null
+	 * @throws CodeSizeException if the rendered image would exceed the
+	 * maximum image size
+	 */
+	void renderResult(ModuleMatrix matrix) throws CodeSizeException;
+
+	/**
+	 * Sets a result that has been rendered elsewhere, e.g. by
+	 * {@link qrcodegen.QRCodeEncoder}. Fires the same events as
+	 * {@link #renderResult(ModuleMatrix)}.
+	 *
+	 * @param raster the rendered result
+	 *
+	 * @throws NullPointerException if raster is null
+	 */
+	void setRaster(Raster raster);
 
 	boolean hasResult();
-	
+
+	/**
+	 * Returns the rendered result as a matrix. The matrix is created from
+	 * the rendered raster, so {@link #getRaster()} should be preferred.
+	 *
+	 * @return the rendered result, or null if there is no result
+	 */
 	BitMatrix getResult();
 
+	/**
+	 * Returns the rendered result.
+	 *
+	 * @return the rendered result, or null if there is no result
+	 */
+	Raster getRaster();
+
 	void setRequestedDimension(ImmutableDimension dim);
 
 	ImmutableDimension getRequestedDimension();
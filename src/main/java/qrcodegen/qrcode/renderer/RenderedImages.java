@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.renderer;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+import qrcodegen.tools.BilevelImageWriter;
+import qrcodegen.tools.ImmutableDimension;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+/**
+ * The images of a single {@link Raster}. Each variant is created the first
+ * time it is requested and then kept, so a rendered result is never converted
+ * into the same kind of image twice.
+ *
+ * The images returned by the methods of this class are shared by all
+ * callers, so they must not be modified.
+ *
+ * @author Stefan Ganzer
+ */
+@ThreadSafe
+public final class RenderedImages {
+
+	private static final BilevelImageWriter PNG_WRITER = new BilevelImageWriter.Builder().build();
+	private final Raster raster;
+	@GuardedBy("this")
+	private BufferedImage binaryImage;
+	@GuardedBy("this")
+	private BufferedImage argbImage;
+	@GuardedBy("this")
+	private BufferedImage scaledImage;
+	@GuardedBy("this")
+	private ImmutableDimension scaledImageBounds;
+	@GuardedBy("this")
+	private byte[] png;
+
+	/**
+	 * Creates a new instance for the given raster.
+	 *
+	 * @param raster the rendered result
+	 *
+	 * @throws NullPointerException if raster is null
+	 */
+	public RenderedImages(Raster raster) {
+		if (raster == null) {
+			throw new NullPointerException();
+		}
+		this.raster = raster;
+	}
+
+	public Raster getRaster() {
+		return raster;
+	}
+
+	/**
+	 * Returns the 1-bit {@link BufferedImage#TYPE_BYTE_BINARY} image of the
+	 * raster.
+	 *
+	 * @return the 1-bit image of the raster, which must not be modified
+	 */
+	public synchronized BufferedImage getBinaryImage() {
+		if (binaryImage == null) {
+			binaryImage = raster.toImage();
+		}
+		return binaryImage;
+	}
+
+	/**
+	 * Returns a {@link BufferedImage#TYPE_INT_ARGB} image of the raster, e.g.
+	 * for a clipboard or an image editor that cannot handle indexed images.
+	 *
+	 * @return the ARGB image of the raster, which must not be modified
+	 */
+	public synchronized BufferedImage getArgbImage() {
+		if (argbImage == null) {
+			BufferedImage source = getBinaryImage();
+			BufferedImage image = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g = image.createGraphics();
+			try {
+				g.drawImage(source, 0, 0, null);
+			} finally {
+				g.dispose();
+			}
+			argbImage = image;
+		}
+		return argbImage;
+	}
+
+	/**
+	 * Returns the image of the raster scaled to the largest size that fits
+	 * into the given bounds, keeping its aspect ratio. Only the image for the
+	 * bounds requested last is kept.
+	 *
+	 * @param bounds the maximum size of the scaled image
+	 *
+	 * @return the scaled ARGB image, which must not be modified
+	 *
+	 * @throws NullPointerException if bounds is null
+	 */
+	public synchronized BufferedImage getScaledImage(ImmutableDimension bounds) {
+		if (bounds == null) {
+			throw new NullPointerException();
+		}
+		if (scaledImage == null || !bounds.equals(scaledImageBounds)) {
+			ImmutableDimension dimension = raster.getDimension();
+			double scale = Math.min((double) bounds.getWidth() / dimension.getWidth(),
+					(double) bounds.getHeight() / dimension.getHeight());
+			int width = Math.max(1, (int) (dimension.getWidth() * scale));
+			int height = Math.max(1, (int) (dimension.getHeight() * scale));
+			BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g = image.createGraphics();
+			try {
+				// Enlarged modules keep sharp edges, shrunk ones are smoothed
+				g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, scale >= 1
+						? RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR
+						: RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				g.drawImage(getBinaryImage(), 0, 0, width, height, null);
+			} finally {
+				g.dispose();
+			}
+			scaledImage = image;
+			scaledImageBounds = bounds;
+		}
+		return scaledImage;
+	}
+
+	/**
+	 * Returns the raster encoded as 1-bit PNG, as it is written by the
+	 * default {@link BilevelImageWriter}.
+	 *
+	 * @return a copy of the PNG encoded raster
+	 *
+	 * @throws IOException if the image cannot be encoded
+	 */
+	public synchronized byte[] getPng() throws IOException {
+		if (png == null) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			PNG_WRITER.write(getBinaryImage(), BilevelImageWriter.Format.PNG, Channels.newChannel(out));
+			png = out.toByteArray();
+		}
+		return png.clone();
+	}
+}
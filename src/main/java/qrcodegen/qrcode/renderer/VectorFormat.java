@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.renderer;
+
+import qrcodegen.tools.StaticTools;
+
+import java.io.File;
+
+/**
+ * The file formats a {@link VectorImage} can be written in.
+ *
+ * @author Stefan Ganzer
+ */
+public enum VectorFormat {
+
+	SVG("svg"),
+	PDF("pdf"),
+	EPS("eps");
+	private final String extension;
+
+	private VectorFormat(String extension) {
+		this.extension = extension;
+	}
+
+	/**
+	 * Returns the file extension of this format, without the leading dot.
+	 *
+	 * @return the file extension of this format in lower case
+	 */
+	public String getExtension() {
+		return extension;
+	}
+
+	/**
+	 * Returns the format that is defined by the extension of the given file.
+	 *
+	 * @param file a file
+	 *
+	 * @return the format that is defined by the extension of the given file,
+	 * or null if the extension doesn't denote a vector format
+	 *
+	 * @throws NullPointerException if file is null
+	 */
+	public static VectorFormat forFile(File file) {
+		String ext = StaticTools.getExtension(file);
+		for (VectorFormat f : values()) {
+			if (f.extension.equals(ext)) {
+				return f;
+			}
+		}
+		return null;
+	}
+}
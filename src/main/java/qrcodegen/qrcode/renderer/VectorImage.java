@@ -0,0 +1,378 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.renderer;
+
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import qrcodegen.qrcode.ModuleMatrix;
+import qrcodegen.tools.ImmutableDimension;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The vector image of a QR Code. Horizontally adjacent dark modules are merged
+ * into a single rectangle, so the output contains one rectangle per run of
+ * dark modules instead of one per module. The image can be written as SVG,
+ * PDF or EPS directly to an OutputStream, without creating a BufferedImage,
+ * so its size is not limited by the maximum image size of a {@link Raster}.
+ *
+ * Instances of this class are immutable and can be shared between threads.
+ * The coordinates are those of the corresponding Raster; one pixel is one
+ * user unit in SVG, and one point in PDF and EPS.
+ *
+ * @author Stefan Ganzer
+ */
+public final class VectorImage {
+
+	private static final String CREATOR = "QRCodeGen";
+	/** Never modified after construction. x, y and width of each run, with
+	 * the origin at the top left corner */
+	private final int[] runs;
+	private final int runCount;
+	private final int moduleSize;
+	private final ImmutableDimension dimension;
+
+	private VectorImage(int[] runs, int runCount, int moduleSize, ImmutableDimension dimension) {
+		assert runs != null;
+		assert moduleSize > 0;
+		assert dimension != null;
+		this.runs = runs;
+		this.runCount = runCount;
+		this.moduleSize = moduleSize;
+		this.dimension = dimension;
+	}
+
+	/**
+	 * Creates the vector image of the given matrix with the module size and
+	 * dimension of the given raster, that is, with the same geometry as the
+	 * raster.
+	 *
+	 * @param input the matrix the raster has been rendered from
+	 * @param raster the rendered matrix
+	 *
+	 * @return the vector image of the given matrix
+	 *
+	 * @throws NullPointerException if input or raster is null
+	 * @throws IllegalArgumentException if the matrix doesn't fit into the
+	 * raster
+	 */
+	public static VectorImage forRaster(ByteMatrix input, Raster raster) {
+		if (input == null) {
+			throw new NullPointerException();
+		}
+		return forRaster(ModuleMatrix.of(input), raster);
+	}
+
+	/**
+	 * Creates the vector image of the given matrix with the module size and
+	 * dimension of the given raster, that is, with the same geometry as the
+	 * raster.
+	 *
+	 * @param input the matrix the raster has been rendered from
+	 * @param raster the rendered matrix
+	 *
+	 * @return the vector image of the given matrix
+	 *
+	 * @throws NullPointerException if input or raster is null
+	 * @throws IllegalArgumentException if the matrix doesn't fit into the
+	 * raster
+	 */
+	public static VectorImage forRaster(ModuleMatrix input, Raster raster) {
+		if (input == null) {
+			throw new NullPointerException();
+		}
+		if (raster == null) {
+			throw new NullPointerException();
+		}
+		return create(input, raster.getModuleSize(), raster.getDimension());
+	}
+
+	/**
+	 * Creates the vector image of the given matrix with the given module
+	 * size.
+	 *
+	 * @param input the matrix to render
+	 * @param moduleSize the module size in pixels
+	 *
+	 * @return the vector image of the given matrix
+	 *
+	 * @throws NullPointerException if input is null
+	 * @throws IllegalArgumentException if moduleSize &lt; 1, or if the image
+	 * would be too large to be addressed
+	 */
+	public static VectorImage forModuleSize(ByteMatrix input, int moduleSize) {
+		if (input == null) {
+			throw new NullPointerException();
+		}
+		return forModuleSize(ModuleMatrix.of(input), moduleSize);
+	}
+
+	/**
+	 * Creates the vector image of the given matrix with the given module
+	 * size.
+	 *
+	 * @param input the matrix to render
+	 * @param moduleSize the module size in pixels
+	 *
+	 * @return the vector image of the given matrix
+	 *
+	 * @throws NullPointerException if input is null
+	 * @throws IllegalArgumentException if moduleSize &lt; 1, or if the image
+	 * would be too large to be addressed
+	 */
+	public static VectorImage forModuleSize(ModuleMatrix input, int moduleSize) {
+		if (input == null) {
+			throw new NullPointerException();
+		}
+		if (moduleSize < 1) {
+			throw new IllegalArgumentException(Integer.toString(moduleSize));
+		}
+		long qrWidth = input.getWidth() + (AbstractRenderer.QUIET_ZONE_SIZE << 1);
+		long qrHeight = input.getHeight() + (AbstractRenderer.QUIET_ZONE_SIZE << 1);
+		if (qrWidth * moduleSize > Integer.MAX_VALUE || qrHeight * moduleSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException(Integer.toString(moduleSize));
+		}
+		return create(input, moduleSize, new ImmutableDimension((int) qrWidth * moduleSize, (int) qrHeight * moduleSize));
+	}
+
+	private static VectorImage create(ModuleMatrix input, int multiple, ImmutableDimension dimension) {
+		int inputWidth = input.getWidth();
+		int inputHeight = input.getHeight();
+		int leftPadding = (dimension.getWidth() - (inputWidth * multiple)) / 2;
+		int topPadding = (dimension.getHeight() - (inputHeight * multiple)) / 2;
+		if (leftPadding < 0 || topPadding < 0) {
+			throw new IllegalArgumentException("The matrix doesn't fit into " + dimension);
+		}
+		int[] runs = new int[3 * 64];
+		int runCount = 0;
+		for (int inputY = 0, outputY = topPadding; inputY < inputHeight; inputY++, outputY += multiple) {
+			for (int runStart = input.nextDark(0, inputY), runEnd; runStart < inputWidth; runStart = input.nextDark(runEnd, inputY)) {
+				runEnd = input.nextLight(runStart, inputY);
+				if (3 * runCount == runs.length) {
+					runs = Arrays.copyOf(runs, runs.length << 1);
+				}
+				runs[3 * runCount] = leftPadding + runStart * multiple;
+				runs[3 * runCount + 1] = outputY;
+				runs[3 * runCount + 2] = (runEnd - runStart) * multiple;
+				runCount++;
+			}
+		}
+		return new VectorImage(runs, runCount, multiple, dimension);
+	}
+
+	/**
+	 * Returns the number of rectangles the dark modules have been merged into.
+	 *
+	 * @return the number of rectangles the dark modules have been merged into
+	 */
+	public int getRunCount() {
+		return runCount;
+	}
+
+	public int getModuleSize() {
+		return moduleSize;
+	}
+
+	public ImmutableDimension getDimension() {
+		return dimension;
+	}
+
+	/**
+	 * Writes this image in the given format to the given stream. The stream
+	 * is flushed, but not closed.
+	 *
+	 * @param format the format to write
+	 * @param out the stream to write to
+	 *
+	 * @throws NullPointerException if format or out is null
+	 * @throws IOException if an IO error occurs
+	 */
+	public void write(VectorFormat format, OutputStream out) throws IOException {
+		if (format == null) {
+			throw new NullPointerException();
+		}
+		switch (format) {
+			case SVG:
+				writeSvg(out);
+				break;
+			case PDF:
+				writePdf(out);
+				break;
+			case EPS:
+				writeEps(out);
+				break;
+			default:
+				throw new AssertionError(format);
+		}
+	}
+
+	/**
+	 * Writes this image as SVG. All runs form a single path, with one
+	 * subpath per run.
+	 *
+	 * @param out the stream to write to
+	 *
+	 * @throws NullPointerException if out is null
+	 * @throws IOException if an IO error occurs
+	 */
+	public void writeSvg(OutputStream out) throws IOException {
+		AsciiWriter w = new AsciiWriter(out);
+		int width = dimension.getWidth();
+		int height = dimension.getHeight();
+		w.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		w.write("<svg xmlns=\"http://www.w3.org/2000/svg\" version=\"1.1\" width=\"" + width + "\" height=\"" + height
+				+ "\" viewBox=\"0 0 " + width + " " + height + "\" shape-rendering=\"crispEdges\">\n");
+		w.write("<rect width=\"" + width + "\" height=\"" + height + "\" fill=\"#FFFFFF\"/>\n");
+		w.write("<path fill=\"#000000\" d=\"");
+		for (int i = 0; i < runCount; i++) {
+			int x = runs[3 * i];
+			int y = runs[3 * i + 1];
+			int runWidth = runs[3 * i + 2];
+			w.write("M" + x + " " + y + "h" + runWidth + "v" + moduleSize + "h-" + runWidth + "z");
+			if (i % 8 == 7) {
+				w.write("\n");
+			}
+		}
+		w.write("\"/>\n</svg>\n");
+		w.flush();
+	}
+
+	/**
+	 * Writes this image as a PDF document with a single page that has the
+	 * size of this image.
+	 *
+	 * @param out the stream to write to
+	 *
+	 * @throws NullPointerException if out is null
+	 * @throws IOException if an IO error occurs
+	 */
+	public void writePdf(OutputStream out) throws IOException {
+		AsciiWriter w = new AsciiWriter(out);
+		int width = dimension.getWidth();
+		int height = dimension.getHeight();
+		long[] offsets = new long[6];
+
+		w.write("%PDF-1.4\n");
+		offsets[1] = w.getPosition();
+		w.write("1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
+		offsets[2] = w.getPosition();
+		w.write("2 0 obj\n<< /Type /Pages /Kids [3 0 R] /Count 1 >>\nendobj\n");
+		offsets[3] = w.getPosition();
+		w.write("3 0 obj\n<< /Type /Page /Parent 2 0 R /MediaBox [0 0 " + width + " " + height
+				+ "] /Resources << >> /Contents 4 0 R >>\nendobj\n");
+		offsets[4] = w.getPosition();
+		// The length of the content stream is written as an indirect object
+		// after the stream, so the stream needn't be buffered
+		w.write("4 0 obj\n<< /Length 5 0 R >>\nstream\n");
+		long start = w.getPosition();
+		w.write("1 g\n0 0 " + width + " " + height + " re f\n0 g\n");
+		writePostScriptRectangles(w, "re\n", "f\n");
+		long length = w.getPosition() - start;
+		w.write("endstream\nendobj\n");
+		offsets[5] = w.getPosition();
+		w.write("5 0 obj\n" + length + "\nendobj\n");
+
+		long xref = w.getPosition();
+		w.write("xref\n0 6\n0000000000 65535 f \n");
+		for (int i = 1; i < offsets.length; i++) {
+			w.write(String.format(Locale.ROOT, "%010d 00000 n \n", offsets[i]));
+		}
+		w.write("trailer\n<< /Size 6 /Root 1 0 R /Info << /Creator (" + CREATOR + ") >> >>\n");
+		w.write("startxref\n" + xref + "\n%%EOF\n");
+		w.flush();
+	}
+
+	/**
+	 * Writes this image as Encapsulated PostScript, with a bounding box of the
+	 * size of this image.
+	 *
+	 * @param out the stream to write to
+	 *
+	 * @throws NullPointerException if out is null
+	 * @throws IOException if an IO error occurs
+	 */
+	public void writeEps(OutputStream out) throws IOException {
+		AsciiWriter w = new AsciiWriter(out);
+		int width = dimension.getWidth();
+		int height = dimension.getHeight();
+		w.write("%!PS-Adobe-3.0 EPSF-3.0\n");
+		w.write("%%BoundingBox: 0 0 " + width + " " + height + "\n");
+		w.write("%%Creator: " + CREATOR + "\n");
+		w.write("%%LanguageLevel: 2\n");
+		w.write("%%Pages: 1\n");
+		w.write("%%EndComments\n");
+		w.write("save\n/r { rectfill } bind def\n");
+		w.write("1 setgray\n0 0 " + width + " " + height + " r\n0 setgray\n");
+		writePostScriptRectangles(w, "r\n", null);
+		w.write("restore\nshowpage\n%%EOF\n");
+		w.flush();
+	}
+
+	/**
+	 * Writes the runs as PostScript-style rectangles (x y width height), with
+	 * the origin at the bottom left corner.
+	 */
+	private void writePostScriptRectangles(AsciiWriter w, String rectangleOperator, String fillOperator) throws IOException {
+		int height = dimension.getHeight();
+		for (int i = 0; i < runCount; i++) {
+			int x = runs[3 * i];
+			int y = height - runs[3 * i + 1] - moduleSize;
+			w.write(x + " " + y + " " + runs[3 * i + 2] + " " + moduleSize + " " + rectangleOperator);
+		}
+		if (fillOperator != null) {
+			w.write(fillOperator);
+		}
+	}
+
+	/**
+	 * Writes US-ASCII text and counts the bytes written, which is needed for
+	 * the cross-reference table of a PDF.
+	 */
+	private static final class AsciiWriter {
+
+		private final Writer writer;
+		private long position;
+
+		AsciiWriter(OutputStream out) {
+			if (out == null) {
+				throw new NullPointerException();
+			}
+			writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.US_ASCII));
+		}
+
+		void write(String s) throws IOException {
+			writer.write(s);
+			position += s.length();
+		}
+
+		long getPosition() {
+			return position;
+		}
+
+		void flush() throws IOException {
+			writer.flush();
+		}
+	}
+}
@@ -0,0 +1,552 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.tools;
+
+import net.jcip.annotations.Immutable;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.awt.image.RenderedImage;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Writes 1-bit images as 1-bit indexed PNG, GIF or BMP files. ImageIO writes
+ * a two-colour image as a true colour PNG; the files written by this class
+ * are a fraction of that size, and are written without converting the image.
+ *
+ * Only images for which {@link #canWrite(RenderedImage)} returns true can be
+ * written, e.g. {@link BufferedImage#TYPE_BYTE_BINARY} images with a
+ * two-colour palette.
+ *
+ * Instances of this class are immutable and can be shared between threads.
+ *
+ * @author Stefan Ganzer
+ */
+@Immutable
+public final class BilevelImageWriter {
+
+	private static final int PNG_BIT_DEPTH = 1;
+	private static final int PNG_COLOR_TYPE_PALETTE = 3;
+	private static final int GIF_MAX_SIZE = 0xFFFF;
+	/** GIF doesn't allow an LZW minimum code size of 1 */
+	private static final int GIF_MIN_CODE_SIZE = 2;
+	private static final int GIF_MAX_CODE_SIZE = 12;
+	private static final int GIF_MAX_CODES = 1 << GIF_MAX_CODE_SIZE;
+	private static final int GIF_CLEAR_CODE = 1 << GIF_MIN_CODE_SIZE;
+	private static final int GIF_END_CODE = GIF_CLEAR_CODE + 1;
+	private static final int GIF_BLOCK_SIZE = 255;
+	private static final int BMP_HEADER_SIZE = 14 + 40 + 2 * 4;
+	/** 72 dpi */
+	private static final int BMP_PIXELS_PER_METER = 2835;
+	private final int deflateLevel;
+	private final Filter filter;
+
+	/**
+	 * The file formats this class writes.
+	 */
+	public enum Format {
+
+		PNG("png"), //NOI18N
+		GIF("gif"), //NOI18N
+		BMP("bmp"); //NOI18N
+		private final String extension;
+
+		private Format(String extension) {
+			this.extension = extension;
+		}
+
+		public String getExtension() {
+			return extension;
+		}
+
+		/**
+		 * Returns the format denoted by the extension of the given file.
+		 *
+		 * @param file the file
+		 *
+		 * @return the format, or null if the extension doesn't denote a format
+		 * of this class
+		 *
+		 * @throws NullPointerException if file is null
+		 */
+		public static Format forFile(File file) {
+			String extension = StaticTools.getExtension(file);
+			for (Format f : values()) {
+				if (f.extension.equals(extension)) {
+					return f;
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * The PNG filter type applied to each scanline before it is compressed.
+	 * As the rows of a QR Code repeat for the module size, UP turns all but
+	 * the first scanline of a module row into zeros.
+	 */
+	public enum Filter {
+
+		NONE, SUB, UP, AVERAGE, PAETH;
+	}
+
+	public static class Builder {
+
+		private int deflateLevel = Deflater.DEFAULT_COMPRESSION;
+		private Filter filter = Filter.UP;
+
+		/**
+		 * Sets the compression level of PNG images.
+		 *
+		 * @param level 0-9, or {@link Deflater#DEFAULT_COMPRESSION}
+		 *
+		 * @return this builder
+		 *
+		 * @throws IllegalArgumentException if level is not a valid level
+		 */
+		public Builder deflateLevel(int level) {
+			if ((level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION) && level != Deflater.DEFAULT_COMPRESSION) {
+				throw new IllegalArgumentException(Integer.toString(level));
+			}
+			this.deflateLevel = level;
+			return this;
+		}
+
+		/**
+		 * Sets the filter type of PNG images. The default is
+		 * {@link Filter#UP}.
+		 *
+		 * @param filter the filter type
+		 *
+		 * @return this builder
+		 *
+		 * @throws NullPointerException if filter is null
+		 */
+		public Builder filter(Filter filter) {
+			if (filter == null) {
+				throw new NullPointerException();
+			}
+			this.filter = filter;
+			return this;
+		}
+
+		public BilevelImageWriter build() {
+			return new BilevelImageWriter(this);
+		}
+	}
+
+	private BilevelImageWriter(Builder builder) {
+		this.deflateLevel = builder.deflateLevel;
+		this.filter = builder.filter;
+	}
+
+	public int getDeflateLevel() {
+		return deflateLevel;
+	}
+
+	public Filter getFilter() {
+		return filter;
+	}
+
+	/**
+	 * Returns true if the given image is a 1-bit image with a two-colour
+	 * palette whose pixels are packed into bytes, eight pixels per byte.
+	 *
+	 * @param image the image
+	 *
+	 * @return true if this class can write the given image
+	 *
+	 * @throws NullPointerException if image is null
+	 */
+	public static boolean canWrite(RenderedImage image) {
+		if (image == null) {
+			throw new NullPointerException();
+		}
+		if (!(image instanceof BufferedImage)) {
+			return false;
+		}
+		BufferedImage bi = (BufferedImage) image;
+		if (!(bi.getColorModel() instanceof IndexColorModel) || bi.getColorModel().getPixelSize() != 1
+				|| ((IndexColorModel) bi.getColorModel()).getMapSize() != 2) {
+			return false;
+		}
+		WritableRaster raster = bi.getRaster();
+		if (!(raster.getSampleModel() instanceof MultiPixelPackedSampleModel) || !(raster.getDataBuffer() instanceof DataBufferByte)) {
+			return false;
+		}
+		MultiPixelPackedSampleModel sm = (MultiPixelPackedSampleModel) raster.getSampleModel();
+		// Sub-images share the data of their parent with an offset
+		return raster.getParent() == null
+				&& raster.getSampleModelTranslateX() == 0
+				&& raster.getSampleModelTranslateY() == 0
+				&& sm.getDataBitOffset() == 0
+				&& raster.getDataBuffer().getOffset() == 0;
+	}
+
+	/**
+	 * Writes the given image in the given format to the given channel. The
+	 * channel is not closed.
+	 *
+	 * @param image the image to write
+	 * @param format the format to write
+	 * @param channel the channel to write to
+	 *
+	 * @throws NullPointerException if any argument is null
+	 * @throws IllegalArgumentException if {@link #canWrite(RenderedImage)}
+	 * returns false for the image
+	 * @throws IOException if an IO error occurs, or if the image is too large
+	 * for the format
+	 */
+	public void write(RenderedImage image, Format format, WritableByteChannel channel) throws IOException {
+		if (format == null) {
+			throw new NullPointerException();
+		}
+		if (channel == null) {
+			throw new NullPointerException();
+		}
+		if (!canWrite(image)) {
+			throw new IllegalArgumentException("Not a 1-bit image: " + image); //NOI18N
+		}
+		Bitmap bitmap = new Bitmap((BufferedImage) image);
+		switch (format) {
+			case PNG:
+				writePng(bitmap, channel);
+				break;
+			case GIF:
+				writeGif(bitmap, channel);
+				break;
+			case BMP:
+				writeBmp(bitmap, channel);
+				break;
+			default:
+				throw new AssertionError(format);
+		}
+	}
+
+	private void writePng(Bitmap bitmap, WritableByteChannel channel) throws IOException {
+		PngChunkWriter out = new PngChunkWriter(channel);
+		out.writeSignature();
+
+		ByteBuffer header = ByteBuffer.allocate(13);
+		header.putInt(bitmap.width).putInt(bitmap.height).put((byte) PNG_BIT_DEPTH).put((byte) PNG_COLOR_TYPE_PALETTE);
+		header.put((byte) 0).put((byte) 0).put((byte) 0); // deflate, adaptive filtering, no interlace
+		out.writeChunk("IHDR", header.array(), header.position());
+
+		byte[] palette = new byte[2 * 3];
+		byte[] alpha = new byte[2];
+		boolean opaque = true;
+		for (int i = 0; i < 2; i++) {
+			palette[i * 3] = (byte) bitmap.colors.getRed(i);
+			palette[i * 3 + 1] = (byte) bitmap.colors.getGreen(i);
+			palette[i * 3 + 2] = (byte) bitmap.colors.getBlue(i);
+			alpha[i] = (byte) bitmap.colors.getAlpha(i);
+			opaque &= bitmap.colors.getAlpha(i) == 0xFF;
+		}
+		out.writeChunk("PLTE", palette, palette.length);
+		if (!opaque) {
+			out.writeChunk("tRNS", alpha, alpha.length);
+		}
+
+		int rowBytes = bitmap.getRowBytes();
+		byte[] previous = new byte[rowBytes];
+		byte[] current = new byte[rowBytes];
+		// The filter type byte precedes each scanline
+		byte[] scanline = new byte[1 + rowBytes];
+		scanline[0] = (byte) filter.ordinal();
+		Deflater deflater = new Deflater(deflateLevel);
+		try {
+			for (int y = 0; y < bitmap.height; y++) {
+				System.arraycopy(bitmap.data, y * bitmap.stride, current, 0, rowBytes);
+				filter(current, previous, scanline);
+				out.deflate(deflater, scanline);
+				byte[] tmp = previous;
+				previous = current;
+				current = tmp;
+			}
+			out.finish(deflater);
+		} finally {
+			deflater.end();
+		}
+		out.writeChunk("IEND", new byte[0], 0);
+	}
+
+	/**
+	 * Filters the current scanline into scanline[1..], as specified by the
+	 * PNG specification for images with less than 8 bits per pixel.
+	 */
+	private void filter(byte[] current, byte[] previous, byte[] scanline) {
+		switch (filter) {
+			case NONE:
+				System.arraycopy(current, 0, scanline, 1, current.length);
+				break;
+			case SUB:
+				for (int i = 0; i < current.length; i++) {
+					int left = i == 0 ? 0 : current[i - 1];
+					scanline[i + 1] = (byte) (current[i] - left);
+				}
+				break;
+			case UP:
+				for (int i = 0; i < current.length; i++) {
+					scanline[i + 1] = (byte) (current[i] - previous[i]);
+				}
+				break;
+			case AVERAGE:
+				for (int i = 0; i < current.length; i++) {
+					int left = i == 0 ? 0 : current[i - 1] & 0xFF;
+					scanline[i + 1] = (byte) (current[i] - ((left + (previous[i] & 0xFF)) >>> 1));
+				}
+				break;
+			case PAETH:
+				for (int i = 0; i < current.length; i++) {
+					int left = i == 0 ? 0 : current[i - 1] & 0xFF;
+					int upperLeft = i == 0 ? 0 : previous[i - 1] & 0xFF;
+					scanline[i + 1] = (byte) (current[i] - paeth(left, previous[i] & 0xFF, upperLeft));
+				}
+				break;
+			default:
+				throw new AssertionError(filter);
+		}
+	}
+
+	private static int paeth(int a, int b, int c) {
+		int p = a + b - c;
+		int pa = Math.abs(p - a);
+		int pb = Math.abs(p - b);
+		int pc = Math.abs(p - c);
+		if (pa <= pb && pa <= pc) {
+			return a;
+		} else if (pb <= pc) {
+			return b;
+		}
+		return c;
+	}
+
+	private static void writeGif(Bitmap bitmap, WritableByteChannel channel) throws IOException {
+		if (bitmap.width > GIF_MAX_SIZE || bitmap.height > GIF_MAX_SIZE) {
+			throw new IOException("The image is too large for a GIF: " + bitmap.width + "x" + bitmap.height); //NOI18N
+		}
+		ByteBuffer header = ByteBuffer.allocate(6 + 7 + 2 * 3 + 10 + 1).order(ByteOrder.LITTLE_ENDIAN);
+		header.put(new byte[]{'G', 'I', 'F', '8', '9', 'a'});
+		// Logical screen descriptor with a global color table of two colors
+		header.putShort((short) bitmap.width).putShort((short) bitmap.height);
+		header.put((byte) 0x80).put((byte) 0).put((byte) 0);
+		for (int i = 0; i < 2; i++) {
+			header.put((byte) bitmap.colors.getRed(i)).put((byte) bitmap.colors.getGreen(i)).put((byte) bitmap.colors.getBlue(i));
+		}
+		// Image descriptor
+		header.put((byte) 0x2C).putShort((short) 0).putShort((short) 0);
+		header.putShort((short) bitmap.width).putShort((short) bitmap.height).put((byte) 0);
+		header.put((byte) GIF_MIN_CODE_SIZE);
+		header.flip();
+		writeFully(channel, header);
+
+		GifBlockWriter out = new GifBlockWriter(channel);
+		compress(bitmap, out);
+		out.finish();
+		writeFully(channel, ByteBuffer.wrap(new byte[]{0, 0x3B})); // block terminator, trailer
+	}
+
+	/**
+	 * Compresses the pixels with the variable length LZW code of GIF. As there
+	 * are only two colors, the string table is a binary tree: the code of a
+	 * string followed by a pixel is found at children[(code &lt;&lt; 1) |
+	 * pixel].
+	 */
+	private static void compress(Bitmap bitmap, GifBlockWriter out) throws IOException {
+		int[] children = new int[GIF_MAX_CODES << 1];
+		int codeSize = GIF_MIN_CODE_SIZE + 1;
+		int next = GIF_END_CODE + 1;
+		out.write(GIF_CLEAR_CODE, codeSize);
+		int prefix = -1;
+		for (int y = 0; y < bitmap.height; y++) {
+			int offset = y * bitmap.stride;
+			for (int x = 0; x < bitmap.width; x++) {
+				int pixel = (bitmap.data[offset + (x >>> 3)] >>> (7 - (x & 7))) & 1;
+				if (prefix < 0) {
+					prefix = pixel;
+					continue;
+				}
+				int child = children[(prefix << 1) | pixel];
+				if (child != 0) {
+					prefix = child;
+					continue;
+				}
+				out.write(prefix, codeSize);
+				// Grow the code size when the next code doesn't fit anymore
+				if (next == 1 << codeSize && codeSize < GIF_MAX_CODE_SIZE) {
+					codeSize++;
+				}
+				if (next < GIF_MAX_CODES) {
+					children[(prefix << 1) | pixel] = next++;
+				} else {
+					out.write(GIF_CLEAR_CODE, codeSize);
+					Arrays.fill(children, 0);
+					codeSize = GIF_MIN_CODE_SIZE + 1;
+					next = GIF_END_CODE + 1;
+				}
+				prefix = pixel;
+			}
+		}
+		if (prefix >= 0) {
+			out.write(prefix, codeSize);
+			if (next == 1 << codeSize && codeSize < GIF_MAX_CODE_SIZE) {
+				codeSize++;
+			}
+		}
+		out.write(GIF_END_CODE, codeSize);
+	}
+
+	private static void writeBmp(Bitmap bitmap, WritableByteChannel channel) throws IOException {
+		// Rows are padded to a multiple of four bytes
+		int rowBytes = ((bitmap.width + 31) >>> 5) << 2;
+		long imageSize = (long) rowBytes * bitmap.height;
+		if (BMP_HEADER_SIZE + imageSize > Integer.MAX_VALUE) {
+			throw new IOException("The image is too large for a BMP: " + bitmap.width + "x" + bitmap.height); //NOI18N
+		}
+		ByteBuffer header = ByteBuffer.allocate(BMP_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		header.put((byte) 'B').put((byte) 'M');
+		header.putInt((int) (BMP_HEADER_SIZE + imageSize)).putInt(0).putInt(BMP_HEADER_SIZE);
+		header.putInt(40).putInt(bitmap.width).putInt(bitmap.height);
+		header.putShort((short) 1).putShort((short) 1); // planes, bits per pixel
+		header.putInt(0).putInt((int) imageSize); // uncompressed
+		header.putInt(BMP_PIXELS_PER_METER).putInt(BMP_PIXELS_PER_METER);
+		header.putInt(2).putInt(2); // colors used, important colors
+		for (int i = 0; i < 2; i++) {
+			header.put((byte) bitmap.colors.getBlue(i)).put((byte) bitmap.colors.getGreen(i)).put((byte) bitmap.colors.getRed(i)).put((byte) 0);
+		}
+		header.flip();
+		writeFully(channel, header);
+
+		int rowsPerBuffer = Math.max(1, (64 * 1024) / rowBytes);
+		ByteBuffer buffer = ByteBuffer.allocate(rowsPerBuffer * rowBytes);
+		byte[] row = new byte[rowBytes];
+		int copy = Math.min(bitmap.stride, rowBytes);
+		// Bottom-up
+		for (int y = bitmap.height - 1; y >= 0; y--) {
+			System.arraycopy(bitmap.data, y * bitmap.stride, row, 0, copy);
+			buffer.put(row);
+			if (!buffer.hasRemaining()) {
+				buffer.flip();
+				writeFully(channel, buffer);
+				buffer.clear();
+			}
+		}
+		buffer.flip();
+		writeFully(channel, buffer);
+	}
+
+	private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * The packed pixels of an image for which canWrite returns true.
+	 */
+	private static final class Bitmap {
+
+		final int width;
+		final int height;
+		final int stride;
+		final byte[] data;
+		final IndexColorModel colors;
+
+		Bitmap(BufferedImage image) {
+			width = image.getWidth();
+			height = image.getHeight();
+			stride = ((MultiPixelPackedSampleModel) image.getRaster().getSampleModel()).getScanlineStride();
+			data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+			colors = (IndexColorModel) image.getColorModel();
+		}
+
+		int getRowBytes() {
+			return (width + 7) >>> 3;
+		}
+	}
+
+	/**
+	 * Packs LZW codes least significant bit first into the data sub-blocks of
+	 * a GIF image.
+	 */
+	private static final class GifBlockWriter {
+
+		private final WritableByteChannel channel;
+		/** A length byte followed by up to 255 bytes of data, several times */
+		private final ByteBuffer buffer = ByteBuffer.allocate(64 * (1 + GIF_BLOCK_SIZE));
+		private int blockStart = -1;
+		private int bits;
+		private int bitCount;
+
+		GifBlockWriter(WritableByteChannel channel) {
+			this.channel = channel;
+		}
+
+		void write(int code, int codeSize) throws IOException {
+			bits |= code << bitCount;
+			bitCount += codeSize;
+			while (bitCount >= 8) {
+				put((byte) bits);
+				bits >>>= 8;
+				bitCount -= 8;
+			}
+		}
+
+		private void put(byte b) throws IOException {
+			if (blockStart < 0) {
+				if (!buffer.hasRemaining()) {
+					flush();
+				}
+				blockStart = buffer.position();
+				buffer.put((byte) 0);
+			}
+			buffer.put(b);
+			int length = buffer.position() - blockStart - 1;
+			buffer.put(blockStart, (byte) length);
+			if (length == GIF_BLOCK_SIZE) {
+				blockStart = -1;
+			}
+		}
+
+		void finish() throws IOException {
+			if (bitCount > 0) {
+				put((byte) bits);
+				bits = 0;
+				bitCount = 0;
+			}
+			flush();
+		}
+
+		private void flush() throws IOException {
+			buffer.flip();
+			writeFully(channel, buffer);
+			buffer.clear();
+			blockStart = -1;
+		}
+	}
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.tools;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs the latest of a burst of actions, e.g. one generation per pause in
+ * typing instead of one per keystroke. An action that is submitted while the
+ * scheduler is idle runs without delay. Otherwise it replaces the action
+ * waiting to be run, if any, and runs once no other action has been
+ * submitted for the debounce window: each submit postpones the run.
+ *
+ * The debounce window adapts to the latency of the actions, as reported by
+ * {@link #recordLatency(long, TimeUnit)}: it is the larger of the moving
+ * average, which follows a sudden slowdown at once, and the 90th percentile
+ * of the recent latencies, which ignores single fast runs. It is bounded by
+ * the minimum and maximum window given to the constructor.
+ *
+ * Submitting an action doesn't block: the latest action is handed over
+ * through an atomic reference.
+ *
+ * @author Stefan Ganzer
+ */
+@ThreadSafe
+public class CoalescingScheduler {
+
+	private static final Logger LOGGER = Logger.getLogger(CoalescingScheduler.class.getName());
+	/** The weight of a new latency in the moving average */
+	private static final double SMOOTHING_FACTOR = 0.2;
+	/** The number of recent latencies the percentile is computed from */
+	private static final int SAMPLES = 32;
+	private static final double PERCENTILE = 0.9;
+	private final ScheduledExecutorService exec;
+	private final long minWindow;
+	private final long maxWindow;
+	/** The action to run next, or null */
+	private final AtomicReference<Callable<?>> latest = new AtomicReference<Callable<?>>();
+	/** True while a run of the latest action is scheduled */
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private final AtomicLong lastSubmitTime = new AtomicLong(Long.MIN_VALUE);
+	/** The bits of the moving average in nanoseconds, or of NaN if there is
+	 * no latency yet */
+	private final AtomicLong averageBits = new AtomicLong(Double.doubleToLongBits(Double.NaN));
+	private final AtomicLongArray samples = new AtomicLongArray(SAMPLES);
+	private final AtomicInteger sampleCount = new AtomicInteger();
+	private final LongAdder scheduledCount = new LongAdder();
+	private final LongAdder coalescedCount = new LongAdder();
+	private final LongAdder executedCount = new LongAdder();
+	/** Runs the latest action once the debounce window has passed without a
+	 * submit, and reschedules itself otherwise */
+	private final Runnable debounce = new Runnable() {
+		@Override
+		public void run() {
+			long quiet = System.nanoTime() - lastSubmitTime.get();
+			long window = getWindowNanos();
+			if (quiet < window) {
+				schedule(this, window - quiet);
+			} else {
+				drain.run();
+			}
+		}
+	};
+	private final Runnable drain = new Runnable() {
+		@Override
+		public void run() {
+			scheduled.set(false);
+			Callable<?> action = latest.getAndSet(null);
+			if (action == null) {
+				return;
+			}
+			executedCount.increment();
+			try {
+				action.call();
+			} catch (Exception e) {
+				LOGGER.log(Level.WARNING, "Action failed", e);
+			}
+		}
+	};
+
+	/**
+	 * Creates a new CoalescingScheduler.
+	 *
+	 * @param exec the executor that runs the actions
+	 * @param minWindow the minimum debounce window
+	 * @param maxWindow the maximum debounce window, which is also used as
+	 * long as no latency has been recorded
+	 * @param unit the unit of minWindow and maxWindow
+	 *
+	 * @throws NullPointerException if exec or unit is null
+	 * @throws IllegalArgumentException if minWindow &lt; 0 or maxWindow &lt;
+	 * minWindow
+	 */
+	public CoalescingScheduler(ScheduledExecutorService exec, long minWindow, long maxWindow, TimeUnit unit) {
+		if (exec == null || unit == null) {
+			throw new NullPointerException();
+		}
+		if (minWindow < 0 || maxWindow < minWindow) {
+			throw new IllegalArgumentException(minWindow + ", " + maxWindow);
+		}
+		this.exec = exec;
+		this.minWindow = unit.toNanos(minWindow);
+		this.maxWindow = unit.toNanos(maxWindow);
+	}
+
+	/**
+	 * Submits the given action. It runs on the executor without delay if no
+	 * action has been submitted within the debounce window. Otherwise it runs
+	 * once the debounce window has passed without another submit, unless it
+	 * is replaced by a later action before. Actions submitted after
+	 * {@link #shutdown()} are ignored.
+	 *
+	 * @param action the action
+	 *
+	 * @throws NullPointerException if action is null
+	 */
+	public void submit(Callable<?> action) {
+		if (action == null) {
+			throw new NullPointerException();
+		}
+		if (exec.isShutdown()) {
+			return;
+		}
+		scheduledCount.increment();
+		if (latest.getAndSet(action) != null) {
+			coalescedCount.increment();
+		}
+		long now = System.nanoTime();
+		long previous = lastSubmitTime.getAndSet(now);
+		long window = getWindowNanos();
+		if (scheduled.compareAndSet(false, true)) {
+			boolean idle = previous == Long.MIN_VALUE || now - previous >= window;
+			if (idle) {
+				schedule(drain, 0);
+			} else {
+				schedule(debounce, window);
+			}
+		}
+	}
+
+	private void schedule(Runnable r, long delay) {
+		try {
+			exec.schedule(r, delay, TimeUnit.NANOSECONDS);
+		} catch (RejectedExecutionException ree) {
+			// shut down concurrently; the action is dropped
+			scheduled.set(false);
+		}
+	}
+
+	/**
+	 * Records the latency of an action, e.g. the time it took to generate a
+	 * QR Code, to adapt the debounce window.
+	 *
+	 * @param latency the latency
+	 * @param unit the unit of latency
+	 *
+	 * @throws IllegalArgumentException if latency &lt; 0
+	 */
+	public void recordLatency(long latency, TimeUnit unit) {
+		if (latency < 0) {
+			throw new IllegalArgumentException(Long.toString(latency));
+		}
+		long nanos = unit.toNanos(latency);
+		samples.set((sampleCount.getAndIncrement() & Integer.MAX_VALUE) % SAMPLES, nanos);
+		while (true) {
+			long bits = averageBits.get();
+			double average = Double.longBitsToDouble(bits);
+			double updated = Double.isNaN(average) ? nanos : average + SMOOTHING_FACTOR * (nanos - average);
+			if (averageBits.compareAndSet(bits, Double.doubleToLongBits(updated))) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Returns the current debounce window.
+	 *
+	 * @param unit the unit of the returned value
+	 *
+	 * @return the current debounce window
+	 */
+	public long getWindow(TimeUnit unit) {
+		return unit.convert(getWindowNanos(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Returns the moving average of the recorded latencies.
+	 *
+	 * @param unit the unit of the returned value
+	 *
+	 * @return the moving average of the recorded latencies, or 0 if none has
+	 * been recorded yet
+	 */
+	public long getAverageLatency(TimeUnit unit) {
+		double average = Double.longBitsToDouble(averageBits.get());
+		return Double.isNaN(average) ? 0 : unit.convert(Math.round(average), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Returns the 90th percentile of the recently recorded latencies.
+	 *
+	 * @param unit the unit of the returned value
+	 *
+	 * @return the 90th percentile of the recently recorded latencies, or 0 if
+	 * none has been recorded yet
+	 */
+	public long getLatencyPercentile(TimeUnit unit) {
+		return unit.convert(getPercentileNanos(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Returns the number of actions submitted.
+	 *
+	 * @return the number of actions submitted
+	 */
+	public long getScheduledCount() {
+		return scheduledCount.sum();
+	}
+
+	/**
+	 * Returns the number of actions that have been replaced by a later action
+	 * before they could run.
+	 *
+	 * @return the number of actions that have been replaced
+	 */
+	public long getCoalescedCount() {
+		return coalescedCount.sum();
+	}
+
+	/**
+	 * Returns the number of actions that have been run.
+	 *
+	 * @return the number of actions that have been run
+	 */
+	public long getExecutedCount() {
+		return executedCount.sum();
+	}
+
+	/**
+	 * Drops the action waiting to be run, if any, and shuts the executor
+	 * down.
+	 */
+	public void shutdown() {
+		exec.shutdown();
+		latest.set(null);
+	}
+
+	private long getWindowNanos() {
+		if (sampleCount.get() == 0) {
+			return maxWindow;
+		}
+		long average = Math.round(Double.longBitsToDouble(averageBits.get()));
+		long window = Math.max(average, getPercentileNanos());
+		return Math.min(maxWindow, Math.max(minWindow, window));
+	}
+
+	private long getPercentileNanos() {
+		int n = Math.min(sampleCount.get(), SAMPLES);
+		if (n == 0) {
+			return 0;
+		}
+		long[] sorted = new long[n];
+		for (int i = 0; i < n; i++) {
+			sorted[i] = samples.get(i);
+		}
+		Arrays.sort(sorted);
+		return sorted[(int) Math.ceil(PERCENTILE * n) - 1];
+	}
+
+	@Override
+	public String toString() {
+		return "CoalescingScheduler{" + "scheduled=" + getScheduledCount() + ", coalesced=" + getCoalescedCount() + ", executed=" + getExecutedCount() + ", window=" + getWindow(TimeUnit.MILLISECONDS) + " ms}";
+	}
+}
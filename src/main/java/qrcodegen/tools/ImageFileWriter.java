@@ -18,31 +18,93 @@
  */
 package qrcodegen.tools;
 
+import qrcodegen.qrcode.renderer.VectorFormat;
+import qrcodegen.qrcode.renderer.VectorImage;
+
 import javax.imageio.ImageIO;
 import java.awt.image.RenderedImage;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
+ * Writes an image to a file in the format denoted by the file extension.
+ *
+ * 1-bit images are written as 1-bit PNG, GIF or BMP files by a
+ * {@link BilevelImageWriter}, and vector images in a {@link VectorFormat}.
+ * Both are written to a temporary file in the same directory first, which
+ * then replaces the file, so the file is never left half-written. All other
+ * images and formats are written by ImageIO.
  *
  * @author Stefan Ganzer
  */
 public class ImageFileWriter {
 
+	private static final String TEMP_FILE_SUFFIX = ".tmp"; //NOI18N
+	private static final int TEMP_FILE_ATTEMPTS = 16;
+	private static final BilevelImageWriter DEFAULT_BILEVEL_WRITER = new BilevelImageWriter.Builder().build();
 	private final RenderedImage image;
+	/** May be null */
+	private final VectorImage vectorImage;
+	private final BilevelImageWriter bilevelWriter;
 
 	public ImageFileWriter(RenderedImage image) {
+		this(image, null);
+	}
+
+	/**
+	 * Creates a new ImageFileWriter that writes the given vector image to
+	 * files with the extension of a {@link VectorFormat}, and the given image
+	 * to all other files.
+	 *
+	 * @param image the image to write
+	 * @param vectorImage the vector image to write. May be null.
+	 *
+	 * @throws NullPointerException if image is null
+	 */
+	public ImageFileWriter(RenderedImage image, VectorImage vectorImage) {
+		this(image, vectorImage, DEFAULT_BILEVEL_WRITER);
+	}
+
+	/**
+	 * Creates a new ImageFileWriter that writes 1-bit images with the given
+	 * writer.
+	 *
+	 * @param image the image to write
+	 * @param vectorImage the vector image to write. May be null.
+	 * @param bilevelWriter the writer of 1-bit images
+	 *
+	 * @throws NullPointerException if image or bilevelWriter is null
+	 */
+	public ImageFileWriter(RenderedImage image, VectorImage vectorImage, BilevelImageWriter bilevelWriter) {
 		if (image == null) {
 			throw new NullPointerException();
 		}
+		if (bilevelWriter == null) {
+			throw new NullPointerException();
+		}
 		this.image = image;
+		this.vectorImage = vectorImage;
+		this.bilevelWriter = bilevelWriter;
 	}
 
 	/**
 	 * Writes the image to the given file. The format is defined be the file
 	 * extension, that is the file has to have a valid extension that a writer
-	 * exists for.
+	 * exists for. If the extension denotes a {@link VectorFormat}, the vector
+	 * image is written.
 	 *
 	 * @param file the file to write the given image to
 	 *
@@ -63,6 +125,28 @@ public class ImageFileWriter {
 		if (f.isDirectory()) {
 			throw new IllegalArgumentException("The file denotes a directory: " + f.getAbsolutePath());
 		}
+		final VectorFormat vectorFormat = VectorFormat.forFile(f);
+		if (vectorFormat != null && vectorImage != null) {
+			writeAtomically(f, new ContentWriter() {
+				@Override
+				public void write(WritableByteChannel channel) throws IOException {
+					OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel));
+					vectorImage.write(vectorFormat, out);
+					out.flush();
+				}
+			});
+			return;
+		}
+		final BilevelImageWriter.Format bilevelFormat = BilevelImageWriter.Format.forFile(f);
+		if (bilevelFormat != null && BilevelImageWriter.canWrite(image)) {
+			writeAtomically(f, new ContentWriter() {
+				@Override
+				public void write(WritableByteChannel channel) throws IOException {
+					bilevelWriter.write(image, bilevelFormat, channel);
+				}
+			});
+			return;
+		}
 		/* ImageIO.write swallows the IOException that is thrown by the
 		 * underlying FileImageOutputStream if the file cannot be created or
 		 * be written to, and throws a NullPointerException instead.
@@ -85,4 +169,72 @@ public class ImageFileWriter {
 			throw new IOException("No appropriate writer was found for " + formatName); //NOI18N
 		}
 	}
+
+	/**
+	 * Writes the content to a new temporary file next to the given file, and
+	 * replaces the given file with it. The temporary file is deleted if
+	 * writing fails, so the given file is either replaced completely or not
+	 * at all.
+	 *
+	 * @param file the file to write to
+	 * @param content writes the content to the channel of the temporary file
+	 *
+	 * @throws NullPointerException if file or content is null
+	 * @throws FileNotFoundException if the given file can not be written to or
+	 * if the temporary file can not be created
+	 * @throws IOException if writing fails due to an IO error
+	 */
+	public static void writeAtomically(File file, ContentWriter content) throws FileNotFoundException, IOException {
+		if (file == null || content == null) {
+			throw new NullPointerException();
+		}
+		if (file.exists() && !file.canWrite()) {
+			throw new FileNotFoundException("No write access to the existing file: " + file.getAbsolutePath());
+		}
+		Path target = file.toPath();
+		Path temp = null;
+		FileChannel channel = null;
+		for (int i = 0; channel == null; i++) {
+			temp = target.resolveSibling("." + file.getName() + Long.toHexString(ThreadLocalRandom.current().nextLong()) + TEMP_FILE_SUFFIX);
+			try {
+				// Unlike Files.createTempFile, this creates the file with the default permissions
+				channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+			} catch (FileAlreadyExistsException faee) {
+				if (i == TEMP_FILE_ATTEMPTS) {
+					throw faee;
+				}
+			} catch (IOException ioe) {
+				FileNotFoundException fnfe = new FileNotFoundException("Cannot create the file: " + file.getAbsolutePath());
+				fnfe.initCause(ioe);
+				throw fnfe;
+			}
+		}
+		boolean moved = false;
+		try {
+			try {
+				content.write(channel);
+			} finally {
+				channel.close();
+			}
+			try {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException amnse) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+			moved = true;
+		} finally {
+			if (!moved) {
+				Files.deleteIfExists(temp);
+			}
+		}
+	}
+
+	/**
+	 * Writes the content of a file for
+	 * {@link #writeAtomically(File, ContentWriter)}.
+	 */
+	public interface ContentWriter {
+
+		void write(WritableByteChannel channel) throws IOException;
+	}
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.tools;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes the chunks of a PNG file to a channel. The scanlines passed to
+ * {@link #deflate(Deflater, byte[])} are compressed and collected into IDAT
+ * chunks of up to 64 KiB, so the whole image never has to be in memory.
+ *
+ * Instances of this class are not thread-safe.
+ *
+ * @author Stefan Ganzer
+ */
+public final class PngChunkWriter {
+
+	private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+	/** The maximum size of the data of a single IDAT chunk */
+	private static final int CHUNK_SIZE = 64 * 1024;
+	private final WritableByteChannel channel;
+	private final byte[] data = new byte[CHUNK_SIZE];
+	private int length;
+	private final CRC32 crc = new CRC32();
+	private final ByteBuffer intBuffer = ByteBuffer.allocate(4);
+
+	/**
+	 * Creates a new PngChunkWriter. The channel is not closed by this class.
+	 *
+	 * @param channel the channel to write to
+	 *
+	 * @throws NullPointerException if channel is null
+	 */
+	public PngChunkWriter(WritableByteChannel channel) {
+		if (channel == null) {
+			throw new NullPointerException();
+		}
+		this.channel = channel;
+	}
+
+	/**
+	 * Writes the PNG signature, which precedes the first chunk.
+	 *
+	 * @throws IOException if an IO error occurs
+	 */
+	public void writeSignature() throws IOException {
+		writeFully(ByteBuffer.wrap(SIGNATURE));
+	}
+
+	/**
+	 * Compresses the given scanline, including its filter type byte. Full
+	 * IDAT chunks are written right away.
+	 *
+	 * @param deflater the deflater of the image data
+	 * @param input the scanline
+	 *
+	 * @throws IOException if an IO error occurs
+	 */
+	public void deflate(Deflater deflater, byte[] input) throws IOException {
+		deflater.setInput(input);
+		while (!deflater.needsInput()) {
+			drain(deflater);
+		}
+	}
+
+	/**
+	 * Finishes the compression and writes the last IDAT chunk.
+	 *
+	 * @param deflater the deflater of the image data
+	 *
+	 * @throws IOException if an IO error occurs
+	 */
+	public void finish(Deflater deflater) throws IOException {
+		deflater.finish();
+		while (!deflater.finished()) {
+			drain(deflater);
+		}
+		if (length > 0) {
+			writeChunk("IDAT", data, length);
+			length = 0;
+		}
+	}
+
+	private void drain(Deflater deflater) throws IOException {
+		length += deflater.deflate(data, length, data.length - length);
+		if (length == data.length) {
+			writeChunk("IDAT", data, length);
+			length = 0;
+		}
+	}
+
+	/**
+	 * Writes a chunk.
+	 *
+	 * @param type the four letter chunk type
+	 * @param chunkData the data of the chunk
+	 * @param chunkLength the number of bytes of chunkData to write
+	 *
+	 * @throws IOException if an IO error occurs
+	 */
+	public void writeChunk(String type, byte[] chunkData, int chunkLength) throws IOException {
+		byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+		crc.reset();
+		crc.update(typeBytes);
+		crc.update(chunkData, 0, chunkLength);
+		writeInt(chunkLength);
+		writeFully(ByteBuffer.wrap(typeBytes));
+		writeFully(ByteBuffer.wrap(chunkData, 0, chunkLength));
+		writeInt((int) crc.getValue());
+	}
+
+	private void writeInt(int i) throws IOException {
+		intBuffer.clear();
+		intBuffer.putInt(i).flip();
+		writeFully(intBuffer);
+	}
+
+	private void writeFully(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.junit.jupiter.api.*;
+import qrcodegen.QRCodeGenerator.Modus;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Stefan Ganzer
+ */
+public class EncodeCacheTest {
+
+	public EncodeCacheTest() {
+	}
+
+	@BeforeAll
+	public static void setUpClass() {
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void renderingParametersShouldNotBePartOfTheKey() throws Exception {
+		EncodeCache cache = new EncodeCache(10, Long.MAX_VALUE);
+		QRCodeEncoder encoder = new QRCodeEncoder(cache);
+
+		EncodeResult first = encoder.encode(new EncodeRequest.Builder("abc").modus(Modus.BEST_FIT).build());
+		EncodeResult second = encoder.encode(new EncodeRequest.Builder("abc").modus(Modus.MODULE_SIZE).moduleSize(3).build());
+
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.size());
+		assertEquals(first.getVersion(), second.getVersion());
+		assertEquals(3, second.getModuleSize());
+		// The matrix is packed once and cached with the symbol
+		assertSame(first.getModuleMatrix(), second.getModuleMatrix());
+	}
+
+	@Test
+	public void encodingParametersShouldBePartOfTheKey() throws Exception {
+		EncodeCache cache = new EncodeCache(10, Long.MAX_VALUE);
+		QRCodeEncoder encoder = new QRCodeEncoder(cache);
+
+		encoder.encode(new EncodeRequest.Builder("abc").build());
+		encoder.encode(new EncodeRequest.Builder("abc").errorCorrectionLevel(ErrorCorrectionLevel.H).build());
+		encoder.encode(new EncodeRequest.Builder("abc").characterEncoding(StandardCharsets.UTF_8).build());
+		encoder.encode(new EncodeRequest.Builder("abc").characterEncoding(null).build());
+		EncodeResult result = encoder.encode(new EncodeRequest.Builder("abc").version(5).build());
+
+		assertEquals(5, cache.getMissCount());
+		assertEquals(0, cache.getHitCount());
+		assertEquals(5, result.getVersion());
+	}
+
+	@Test
+	public void shouldEvictLeastRecentlyUsedEntries() throws Exception {
+		EncodeCache cache = new EncodeCache(2, Long.MAX_VALUE);
+		QRCodeEncoder encoder = new QRCodeEncoder(cache);
+
+		encoder.encode(new EncodeRequest.Builder("a").build());
+		encoder.encode(new EncodeRequest.Builder("b").build());
+		encoder.encode(new EncodeRequest.Builder("a").build());
+		encoder.encode(new EncodeRequest.Builder("c").build());
+		assertEquals(1, cache.getEvictionCount());
+		assertEquals(2, cache.size());
+
+		encoder.encode(new EncodeRequest.Builder("a").build());
+		assertEquals(2, cache.getHitCount());
+		encoder.encode(new EncodeRequest.Builder("b").build());
+		assertEquals(2, cache.getHitCount());
+		assertEquals(4, cache.getMissCount());
+	}
+
+	@Test
+	public void shouldRespectTheMemoryBound() throws Exception {
+		EncodeCache cache = new EncodeCache(100, 2000);
+		QRCodeEncoder encoder = new QRCodeEncoder(cache);
+
+		for (int i = 0; i < 10; i++) {
+			encoder.encode(new EncodeRequest.Builder(Integer.toString(i)).build());
+			assertTrue(cache.getEstimatedBytes() <= 2000);
+		}
+		assertTrue(cache.size() < 10);
+		assertEquals(10 - cache.size(), cache.getEvictionCount());
+
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			sb.append('x');
+		}
+		encoder.encode(new EncodeRequest.Builder(sb.toString()).build());
+		assertTrue(cache.getEstimatedBytes() <= 2000);
+
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getEstimatedBytes());
+	}
+}
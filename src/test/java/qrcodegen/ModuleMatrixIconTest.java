@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import org.junit.jupiter.api.*;
+import qrcodegen.qrcode.ModuleMatrix;
+import qrcodegen.qrcode.encoder.SymbolEncoder;
+import qrcodegen.qrcode.renderer.Raster;
+import qrcodegen.tools.ImmutableDimension;
+
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Stefan Ganzer
+ */
+public class ModuleMatrixIconTest {
+
+	private static final ImmutableDimension REQUESTED = new ImmutableDimension(203, 150);
+	private ByteMatrix matrix;
+	private Raster raster;
+
+	public ModuleMatrixIconTest() {
+	}
+
+	@BeforeAll
+	public static void setUpClass() {
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		matrix = SymbolEncoder.encode("http://www.example.com/", ErrorCorrectionLevel.M, null, SymbolEncoder.AUTOMATIC_VERSION).getMatrix();
+		raster = Raster.forRequestedDimension(matrix, REQUESTED, false);
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void shouldPaintTheSamePixelsAsTheImage() {
+		ModuleMatrixIcon icon = new ModuleMatrixIcon(raster.toImage(), ModuleMatrix.of(matrix), raster.getModuleSize());
+		assertImagesEqual(raster.toImage(), paint(icon, null));
+
+		// only the clip is painted
+		BufferedImage clipped = paint(icon, new Rectangle(50, 40, 30, 20));
+		BufferedImage expected = raster.toImage();
+		for (int y = 0; y < expected.getHeight(); y++) {
+			for (int x = 0; x < expected.getWidth(); x++) {
+				int rgb = x >= 50 && x < 80 && y >= 40 && y < 60 ? expected.getRGB(x, y) : 0;
+				assertEquals(rgb, clipped.getRGB(x, y), x + "," + y);
+			}
+		}
+	}
+
+	@Test
+	public void shouldScaleByTheZoomFactor() {
+		ModuleMatrixIcon icon = new ModuleMatrixIcon(raster.toImage(), ModuleMatrix.of(matrix), raster.getModuleSize());
+		icon.setZoom(2);
+		assertEquals(406, icon.getIconWidth());
+		assertEquals(300, icon.getIconHeight());
+		BufferedImage expected = raster.toImage();
+		BufferedImage zoomed = paint(icon, null);
+		for (int y = 0; y < expected.getHeight(); y++) {
+			for (int x = 0; x < expected.getWidth(); x++) {
+				assertEquals(expected.getRGB(x, y), zoomed.getRGB(2 * x + 1, 2 * y + 1));
+			}
+		}
+		icon.setZoom(100);
+		assertEquals(ModuleMatrixIcon.MAX_ZOOM, icon.getZoom());
+	}
+
+	@Test
+	public void shouldReturnTheChangedRegion() throws Exception {
+		ModuleMatrixIcon icon = new ModuleMatrixIcon(raster.toImage(), ModuleMatrix.of(matrix), raster.getModuleSize());
+		assertTrue(icon.update(raster.toImage(), ModuleMatrix.of(matrix), raster.getModuleSize()).isEmpty());
+
+		ByteMatrix changed = SymbolEncoder.encode("http://www.example.com/", ErrorCorrectionLevel.M, null, SymbolEncoder.AUTOMATIC_VERSION).getMatrix();
+		int row = 10;
+		changed.set(12, row, 1 - changed.get(12, row));
+		Raster changedRaster = Raster.forRequestedDimension(changed, REQUESTED, false);
+		Rectangle dirty = icon.update(changedRaster.toImage(), ModuleMatrix.of(changed), changedRaster.getModuleSize());
+		int moduleSize = raster.getModuleSize();
+		int top = (REQUESTED.getHeight() - matrix.getHeight() * moduleSize) / 2 + row * moduleSize;
+		assertEquals(top, dirty.y);
+		assertEquals(moduleSize, dirty.height);
+		assertImagesEqual(changedRaster.toImage(), paint(icon, null));
+
+		ByteMatrix other = SymbolEncoder.encode("a longer content that needs a larger version", ErrorCorrectionLevel.M, null, SymbolEncoder.AUTOMATIC_VERSION).getMatrix();
+		Raster otherRaster = Raster.forRequestedDimension(other, REQUESTED, false);
+		assertNull(icon.update(otherRaster.toImage(), ModuleMatrix.of(other), otherRaster.getModuleSize()));
+	}
+
+	private static BufferedImage paint(ModuleMatrixIcon icon, Rectangle clip) {
+		BufferedImage image = new BufferedImage(icon.getIconWidth(), icon.getIconHeight(), BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		try {
+			if (clip != null) {
+				g.setClip(clip);
+			}
+			icon.paintIcon(null, g, 0, 0);
+		} finally {
+			g.dispose();
+		}
+		return image;
+	}
+
+	private static void assertImagesEqual(BufferedImage expected, BufferedImage actual) {
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		for (int y = 0; y < expected.getHeight(); y++) {
+			for (int x = 0; x < expected.getWidth(); x++) {
+				assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), x + "," + y);
+			}
+		}
+	}
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen;
+
+import com.google.zxing.*;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.junit.jupiter.api.*;
+import qrcodegen.QRCodeGenerator.Modus;
+import qrcodegen.qrcode.renderer.Raster;
+import qrcodegen.tools.ImmutableDimension;
+import qrcodegen.tools.TriState;
+
+import java.awt.image.BufferedImage;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Stefan Ganzer
+ */
+public class QRCodeEncoderTest {
+
+	public QRCodeEncoderTest() {
+	}
+
+	@BeforeAll
+	public static void setUpClass() {
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void shouldProduceTheSameImageAsTheGenerator() throws Exception {
+		String content = "http://www.example.com/ÄÖÜ";
+		QRCodeGenerator generator = new QRCodeGenerator();
+		generator.setContent(content);
+		generator.setErrorCorrectionLevel(ErrorCorrectionLevel.Q);
+		generator.setCharacterEncoding(StandardCharsets.UTF_8);
+		generator.setModus(Modus.BEST_FIT);
+		generator.setRequestedDimension(new ImmutableDimension(200, 150));
+		generator.generateCode();
+
+		EncodeResult result = new QRCodeEncoder().encode(generator.createRequest());
+
+		assertEquals(generator.getVersion(), result.getVersion());
+		assertEquals(generator.getMode(), result.getMode());
+		assertEquals(generator.getActualDimension(), result.getActualDimension());
+		assertEquals(generator.getModuleSize(), result.getModuleSize());
+		assertEquals(generator.exceedsRequestedDimension(), result.exceedsRequestedDimension());
+		assertEquals(generator.getWasEncodable(), result.getWasEncodable());
+		assertEquals(TriState.FALSE, result.getWasAsciiOnly());
+		assertImagesEqual(generator.getImage(), result.getImage());
+		assertEquals(content, decode(result.getImage()));
+	}
+
+	@Test
+	public void shouldEncodeConcurrently() throws Exception {
+		final QRCodeEncoder encoder = new QRCodeEncoder();
+		ExecutorService exec = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<EncodeResult>> futures = new ArrayList<Future<EncodeResult>>();
+			for (int i = 0; i < 64; i++) {
+				final EncodeRequest request = new EncodeRequest.Builder("CONTENT " + i)
+						.modus(Modus.MODULE_SIZE)
+						.moduleSize(1 + i % 3)
+						.build();
+				futures.add(exec.submit(new Callable<EncodeResult>() {
+					@Override
+					public EncodeResult call() throws Exception {
+						return encoder.encode(request);
+					}
+				}));
+			}
+			for (int i = 0; i < futures.size(); i++) {
+				EncodeResult result = futures.get(i).get();
+				assertEquals(1 + i % 3, result.getModuleSize());
+				assertEquals(TriState.NOT_APPLICABLE, result.exceedsRequestedDimension());
+				assertEquals("CONTENT " + i, decode(result.getImage()));
+			}
+		} finally {
+			exec.shutdown();
+		}
+	}
+
+	@Test
+	public void shouldThrowIfModuleSizeExceedsMaxImageSize() {
+		final EncodeRequest request = new EncodeRequest.Builder("abc")
+				.modus(Modus.MODULE_SIZE)
+				.moduleSize(10)
+				.maxImageSize(new ImmutableDimension(100, 100))
+				.build();
+		CodeSizeException cse = Assertions.assertThrows(CodeSizeException.class, () -> {
+			new QRCodeEncoder().encode(request);
+		});
+		assertEquals(new ImmutableDimension(290, 290), cse.getDimension());
+	}
+
+	@Test
+	public void shouldThrowIfContentIsTooLong() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 4000; i++) {
+			sb.append('t');
+		}
+		final EncodeRequest request = new EncodeRequest.Builder(sb.toString()).build();
+		Assertions.assertThrows(WriterException.class, () -> {
+			new QRCodeEncoder().encode(request);
+		});
+	}
+
+	@Test
+	public void shouldDivideTooLongContentIntoStructuredAppendSequence() throws Exception {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 4000; i++) {
+			sb.append('t');
+		}
+		EncodeRequest request = new EncodeRequest.Builder(sb.toString())
+				.modus(Modus.MODULE_SIZE)
+				.moduleSize(2)
+				.structuredAppend(true)
+				.build();
+
+		EncodeResult result = new QRCodeEncoder().encode(request);
+
+		assertEquals(2, result.getSequence().size());
+		assertEquals(2, result.getQRCode().getSequenceTotal());
+		StringBuilder decoded = new StringBuilder();
+		for (Raster raster : result.getSequenceRasters()) {
+			decoded.append(decode(raster.toImage()));
+		}
+		assertEquals(sb.toString(), decoded.toString());
+		assertTrue(result.getActualDimension().getWidth() > result.getSequenceRasters().get(0).getDimension().getWidth());
+	}
+
+	@Test
+	public void equalRequestsShouldHaveEqualHashCodes() {
+		EncodeRequest a = new EncodeRequest.Builder("abc").characterEncoding(null).build();
+		EncodeRequest b = new EncodeRequest.Builder("abc").characterEncoding(null).build();
+		EncodeRequest c = new EncodeRequest.Builder("abc").build();
+		assertEquals(a, b);
+		assertEquals(a.hashCode(), b.hashCode());
+		assertNotEquals(a, c);
+	}
+
+	@Test
+	public void shouldThrowOnTooSmallRequestedDimension() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> {
+			new EncodeRequest.Builder("abc").requestedDimension(new ImmutableDimension(28, 100));
+		});
+	}
+
+	private static void assertImagesEqual(BufferedImage expected, BufferedImage actual) {
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		for (int y = 0; y < expected.getHeight(); y++) {
+			for (int x = 0; x < expected.getWidth(); x++) {
+				assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+			}
+		}
+	}
+
+	private static String decode(BufferedImage image) throws NotFoundException, ChecksumException, FormatException {
+		LuminanceSource source = new BufferedImageLuminanceSource(image);
+		BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(source));
+		EnumMap<DecodeHintType, Object> hints = new EnumMap<DecodeHintType, Object>(DecodeHintType.class);
+		hints.put(DecodeHintType.PURE_BARCODE, Boolean.TRUE);
+		return new QRCodeReader().decode(bitmap, hints).getText();
+	}
+}
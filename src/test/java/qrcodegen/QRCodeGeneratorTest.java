@@ -14,7 +14,9 @@ import qrcodegen.tools.TriState;
 import java.awt.image.BufferedImage;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -307,4 +309,155 @@ public class QRCodeGeneratorTest {
 		assertEquals(catchedWriterException, true);
 		assertFalse(gen.isValidState());
 	}
+
+	@Test
+	public void shouldApplyOnlyUpToDateGenerations() throws WriterException, CodeSizeException {
+		QRCodeGenerator gen = new QRCodeGenerator();
+		gen.setContent("first");
+		QRCodeGenerator.Generation outdated = new QRCodeGenerator.Generation(QRCodeGenerator.getEncoder().encode(gen.createRequest()), 0);
+		gen.setContent("second");
+		QRCodeGenerator.Generation current = new QRCodeGenerator.Generation(QRCodeGenerator.getEncoder().encode(gen.createRequest()), 0);
+
+		assertFalse(gen.apply(outdated));
+		assertFalse(gen.isValidState());
+		assertTrue(gen.apply(current));
+		assertTrue(gen.isValidState());
+		assertTrue(current.isSuccessful());
+	}
+
+	@Test
+	public void shouldRethrowTheFailureOfAGeneration() throws WriterException, CodeSizeException {
+		QRCodeGenerator gen = new QRCodeGenerator();
+		gen.setContent("test");
+		gen.generateCode();
+		gen.setContent("second");
+		EncodeRequest request = gen.createRequest();
+		final QRCodeGenerator.Generation failed = new QRCodeGenerator.Generation(request, new WriterException("too long"), 0);
+		assertFalse(failed.isSuccessful());
+		assertNull(failed.getResult());
+
+		Assertions.assertThrows(WriterException.class, () -> {
+			gen.apply(failed);
+		});
+		assertFalse(gen.isValidState());
+		assertFalse(gen.canRender());
+		assertTrue(gen.getSequence().isEmpty());
+		Assertions.assertThrows(IllegalArgumentException.class, () -> {
+			new QRCodeGenerator.Generation(request, new IllegalStateException(), 0);
+		});
+	}
+
+	@Test
+	public void shouldRenderWithoutEncodingAfterSizeChanges() throws WriterException, CodeSizeException {
+		QRCodeGenerator gen = new QRCodeGenerator();
+		gen.setContent("render only");
+		gen.setModus(Modus.MODULE_SIZE);
+		gen.setModuleSize(2);
+		gen.generateCode();
+		assertEquals(1, gen.getEncodeCount());
+
+		gen.setModuleSize(5);
+		assertFalse(gen.isValidState());
+		assertTrue(gen.canRender());
+		assertTrue(gen.render());
+		assertTrue(gen.isValidState());
+		assertEquals(5, gen.getModuleSize());
+		BufferedImage rendered = gen.getImage();
+
+		gen.setModus(Modus.FIXED_SIZE);
+		gen.setRequestedDimension(new ImmutableDimension(300, 300));
+		assertTrue(gen.render());
+		assertEquals(new ImmutableDimension(300, 300), gen.getActualDimension());
+		assertEquals(1, gen.getEncodeCount());
+		assertEquals(2, gen.getRenderOnlyCount());
+
+		QRCodeGenerator fresh = new QRCodeGenerator();
+		fresh.setContent("render only");
+		fresh.setModus(Modus.MODULE_SIZE);
+		fresh.setModuleSize(5);
+		fresh.generateCode();
+		BufferedImage generated = fresh.getImage();
+		assertEquals(generated.getWidth(), rendered.getWidth());
+		for (int y = 0; y < generated.getHeight(); y++) {
+			for (int x = 0; x < generated.getWidth(); x++) {
+				assertEquals(generated.getRGB(x, y), rendered.getRGB(x, y));
+			}
+		}
+
+		gen.setContent("changed");
+		assertFalse(gen.canRender());
+		assertFalse(gen.render());
+	}
+
+	@Test
+	public void shouldShareTheImagesOfAResult() throws WriterException, CodeSizeException {
+		QRCodeGenerator gen = new QRCodeGenerator();
+		gen.setContent("shared");
+		gen.generateCode();
+		BufferedImage image = gen.getImage();
+		assertSame(image, gen.getImage());
+		assertSame(gen.getImages(), gen.getImages());
+
+		gen.setModus(Modus.MODULE_SIZE);
+		gen.setModuleSize(3);
+		assertTrue(gen.render());
+		assertNotSame(image, gen.getImage());
+
+		gen.resetState();
+		Assertions.assertThrows(IllegalStateException.class, () -> {
+			gen.getImages();
+		});
+	}
+
+	@Test
+	public void shouldDeliverOneSnapshotPerGeneration() throws WriterException, CodeSizeException {
+		QRCodeGenerator gen = new QRCodeGenerator();
+		final List<GenerationSnapshot> snapshots = new ArrayList<GenerationSnapshot>();
+		gen.addGenerationListener(new GenerationListener() {
+			@Override
+			public void generationCompleted(GenerationSnapshot snapshot) {
+				snapshots.add(snapshot);
+			}
+		});
+		gen.setContent("snapshot ÄÖÜ");
+		assertTrue(snapshots.isEmpty());
+		gen.generateCode();
+		assertEquals(1, snapshots.size());
+		GenerationSnapshot snapshot = snapshots.get(0);
+		assertSame(gen, snapshot.getSource());
+		assertTrue(snapshot.isValid());
+		assertEquals("snapshot ÄÖÜ", snapshot.getContent());
+		assertSame(gen.getImage(), snapshot.getImage());
+		assertEquals(gen.getActualDimension(), snapshot.getActualDimension());
+		assertEquals(gen.exceedsRequestedDimension(), snapshot.exceedsRequestedDimension());
+		assertEquals(TriState.TRUE, snapshot.getWasEncodable());
+		assertEquals(TriState.FALSE, snapshot.getWasAsciiOnly());
+		assertEquals(gen.getVersion(), snapshot.getDescription().getVersionNumber());
+		assertEquals(1, snapshot.getSequence().size());
+		assertSame(gen.getModuleMatrix(), snapshot.getMatrix());
+
+		gen.setModus(Modus.MODULE_SIZE);
+		gen.setModuleSize(4);
+		assertTrue(gen.render());
+		assertEquals(2, snapshots.size());
+		assertEquals(4, snapshots.get(1).getModuleSize());
+		assertTrue(snapshots.get(1).isValid());
+
+		gen.setModuleSize(5);
+		assertEquals(3, snapshots.size());
+		assertFalse(snapshots.get(2).isValid());
+		assertNull(snapshots.get(2).getActualDimension());
+
+		gen.resetState();
+		assertEquals(3, snapshots.size());
+		gen.setContent("other");
+		assertEquals(3, snapshots.size());
+		gen.generateCode();
+		assertEquals(4, snapshots.size());
+		gen.setContent("another");
+		assertEquals(5, snapshots.size());
+		assertFalse(snapshots.get(4).isValid());
+		assertEquals(TriState.NOT_APPLICABLE, snapshots.get(4).getWasEncodable());
+		assertEquals(TriState.NOT_APPLICABLE, snapshots.get(4).getWasAsciiOnly());
+	}
 }
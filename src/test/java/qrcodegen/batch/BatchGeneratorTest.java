@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.batch;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Stefan Ganzer
+ */
+public class BatchGeneratorTest {
+
+	@TempDir
+	File output;
+
+	public BatchGeneratorTest() {
+	}
+
+	@BeforeAll
+	public static void setUpClass() {
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void shouldWriteOneImagePerRow() throws IOException, InterruptedException {
+		StringBuilder sb = new StringBuilder("content,file,modus,size\n");
+		for (int i = 0; i < 50; i++) {
+			sb.append("ASSET-").append(i).append(",codes/").append(i).append(".png,BEST_FIT,100\n");
+		}
+		sb.append("module,module.bmp,MODULE_SIZE,2\n");
+		ManifestReader reader = new CsvManifestReader(new StringReader(sb.toString()));
+
+		BatchStatistics statistics = new BatchGenerator(output, 4, 2, new qrcodegen.tools.ImmutableDimension(1000, 1000)).run(reader);
+
+		assertEquals(51, statistics.getRows());
+		assertEquals(0, statistics.getFailedRows());
+		for (int i = 0; i < 50; i++) {
+			File f = new File(output, "codes/" + i + ".png");
+			assertTrue(f.isFile(), f.getPath());
+		}
+		BufferedImage image = ImageIO.read(new File(output, "module.bmp"));
+		assertNotNull(image);
+		assertEquals(0, image.getWidth() % 2);
+	}
+
+	@Test
+	public void shouldCountFailedRowsAndContinue() throws IOException, InterruptedException {
+		StringBuilder tooLong = new StringBuilder();
+		for (int i = 0; i < 8000; i++) {
+			tooLong.append('x');
+		}
+		String jsonl = "{\"content\": \"" + tooLong + "\", \"file\": \"a.png\"}\n"
+				+ "{\"content\": \"b\", \"ec\": \"nonsense\"}\n"
+				+ "{\"content\": \"c\", \"file\": \"../outside.png\"}\n"
+				+ "{\"content\": \"d\", \"file\": \"d.png\"}\n";
+		ManifestReader reader = new JsonLinesManifestReader(new StringReader(jsonl));
+
+		BatchStatistics statistics = new BatchGenerator(output, 2).run(reader);
+
+		assertEquals(4, statistics.getRows());
+		assertEquals(3, statistics.getFailedRows());
+		assertTrue(new File(output, "d.png").isFile());
+		assertFalse(new File(output, "a.png").exists());
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.batch;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.junit.jupiter.api.*;
+import qrcodegen.QRCodeGenerator.Modus;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Stefan Ganzer
+ */
+public class ManifestReaderTest {
+
+	public ManifestReaderTest() {
+	}
+
+	@BeforeAll
+	public static void setUpClass() {
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void csvReaderShouldReadQuotedFields() throws IOException {
+		String csv = "content,file,ec,charset,modus,size\r\n"
+				+ "\"INV-1, \"\"quoted\"\"\",a.png,H,UTF-8,FIXED_SIZE,200\r\n"
+				+ "\r\n"
+				+ "\"multi\nline\",b.gif,,,MODULE_SIZE,3\n"
+				+ "plain\n";
+		ManifestReader reader = new CsvManifestReader(new StringReader(csv));
+
+		ManifestEntry e = reader.next();
+		assertEquals("INV-1, \"quoted\"", e.getContent());
+		assertEquals("a.png", e.getFileName());
+		assertEquals(ErrorCorrectionLevel.H, e.getErrorCorrectionLevel());
+		assertEquals(StandardCharsets.UTF_8, e.getCharset());
+		assertEquals(Modus.FIXED_SIZE, e.getModus());
+		assertEquals(200, e.getSize());
+		assertEquals(2, e.getLineNumber());
+
+		e = reader.next();
+		assertEquals("multi\nline", e.getContent());
+		assertEquals(ErrorCorrectionLevel.L, e.getErrorCorrectionLevel());
+		assertEquals(StandardCharsets.ISO_8859_1, e.getCharset());
+		assertEquals(Modus.MODULE_SIZE, e.getModus());
+		assertEquals(3, e.getSize());
+		assertEquals(4, e.getLineNumber());
+
+		e = reader.next();
+		assertEquals("plain", e.getContent());
+		assertEquals("6.png", e.getFileName());
+		assertEquals(Modus.BEST_FIT, e.getModus());
+
+		assertNull(reader.next());
+	}
+
+	@Test
+	public void csvReaderShouldThrowOnUnterminatedQuote() {
+		Assertions.assertThrows(ManifestFormatException.class, () -> {
+			ManifestReader reader = new CsvManifestReader(new StringReader("content\n\"abc\n"));
+			reader.next();
+		});
+	}
+
+	@Test
+	public void jsonLinesReaderShouldReadFlatObjects() throws IOException {
+		String jsonl = "{\"content\": \"a\\\"b\\nc\\u00e4\", \"file\": \"x/1.png\", \"ec\": \"q\", \"size\": 120}\n"
+				+ "\n"
+				+ "{\"content\":\"2\",\"charset\":null}\n";
+		ManifestReader reader = new JsonLinesManifestReader(new StringReader(jsonl));
+
+		ManifestEntry e = reader.next();
+		assertEquals("a\"b\ncä", e.getContent());
+		assertEquals("x/1.png", e.getFileName());
+		assertEquals(ErrorCorrectionLevel.Q, e.getErrorCorrectionLevel());
+		assertEquals(120, e.getSize());
+
+		e = reader.next();
+		assertEquals("2", e.getContent());
+		assertEquals(3, e.getLineNumber());
+		assertEquals(StandardCharsets.ISO_8859_1, e.getCharset());
+
+		assertNull(reader.next());
+	}
+
+	@Test
+	public void jsonLinesReaderShouldRejectNestedValues() {
+		Assertions.assertThrows(ManifestFormatException.class, () -> {
+			ManifestReader reader = new JsonLinesManifestReader(new StringReader("{\"content\": [1, 2]}"));
+			reader.next();
+		});
+	}
+
+	@Test
+	public void shouldThrowIfContentIsMissing() {
+		Assertions.assertThrows(ManifestFormatException.class, () -> {
+			ManifestReader reader = new JsonLinesManifestReader(new StringReader("{\"file\": \"a.png\"}"));
+			reader.next();
+		});
+	}
+
+	@Test
+	public void shouldThrowOnIllegalErrorCorrectionLevel() {
+		Assertions.assertThrows(ManifestFormatException.class, () -> {
+			ManifestReader reader = new CsvManifestReader(new StringReader("content,ec\nabc,X\n"));
+			reader.next();
+		});
+	}
+}
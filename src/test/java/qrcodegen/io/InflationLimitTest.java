@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.io;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Stefan Ganzer
+ */
+public class InflationLimitTest {
+
+	@TempDir
+	File folder;
+
+	public InflationLimitTest() {
+	}
+
+	@BeforeAll
+	public static void setUpClass() {
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void shouldRejectEntriesExceedingTheRatio() throws IOException {
+		File file = createZip(1024 * 1024);
+		final ZipFile zipFile = new ZipFile(file);
+		try {
+			final ZipEntry entry = zipFile.getEntry("doc.kml");
+			assertTrue(entry.getSize() > 100 * entry.getCompressedSize());
+			Assertions.assertThrows(SizeLimitException.class, () -> {
+				new InflationLimit(Long.MAX_VALUE).open(zipFile, entry);
+			});
+			Assertions.assertThrows(SizeLimitException.class, () -> {
+				new InflationLimit(1024).open(zipFile, entry);
+			});
+		} finally {
+			zipFile.close();
+		}
+	}
+
+	@Test
+	public void shouldReadEntriesWithinTheLimits() throws IOException {
+		File file = createZip(1024 * 1024);
+		ZipFile zipFile = new ZipFile(file);
+		try {
+			ZipEntry entry = zipFile.getEntry("doc.kml");
+			InputStream in = new InflationLimit(2 * 1024 * 1024, 100, 1024 * 1024).open(zipFile, entry);
+			byte[] buffer = new byte[8192];
+			long sum = 0;
+			for (int n = in.read(buffer); n != -1; n = in.read(buffer)) {
+				sum = sum + n;
+			}
+			in.close();
+			assertEquals(1024 * 1024, sum);
+		} finally {
+			zipFile.close();
+		}
+	}
+
+	@Test
+	public void shouldRejectEntriesExceedingTheirDeclaredSize() throws IOException {
+		File file = createZip(1024 * 1024);
+		ZipFile zipFile = new ZipFile(file);
+		try {
+			ZipEntry lyingEntry = new ZipEntry(zipFile.getEntry("doc.kml"));
+			lyingEntry.setSize(1000);
+			final InputStream in = new InflationLimit(2 * 1024 * 1024, 10000, 1024 * 1024).open(zipFile, lyingEntry);
+			try {
+				SizeLimitException e = Assertions.assertThrows(SizeLimitException.class, () -> {
+					byte[] buffer = new byte[8192];
+					while (in.read(buffer) != -1) {
+					}
+				});
+				assertEquals(1000, e.getLimit());
+			} finally {
+				in.close();
+			}
+		} finally {
+			zipFile.close();
+		}
+	}
+
+	@Test
+	public void shouldComputeTheAllowedSize() throws SizeLimitException {
+		InflationLimit limit = new InflationLimit(1000000, 10, 100);
+		assertEquals(100, limit.getAllowedSize(1));
+		assertEquals(5000, limit.getAllowedSize(500));
+		assertEquals(1000000, limit.getAllowedSize(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void shouldThrowIllegalArgumentExceptionIfRatioIsLessThanOne() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> {
+			new InflationLimit(0, 0, 0);
+		});
+	}
+
+	private File createZip(int size) throws IOException {
+		File file = new File(folder, "test.kmz");
+		ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+		try {
+			out.putNextEntry(new ZipEntry("doc.kml"));
+			out.write(new byte[size]);
+			out.closeEntry();
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.io;
+
+import org.junit.jupiter.api.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Stefan Ganzer
+ */
+public class SizeLimitChannelTest {
+
+	private static final byte[] LENGTH_10_BYTE = "abcdefghij".getBytes(StandardCharsets.UTF_8);
+
+	public SizeLimitChannelTest() {
+	}
+
+	@BeforeAll
+	public static void setUpClass() {
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void shouldReadUpToTheLimit() throws IOException {
+		SizeLimitChannel channel = new SizeLimitChannel(open(), 10L);
+		ByteBuffer buffer = ByteBuffer.allocate(16);
+		while (channel.read(buffer) != -1) {
+		}
+		assertEquals(10, buffer.position());
+		assertEquals(16, buffer.limit());
+		assertEquals(10, channel.getCurrentSize());
+		channel.close();
+		assertFalse(channel.isOpen());
+	}
+
+	@Test
+	public void shouldThrowExceptionIfReadExceedsLimit() throws IOException {
+		final SizeLimitChannel channel = new SizeLimitChannel(open(), 4L);
+		final ByteBuffer buffer = ByteBuffer.allocate(16);
+		SizeLimitException sle = Assertions.assertThrows(SizeLimitException.class, () -> {
+			channel.read(buffer);
+		});
+		assertEquals(5, sle.getActualSize());
+		assertEquals(16, buffer.limit());
+	}
+
+	@Test
+	public void shouldThrowIllegalArgumentExceptionIfLimitIsLessThanZero() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> {
+			new SizeLimitChannel(open(), -1);
+		});
+	}
+
+	private static ReadableByteChannel open() {
+		return Channels.newChannel(new ByteArrayInputStream(LENGTH_10_BYTE));
+	}
+}
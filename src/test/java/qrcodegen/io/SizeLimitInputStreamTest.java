@@ -24,9 +24,11 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  *
@@ -113,4 +115,52 @@ public class SizeLimitInputStreamTest {
 			InputStream in = new SizeLimitInputStream(new ByteArrayInputStream(LENGTH_10_BYTE.getBytes(UTF_8)), -1);
 		});
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void shouldReadInBulkUpToTheLimit() throws IOException {
+		SizeLimitInputStream in = new SizeLimitInputStream(new ByteArrayInputStream(LENGTH_10_BYTE.getBytes(UTF_8)), 10L);
+		byte[] b = new byte[16];
+		int n = in.read(b, 2, 14);
+		assertEquals(10, n);
+		assertEquals(LENGTH_10_BYTE, new String(b, 2, n, UTF_8));
+		assertEquals(-1, in.read(b, 0, b.length));
+		assertEquals(10, in.getCurrentSize());
+	}
+
+	@Test
+	public void shouldThrowExceptionIfBulkReadExceedsLimit() throws IOException {
+		final SizeLimitInputStream in = new SizeLimitInputStream(new ByteArrayInputStream(LENGTH_10_BYTE.getBytes(UTF_8)), 4L);
+		SizeLimitException sle = Assertions.assertThrows(SizeLimitException.class, () -> {
+			in.read(new byte[16]);
+		});
+		// no more than one byte beyond the limit is requested
+		assertEquals(5, sle.getActualSize());
+		Assertions.assertThrows(SizeLimitException.class, () -> {
+			in.read(new byte[16]);
+		});
+	}
+
+	@Test
+	public void shouldCountSkippedBytes() throws IOException {
+		final SizeLimitInputStream in = new SizeLimitInputStream(new ByteArrayInputStream(LENGTH_10_BYTE.getBytes(UTF_8)), 8L);
+		assertEquals(6, in.skip(6));
+		assertEquals('g', in.read());
+		Assertions.assertThrows(SizeLimitException.class, () -> {
+			in.skip(6);
+		});
+	}
+
+	@Test
+	public void shouldCloseUnderlyingStream() throws IOException {
+		final AtomicBoolean closed = new AtomicBoolean();
+		InputStream in = new SizeLimitInputStream(new ByteArrayInputStream(LENGTH_10_BYTE.getBytes(UTF_8)) {
+			@Override
+			public void close() throws IOException {
+				closed.set(true);
+			}
+		}, 10L);
+		assertEquals(10, in.available());
+		in.close();
+		assertTrue(closed.get());
+	}
+}
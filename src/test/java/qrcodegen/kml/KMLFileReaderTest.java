@@ -19,15 +19,23 @@
 package qrcodegen.kml;
 
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
 
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  *
@@ -35,8 +43,11 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
  */
 public class KMLFileReaderTest {
 
+	private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><kml xmlns=\"http://www.opengis.net/kml/2.2\">";
 	private final Logger logger = Logger.getLogger(KMLFileReaderTest.class.getName());
 	private final File path;
+	@TempDir
+	File folder;
 
 	public KMLFileReaderTest() throws URISyntaxException {
 		path = new File(KMLFileReaderTest.class.getResource("testFiles").toURI());
@@ -124,4 +135,105 @@ public class KMLFileReaderTest {
 			new KMLFileReader(null, 0, logger);
 		});
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void readShouldDetectTheFormatByItsContent() throws IOException {
+		File kmz = new File(folder, "renamed.kml");
+		Files.copy(new File(path, "Google.kmz").toPath(), kmz.toPath());
+		File kml = new File(folder, "renamed.kmz");
+		Files.copy(new File(path, "doc.kml").toPath(), kml.toPath());
+
+		assertTrue(new KMLFileReader(kmz, 1024 * 1024, logger).isZipFile());
+		assertFalse(new KMLFileReader(kml, 1024 * 1024, logger).isZipFile());
+		for (File f : new File[]{kmz, kml}) {
+			KMLFileReader reader = new KMLFileReader(f, 1024 * 1024, logger);
+			reader.readFile();
+			assertEquals("Google", reader.getKml().getFirstPlacemark().getName());
+		}
+	}
+
+	@Test
+	public void readShouldMergeAllEntriesOfAZippedFile() throws IOException {
+		File input = new File(folder, "survey.kmz");
+		createZip(input,
+				"files/b.kml", HEADER + "<Folder><name>B</name><Placemark><name>b</name></Placemark></Folder></kml>",
+				"doc.kml", HEADER + "<Document><name>Main</name><Placemark><name>main</name></Placemark>"
+				+ "<Folder><name>Layers</name><NetworkLink><Link><href>files/a.kml</href></Link></NetworkLink></Folder>"
+				+ "<NetworkLink><Link><href>http://example.com/remote.kml</href></Link></NetworkLink></Document></kml>",
+				"files/a.kml", HEADER + "<Placemark><name>a</name></Placemark>"
+				+ "<NetworkLink><Url><href>../doc.kml</href></Url></NetworkLink></kml>",
+				"images/icon.png", "");
+		KMLFileReader reader = new KMLFileReader(input, 1024 * 1024, logger);
+		reader.readFile();
+
+		Document root = reader.getKml().getDocument();
+		assertEquals("survey.kmz", root.getName());
+		assertEquals(2, root.getFolders().size());
+		Folder main = root.getFolders().get(0);
+		assertEquals("doc.kml", main.getName());
+		assertEquals("files/b.kml", root.getFolders().get(1).getName());
+
+		Folder layers = main.getDocuments().get(0).getFolders().get(0);
+		assertEquals("Layers", layers.getName());
+		assertEquals(1, layers.getFolders().size());
+		Folder a = layers.getFolders().get(0);
+		assertEquals("files/a.kml", a.getName());
+		assertEquals("a", a.getPlacemarks().get(0).getName());
+		assertTrue(a.getFolders().isEmpty());
+		assertEquals("main", reader.getKml().getFirstPlacemark().getName());
+	}
+
+	@Test
+	public void readUncompressedFileShouldStreamTheDocument() throws IOException {
+		File input = new File(path, "doc.kml");
+		KMLFileReader reader = new KMLFileReader(input, 1024 * 1024, logger);
+		final List<String> names = new ArrayList<String>();
+		reader.readUncompressedFile(new KmlHandler() {
+			@Override
+			public void startDocument(Document document) {
+				names.add(document.getName());
+			}
+
+			@Override
+			public void endDocument(Document document) {
+			}
+
+			@Override
+			public void startFolder(Folder folder) {
+			}
+
+			@Override
+			public void endFolder(Folder folder) {
+			}
+
+			@Override
+			public void placemark(Placemark placemark) {
+				names.add(placemark.getName());
+			}
+		});
+		assertEquals(List.of("Google"), names);
+		assertNull(reader.getKml());
+	}
+
+	@Test
+	public void readShouldThrowZipExceptionOnCorruptZippedFile() throws IOException {
+		final File input = new File(folder, "corrupt.kmz");
+		Files.write(input.toPath(), "PK\u0003\u0004 not really a zip file".getBytes(StandardCharsets.US_ASCII));
+		Assertions.assertThrows(ZipException.class, () -> {
+			new KMLFileReader(input, 1024 * 1024, logger).readFile();
+		});
+	}
+
+	private static void createZip(File file, String... namesAndContents) throws IOException {
+		ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+		try {
+			for (int i = 0; i < namesAndContents.length; i += 2) {
+				out.putNextEntry(new ZipEntry(namesAndContents[i]));
+				out.write(namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8));
+				out.closeEntry();
+			}
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.kml;
+
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Stefan Ganzer
+ */
+public class KmlBindingTest {
+
+	private static final String KML = "<kml xmlns=\"http://www.opengis.net/kml/2.2\"><Placemark><name>%d</name>"
+			+ "<Point><coordinates>1,2,3</coordinates></Point></Placemark></kml>";
+
+	public KmlBindingTest() {
+	}
+
+	@BeforeAll
+	public static void setUpClass() {
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void shouldCreateTheContextOnce() throws IOException {
+		KmlBinding.warmUp();
+		assertSame(KmlBinding.getContext(), KmlBinding.getContext());
+		assertTrue(KmlBinding.getContextCreationTime() >= 0);
+	}
+
+	@Test
+	public void shouldUnmarshalConcurrently() throws Exception {
+		ExecutorService exec = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Kml>> futures = new ArrayList<Future<Kml>>();
+			for (int i = 0; i < 32; i++) {
+				final String kml = String.format(KML, i);
+				futures.add(exec.submit(new Callable<Kml>() {
+					@Override
+					public Kml call() throws IOException {
+						return KmlBinding.unmarshal(new StringReader(kml));
+					}
+				}));
+			}
+			for (int i = 0; i < futures.size(); i++) {
+				Placemark pm = futures.get(i).get().getPlacemark();
+				assertEquals(Integer.toString(i), pm.getName());
+				assertEquals("1,2,3", pm.getPoint().getCoordinates());
+			}
+		} finally {
+			exec.shutdown();
+		}
+	}
+
+	@Test
+	public void shouldThrowIOExceptionOnMalformedXML() {
+		Assertions.assertThrows(IOException.class, () -> {
+			KmlBinding.unmarshal(new StringReader("<kml><Placemark></kml>"));
+		});
+	}
+}
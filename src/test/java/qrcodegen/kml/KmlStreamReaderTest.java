@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.kml;
+
+import org.junit.jupiter.api.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Stefan Ganzer
+ */
+public class KmlStreamReaderTest {
+
+	private static final String NESTED_KML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+			+ "<kml xmlns=\"http://www.opengis.net/kml/2.2\"><Document><name>Trip</name>"
+			+ "<Style><name>ignored</name></Style>"
+			+ "<Folder><name>Day 1</name>"
+			+ "<Placemark><name>Start</name><address>Main Street</address><ExtendedData><name>x</name></ExtendedData>"
+			+ "<Point><coordinates> 8.5,47.3,0 </coordinates></Point></Placemark>"
+			+ "<Folder><Placemark><name>Inner</name></Placemark><name>Late name</name></Folder>"
+			+ "</Folder>"
+			+ "<Placemark><name><![CDATA[End]]></name></Placemark>"
+			+ "</Document></kml>";
+	private final Logger logger = Logger.getLogger(KmlStreamReaderTest.class.getName());
+
+	public KmlStreamReaderTest() {
+	}
+
+	@BeforeAll
+	public static void setUpClass() {
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void shouldReportElementsInDocumentOrder() throws IOException {
+		RecordingHandler handler = new RecordingHandler();
+		new KmlStreamReader(handler).read(new StringReader(NESTED_KML));
+
+		List<String> expected = Arrays.asList(
+				"startDocument Trip",
+				"startFolder Day 1",
+				"placemark Start, Main Street, 8.5,47.3,0",
+				"startFolder Folder",
+				"placemark Inner, null, null",
+				"endFolder Late name",
+				"endFolder Day 1",
+				"placemark End, null, null",
+				"endDocument Trip");
+		assertEquals(expected, handler.events);
+	}
+
+	@Test
+	public void shouldStreamTheSamePlacemarkAsUnmarshalling() throws IOException, URISyntaxException {
+		File file = new File(KmlStreamReaderTest.class.getResource("testFiles/doc.kml").toURI());
+		KMLFileReader reader = new KMLFileReader(file, 1024 * 1024, logger);
+		reader.readFile();
+		Placemark expected = reader.getKml().getFirstPlacemark();
+
+		RecordingHandler handler = new RecordingHandler();
+		reader.readUncompressedFile(handler);
+		assertEquals(1, handler.placemarks.size());
+		Placemark actual = handler.placemarks.get(0);
+		assertEquals(expected.getName(), actual.getName());
+		assertEquals(expected.getAddress(), actual.getAddress());
+		assertEquals(expected.getPoint().getCoordinates(), actual.getPoint().getCoordinates());
+	}
+
+	@Test
+	public void shouldThrowIOExceptionOnMalformedXML() {
+		Assertions.assertThrows(IOException.class, () -> {
+			new KmlStreamReader(new RecordingHandler()).read(new StringReader("<kml><Placemark></kml>"));
+		});
+	}
+
+	@Test
+	public void shouldNotResolveExternalEntities() throws IOException {
+		String kml = "<?xml version=\"1.0\"?><!DOCTYPE kml [<!ENTITY e SYSTEM \"file:///etc/passwd\">]>"
+				+ "<kml><Placemark><name>&e;</name></Placemark></kml>";
+		RecordingHandler handler = new RecordingHandler();
+		try {
+			new KmlStreamReader(handler).read(new StringReader(kml));
+		} catch (IOException expected) {
+		}
+		for (Placemark pm : handler.placemarks) {
+			assertFalse(pm.getName() != null && pm.getName().contains("root"));
+		}
+	}
+
+	private static class RecordingHandler implements KmlHandler {
+
+		private final List<String> events = new ArrayList<String>();
+		private final List<Placemark> placemarks = new ArrayList<Placemark>();
+
+		@Override
+		public void startDocument(Document document) {
+			events.add("startDocument " + document);
+		}
+
+		@Override
+		public void endDocument(Document document) {
+			events.add("endDocument " + document);
+		}
+
+		@Override
+		public void startFolder(Folder folder) {
+			events.add("startFolder " + folder);
+		}
+
+		@Override
+		public void endFolder(Folder folder) {
+			events.add("endFolder " + folder);
+		}
+
+		@Override
+		public void placemark(Placemark placemark) {
+			placemarks.add(placemark);
+			events.add("placemark " + placemark.getName() + ", " + placemark.getAddress() + ", " + placemark.getPoint());
+		}
+	}
+}
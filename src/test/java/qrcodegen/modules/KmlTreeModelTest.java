@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.modules;
+
+import org.junit.jupiter.api.*;
+import qrcodegen.kml.*;
+
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.TreePath;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Stefan Ganzer
+ */
+public class KmlTreeModelTest {
+
+	public KmlTreeModelTest() {
+	}
+
+	@BeforeAll
+	public static void setUpClass() {
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void shouldShowChildrenOfDocumentsInTheirParent() {
+		Kml kml = new Kml();
+		Document d = new Document();
+		Folder f = new Folder();
+		Placemark pm = createPlacemark("Statue of Liberty");
+		Placemark pm2 = createPlacemark("Empire State Building");
+		f.setPlacemarks(Arrays.asList(pm));
+		d.setFolders(Arrays.asList(f));
+		d.setPlacemarks(Arrays.asList(pm2));
+		kml.setDocument(d);
+
+		KmlTreeModel model = new KmlTreeModel(kml);
+		assertSame(kml, model.getRoot());
+		assertEquals(2, model.getChildCount(kml));
+		assertSame(pm2, model.getChild(kml, 0));
+		assertSame(f, model.getChild(kml, 1));
+		assertEquals(1, model.getIndexOfChild(kml, f));
+		assertEquals(-1, model.getIndexOfChild(kml, pm));
+		assertSame(pm, model.getChild(f, 0));
+		assertFalse(model.isLeaf(f));
+		assertTrue(model.isLeaf(pm));
+
+		model = new KmlTreeModel(kml, true);
+		assertEquals(1, model.getChildCount(kml));
+		assertSame(d, model.getChild(kml, 0));
+		assertEquals(2, model.getChildCount(d));
+	}
+
+	@Test
+	public void shouldCollectChildrenOnlyWhenRequested() {
+		final List<Folder> requested = new ArrayList<Folder>();
+		Folder outer = new CountingFolder(requested);
+		Folder inner = new CountingFolder(requested);
+		inner.setPlacemarks(Arrays.asList(createPlacemark("a"), createPlacemark("b")));
+		outer.setFolders(Arrays.asList(inner));
+		Kml kml = new Kml();
+		kml.setFolder(outer);
+
+		KmlTreeModel model = new KmlTreeModel(kml);
+		assertEquals(1, model.getChildCount(kml));
+		assertTrue(requested.isEmpty());
+
+		assertEquals(1, model.getChildCount(outer));
+		assertEquals(Arrays.asList(outer), requested);
+
+		assertEquals(2, model.getChildCount(inner));
+		assertEquals(2, model.getChildCount(inner));
+		assertEquals(Arrays.asList(outer, inner), requested);
+	}
+
+	@Test
+	public void shouldInsertChildrenAddedLater() {
+		Document d = new Document();
+		Folder f = new Folder();
+		d.getFolders().add(f);
+		Kml kml = new Kml();
+		kml.setDocument(d);
+		KmlTreeModel model = new KmlTreeModel(kml);
+		assertEquals(1, model.getChildCount(kml));
+
+		final List<TreeModelEvent> events = new ArrayList<TreeModelEvent>();
+		model.addTreeModelListener(new TreeModelAdapter() {
+			@Override
+			public void treeNodesInserted(TreeModelEvent e) {
+				events.add(e);
+			}
+		});
+		// Placemarks of a Document are shown before its Folders
+		Placemark a = createPlacemark("Zurich");
+		Folder g = new Folder();
+		d.getPlacemarks().add(a);
+		d.getFolders().add(g);
+		model.childrenAdded(new TreePath(kml));
+
+		assertEquals(1, events.size());
+		assertSame(kml, events.get(0).getTreePath().getLastPathComponent());
+		assertArrayEquals(new int[]{0, 2}, events.get(0).getChildIndices());
+		assertArrayEquals(new Object[]{a, g}, events.get(0).getChildren());
+		assertEquals(3, model.getChildCount(kml));
+		assertSame(f, model.getChild(kml, 1));
+
+		// the children of f haven't been requested, so there is nothing to fire
+		f.getPlacemarks().add(createPlacemark("Bern"));
+		model.childrenAdded(new TreePath(new Object[]{kml, f}));
+		assertEquals(1, events.size());
+		assertEquals(1, model.getChildCount(f));
+	}
+
+	@Test
+	public void shouldFilterPlacemarks() {
+		Folder f = new Folder();
+		Placemark a = createPlacemark("Zurich");
+		Placemark b = createPlacemark("Bern");
+		f.setPlacemarks(Arrays.asList(a, b));
+		Kml kml = new Kml();
+		kml.setFolder(f);
+		KmlTreeModel model = new KmlTreeModel(kml);
+		assertEquals(2, model.getChildCount(f));
+
+		final List<TreeModelEvent> events = new ArrayList<TreeModelEvent>();
+		model.addTreeModelListener(new TreeModelAdapter() {
+			@Override
+			public void treeStructureChanged(TreeModelEvent e) {
+				events.add(e);
+			}
+		});
+		KmlTreeModel.Filter filter = new KmlTreeModel.Filter() {
+			@Override
+			public boolean accept(Placemark placemark) {
+				return placemark.getName().startsWith("B");
+			}
+		};
+		model.setFilter(filter);
+
+		assertSame(filter, model.getFilter());
+		assertEquals(1, events.size());
+		assertSame(kml, events.get(0).getTreePath().getLastPathComponent());
+		assertEquals(1, model.getChildCount(kml));
+		assertEquals(1, model.getChildCount(f));
+		assertSame(b, model.getChild(f, 0));
+
+		model.setFilter(null);
+		assertEquals(2, events.size());
+		assertEquals(2, model.getChildCount(f));
+	}
+
+	private static Placemark createPlacemark(String name) {
+		Placemark pm = new Placemark();
+		Point p = new Point();
+		p.setCoordinates("1,2,3");
+		pm.setPoint(p);
+		pm.setName(name);
+		return pm;
+	}
+
+	private static class CountingFolder extends Folder {
+
+		private final List<Folder> requested;
+
+		CountingFolder(List<Folder> requested) {
+			this.requested = requested;
+		}
+
+		@Override
+		public List<Placemark> getPlacemarks() {
+			requested.add(this);
+			return super.getPlacemarks();
+		}
+	}
+
+	private static class TreeModelAdapter implements TreeModelListener {
+
+		@Override
+		public void treeNodesChanged(TreeModelEvent e) {
+		}
+
+		@Override
+		public void treeNodesInserted(TreeModelEvent e) {
+		}
+
+		@Override
+		public void treeNodesRemoved(TreeModelEvent e) {
+		}
+
+		@Override
+		public void treeStructureChanged(TreeModelEvent e) {
+		}
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode;
+
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.Encoder;
+import com.google.zxing.qrcode.encoder.QRCode;
+import org.junit.jupiter.api.*;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Stefan Ganzer
+ */
+public class CapacityEstimatorTest {
+
+	private static final Charset[] CHARSETS = {null, StandardCharsets.ISO_8859_1, StandardCharsets.UTF_8, StandardCharsets.UTF_16, Charset.forName("windows-1252"), Charset.forName("Shift_JIS")};
+	private static final String[] ALPHABETS = {"0123456789", "ABCXYZ0123 $%*+-./:", "abcxyz!?äöü", "a€中😀", "漢字語"};
+
+	public CapacityEstimatorTest() {
+	}
+
+	@BeforeAll
+	public static void setUpClass() {
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void shouldChooseTheSameModeAndVersionAsTheEncoder() throws WriterException {
+		Random random = new Random(4711);
+		for (int i = 0; i < 300; i++) {
+			String alphabet = ALPHABETS[random.nextInt(ALPHABETS.length)];
+			String content = randomString(random, alphabet, random.nextInt(i < 250 ? 200 : 3000));
+			Charset charset = CHARSETS[random.nextInt(CHARSETS.length)];
+			ErrorCorrectionLevel ecLevel = ErrorCorrectionLevel.values()[random.nextInt(4)];
+
+			int version = CapacityEstimator.getMinimumVersion(content, ecLevel, charset);
+			QRCode code;
+			try {
+				code = Encoder.encode(content, ecLevel, getHints(charset));
+			} catch (WriterException we) {
+				assertEquals(CapacityEstimator.DOES_NOT_FIT, version, content);
+				assertTrue(CapacityEstimator.getRemainingCharacters(content, ecLevel, charset) < 0);
+				continue;
+			}
+			assertEquals(code.getMode(), CapacityEstimator.chooseMode(content, charset), content);
+			assertEquals(code.getVersion().getVersionNumber(), version, content);
+			assertTrue(CapacityEstimator.getRemainingCharacters(content, ecLevel, charset) >= 0);
+		}
+	}
+
+	@Test
+	public void remainingCharactersShouldFitExactly() throws WriterException {
+		String[] fillers = {"7", "A", "a", "ä"};
+		Charset[] charsets = {null, StandardCharsets.UTF_8};
+		for (ErrorCorrectionLevel ecLevel : ErrorCorrectionLevel.values()) {
+			for (String filler : fillers) {
+				for (Charset charset : charsets) {
+					String content = filler + filler;
+					int remaining = CapacityEstimator.getRemainingCharacters(content, ecLevel, charset);
+					int charsToAdd = filler.equals("ä") && charset != null ? remaining / 2 : remaining;
+					StringBuilder sb = new StringBuilder(content);
+					for (int i = 0; i < charsToAdd; i++) {
+						sb.append(filler);
+					}
+					QRCode code = Encoder.encode(sb.toString(), ecLevel, getHints(charset));
+					assertEquals(40, code.getVersion().getVersionNumber());
+					assertEquals(0, CapacityEstimator.getRemainingCharacters(sb, ecLevel, charset) / (charsToAdd == remaining ? 1 : 2));
+
+					sb.append(filler);
+					try {
+						Encoder.encode(sb.toString(), ecLevel, getHints(charset));
+						fail(ecLevel + " " + filler + " " + charset);
+					} catch (WriterException expected) {
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void bitLengthShouldIncludeHeaders() {
+		// mode + 10 bit count + 3 * 10 + 4
+		assertEquals(4 + 10 + 34, CapacityEstimator.getBitLength("0123456789", null, 1));
+		// mode + 9 bit count + 11 + 6
+		assertEquals(4 + 9 + 17, CapacityEstimator.getBitLength("ABC", null, 9));
+		// mode + 11 bit count + 11 + 6
+		assertEquals(4 + 11 + 17, CapacityEstimator.getBitLength("ABC", null, 10));
+		// ECI + mode + 8 bit count + 2 * 8
+		assertEquals(12 + 4 + 8 + 16, CapacityEstimator.getBitLength("ab", StandardCharsets.ISO_8859_1, 1));
+		// mode + 8 bit count + 2 * 8, no ECI without character encoding
+		assertEquals(4 + 8 + 16, CapacityEstimator.getBitLength("ab", null, 1));
+		// UTF-8: 1 + 2 + 3 + 4 bytes
+		assertEquals(12 + 4 + 8 + 80, CapacityEstimator.getBitLength("aä€😀", StandardCharsets.UTF_8, 1));
+	}
+
+	@Test
+	public void shouldThrowOnIllegalVersion() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> {
+			CapacityEstimator.getBitLength("abc", null, 41);
+		});
+	}
+
+	private static Map<EncodeHintType, Object> getHints(Charset charset) {
+		Map<EncodeHintType, Object> hints = new EnumMap<EncodeHintType, Object>(EncodeHintType.class);
+		if (charset != null) {
+			hints.put(EncodeHintType.CHARACTER_SET, charset.name());
+		}
+		return hints;
+	}
+
+	private static String randomString(Random random, String alphabet, int length) {
+		StringBuilder sb = new StringBuilder(length);
+		while (sb.length() < length) {
+			int i = random.nextInt(alphabet.length());
+			char c = alphabet.charAt(i);
+			if (Character.isHighSurrogate(c)) {
+				sb.append(c).append(alphabet.charAt(i + 1));
+			} else if (!Character.isLowSurrogate(c)) {
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.QRCode;
+import org.junit.jupiter.api.*;
+import qrcodegen.qrcode.encoder.SymbolEncoder;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Stefan Ganzer
+ */
+public class ModuleMatrixTest {
+
+	public ModuleMatrixTest() {
+	}
+
+	@BeforeAll
+	public static void setUpClass() {
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void shouldHaveTheModulesOfTheByteMatrix() {
+		Random random = new Random(7);
+		for (int width : new int[]{1, 63, 64, 65, 130}) {
+			ByteMatrix input = randomMatrix(random, width, 5);
+			ModuleMatrix matrix = ModuleMatrix.of(input);
+			assertEquals(width, matrix.getWidth());
+			assertEquals(5, matrix.getHeight());
+			int dark = 0;
+			for (int y = 0; y < input.getHeight(); y++) {
+				int rowDark = 0;
+				for (int x = 0; x < width; x++) {
+					assertEquals(input.get(x, y) == 1, matrix.get(x, y));
+					rowDark += input.get(x, y) == 1 ? 1 : 0;
+				}
+				assertEquals(rowDark, matrix.getDarkCount(y));
+				dark += rowDark;
+			}
+			assertEquals(dark, matrix.getDarkCount());
+			assertEquals(matrix, ModuleMatrix.of(matrix.toByteMatrix()));
+			assertEquals(matrix.hashCode(), ModuleMatrix.of(matrix.toByteMatrix()).hashCode());
+		}
+	}
+
+	@Test
+	public void shouldFindTheRunsOfEachRow() {
+		Random random = new Random(11);
+		ByteMatrix input = randomMatrix(random, 150, 20);
+		ModuleMatrix matrix = ModuleMatrix.of(input);
+		for (int y = 0; y < input.getHeight(); y++) {
+			for (int x = 0; x <= input.getWidth(); x++) {
+				assertEquals(next(input, x, y, 1), matrix.nextDark(x, y), x + "," + y);
+				assertEquals(next(input, x, y, 0), matrix.nextLight(x, y), x + "," + y);
+			}
+		}
+		assertEquals(150, matrix.nextDark(1000, 0));
+	}
+
+	@Test
+	public void shouldXorWithTheMask() throws Exception {
+		QRCode code = SymbolEncoder.encode("http://www.example.com/", ErrorCorrectionLevel.M, null, SymbolEncoder.AUTOMATIC_VERSION);
+		ModuleMatrix matrix = ModuleMatrix.of(code);
+		ModuleMatrix mask = ModuleMatrix.of(randomMatrix(new Random(3), matrix.getWidth(), matrix.getHeight()));
+		ModuleMatrix masked = matrix.xor(mask);
+		for (int y = 0; y < matrix.getHeight(); y++) {
+			for (int x = 0; x < matrix.getWidth(); x++) {
+				assertEquals(matrix.get(x, y) ^ mask.get(x, y), masked.get(x, y));
+			}
+		}
+		assertEquals(matrix, masked.xor(mask));
+		assertTrue(matrix.rowEquals(3, masked.xor(mask)));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> {
+			matrix.xor(ModuleMatrix.of(new ByteMatrix(3, 3)));
+		});
+	}
+
+	@Test
+	public void shouldThrowOutsideOfTheMatrix() {
+		final ModuleMatrix matrix = ModuleMatrix.of(new ByteMatrix(10, 10));
+		Assertions.assertThrows(IndexOutOfBoundsException.class, () -> {
+			matrix.get(10, 0);
+		});
+		Assertions.assertThrows(IndexOutOfBoundsException.class, () -> {
+			matrix.nextDark(-1, 0);
+		});
+		Assertions.assertThrows(IndexOutOfBoundsException.class, () -> {
+			matrix.nextLight(0, 10);
+		});
+	}
+
+	private static ByteMatrix randomMatrix(Random random, int width, int height) {
+		ByteMatrix matrix = new ByteMatrix(width, height);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				matrix.set(x, y, random.nextInt(3) == 0 ? 0 : 1);
+			}
+		}
+		return matrix;
+	}
+
+	private static int next(ByteMatrix matrix, int x, int y, int value) {
+		while (x < matrix.getWidth() && (matrix.get(x, y) == 1 ? 1 : 0) != value) {
+			x++;
+		}
+		return x;
+	}
+}
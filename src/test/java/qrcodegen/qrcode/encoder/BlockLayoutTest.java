@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.encoder;
+
+import com.google.zxing.common.reedsolomon.GenericGF;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.decoder.Version;
+import com.google.zxing.qrcode.encoder.QRCode;
+import org.junit.jupiter.api.*;
+import qrcodegen.qrcode.QRCodeAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Stefan Ganzer
+ */
+public class BlockLayoutTest {
+
+	public BlockLayoutTest() {
+	}
+
+	@BeforeAll
+	public static void setUpClass() {
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void shouldMatchQRCodeAdapterCounts() {
+		for (int v = 1; v <= 40; v++) {
+			for (ErrorCorrectionLevel ecLevel : ErrorCorrectionLevel.values()) {
+				QRCode code = new QRCode();
+				code.setVersion(Version.getVersionForNumber(v));
+				code.setECLevel(ecLevel);
+				QRCodeAdapter adapter = new QRCodeAdapter(code);
+				BlockLayout layout = BlockLayout.forVersion(v, ecLevel);
+
+				assertEquals(adapter.getNumTotalBytes(), layout.getNumTotalBytes());
+				assertEquals(adapter.getNumDataBytes(), layout.getNumDataBytes());
+				assertEquals(adapter.getNumECBytes(), layout.getNumECBytes());
+				assertEquals(adapter.getNumRSBlocks(), layout.getNumRSBlocks());
+				int sum = 0;
+				for (int b = 0; b < layout.getNumRSBlocks(); b++) {
+					sum += layout.getNumDataBytesInBlock(b);
+				}
+				assertEquals(layout.getNumDataBytes(), sum);
+			}
+		}
+	}
+
+	@Test
+	public void shouldInterleaveLikeTheReference() {
+		Random random = new Random(7);
+		for (int v = 1; v <= 40; v++) {
+			for (ErrorCorrectionLevel ecLevel : ErrorCorrectionLevel.values()) {
+				BlockLayout layout = BlockLayout.forVersion(v, ecLevel);
+				byte[] data = new byte[layout.getNumDataBytes()];
+				random.nextBytes(data);
+				byte[] codewords = new byte[layout.getNumTotalBytes()];
+				layout.encode(data, codewords, new byte[layout.getNumECBytes()]);
+
+				assertArrayEquals(interleave(data, layout), codewords, layout.toString());
+			}
+		}
+	}
+
+	@Test
+	public void shouldThrowOnIllegalVersion() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> {
+			BlockLayout.forVersion(41, ErrorCorrectionLevel.L);
+		});
+	}
+
+	@Test
+	public void shouldThrowIfScratchBufferIsTooShort() {
+		final BlockLayout layout = BlockLayout.forVersion(5, ErrorCorrectionLevel.Q);
+		Assertions.assertThrows(IllegalArgumentException.class, () -> {
+			layout.encode(new byte[layout.getNumDataBytes()], new byte[layout.getNumTotalBytes()], new byte[layout.getNumECBytes() - 1]);
+		});
+	}
+
+	/**
+	 * Splits and interleaves the data the way ZXing's Encoder does, using
+	 * ZXing's Reed-Solomon encoder.
+	 */
+	private static byte[] interleave(byte[] data, BlockLayout layout) {
+		int numBlocks = layout.getNumRSBlocks();
+		int numTotal = layout.getNumTotalBytes();
+		int numData = layout.getNumDataBytes();
+		int group2 = numTotal % numBlocks;
+		int group1 = numBlocks - group2;
+		int totalInGroup1 = numTotal / numBlocks;
+		int dataInGroup1 = numData / numBlocks;
+		int ecPerBlock = totalInGroup1 - dataInGroup1;
+		com.google.zxing.common.reedsolomon.ReedSolomonEncoder rs = new com.google.zxing.common.reedsolomon.ReedSolomonEncoder(GenericGF.QR_CODE_FIELD_256);
+
+		List<int[]> dataBlocks = new ArrayList<int[]>();
+		List<int[]> ecBlocks = new ArrayList<int[]>();
+		int offset = 0;
+		int maxData = 0;
+		for (int b = 0; b < numBlocks; b++) {
+			int length = b < group1 ? dataInGroup1 : dataInGroup1 + 1;
+			int[] block = new int[length + ecPerBlock];
+			for (int i = 0; i < length; i++) {
+				block[i] = data[offset + i] & 0xFF;
+			}
+			rs.encode(block, ecPerBlock);
+			int[] d = new int[length];
+			int[] ec = new int[ecPerBlock];
+			System.arraycopy(block, 0, d, 0, length);
+			System.arraycopy(block, length, ec, 0, ecPerBlock);
+			dataBlocks.add(d);
+			ecBlocks.add(ec);
+			offset += length;
+			maxData = Math.max(maxData, length);
+		}
+		byte[] result = new byte[numTotal];
+		int out = 0;
+		for (int i = 0; i < maxData; i++) {
+			for (int[] d : dataBlocks) {
+				if (i < d.length) {
+					result[out++] = (byte) d[i];
+				}
+			}
+		}
+		for (int i = 0; i < ecPerBlock; i++) {
+			for (int[] ec : ecBlocks) {
+				result[out++] = (byte) ec[i];
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.encoder;
+
+import com.google.zxing.common.reedsolomon.GenericGF;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the table-driven Reed-Solomon encoder with ZXing's encoder, for
+ * all blocks of a symbol. Both produce the same interleaved data and error
+ * correction codewords, which is checked before the benchmark is run. Not a
+ * unit test; run the main method from the test classpath.
+ *
+ * @author Stefan Ganzer
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReedSolomonBenchmark {
+
+	@Param({"5", "20", "40"})
+	public int version;
+	@Param({"L", "H"})
+	public String ecLevel;
+	private BlockLayout layout;
+	private byte[] data;
+	private byte[] codewords;
+	private byte[] ecScratch;
+	private com.google.zxing.common.reedsolomon.ReedSolomonEncoder zxing;
+
+	@Setup
+	public void setUp() {
+		layout = BlockLayout.forVersion(version, ErrorCorrectionLevel.valueOf(ecLevel));
+		data = new byte[layout.getNumDataBytes()];
+		new Random(1).nextBytes(data);
+		codewords = new byte[layout.getNumTotalBytes()];
+		ecScratch = new byte[layout.getNumECBytes()];
+		zxing = new com.google.zxing.common.reedsolomon.ReedSolomonEncoder(GenericGF.QR_CODE_FIELD_256);
+		if (!Arrays.equals(tableDriven(), zxing())) {
+			throw new IllegalStateException("The encoders differ for " + layout);
+		}
+	}
+
+	@Benchmark
+	public byte[] tableDriven() {
+		layout.encode(data, codewords, ecScratch);
+		return codewords;
+	}
+
+	/**
+	 * Encodes and interleaves the blocks like ZXing's
+	 * Encoder.interleaveWithECBytes does, with new arrays for the data and
+	 * the error correction codewords of each block, and a new int[] per block
+	 * for the Reed-Solomon encoder.
+	 */
+	@Benchmark
+	public byte[] zxing() {
+		int ecLength = layout.getNumECBytesPerBlock();
+		int offset = 0;
+		int maxNumDataBytes = 0;
+		List<byte[]> dataBlocks = new ArrayList<byte[]>(layout.getNumRSBlocks());
+		List<byte[]> ecBlocks = new ArrayList<byte[]>(layout.getNumRSBlocks());
+		for (int b = 0; b < layout.getNumRSBlocks(); b++) {
+			int length = layout.getNumDataBytesInBlock(b);
+			byte[] dataBytes = Arrays.copyOfRange(data, offset, offset + length);
+			dataBlocks.add(dataBytes);
+			ecBlocks.add(generateECBytes(dataBytes, ecLength));
+			maxNumDataBytes = Math.max(maxNumDataBytes, length);
+			offset += length;
+		}
+
+		byte[] result = new byte[layout.getNumTotalBytes()];
+		int out = 0;
+		for (int i = 0; i < maxNumDataBytes; i++) {
+			for (byte[] dataBytes : dataBlocks) {
+				if (i < dataBytes.length) {
+					result[out++] = dataBytes[i];
+				}
+			}
+		}
+		for (int i = 0; i < ecLength; i++) {
+			for (byte[] ecBytes : ecBlocks) {
+				result[out++] = ecBytes[i];
+			}
+		}
+		return result;
+	}
+
+	private byte[] generateECBytes(byte[] dataBytes, int numEcBytesInBlock) {
+		int numDataBytes = dataBytes.length;
+		int[] toEncode = new int[numDataBytes + numEcBytesInBlock];
+		for (int i = 0; i < numDataBytes; i++) {
+			toEncode[i] = dataBytes[i] & 0xFF;
+		}
+		zxing.encode(toEncode, numEcBytesInBlock);
+
+		byte[] ecBytes = new byte[numEcBytesInBlock];
+		for (int i = 0; i < numEcBytesInBlock; i++) {
+			ecBytes[i] = (byte) toEncode[numDataBytes + i];
+		}
+		return ecBytes;
+	}
+
+	public static void main(String... args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(ReedSolomonBenchmark.class.getSimpleName()).build()).run();
+	}
+}
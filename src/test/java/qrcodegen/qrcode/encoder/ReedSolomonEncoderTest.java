@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.encoder;
+
+import com.google.zxing.common.reedsolomon.GenericGF;
+import org.junit.jupiter.api.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Stefan Ganzer
+ */
+public class ReedSolomonEncoderTest {
+
+	public ReedSolomonEncoderTest() {
+	}
+
+	@BeforeAll
+	public static void setUpClass() {
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void shouldMatchZXingForAllSupportedLengths() {
+		Random random = new Random(42);
+		com.google.zxing.common.reedsolomon.ReedSolomonEncoder reference = new com.google.zxing.common.reedsolomon.ReedSolomonEncoder(GenericGF.QR_CODE_FIELD_256);
+		int supported = 0;
+		for (int ecLength = 1; ecLength <= 30; ecLength++) {
+			if (!ReedSolomonEncoder.isSupported(ecLength)) {
+				continue;
+			}
+			supported++;
+			for (int dataLength : new int[]{1, 2, 19, 55, 123}) {
+				byte[] data = new byte[dataLength];
+				random.nextBytes(data);
+				int[] expected = new int[dataLength + ecLength];
+				for (int i = 0; i < dataLength; i++) {
+					expected[i] = data[i] & 0xFF;
+				}
+				reference.encode(expected, ecLength);
+
+				byte[] ec = new byte[ecLength + 3];
+				Arrays.fill(ec, (byte) 0x55);
+				ReedSolomonEncoder.encode(data, 0, dataLength, ec, 2, ecLength);
+				for (int i = 0; i < ecLength; i++) {
+					assertEquals(expected[dataLength + i], ec[2 + i] & 0xFF, "ecLength=" + ecLength + ", dataLength=" + dataLength + ", i=" + i);
+				}
+				assertEquals(0x55, ec[0]);
+				assertEquals(0x55, ec[ecLength + 2]);
+			}
+		}
+		assertEquals(13, supported);
+	}
+
+	@Test
+	public void shouldReturnZeroParityForZeroData() {
+		byte[] ec = new byte[10];
+		Arrays.fill(ec, (byte) 1);
+		ReedSolomonEncoder.encode(new byte[16], 0, 16, ec, 0, 10);
+		assertArrayEquals(new byte[10], ec);
+	}
+
+	@Test
+	public void shouldThrowOnUnsupportedECLength() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> {
+			ReedSolomonEncoder.encode(new byte[4], 0, 4, new byte[9], 0, 9);
+		});
+	}
+
+	@Test
+	public void shouldThrowIfBufferIsTooShort() {
+		Assertions.assertThrows(IndexOutOfBoundsException.class, () -> {
+			ReedSolomonEncoder.encode(new byte[4], 0, 4, new byte[9], 0, 10);
+		});
+	}
+}
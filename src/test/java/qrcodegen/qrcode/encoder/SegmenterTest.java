@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.encoder;
+
+import com.google.zxing.ChecksumException;
+import com.google.zxing.FormatException;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.decoder.Decoder;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.decoder.Mode;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.QRCode;
+import org.junit.jupiter.api.*;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Stefan Ganzer
+ */
+public class SegmenterTest {
+
+	public SegmenterTest() {
+	}
+
+	@BeforeAll
+	public static void setUpClass() {
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void shouldSplitMixedContent() {
+		String content = "INV-2026-000123456789 https://example.com/invoices?id=000123456789";
+		Segmentation segmentation = Segmenter.segment(content, StandardCharsets.UTF_8, 5);
+		List<Segment> segments = segmentation.getSegments();
+
+		assertTrue(segments.size() > 1, segments.toString());
+		StringBuilder sb = new StringBuilder();
+		boolean hasNumeric = false;
+		for (Segment s : segments) {
+			sb.append(s.getContent());
+			hasNumeric |= s.getMode() == Mode.NUMERIC;
+		}
+		assertEquals(content, sb.toString());
+		assertTrue(hasNumeric);
+		assertTrue(segmentation.getBitsSaved() > 0);
+		assertEquals(segmentation.getSingleModeBitLength() - segmentation.getBitLength(), segmentation.getBitsSaved());
+		assertEquals(Mode.BYTE, segmentation.getMode());
+	}
+
+	@Test
+	public void shouldKeepASingleModeIfNothingCanBeSaved() {
+		Segmentation segmentation = Segmenter.segment("hello world", null, 1);
+		assertEquals(1, segmentation.getSegments().size());
+		assertEquals(Mode.BYTE, segmentation.getSegments().get(0).getMode());
+		assertEquals(0, segmentation.getBitsSaved());
+
+		segmentation = Segmenter.segment("", null, 1);
+		assertEquals(1, segmentation.getSegments().size());
+		assertEquals(0, segmentation.getBitsSaved());
+	}
+
+	@Test
+	public void shouldComputeTheBitLength() {
+		Segmentation segmentation = Segmenter.segment("123a", null, 1);
+		assertEquals(4 + 8 + 32, segmentation.getSingleModeBitLength());
+		assertTrue(segmentation.getBitLength() <= segmentation.getSingleModeBitLength());
+
+		segmentation = Segmenter.segment("0123456789012345678a", null, 1);
+		assertEquals(2, segmentation.getSegments().size());
+		// 19 digits in numeric mode, one character in byte mode
+		assertEquals(4 + 10 + 64 + 4 + 8 + 8, segmentation.getBitLength());
+	}
+
+	@Test
+	public void shouldUseKanjiModeForKanjiInMixedContent() {
+		Segmentation segmentation = Segmenter.segment("Order 漢字漢字漢字漢字漢字漢字", StandardCharsets.UTF_8, 1);
+		boolean hasKanji = false;
+		for (Segment s : segmentation.getSegments()) {
+			hasKanji |= s.getMode() == Mode.KANJI;
+		}
+		assertTrue(hasKanji, segmentation.toString());
+	}
+
+	@Test
+	public void shouldDecodeToTheOriginalContent() throws WriterException, FormatException, ChecksumException {
+		Random random = new Random(11);
+		String[] parts = {"0123456789012", "HTTPS://EXAMPLE.COM/", "abc", "äöü", "€", "漢字", " ", "ABCDEFGH12345678"};
+		Charset[] charsets = {null, StandardCharsets.UTF_8};
+		for (int i = 0; i < 100; i++) {
+			StringBuilder sb = new StringBuilder();
+			int n = 1 + random.nextInt(20);
+			Charset charset = charsets[i % 2];
+			for (int j = 0; j < n; j++) {
+				String part = parts[random.nextInt(parts.length)];
+				if (charset == null && (part.equals("€"))) {
+					continue;
+				}
+				sb.append(part);
+			}
+			String content = sb.toString();
+			QRCode code = SymbolEncoder.encodeSegmented(content, ErrorCorrectionLevel.M, charset, SymbolEncoder.AUTOMATIC_VERSION);
+			assertEquals(content, new Decoder().decode(toBitMatrix(code.getMatrix())).getText(), code.toString());
+
+			QRCode single = SymbolEncoder.encode(content, ErrorCorrectionLevel.M, charset, SymbolEncoder.AUTOMATIC_VERSION);
+			assertTrue(code.getVersion().getVersionNumber() <= single.getVersion().getVersionNumber());
+		}
+	}
+
+	@Test
+	public void shouldBuildTheSingleModeSymbolIfNothingCanBeSaved() throws WriterException {
+		QRCode segmented = SymbolEncoder.encodeSegmented("HELLO WORLD", ErrorCorrectionLevel.Q, null, SymbolEncoder.AUTOMATIC_VERSION);
+		QRCode single = SymbolEncoder.encode("HELLO WORLD", ErrorCorrectionLevel.Q, null, SymbolEncoder.AUTOMATIC_VERSION);
+		assertEquals(single.toString(), segmented.toString());
+	}
+
+	@Test
+	public void shouldThrowOnIllegalVersion() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> {
+			Segmenter.segment("a", null, 0);
+		});
+	}
+
+	private static BitMatrix toBitMatrix(ByteMatrix matrix) {
+		BitMatrix result = new BitMatrix(matrix.getWidth(), matrix.getHeight());
+		for (int y = 0; y < matrix.getHeight(); y++) {
+			for (int x = 0; x < matrix.getWidth(); x++) {
+				if (matrix.get(x, y) == 1) {
+					result.set(x, y);
+				}
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.encoder;
+
+import com.google.zxing.ChecksumException;
+import com.google.zxing.FormatException;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.DecoderResult;
+import com.google.zxing.qrcode.decoder.Decoder;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.QRCode;
+import org.junit.jupiter.api.*;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Stefan Ganzer
+ */
+public class StructuredAppendTest {
+
+	public StructuredAppendTest() {
+	}
+
+	@BeforeAll
+	public static void setUpClass() {
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void decodedSymbolsShouldReassembleTheContent() throws WriterException, FormatException, ChecksumException {
+		Random random = new Random(5);
+		String[] parts = {"0123456789012", "HTTPS://EXAMPLE.COM/", "abc", "äöü", "€", " "};
+		StringBuilder sb = new StringBuilder();
+		while (sb.length() < 6000) {
+			sb.append(parts[random.nextInt(parts.length)]);
+		}
+		String content = sb.toString();
+		Charset charset = StandardCharsets.UTF_8;
+
+		StructuredAppend sequence = StructuredAppend.encode(content, ErrorCorrectionLevel.M, charset);
+
+		assertTrue(sequence.size() > 1, sequence.toString());
+		StringBuilder decoded = new StringBuilder();
+		for (int i = 0; i < sequence.size(); i++) {
+			QRCode code = sequence.getSymbol(i);
+			DecoderResult result = new Decoder().decode(toBitMatrix(code.getMatrix()));
+			assertTrue(result.hasStructuredAppend());
+			assertEquals(i, result.getStructuredAppendSequenceNumber() >> 4);
+			assertEquals(sequence.size() - 1, result.getStructuredAppendSequenceNumber() & 0x0F);
+			assertEquals(sequence.getParity(), result.getStructuredAppendParity());
+			assertEquals(sequence.getPart(i), result.getText());
+			decoded.append(result.getText());
+		}
+		assertEquals(content, decoded.toString());
+		assertEquals(StructuredAppend.getParity(content, charset), sequence.getParity());
+	}
+
+	@Test
+	public void shouldUseFewestSymbolsOfSmallestVersion() throws WriterException {
+		// Version 40-L holds 7089 digits
+		String content = digits(8000);
+
+		StructuredAppend sequence = StructuredAppend.encode(content, ErrorCorrectionLevel.L, null);
+
+		assertEquals(2, sequence.size());
+		int version = sequence.getSymbol(0).getVersion().getVersionNumber();
+		assertTrue(version < 40, Integer.toString(version));
+		assertTrue(sequence.getSymbol(1).getVersion().getVersionNumber() <= version);
+		// One of two symbols holds at least 4000 digits, which need 13334
+		// bits, and these don't fit into the next smaller version
+		int countBits = version - 1 >= 27 ? 14 : 12;
+		int capacity = BlockLayout.forVersion(version - 1, ErrorCorrectionLevel.L).getNumDataBytes() * 8;
+		assertTrue(20 + 4 + countBits + 13334 > capacity);
+	}
+
+	@Test
+	public void tiledMatrixShouldHoldAllSymbols() throws WriterException {
+		StructuredAppend sequence = StructuredAppend.encode(digits(16000), ErrorCorrectionLevel.L, null);
+		assertEquals(3, sequence.size());
+
+		ByteMatrix tiled = sequence.getTiledMatrix();
+
+		int cell = sequence.getSymbol(0).getMatrix().getWidth();
+		assertEquals(2 * cell + 4, tiled.getWidth());
+		assertEquals(2 * cell + 4, tiled.getHeight());
+		ByteMatrix second = sequence.getSymbol(1).getMatrix();
+		int offset = (cell - second.getWidth()) / 2;
+		for (int y = 0; y < second.getHeight(); y++) {
+			for (int x = 0; x < second.getWidth(); x++) {
+				assertEquals(second.get(x, y), tiled.get(cell + 4 + offset + x, offset + y));
+			}
+		}
+	}
+
+	@Test
+	public void shouldThrowIfContentExceedsSixteenSymbols() {
+		Assertions.assertThrows(WriterException.class, () -> {
+			StructuredAppend.encode(digits(StructuredAppend.MAX_SYMBOLS * 7089 + 1), ErrorCorrectionLevel.L, null);
+		});
+	}
+
+	private static String digits(int length) {
+		StringBuilder sb = new StringBuilder(length);
+		for (int i = 0; i < length; i++) {
+			sb.append((char) ('0' + i % 10));
+		}
+		return sb.toString();
+	}
+
+	private static BitMatrix toBitMatrix(ByteMatrix matrix) {
+		BitMatrix result = new BitMatrix(matrix.getWidth(), matrix.getHeight());
+		for (int y = 0; y < matrix.getHeight(); y++) {
+			for (int x = 0; x < matrix.getWidth(); x++) {
+				if (matrix.get(x, y) == 1) {
+					result.set(x, y);
+				}
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.encoder;
+
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.Encoder;
+import com.google.zxing.qrcode.encoder.QRCode;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares SymbolEncoder with ZXing's Encoder for small and large versions.
+ * Not a unit test; run the main method from the test classpath.
+ *
+ * @author Stefan Ganzer
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SymbolEncoderBenchmark {
+
+	@Param({"5", "20", "30", "40"})
+	public int version;
+	private String content;
+	private Map<EncodeHintType, Object> hints;
+
+	@Setup
+	public void setUp() {
+		StringBuilder sb = new StringBuilder();
+		// Fill about half of the symbol so that it needs the given version
+		int length = com.google.zxing.qrcode.decoder.Version.getVersionForNumber(version).getTotalCodewords() / 3;
+		for (int i = 0; i < length; i++) {
+			sb.append((char) ('a' + i % 26));
+		}
+		content = sb.toString();
+		hints = new EnumMap<EncodeHintType, Object>(EncodeHintType.class);
+		hints.put(EncodeHintType.QR_VERSION, version);
+	}
+
+	@Benchmark
+	public QRCode symbolEncoder() throws WriterException {
+		return SymbolEncoder.encode(content, ErrorCorrectionLevel.M, null, version);
+	}
+
+	@Benchmark
+	public QRCode zxing() throws WriterException {
+		return Encoder.encode(content, ErrorCorrectionLevel.M, hints);
+	}
+
+	public static void main(String... args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(SymbolEncoderBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.encoder;
+
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.decoder.Mode;
+import com.google.zxing.qrcode.encoder.Encoder;
+import com.google.zxing.qrcode.encoder.QRCode;
+import org.junit.jupiter.api.*;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Stefan Ganzer
+ */
+public class SymbolEncoderTest {
+
+	public SymbolEncoderTest() {
+	}
+
+	@BeforeAll
+	public static void setUpClass() {
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void shouldBuildTheSameSymbolsAsZXing() throws WriterException {
+		Random random = new Random(3);
+		String[] alphabets = {"0123456789", "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ $%*+-./:", "abcxyz€äöü0123{}\n", "漢字日本語"};
+		Charset[] charsets = {null, StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, Charset.forName("Shift_JIS")};
+		for (int i = 0; i < 200; i++) {
+			String alphabet = alphabets[i % alphabets.length];
+			int length = random.nextInt(i < 150 ? 60 : 1200);
+			StringBuilder sb = new StringBuilder(length);
+			for (int j = 0; j < length; j++) {
+				sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			}
+			ErrorCorrectionLevel ecLevel = ErrorCorrectionLevel.values()[random.nextInt(4)];
+			Charset charset = charsets[random.nextInt(charsets.length)];
+			assertSameSymbol(sb.toString(), ecLevel, charset, SymbolEncoder.AUTOMATIC_VERSION);
+		}
+	}
+
+	@Test
+	public void shouldBuildTheSameSymbolsAsZXingForAllVersions() throws WriterException {
+		for (int version = 1; version <= 40; version++) {
+			for (ErrorCorrectionLevel ecLevel : ErrorCorrectionLevel.values()) {
+				assertSameSymbol("V" + version, ecLevel, null, version);
+			}
+		}
+	}
+
+	@Test
+	public void shouldEncodeTheEmptyString() throws WriterException {
+		assertSameSymbol("", ErrorCorrectionLevel.H, null, SymbolEncoder.AUTOMATIC_VERSION);
+	}
+
+	@Test
+	public void shouldThrowIfContentIsTooLong() {
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 3000; i++) {
+			sb.append('x');
+		}
+		Assertions.assertThrows(WriterException.class, () -> {
+			SymbolEncoder.encode(sb.toString(), ErrorCorrectionLevel.L, null, SymbolEncoder.AUTOMATIC_VERSION);
+		});
+	}
+
+	@Test
+	public void shouldThrowIfContentDoesNotFitIntoTheRequestedVersion() {
+		Assertions.assertThrows(WriterException.class, () -> {
+			SymbolEncoder.encode("The quick brown fox jumps over the lazy dog", ErrorCorrectionLevel.H, null, 1);
+		});
+	}
+
+	@Test
+	public void shouldThrowOnIllegalVersion() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> {
+			SymbolEncoder.encode("a", ErrorCorrectionLevel.H, null, 41);
+		});
+	}
+
+	private static void assertSameSymbol(String content, ErrorCorrectionLevel ecLevel, Charset charset, int version) throws WriterException {
+		Map<EncodeHintType, Object> hints = new EnumMap<EncodeHintType, Object>(EncodeHintType.class);
+		if (charset != null) {
+			hints.put(EncodeHintType.CHARACTER_SET, charset.name());
+		}
+		if (version != SymbolEncoder.AUTOMATIC_VERSION) {
+			hints.put(EncodeHintType.QR_VERSION, version);
+		}
+		QRCode expected = Encoder.encode(content, ecLevel, hints);
+		QRCode actual = SymbolEncoder.encode(content, ecLevel, charset, version);
+
+		String message = content + ", " + ecLevel + ", " + charset + ", " + version;
+		assertEquals(expected.getVersion(), actual.getVersion(), message);
+		assertEquals(expected.getMode(), actual.getMode(), message);
+		assertEquals(expected.getECLevel(), actual.getECLevel(), message);
+		assertEquals(expected.getMaskPattern(), actual.getMaskPattern(), message);
+		byte[][] expectedRows = expected.getMatrix().getArray();
+		byte[][] actualRows = actual.getMatrix().getArray();
+		assertEquals(expectedRows.length, actualRows.length, message);
+		for (int y = 0; y < expectedRows.length; y++) {
+			assertArrayEquals(expectedRows[y], actualRows[y], message + ", row " + y);
+		}
+		if (charset != null && Charset.forName("Shift_JIS").equals(charset) && content.startsWith("漢")) {
+			assertEquals(Mode.KANJI, actual.getMode());
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.renderer;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import qrcodegen.qrcode.ModuleMatrix;
+import qrcodegen.qrcode.encoder.SymbolEncoder;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares rendering a Raster in the calling thread with rendering its bands
+ * on the common ForkJoinPool, for growing module sizes. The module size at
+ * which parallel gets faster shows where {@link Raster#PARALLEL_THRESHOLD}
+ * should be; the image data is printed for each module size. Not a unit
+ * test; run the main method from the test classpath.
+ *
+ * @author Stefan Ganzer
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelRasterBenchmark {
+
+	@Param({"2", "4", "8", "16", "32", "64", "128"})
+	public int moduleSize;
+	private ModuleMatrix input;
+	private int size;
+
+	@Setup
+	public void setUp() throws Exception {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 500; i++) {
+			sb.append((char) ('a' + i % 26));
+		}
+		input = ModuleMatrix.of(SymbolEncoder.encode(sb.toString(), ErrorCorrectionLevel.M, null, SymbolEncoder.AUTOMATIC_VERSION));
+		size = (input.getWidth() + (AbstractRenderer.QUIET_ZONE_SIZE << 1)) * moduleSize;
+		System.out.println("module size " + moduleSize + ": " + (long) Raster.getStride(size) * size + " bytes, "
+				+ ForkJoinPool.getCommonPoolParallelism() + " worker threads");
+	}
+
+	@Benchmark
+	public Raster sequential() {
+		return Raster.render(input, moduleSize, size, size, null);
+	}
+
+	@Benchmark
+	public Raster parallel() {
+		return Raster.render(input, moduleSize, size, size, ForkJoinPool.commonPool());
+	}
+
+	public static void main(String... args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(ParallelRasterBenchmark.class.getSimpleName()).build()).run();
+	}
+}
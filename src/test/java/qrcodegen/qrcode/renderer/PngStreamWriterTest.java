@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.renderer;
+
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import qrcodegen.qrcode.encoder.SymbolEncoder;
+import qrcodegen.tools.ImmutableDimension;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Stefan Ganzer
+ */
+public class PngStreamWriterTest {
+
+	private ByteMatrix input;
+	private File output;
+
+	public PngStreamWriterTest() {
+	}
+
+	@BeforeAll
+	public static void setUpClass() {
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		input = SymbolEncoder.encode("http://www.example.com/", ErrorCorrectionLevel.M, null, SymbolEncoder.AUTOMATIC_VERSION).getMatrix();
+		output = File.createTempFile("pngStreamWriterTest", ".png", null);
+		output.deleteOnExit();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		output.delete();
+	}
+
+	@Test
+	public void shouldWriteTheSamePixelsAsTheRaster() throws Exception {
+		for (int moduleSize : new int[]{1, 3, 8, 13}) {
+			PngStreamWriter writer = PngStreamWriter.forModuleSize(input, moduleSize);
+			writer.write(output);
+			assertPixelsEqual(Raster.forModuleSize(input, moduleSize, new ImmutableDimension(10000, 10000)).toImage(), ImageIO.read(output));
+		}
+		ImmutableDimension requested = new ImmutableDimension(203, 150);
+		for (boolean fitToCode : new boolean[]{true, false}) {
+			PngStreamWriter writer = PngStreamWriter.forRequestedDimension(input, requested, fitToCode);
+			writer.write(output);
+			Raster raster = Raster.forRequestedDimension(input, requested, fitToCode);
+			assertEquals(raster.getDimension(), writer.getDimension());
+			assertEquals(raster.getModuleSize(), writer.getModuleSize());
+			assertPixelsEqual(raster.toImage(), ImageIO.read(output));
+		}
+	}
+
+	@Test
+	public void shouldWriteImagesLargerThanTheMaximumImageSize() throws IOException {
+		PngStreamWriter writer = PngStreamWriter.forModuleSize(input, 400);
+		int size = (input.getWidth() + 8) * 400;
+		assertEquals(new ImmutableDimension(size, size), writer.getDimension());
+		writer.write(output);
+
+		DataInputStream in = new DataInputStream(new FileInputStream(output));
+		try {
+			assertEquals(0x89504E47, in.readInt());
+			in.readInt();
+			assertEquals(13, in.readInt());
+			assertEquals(0x49484452, in.readInt()); // IHDR
+			assertEquals(size, in.readInt());
+			assertEquals(size, in.readInt());
+		} finally {
+			in.close();
+		}
+		// more than 100 million pixels, but repeated scanlines compress well
+		assertTrue(output.length() < 1024 * 1024, Long.toString(output.length()));
+	}
+
+	@Test
+	public void shouldReplaceTheFileWithoutLeavingTemporaryFiles(@TempDir File folder) throws IOException {
+		File file = new File(folder, "code.png");
+		Files.write(file.toPath(), new byte[100000]);
+		PngStreamWriter writer = PngStreamWriter.forModuleSize(input, 2);
+		writer.write(file);
+
+		assertArrayEquals(new String[]{"code.png"}, folder.list());
+		assertEquals(writer.getDimension().getWidth(), ImageIO.read(file).getWidth());
+	}
+
+	@Test
+	public void shouldThrowIfTheImageWouldBeTooLarge() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> {
+			PngStreamWriter.forModuleSize(input, Integer.MAX_VALUE / 20);
+		});
+		Assertions.assertThrows(IllegalArgumentException.class, () -> {
+			PngStreamWriter.forModuleSize(input, 0);
+		});
+	}
+
+	private static void assertPixelsEqual(BufferedImage expected, BufferedImage actual) {
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		for (int y = 0; y < expected.getHeight(); y++) {
+			for (int x = 0; x < expected.getWidth(); x++) {
+				assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), x + "," + y);
+			}
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.renderer;
+
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import qrcodegen.CodeSizeException;
+import qrcodegen.qrcode.encoder.SymbolEncoder;
+import qrcodegen.tools.ImmutableDimension;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares rendering into a packed 1-bit image with rendering into a
+ * BitMatrix and converting it with MatrixToImageWriter. Not a unit test; run
+ * the main method from the test classpath.
+ *
+ * @author Stefan Ganzer
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RasterBenchmark {
+
+	@Param({"2", "10", "40"})
+	public int moduleSize;
+	private ByteMatrix input;
+	private ImmutableDimension dimension;
+
+	@Setup
+	public void setUp() throws Exception {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 500; i++) {
+			sb.append((char) ('a' + i % 26));
+		}
+		input = SymbolEncoder.encode(sb.toString(), ErrorCorrectionLevel.M, null, SymbolEncoder.AUTOMATIC_VERSION).getMatrix();
+		int size = (input.getWidth() + (AbstractRenderer.QUIET_ZONE_SIZE << 1)) * moduleSize;
+		dimension = new ImmutableDimension(size, size);
+	}
+
+	@Benchmark
+	public BufferedImage packed() throws CodeSizeException {
+		return Raster.forModuleSize(input, moduleSize, dimension).toImage();
+	}
+
+	@Benchmark
+	public BufferedImage matrixToImageWriter() {
+		return MatrixToImageWriter.toBufferedImage(RasterTest.render(input, moduleSize, dimension));
+	}
+
+	public static void main(String... args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(RasterBenchmark.class.getSimpleName()).build()).run();
+	}
+}
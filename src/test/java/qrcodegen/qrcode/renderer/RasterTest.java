@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.renderer;
+
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import org.junit.jupiter.api.*;
+import qrcodegen.CodeSizeException;
+import qrcodegen.qrcode.ModuleMatrix;
+import qrcodegen.qrcode.encoder.SymbolEncoder;
+import qrcodegen.tools.ImmutableDimension;
+
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Stefan Ganzer
+ */
+public class RasterTest {
+
+	private static final ImmutableDimension MAX = new ImmutableDimension(10000, 10000);
+
+	public RasterTest() {
+	}
+
+	@BeforeAll
+	public static void setUpClass() {
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void shouldRenderTheSamePixelsAsMatrixToImageWriter() throws Exception {
+		ByteMatrix input = SymbolEncoder.encode("http://www.example.com/", ErrorCorrectionLevel.M, null, SymbolEncoder.AUTOMATIC_VERSION).getMatrix();
+		for (int moduleSize = 1; moduleSize <= 17; moduleSize++) {
+			Raster raster = Raster.forModuleSize(input, moduleSize, MAX);
+			assertPixelsEqual(render(input, moduleSize, raster.getDimension()), raster);
+		}
+		int[][] dimensions = {{29, 29}, {100, 100}, {203, 150}, {150, 203}, {333, 334}, {1001, 999}};
+		for (int[] d : dimensions) {
+			ImmutableDimension requested = new ImmutableDimension(d[0], d[1]);
+			for (boolean fitToCode : new boolean[]{true, false}) {
+				Raster raster = Raster.forRequestedDimension(input, requested, fitToCode);
+				assertPixelsEqual(render(input, raster.getModuleSize(), raster.getDimension()), raster);
+			}
+		}
+	}
+
+	@Test
+	public void shouldRenderRandomMatrices() throws CodeSizeException {
+		Random random = new Random(3);
+		for (int i = 0; i < 50; i++) {
+			ByteMatrix input = new ByteMatrix(1 + random.nextInt(60), 1 + random.nextInt(60));
+			for (int y = 0; y < input.getHeight(); y++) {
+				for (int x = 0; x < input.getWidth(); x++) {
+					input.set(x, y, random.nextInt(3) == 0 ? 0 : 1);
+				}
+			}
+			int moduleSize = 1 + random.nextInt(12);
+			Raster raster = Raster.forModuleSize(input, moduleSize, MAX);
+			assertPixelsEqual(render(input, moduleSize, raster.getDimension()), raster);
+		}
+	}
+
+	@Test
+	public void shouldRenderTheSamePixelsInParallel() throws Exception {
+		ByteMatrix input = SymbolEncoder.encode("http://www.example.com/parallel", ErrorCorrectionLevel.H, null, SymbolEncoder.AUTOMATIC_VERSION).getMatrix();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for (int moduleSize : new int[]{1, 7, 64, 150}) {
+				int width = (input.getWidth() + 8) * moduleSize + 5;
+				int height = (input.getHeight() + 8) * moduleSize + 3;
+				Raster sequential = Raster.render(ModuleMatrix.of(input), moduleSize, width, height, null);
+				Raster parallel = Raster.render(ModuleMatrix.of(input), moduleSize, width, height, pool);
+				assertEquals(sequential.getMatrix(), parallel.getMatrix());
+			}
+			Raster parallel = Raster.render(ModuleMatrix.of(input), 20, 2000, 2000, pool);
+			assertPixelsEqual(render(input, 20, parallel.getDimension()), parallel);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void shouldReturnIndependentImages() throws CodeSizeException {
+		ByteMatrix input = new ByteMatrix(21, 21);
+		input.set(0, 0, 1);
+		Raster raster = Raster.forModuleSize(input, 3, MAX);
+		BufferedImage image = raster.toImage();
+		assertEquals(BufferedImage.TYPE_BYTE_BINARY, image.getType());
+		assertEquals(0xFF000000, image.getRGB(12, 12));
+		image.setRGB(12, 12, 0xFFFFFFFF);
+		assertEquals(0xFF000000, raster.toImage().getRGB(12, 12));
+	}
+
+	@Test
+	public void shouldThrowIfModuleSizeExceedsMaxDimension() {
+		final ByteMatrix input = new ByteMatrix(21, 21);
+		Assertions.assertThrows(CodeSizeException.class, () -> {
+			Raster.forModuleSize(input, 10, new ImmutableDimension(100, 100));
+		});
+	}
+
+	private static void assertPixelsEqual(BitMatrix expected, Raster raster) {
+		assertEquals(expected, raster.getMatrix());
+		BufferedImage expectedImage = MatrixToImageWriter.toBufferedImage(expected);
+		BufferedImage actualImage = raster.toImage();
+		assertEquals(expectedImage.getWidth(), actualImage.getWidth());
+		assertEquals(expectedImage.getHeight(), actualImage.getHeight());
+		for (int y = 0; y < expectedImage.getHeight(); y++) {
+			for (int x = 0; x < expectedImage.getWidth(); x++) {
+				assertEquals(expectedImage.getRGB(x, y), actualImage.getRGB(x, y), x + "," + y);
+			}
+		}
+	}
+
+	/**
+	 * Renders the matrix module by module, like Raster did before it wrote
+	 * into a packed image.
+	 */
+	static BitMatrix render(ByteMatrix input, int multiple, ImmutableDimension dimension) {
+		int leftPadding = (dimension.getWidth() - (input.getWidth() * multiple)) / 2;
+		int topPadding = (dimension.getHeight() - (input.getHeight() * multiple)) / 2;
+		BitMatrix output = new BitMatrix(dimension.getWidth(), dimension.getHeight());
+		for (int inputY = 0, outputY = topPadding; inputY < input.getHeight(); inputY++, outputY += multiple) {
+			for (int inputX = 0, outputX = leftPadding; inputX < input.getWidth(); inputX++, outputX += multiple) {
+				if (input.get(inputX, inputY) == 1) {
+					output.setRegion(outputX, outputY, multiple, multiple);
+				}
+			}
+		}
+		return output;
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.renderer;
+
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import org.junit.jupiter.api.*;
+import qrcodegen.tools.ImmutableDimension;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Stefan Ganzer
+ */
+public class RenderedImagesTest {
+
+	private Raster raster;
+	private RenderedImages images;
+
+	public RenderedImagesTest() {
+	}
+
+	@BeforeAll
+	public static void setUpClass() {
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		ByteMatrix input = new ByteMatrix(21, 21);
+		input.set(0, 0, 1);
+		input.set(20, 20, 1);
+		raster = Raster.forModuleSize(input, 4, new ImmutableDimension(1000, 1000));
+		images = new RenderedImages(raster);
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void shouldCreateEachVariantOnlyOnce() throws Exception {
+		assertSame(images.getBinaryImage(), images.getBinaryImage());
+		assertSame(images.getArgbImage(), images.getArgbImage());
+		ImmutableDimension bounds = new ImmutableDimension(58, 100);
+		assertSame(images.getScaledImage(bounds), images.getScaledImage(bounds));
+		assertNotSame(images.getScaledImage(bounds), images.getScaledImage(new ImmutableDimension(232, 232)));
+	}
+
+	@Test
+	public void shouldCreateEquivalentVariants() throws Exception {
+		BufferedImage binary = images.getBinaryImage();
+		assertEquals(BufferedImage.TYPE_BYTE_BINARY, binary.getType());
+		// 21 modules of 4 pixels plus a quiet zone of 4 modules on each side
+		assertEquals(116, binary.getWidth());
+		assertEquals(0xFF000000, binary.getRGB(16, 16));
+		assertEquals(0xFFFFFFFF, binary.getRGB(58, 58));
+		BufferedImage argb = images.getArgbImage();
+		assertEquals(BufferedImage.TYPE_INT_ARGB, argb.getType());
+		byte[] pngBytes = images.getPng();
+		// the bit depth in the IHDR chunk
+		assertEquals(1, pngBytes[24]);
+		BufferedImage png = ImageIO.read(new ByteArrayInputStream(pngBytes));
+		for (int y = 0; y < binary.getHeight(); y++) {
+			for (int x = 0; x < binary.getWidth(); x++) {
+				assertEquals(binary.getRGB(x, y), argb.getRGB(x, y));
+				assertEquals(binary.getRGB(x, y), png.getRGB(x, y));
+			}
+		}
+
+		// 116 x 116 pixels, scaled by a half
+		BufferedImage scaled = images.getScaledImage(new ImmutableDimension(58, 100));
+		assertEquals(58, scaled.getWidth());
+		assertEquals(58, scaled.getHeight());
+		assertEquals(0xFF000000, scaled.getRGB(8, 8));
+		assertEquals(0xFFFFFFFF, scaled.getRGB(29, 29));
+	}
+
+	@Test
+	public void shouldReturnCopiesOfThePng() throws Exception {
+		byte[] png = images.getPng();
+		png[0] = 0;
+		assertNotEquals(0, images.getPng()[0]);
+	}
+}
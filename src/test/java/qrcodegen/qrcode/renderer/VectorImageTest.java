@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.qrcode.renderer;
+
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import org.junit.jupiter.api.*;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import qrcodegen.qrcode.encoder.SymbolEncoder;
+import qrcodegen.tools.ImmutableDimension;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Stefan Ganzer
+ */
+public class VectorImageTest {
+
+	private static final Pattern PDF_RECTANGLE = Pattern.compile("^(\\d+) (\\d+) (\\d+) (\\d+) re$", Pattern.MULTILINE);
+	private static final Pattern EPS_RECTANGLE = Pattern.compile("^(\\d+) (\\d+) (\\d+) (\\d+) r$", Pattern.MULTILINE);
+	private static final Pattern SVG_RUN = Pattern.compile("M(\\d+) (\\d+)h(\\d+)v(\\d+)h-\\d+z");
+	private static final int WIDTH = 203;
+	private static final int HEIGHT = 150;
+	private ByteMatrix input;
+	private Raster raster;
+	private VectorImage vectorImage;
+
+	public VectorImageTest() {
+	}
+
+	@BeforeAll
+	public static void setUpClass() {
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		input = SymbolEncoder.encode("http://www.example.com/", ErrorCorrectionLevel.M, null, SymbolEncoder.AUTOMATIC_VERSION).getMatrix();
+		raster = Raster.forRequestedDimension(input, new ImmutableDimension(WIDTH, HEIGHT), false);
+		vectorImage = VectorImage.forRaster(input, raster);
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void shouldMergeAdjacentModules() {
+		int dark = 0;
+		for (int y = 0; y < input.getHeight(); y++) {
+			for (int x = 0; x < input.getWidth(); x++) {
+				dark += input.get(x, y);
+			}
+		}
+		assertTrue(vectorImage.getRunCount() < dark * 2 / 3, vectorImage.getRunCount() + " runs, " + dark + " dark modules");
+		assertEquals(raster.getDimension(), vectorImage.getDimension());
+		assertEquals(raster.getModuleSize(), vectorImage.getModuleSize());
+	}
+
+	@Test
+	public void shouldWriteTheRasterAsSvg() throws Exception {
+		String svg = write(VectorFormat.SVG);
+		Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(svg.getBytes(StandardCharsets.UTF_8)));
+		Element root = document.getDocumentElement();
+		assertEquals("svg", root.getTagName());
+		assertEquals("203", root.getAttribute("width"));
+		assertEquals("150", root.getAttribute("height"));
+		assertEquals(1, document.getElementsByTagName("path").getLength());
+
+		BitMatrix matrix = new BitMatrix(WIDTH, HEIGHT);
+		Matcher m = SVG_RUN.matcher(svg);
+		int count = 0;
+		while (m.find()) {
+			matrix.setRegion(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)), Integer.parseInt(m.group(3)), Integer.parseInt(m.group(4)));
+			count++;
+		}
+		assertEquals(vectorImage.getRunCount(), count);
+		assertEquals(raster.getMatrix(), matrix);
+	}
+
+	@Test
+	public void shouldWriteTheRasterAsPdf() throws Exception {
+		String pdf = write(VectorFormat.PDF);
+		assertTrue(pdf.startsWith("%PDF-1.4\n"));
+		assertTrue(pdf.endsWith("%%EOF\n"));
+		assertTrue(pdf.contains("/MediaBox [0 0 203 150]"));
+		assertEquals(raster.getMatrix(), fromPostScriptRectangles(pdf, PDF_RECTANGLE));
+		assertCrossReferences(pdf);
+		// ...and the length object to the length of the content stream
+		int start = pdf.indexOf("stream\n") + 7;
+		int end = pdf.indexOf("endstream\n");
+		assertTrue(pdf.contains("5 0 obj\n" + (end - start) + "\nendobj\n"));
+	}
+
+	@Test
+	public void shouldWriteThePdfCrossReferencesIndependentlyOfTheDefaultLocale() throws Exception {
+		Locale defaultLocale = Locale.getDefault();
+		try {
+			Locale.setDefault(Locale.forLanguageTag("ar-SA-u-nu-arab"));
+			assertCrossReferences(write(VectorFormat.PDF));
+		} finally {
+			Locale.setDefault(defaultLocale);
+		}
+	}
+
+	private static void assertCrossReferences(String pdf) {
+		// the cross-reference table has to point to the objects
+		int startxref = Integer.parseInt(pdf.substring(pdf.lastIndexOf("startxref\n") + 10, pdf.lastIndexOf("\n%%EOF")));
+		assertTrue(pdf.startsWith("xref\n0 6\n", startxref));
+		String[] entries = pdf.substring(startxref).split("\n");
+		for (int i = 1; i <= 5; i++) {
+			assertTrue(entries[2 + i].matches("\\d{10} 00000 n "), entries[2 + i]);
+			int offset = Integer.parseInt(entries[2 + i].substring(0, 10));
+			assertTrue(pdf.startsWith(i + " 0 obj\n", offset), "object " + i);
+		}
+	}
+
+	@Test
+	public void shouldWriteTheRasterAsEps() throws Exception {
+		String eps = write(VectorFormat.EPS);
+		assertTrue(eps.startsWith("%!PS-Adobe-3.0 EPSF-3.0\n"));
+		assertTrue(eps.contains("%%BoundingBox: 0 0 203 150\n"));
+		assertEquals(raster.getMatrix(), fromPostScriptRectangles(eps, EPS_RECTANGLE));
+	}
+
+	@Test
+	public void shouldFindTheFormatByExtension() {
+		assertEquals(VectorFormat.SVG, VectorFormat.forFile(new File("a.svg")));
+		assertEquals(VectorFormat.PDF, VectorFormat.forFile(new File("a.PDF")));
+		assertEquals(VectorFormat.EPS, VectorFormat.forFile(new File("a.b.eps")));
+		assertNull(VectorFormat.forFile(new File("a.png")));
+		assertNull(VectorFormat.forFile(new File("svg")));
+	}
+
+	@Test
+	public void shouldThrowOnIllegalModuleSize() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> {
+			VectorImage.forModuleSize(input, 0);
+		});
+	}
+
+	private String write(VectorFormat format) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		vectorImage.write(format, out);
+		return new String(out.toByteArray(), StandardCharsets.US_ASCII);
+	}
+
+	/**
+	 * Paints the rectangles, which have their origin at the bottom left
+	 * corner, into a matrix with the origin at the top left corner.
+	 */
+	private static BitMatrix fromPostScriptRectangles(String s, Pattern rectangle) {
+		int width = WIDTH;
+		int height = HEIGHT;
+		BitMatrix matrix = new BitMatrix(width, height);
+		Matcher m = rectangle.matcher(s);
+		while (m.find()) {
+			int x = Integer.parseInt(m.group(1));
+			int y = Integer.parseInt(m.group(2));
+			int w = Integer.parseInt(m.group(3));
+			int h = Integer.parseInt(m.group(4));
+			if (w == width && h == height) {
+				continue; // the background
+			}
+			matrix.setRegion(x, height - y - h, w, h);
+		}
+		return matrix;
+	}
+}
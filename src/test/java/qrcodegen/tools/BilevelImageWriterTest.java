@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.tools;
+
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import org.junit.jupiter.api.*;
+import qrcodegen.CodeSizeException;
+import qrcodegen.qrcode.renderer.Raster;
+import qrcodegen.tools.BilevelImageWriter.Filter;
+import qrcodegen.tools.BilevelImageWriter.Format;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Stefan Ganzer
+ */
+public class BilevelImageWriterTest {
+
+	public BilevelImageWriterTest() {
+	}
+
+	@BeforeAll
+	public static void setUpClass() {
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void shouldWriteAllFormatsAndFilters() throws IOException, CodeSizeException {
+		BufferedImage image = createQRCodeImage(new Random(5), 4);
+		for (Filter filter : Filter.values()) {
+			BilevelImageWriter writer = new BilevelImageWriter.Builder().filter(filter).deflateLevel(9).build();
+			assertImagesEqual(image, ImageIO.read(new ByteArrayInputStream(write(writer, image, Format.PNG))));
+		}
+		BilevelImageWriter writer = new BilevelImageWriter.Builder().build();
+		assertImagesEqual(image, ImageIO.read(new ByteArrayInputStream(write(writer, image, Format.GIF))));
+		assertImagesEqual(image, ImageIO.read(new ByteArrayInputStream(write(writer, image, Format.BMP))));
+	}
+
+	@Test
+	public void shouldWriteGifsThatExceedTheLzwTable() throws IOException {
+		// Random pixels fill the string table of 4096 codes several times
+		Random random = new Random(17);
+		BufferedImage image = new BufferedImage(333, 211, BufferedImage.TYPE_BYTE_BINARY);
+		for (int y = 0; y < image.getHeight(); y++) {
+			for (int x = 0; x < image.getWidth(); x++) {
+				image.setRGB(x, y, random.nextBoolean() ? 0xFF000000 : 0xFFFFFFFF);
+			}
+		}
+		byte[] gif = write(new BilevelImageWriter.Builder().build(), image, Format.GIF);
+		assertImagesEqual(image, ImageIO.read(new ByteArrayInputStream(gif)));
+	}
+
+	@Test
+	public void shouldWriteSmallerPngsThanImageIO() throws IOException, CodeSizeException {
+		BufferedImage image = createQRCodeImage(new Random(3), 8);
+		byte[] png = write(new BilevelImageWriter.Builder().build(), image, Format.PNG);
+
+		BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+		rgb.getGraphics().drawImage(image, 0, 0, null);
+		ByteArrayOutputStream imageIO = new ByteArrayOutputStream();
+		ImageIO.write(rgb, "png", imageIO);
+		assertTrue(png.length * 4 < imageIO.size(), png.length + " vs. " + imageIO.size());
+	}
+
+	@Test
+	public void shouldOnlyWriteOneBitImages() {
+		assertTrue(BilevelImageWriter.canWrite(new BufferedImage(9, 3, BufferedImage.TYPE_BYTE_BINARY)));
+		assertFalse(BilevelImageWriter.canWrite(new BufferedImage(9, 3, BufferedImage.TYPE_INT_RGB)));
+		assertFalse(BilevelImageWriter.canWrite(new BufferedImage(9, 3, BufferedImage.TYPE_BYTE_INDEXED)));
+		assertFalse(BilevelImageWriter.canWrite(new BufferedImage(16, 3, BufferedImage.TYPE_BYTE_BINARY).getSubimage(1, 0, 8, 3)));
+		Assertions.assertThrows(IllegalArgumentException.class, () -> {
+			write(new BilevelImageWriter.Builder().build(), new BufferedImage(9, 3, BufferedImage.TYPE_INT_RGB), Format.PNG);
+		});
+		Assertions.assertThrows(IllegalArgumentException.class, () -> {
+			new BilevelImageWriter.Builder().deflateLevel(10);
+		});
+	}
+
+	private static BufferedImage createQRCodeImage(Random random, int moduleSize) throws CodeSizeException {
+		ByteMatrix matrix = new ByteMatrix(37, 37);
+		for (int y = 0; y < matrix.getHeight(); y++) {
+			for (int x = 0; x < matrix.getWidth(); x++) {
+				matrix.set(x, y, random.nextInt(2));
+			}
+		}
+		return Raster.forModuleSize(matrix, moduleSize, new ImmutableDimension(10000, 10000)).toImage();
+	}
+
+	private static byte[] write(BilevelImageWriter writer, BufferedImage image, Format format) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writer.write(image, format, Channels.newChannel(out));
+		return out.toByteArray();
+	}
+
+	private static void assertImagesEqual(BufferedImage expected, BufferedImage actual) {
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		for (int y = 0; y < expected.getHeight(); y++) {
+			for (int x = 0; x < expected.getWidth(); x++) {
+				assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), x + ", " + y);
+			}
+		}
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2013 Stefan Ganzer
+ *
+ * This file is part of QRCodeGen.
+ *
+ * QRCodeGen is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * QRCodeGen is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package qrcodegen.tools;
+
+import org.junit.jupiter.api.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Stefan Ganzer
+ */
+public class CoalescingSchedulerTest {
+
+	public CoalescingSchedulerTest() {
+	}
+
+	@BeforeAll
+	public static void setUpClass() {
+	}
+
+	@AfterAll
+	public static void tearDownClass() {
+	}
+
+	@BeforeEach
+	public void setUp() {
+	}
+
+	@AfterEach
+	public void tearDown() {
+	}
+
+	@Test
+	public void shouldRunOnlyTheLatestActionOfABurst() throws InterruptedException {
+		CoalescingScheduler scheduler = new CoalescingScheduler(Executors.newScheduledThreadPool(1), 0, 1000, TimeUnit.MILLISECONDS);
+		scheduler.recordLatency(200, TimeUnit.MILLISECONDS);
+		final AtomicReference<String> last = new AtomicReference<String>();
+		final CountDownLatch first = new CountDownLatch(1);
+		final CountDownLatch second = new CountDownLatch(2);
+		try {
+			scheduler.submit(new Recorder("a", last, first, second));
+			assertTrue(first.await(5, TimeUnit.SECONDS));
+			assertEquals("a", last.get());
+
+			scheduler.submit(new Recorder("b", last, first, second));
+			scheduler.submit(new Recorder("c", last, first, second));
+			scheduler.submit(new Recorder("d", last, first, second));
+			assertTrue(second.await(5, TimeUnit.SECONDS));
+
+			assertEquals("d", last.get());
+			assertEquals(4, scheduler.getScheduledCount());
+			assertEquals(2, scheduler.getCoalescedCount());
+			assertEquals(2, scheduler.getExecutedCount());
+		} finally {
+			scheduler.shutdown();
+		}
+	}
+
+	@Test
+	public void everySubmitShouldPostponeTheRun() throws InterruptedException {
+		CoalescingScheduler scheduler = new CoalescingScheduler(Executors.newScheduledThreadPool(1), 100, 100, TimeUnit.MILLISECONDS);
+		final AtomicReference<String> last = new AtomicReference<String>();
+		final CountDownLatch first = new CountDownLatch(1);
+		final CountDownLatch second = new CountDownLatch(2);
+		try {
+			scheduler.submit(new Recorder("a", last, first, second));
+			assertTrue(first.await(5, TimeUnit.SECONDS));
+
+			scheduler.submit(new Recorder("b", last, first, second));
+			Thread.sleep(60);
+			scheduler.submit(new Recorder("c", last, first, second));
+			Thread.sleep(60);
+			long lastSubmit = System.nanoTime();
+			scheduler.submit(new Recorder("d", last, first, second));
+			assertTrue(second.await(5, TimeUnit.SECONDS));
+			long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastSubmit);
+
+			assertEquals("d", last.get());
+			assertTrue(elapsed >= 100, Long.toString(elapsed));
+			assertEquals(2, scheduler.getExecutedCount());
+		} finally {
+			scheduler.shutdown();
+		}
+	}
+
+	@Test
+	public void shouldIgnoreSubmitsRejectedByAConcurrentShutdown() {
+		ScheduledThreadPoolExecutor exec = new ScheduledThreadPoolExecutor(1) {
+			@Override
+			public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+				// as if shut down after the check in submit
+				throw new RejectedExecutionException();
+			}
+		};
+		CoalescingScheduler scheduler = new CoalescingScheduler(exec, 0, 100, TimeUnit.MILLISECONDS);
+		try {
+			scheduler.submit(new Recorder("a", new AtomicReference<String>()));
+			scheduler.submit(new Recorder("b", new AtomicReference<String>()));
+			assertEquals(0, scheduler.getExecutedCount());
+		} finally {
+			scheduler.shutdown();
+		}
+	}
+
+	@Test
+	public void windowShouldFollowTheLatency() {
+		CoalescingScheduler scheduler = new CoalescingScheduler(Executors.newScheduledThreadPool(1), 10, 1000, TimeUnit.MILLISECONDS);
+		try {
+			assertEquals(1000, scheduler.getWindow(TimeUnit.MILLISECONDS));
+			for (int i = 0; i < 10; i++) {
+				scheduler.recordLatency(20, TimeUnit.MILLISECONDS);
+			}
+			assertEquals(20, scheduler.getWindow(TimeUnit.MILLISECONDS));
+			assertEquals(20, scheduler.getLatencyPercentile(TimeUnit.MILLISECONDS));
+
+			// A single slow run raises the average, but not the percentile
+			scheduler.recordLatency(500, TimeUnit.MILLISECONDS);
+			assertEquals(20, scheduler.getLatencyPercentile(TimeUnit.MILLISECONDS));
+			long window = scheduler.getWindow(TimeUnit.MILLISECONDS);
+			assertTrue(window > 100 && window < 500, Long.toString(window));
+
+			scheduler.recordLatency(1, TimeUnit.MICROSECONDS);
+			assertTrue(scheduler.getWindow(TimeUnit.MILLISECONDS) >= 20);
+
+			for (int i = 0; i < 50; i++) {
+				scheduler.recordLatency(5, TimeUnit.SECONDS);
+			}
+			assertEquals(1000, scheduler.getWindow(TimeUnit.MILLISECONDS));
+		} finally {
+			scheduler.shutdown();
+		}
+	}
+
+	@Test
+	public void shouldThrowIfMaxWindowIsLowerThanMinWindow() {
+		Assertions.assertThrows(IllegalArgumentException.class, () -> {
+			new CoalescingScheduler(Executors.newScheduledThreadPool(1), 100, 10, TimeUnit.MILLISECONDS);
+		});
+	}
+
+	private static class Recorder implements Callable<Void> {
+
+		private final String name;
+		private final AtomicReference<String> last;
+		private final CountDownLatch[] latches;
+
+		Recorder(String name, AtomicReference<String> last, CountDownLatch... latches) {
+			this.name = name;
+			this.last = last;
+			this.latches = latches;
+		}
+
+		@Override
+		public Void call() {
+			last.set(name);
+			for (CountDownLatch l : latches) {
+				l.countDown();
+			}
+			return null;
+		}
+	}
+}
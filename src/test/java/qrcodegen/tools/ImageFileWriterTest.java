@@ -19,13 +19,18 @@
 package qrcodegen.tools;
 
 
+import com.google.zxing.qrcode.encoder.ByteMatrix;
 import org.junit.jupiter.api.*;
+import qrcodegen.qrcode.renderer.VectorImage;
 
+import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.awt.image.RenderedImage;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -103,6 +108,52 @@ public class ImageFileWriterTest {
 		assertNotEquals(0L, output.length());
 	}
 
+	@Test
+	public void shouldWriteOneBitImagesAsOneBitPNGFile() throws FileNotFoundException, IOException {
+		BufferedImage bilevel = new BufferedImage(40, 30, BufferedImage.TYPE_BYTE_BINARY);
+		bilevel.setRGB(3, 4, 0xFFFFFFFF);
+		File directory = Files.createTempDirectory("imageFileWriterTest").toFile();
+		output = new File(directory, "code.png");
+		try {
+			new ImageFileWriter(bilevel).toFile(output);
+			new ImageFileWriter(bilevel).toFile(output);
+
+			BufferedImage read = ImageIO.read(output);
+			assertEquals(1, read.getColorModel().getPixelSize());
+			assertEquals(0xFFFFFFFF, read.getRGB(3, 4));
+			assertEquals(0xFF000000, read.getRGB(4, 4));
+			// The temporary file has replaced the file
+			assertArrayEquals(new String[]{"code.png"}, directory.list());
+		} finally {
+			output.delete();
+			directory.delete();
+		}
+	}
+
+	@Test
+	public void shouldWriteTheVectorImageIfIsSVGFile() throws FileNotFoundException, IOException {
+		ByteMatrix matrix = new ByteMatrix(21, 21);
+		matrix.set(0, 0, 1);
+		writer = new ImageFileWriter(image, VectorImage.forModuleSize(matrix, 2));
+		output = File.createTempFile("imageFileWriterTest", ".svg", null);
+		output.deleteOnExit();
+
+		writer.toFile(output);
+
+		String svg = new String(Files.readAllBytes(output.toPath()), StandardCharsets.UTF_8);
+		assertTrue(svg.contains("<svg"));
+		assertTrue(svg.contains("M8 8h2v2h-2z"), svg);
+	}
+
+	@Test
+	public void shouldThrowIOExceptionForVectorExtensionWithoutVectorImage() throws FileNotFoundException, IOException {
+		output = File.createTempFile("imageFileWriterTest", ".pdf", null);
+		output.deleteOnExit();
+		Assertions.assertThrows(IOException.class, () -> {
+			writer.toFile(output);
+		});
+	}
+
 	@Test
 	public void shouldThrowNPEIfImageIsNull() {
 		Assertions.assertThrows(NullPointerException.class, () -> {